@@ -0,0 +1,236 @@
+package controller;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.events.GameEventPublisher;
+import model.game.Card;
+import model.game.Claim;
+import model.game.GameImpl;
+import model.game.Player;
+import model.game.RevolverImpl;
+import model.game.Round;
+import model.network.Room;
+import model.network.RoomImpl;
+import model.network.User;
+import model.network.UserImpl;
+import model.serialization.GameCodec;
+
+/**
+ * Compares the size and encode/decode throughput of {@link GameCodec} with a naive JSON baseline.
+ *
+ * The state measured is a four-player room a few claims into a game. The JSON baseline spells
+ * out every field by name, and its decode parses the text into maps and lists, which is the work
+ * a JSON library does before binding the result to objects; the binary decode rebuilds the room
+ * itself, so the comparison favours JSON.
+ *
+ * Usage: {@code CodecBenchmark [iterations]}
+ */
+public final class CodecBenchmark {
+  private static final int DEFAULT_ITERATIONS = 200_000;
+  private static final int ROUNDS = 5;
+  private static final int PLAYERS = 4;
+  private static final int CLAIMS = 3;
+
+  private CodecBenchmark() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+    GameEventPublisher eventPublisher = new GameEventPublisher();
+    Room room = createRoom(eventPublisher);
+
+    ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    GameCodec.encodeRoom(room, buffer);
+    int binaryBytes = buffer.position();
+    String json = toJson(room);
+    int jsonBytes = json.getBytes(StandardCharsets.UTF_8).length;
+    System.out.printf("size: binary %d bytes, json %d bytes (%.1fx)%n",
+        binaryBytes, jsonBytes, (double) jsonBytes / binaryBytes);
+
+    long sink = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        buffer.clear();
+        GameCodec.encodeRoom(room, buffer);
+      }
+      long binaryEncode = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        buffer.position(0).limit(binaryBytes);
+        sink += GameCodec.decodeRoom(buffer, eventPublisher).getMembers().size();
+      }
+      long binaryDecode = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        sink += toJson(room).getBytes(StandardCharsets.UTF_8).length;
+      }
+      long jsonEncode = System.nanoTime() - start;
+
+      byte[] jsonUtf8 = json.getBytes(StandardCharsets.UTF_8);
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        sink += ((Map<?, ?>) new JsonParser(new String(jsonUtf8, StandardCharsets.UTF_8)).parse()).size();
+      }
+      long jsonDecode = System.nanoTime() - start;
+
+      System.out.printf("round %d: binary encode %.0fk/s decode %.0fk/s, json encode %.0fk/s decode %.0fk/s%n",
+          round + 1, rate(iterations, binaryEncode), rate(iterations, binaryDecode),
+          rate(iterations, jsonEncode), rate(iterations, jsonDecode));
+    }
+    if (sink == 42) {
+      System.out.println();
+    }
+  }
+
+  private static double rate(int iterations, long nanos) {
+    return iterations * 1e6 / nanos;
+  }
+
+  /** Builds the measured room. Game setup prints to the console, which is silenced meanwhile. */
+  private static Room createRoom(GameEventPublisher eventPublisher) {
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    try {
+      Room room = new RoomImpl(eventPublisher);
+      for (int i = 0; i < PLAYERS; i++) {
+        room.addUser(new UserImpl("player" + i));
+      }
+      GameImpl.Builder builder = new GameImpl.Builder().withEventPublisher(eventPublisher);
+      for (User member : room.getMembers()) {
+        builder.addPlayer(member);
+      }
+      GameImpl game = (GameImpl) builder.build();
+      game.startGame();
+      room.setGame(game);
+      for (int i = 0; i < CLAIMS; i++) {
+        Player player = game.getCurrentPlayer();
+        List<Card> cards = new ArrayList<>(List.of(player.getHand().getAt(0)));
+        game.claim(player, cards.size(), cards, game.getRank());
+        game.moveToNextMove();
+      }
+      return room;
+    } finally {
+      System.setOut(out);
+    }
+  }
+
+  private static String toJson(Room room) {
+    StringBuilder json = new StringBuilder(2048);
+    json.append("{\"id\":\"").append(room.getId()).append("\",\"members\":[");
+    List<User> members = room.getMembers();
+    for (int i = 0; i < members.size(); i++) {
+      User member = members.get(i);
+      json.append(i == 0 ? "" : ",").append("{\"id\":\"").append(member.getId())
+          .append("\",\"name\":\"").append(member.getName())
+          .append("\",\"alive\":").append(member.isAlive()).append('}');
+    }
+    GameImpl game = (GameImpl) room.getGame();
+    json.append("],\"game\":{\"players\":[");
+    List<Player> players = game.getPlayers();
+    for (int i = 0; i < players.size(); i++) {
+      Player player = players.get(i);
+      json.append(i == 0 ? "" : ",").append("{\"id\":\"").append(player.getId()).append("\",\"hand\":[");
+      for (int card = 0; card < player.getHand().getSize(); card++) {
+        json.append(card == 0 ? "\"" : ",\"").append(player.getHand().getAt(card).getRank()).append('"');
+      }
+      json.append("],\"revolver\":{\"bullet\":").append(((RevolverImpl) player.getRevolver()).getBulletIndex())
+          .append(",\"chamber\":").append(player.getRevolver().getCurrentIndex()).append("}}");
+    }
+    json.append("],\"deck\":[");
+    List<Card> deck = game.getDeck().getCards();
+    for (int i = 0; i < deck.size(); i++) {
+      json.append(i == 0 ? "\"" : ",\"").append(deck.get(i).getRank()).append('"');
+    }
+    json.append("],\"rank\":\"").append(game.getRank()).append("\",\"rounds\":[");
+    List<Round> rounds = game.getRounds();
+    for (int i = 0; i < rounds.size(); i++) {
+      Round round = rounds.get(i);
+      json.append(i == 0 ? "" : ",").append("{\"rank\":\"").append(round.getRank()).append("\",\"claims\":[");
+      List<Claim> claims = round.getAllClaims();
+      for (int claim = 0; claim < claims.size(); claim++) {
+        Claim c = claims.get(claim);
+        json.append(claim == 0 ? "" : ",").append("{\"player\":\"").append(c.getPlayer().getId())
+            .append("\",\"count\":").append(c.getCount()).append(",\"settled\":").append(c.isSettled()).append('}');
+      }
+      json.append("]}");
+    }
+    return json.append("]}}").toString();
+  }
+
+  /**
+   * Minimal recursive-descent parser for the JSON written above: objects, arrays, strings without
+   * escapes, integers and booleans.
+   */
+  private static final class JsonParser {
+    private final String text;
+    private int at;
+
+    private JsonParser(String text) {
+      this.text = text;
+    }
+
+    private Object parse() {
+      char c = this.text.charAt(this.at);
+      switch (c) {
+        case '{': {
+          Map<String, Object> object = new HashMap<>();
+          this.at++;
+          while (this.text.charAt(this.at) != '}') {
+            String key = parseString();
+            this.at++; // ':'
+            object.put(key, parse());
+            if (this.text.charAt(this.at) == ',') {
+              this.at++;
+            }
+          }
+          this.at++;
+          return object;
+        }
+        case '[': {
+          List<Object> array = new ArrayList<>();
+          this.at++;
+          while (this.text.charAt(this.at) != ']') {
+            array.add(parse());
+            if (this.text.charAt(this.at) == ',') {
+              this.at++;
+            }
+          }
+          this.at++;
+          return array;
+        }
+        case '"':
+          return parseString();
+        case 't':
+          this.at += 4;
+          return Boolean.TRUE;
+        case 'f':
+          this.at += 5;
+          return Boolean.FALSE;
+        default: {
+          int start = this.at;
+          while (this.at < this.text.length() && (this.text.charAt(this.at) == '-' || Character.isDigit(this.text.charAt(this.at)))) {
+            this.at++;
+          }
+          return Long.parseLong(this.text, start, this.at, 10);
+        }
+      }
+    }
+
+    private String parseString() {
+      int start = ++this.at;
+      this.at = this.text.indexOf('"', start);
+      return this.text.substring(start, this.at++);
+    }
+  }
+}
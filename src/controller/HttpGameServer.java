@@ -0,0 +1,374 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import model.actions.ActionResult;
+import model.actions.GameCommand;
+import model.broadcast.ProjectionCache;
+import model.exceptions.InvalidSessionException;
+import model.exceptions.RoomFullException;
+import model.game.Game;
+import model.game.GameState;
+import model.game.Player;
+import model.game.Rank;
+import model.network.Room;
+import model.network.RoomRegistry;
+import model.network.User;
+import model.network.UserImpl;
+import model.persistence.RecoveryManager;
+import model.serialization.JsonEventWriter;
+import model.session.Session;
+import model.session.SessionManager;
+
+/**
+ * HTTP API for playing games, on the JDK's built-in HTTP server. Changes go through the {@link
+ * RecoveryManager}, so they are durable before a response is sent.
+ *
+ * <pre>
+ * POST   /rooms                                  create a room
+ * GET    /rooms/{id}                             room and its members
+ * DELETE /rooms/{id}                             close a room
+ * POST   /rooms/{id}/users?name=N                join as a new user and get a session token
+ * POST   /rooms/{id}/game                        deal a game to the members; 409 while one is running
+ * GET    /rooms/{id}/state?token=T               current game state, with the caller's hand if T given
+ * POST   /rooms/{id}/claim?token=T&amp;cards=0,2     claim the cards at those hand positions
+ * POST   /rooms/{id}/challenge?token=T           challenge the last claim
+ * POST   /rooms/{id}/shoot?token=T               pull the trigger
+ * </pre>
+ *
+ * Moves are made for the seat of the session whose token is given, so a client can only play
+ * its own hand. A token that is unknown, expired or for another room is answered with 401.
+ * Parameters come from the query string or a form-encoded body. Responses are JSON written into a
+ * per-thread {@link JsonEventWriter} and sent straight from its buffer with a fixed length.
+ */
+public class HttpGameServer implements Closeable {
+  private static final String ROOMS = "/rooms";
+  private static final String JSON = "application/json";
+  private static final int BACKLOG = 4096;
+  private static final int MAX_BODY_BYTES = 4096;
+  private static final int MAX_IDLE_CONNECTIONS = 1 << 16;
+  private static final ThreadLocal<JsonEventWriter> WRITERS = ThreadLocal.withInitial(JsonEventWriter::new);
+
+  static {
+    // See MetricsServer: without it small responses wait for the delayed-ACK timer
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+    // The server closes keep-alive connections beyond this many idle ones, 200 by default, which
+    // makes every client past the first few hundred reconnect between requests
+    if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+      System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+    }
+  }
+
+  private final RecoveryManager manager;
+  private final RoomRegistry registry;
+  private final SessionManager sessions;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Binds the API and starts serving.
+   * @param address address to listen on; port 0 picks a free port.
+   * @param manager manager applying and persisting changes.
+   * @param registry registry the manager keeps its rooms in.
+   * @param sessions issues the tokens that identify players.
+   * @param threads number of request threads; requests that change state wait for an fsync, so
+   *     this bounds how many can share a group commit.
+   * @throws IOException if the address cannot be bound.
+   */
+  public HttpGameServer(InetSocketAddress address, RecoveryManager manager, RoomRegistry registry,
+      SessionManager sessions, int threads) throws IOException {
+    this.manager = manager;
+    this.registry = registry;
+    this.sessions = sessions;
+    this.server = HttpServer.create(address, BACKLOG);
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "http-api");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.server.setExecutor(this.executor);
+    this.server.createContext(ROOMS, this::handle);
+    this.server.start();
+  }
+
+  /**
+   * Getter for the port being listened on.
+   * @return the bound port.
+   */
+  public int getPort() {
+    return this.server.getAddress().getPort();
+  }
+
+  @Override
+  public void close() {
+    this.server.stop(0);
+    this.executor.shutdown();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    JsonEventWriter json = WRITERS.get();
+    json.reset();
+    int status;
+    try {
+      status = route(exchange, json);
+    } catch (InvalidSessionException e) {
+      status = error(json, 401, e);
+    } catch (IllegalArgumentException e) {
+      status = error(json, e.getMessage() != null && e.getMessage().startsWith("No room") ? 404 : 400, e);
+    } catch (IllegalStateException | RoomFullException e) {
+      status = error(json, 409, e);
+    } catch (RuntimeException e) {
+      status = error(json, 500, e);
+    }
+    send(exchange, status, json);
+  }
+
+  private int route(HttpExchange exchange, JsonEventWriter json) throws IOException {
+    String method = exchange.getRequestMethod();
+    String[] path = exchange.getRequestURI().getPath().substring(ROOMS.length()).split("/");
+    // path[0] is empty; path[1] is the room id and path[2] the resource, when present
+    if (path.length <= 1) {
+      if (!"POST".equals(method)) {
+        return methodNotAllowed(json, "POST");
+      }
+      Room room = this.manager.createRoom();
+      json.beginObject().name("roomId").value(room.getId()).endObject();
+      return 201;
+    }
+
+    String roomId = path[1];
+    String resource = path.length > 2 ? path[2] : "";
+    Map<String, String> params = params(exchange);
+    switch (resource) {
+      case "":
+        if ("DELETE".equals(method)) {
+          this.manager.closeRoom(roomId);
+          return 204;
+        }
+        if (!"GET".equals(method)) {
+          return methodNotAllowed(json, "GET");
+        }
+        writeRoom(json, getRoom(roomId));
+        return 200;
+      case "users": {
+        if (!"POST".equals(method)) {
+          return methodNotAllowed(json, "POST");
+        }
+        User user = new UserImpl(required(params, "name"));
+        this.manager.addUser(roomId, user);
+        Session session = this.sessions.open(roomId, user.getId());
+        json.beginObject().name("userId").value(user.getId())
+            .name("seat").value(getRoom(roomId).getMembers().indexOf(user))
+            .name("token").value(session.getToken()).endObject();
+        return 201;
+      }
+      case "game":
+        if (!"POST".equals(method)) {
+          return methodNotAllowed(json, "POST");
+        }
+        this.manager.startGame(roomId);
+        writeState(json, roomId, params);
+        return 201;
+      case "state":
+        if (!"GET".equals(method)) {
+          return methodNotAllowed(json, "GET");
+        }
+        writeState(json, roomId, params);
+        return 200;
+      case "claim":
+        if (!"POST".equals(method)) {
+          return methodNotAllowed(json, "POST");
+        }
+        return execute(json, roomId, GameCommand.claim(seat(roomId, params), cardIndices(required(params, "cards"))));
+      case "challenge":
+        if (!"POST".equals(method)) {
+          return methodNotAllowed(json, "POST");
+        }
+        return execute(json, roomId, GameCommand.challenge(seat(roomId, params)));
+      case "shoot":
+        if (!"POST".equals(method)) {
+          return methodNotAllowed(json, "POST");
+        }
+        return execute(json, roomId, GameCommand.shoot(seat(roomId, params)));
+      default:
+        json.beginObject().name("error").value("Unknown resource " + resource).endObject();
+        return 404;
+    }
+  }
+
+  private int execute(JsonEventWriter json, String roomId, GameCommand command) {
+    ActionResult result = this.manager.execute(roomId, command);
+    json.beginObject().name("success").value(result.isSuccess())
+        .name("message").value(result.getMessage()).endObject();
+    return result.isSuccess() ? 200 : 409;
+  }
+
+  private Room getRoom(String roomId) {
+    Room room = this.registry.getRoom(roomId);
+    if (room == null) {
+      throw new IllegalArgumentException("No room with id " + roomId);
+    }
+    return room;
+  }
+
+  /** Writes the game state, with the hand of the caller if a token is given. */
+  private void writeState(JsonEventWriter json, String roomId, Map<String, String> params) {
+    String userId = params.containsKey("token") ? session(roomId, params).getUserId() : null;
+    Room room = getRoom(roomId);
+    GameState state;
+    Rank[] hand = null;
+    // The snapshot and the copied hand are immutable, so only taking them needs the room's lock
+    synchronized (room) {
+      Game game = room.getGame();
+      if (game == null) {
+        throw new IllegalStateException("No game in progress");
+      }
+      state = game.getGameState();
+      int seat = userId == null ? -1 : seatOf(state.getPlayers(), userId);
+      if (seat >= 0) {
+        hand = ProjectionCache.captureHands(state.getPlayers())[seat];
+      }
+    }
+    json.writeState(state, hand);
+  }
+
+  /** Looks up the session of a request, which must belong to the room. */
+  private Session session(String roomId, Map<String, String> params) {
+    Session session = this.sessions.getSession(required(params, "token"));
+    if (!session.getRoomId().equals(roomId)) {
+      throw new InvalidSessionException("Session is not for room " + roomId);
+    }
+    return session;
+  }
+
+  /** Seat in the room's game of the user whose session made the request. */
+  private int seat(String roomId, Map<String, String> params) {
+    String userId = session(roomId, params).getUserId();
+    Room room = getRoom(roomId);
+    synchronized (room) {
+      Game game = room.getGame();
+      if (game == null) {
+        throw new IllegalStateException("No game in progress");
+      }
+      int seat = seatOf(game.getGameState().getPlayers(), userId);
+      if (seat < 0) {
+        throw new IllegalStateException("User " + userId + " is not playing in room " + roomId);
+      }
+      return seat;
+    }
+  }
+
+  private static int seatOf(List<Player> players, String userId) {
+    for (int seat = 0; seat < players.size(); seat++) {
+      if (players.get(seat).getId().equals(userId)) {
+        return seat;
+      }
+    }
+    return -1;
+  }
+
+  private static void writeRoom(JsonEventWriter json, Room room) {
+    List<User> members;
+    boolean playing;
+    synchronized (room) {
+      members = room.getMembers();
+      playing = room.getGame() != null;
+    }
+    json.beginObject().name("id").value(room.getId()).name("capacity").value(room.getCapacity())
+        .name("playing").value(playing).name("members").beginArray();
+    for (User member : members) {
+      json.beginObject().name("id").value(member.getId()).name("name").value(member.getName()).endObject();
+    }
+    json.endArray().endObject();
+  }
+
+  private static int error(JsonEventWriter json, int status, RuntimeException e) {
+    json.reset();
+    json.beginObject().name("error").value(String.valueOf(e.getMessage())).endObject();
+    return status;
+  }
+
+  private static void send(HttpExchange exchange, int status, JsonEventWriter json) throws IOException {
+    try (exchange) {
+      if (status == 204) {
+        exchange.sendResponseHeaders(status, -1);
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", JSON);
+      exchange.sendResponseHeaders(status, json.size());
+      OutputStream out = exchange.getResponseBody();
+      out.write(json.getBuffer(), 0, json.size());
+      out.close();
+    }
+  }
+
+  private static int methodNotAllowed(JsonEventWriter json, String allowed) {
+    json.beginObject().name("error").value("Use " + allowed).endObject();
+    return 405;
+  }
+
+  private static Map<String, String> params(HttpExchange exchange) throws IOException {
+    Map<String, String> params = new HashMap<>();
+    parseForm(exchange.getRequestURI().getRawQuery(), params);
+    String type = exchange.getRequestHeaders().getFirst("Content-Type");
+    if (type != null && type.startsWith("application/x-www-form-urlencoded")) {
+      try (InputStream in = exchange.getRequestBody()) {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+          throw new IllegalArgumentException("Request body too large");
+        }
+        parseForm(new String(body, StandardCharsets.UTF_8), params);
+      }
+    }
+    return params;
+  }
+
+  private static void parseForm(String form, Map<String, String> params) {
+    if (form == null || form.isEmpty()) {
+      return;
+    }
+    for (String pair : form.split("&")) {
+      int equals = pair.indexOf('=');
+      String key = equals < 0 ? pair : pair.substring(0, equals);
+      String value = equals < 0 ? "" : pair.substring(equals + 1);
+      params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+  }
+
+  private static String required(Map<String, String> params, String name) {
+    String value = params.get(name);
+    if (value == null || value.isEmpty()) {
+      throw new IllegalArgumentException("Missing parameter " + name);
+    }
+    return value;
+  }
+
+  private static int[] cardIndices(String cards) {
+    String[] parts = cards.split(",");
+    int[] indices = new int[parts.length];
+    try {
+      for (int i = 0; i < parts.length; i++) {
+        indices[i] = Integer.parseInt(parts[i].trim());
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Cards must be comma-separated hand positions");
+    }
+    return indices;
+  }
+}
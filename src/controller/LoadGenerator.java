@@ -0,0 +1,294 @@
+package controller;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load generator for {@link HttpGameServer}.
+ *
+ * Each simulated client holds one keep-alive connection and sends its next request as soon as
+ * the previous response arrives, so the number of clients is the number of requests in flight.
+ * One selector thread drives every connection. Clients share rooms four to a room; nine requests
+ * in ten read the game state and the tenth tries a shot with a random player's session token, which
+ * is applied and fsynced when it is that player's turn and rejected otherwise.
+ *
+ * Usage: {@code LoadGenerator host port clients seconds}
+ */
+public final class LoadGenerator {
+  private static final int CLIENTS_PER_ROOM = 4;
+  private static final int PLAYERS_PER_ROOM = 3;
+  private static final int SETUP_THREADS = 32;
+  private static final int MAX_PENDING_CONNECTS = 256;
+  private static final int WARMUP_SECONDS = 3;
+  private static final int BUFFER_BYTES = 8 * 1024;
+  private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+  private final InetSocketAddress address;
+  private final int clients;
+  private long[] latencies = new long[1 << 20];
+  private int samples;
+  private int errors;
+  private int disconnects;
+
+  private LoadGenerator(InetSocketAddress address, int clients) {
+    this.address = address;
+    this.clients = clients;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4) {
+      System.err.println("Usage: LoadGenerator host port clients seconds");
+      return;
+    }
+    InetSocketAddress address = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+    int clients = Integer.parseInt(args[2]);
+    int seconds = Integer.parseInt(args[3]);
+
+    LoadGenerator generator = new LoadGenerator(address, clients);
+    List<RoomSetup> rooms = generator.createRooms((clients + CLIENTS_PER_ROOM - 1) / CLIENTS_PER_ROOM);
+    generator.run(rooms, seconds);
+  }
+
+  private List<RoomSetup> createRooms(int count) throws Exception {
+    HttpClient http = HttpClient.newHttpClient();
+    String base = "http://" + this.address.getHostString() + ":" + this.address.getPort() + "/rooms";
+    ExecutorService pool = Executors.newFixedThreadPool(SETUP_THREADS);
+    try {
+      List<Future<RoomSetup>> futures = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        futures.add(pool.submit(() -> {
+          String roomId = field(post(http, base), "roomId");
+          String[] tokens = new String[PLAYERS_PER_ROOM];
+          for (int player = 0; player < PLAYERS_PER_ROOM; player++) {
+            tokens[player] = field(post(http, base + "/" + roomId + "/users?name=load" + player), "token");
+          }
+          post(http, base + "/" + roomId + "/game");
+          return new RoomSetup(roomId, tokens);
+        }));
+      }
+      List<RoomSetup> rooms = new ArrayList<>(count);
+      for (Future<RoomSetup> future : futures) {
+        rooms.add(future.get());
+      }
+      return rooms;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /** Reads a string field of a flat JSON response. */
+  private static String field(String body, String name) {
+    String key = "\"" + name + "\":\"";
+    int start = body.indexOf(key) + key.length();
+    return body.substring(start, body.indexOf('"', start));
+  }
+
+  private static String post(HttpClient http, String url) throws IOException, InterruptedException {
+    HttpResponse<String> response = http.send(
+        HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.noBody()).build(),
+        HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() >= 300) {
+      throw new IOException("POST " + url + " failed with " + response.statusCode() + ": " + response.body());
+    }
+    return response.body();
+  }
+
+  private void run(List<RoomSetup> rooms, int seconds) throws IOException {
+    Random random = new Random(42);
+    Selector selector = Selector.open();
+    int opened = 0;
+    int pendingConnects = 0;
+    int connected = 0;
+    long now = System.nanoTime();
+    long measureFrom = Long.MAX_VALUE;
+    long measureUntil = Long.MAX_VALUE;
+
+    while (now < measureUntil) {
+      while (opened < this.clients && pendingConnects < MAX_PENDING_CONNECTS) {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+        Client client = new Client(channel, rooms.get(opened % rooms.size()), this.address.getHostString());
+        channel.connect(this.address);
+        channel.register(selector, SelectionKey.OP_CONNECT, client);
+        opened++;
+        pendingConnects++;
+      }
+      if (connected == this.clients && measureFrom == Long.MAX_VALUE) {
+        measureFrom = now + WARMUP_SECONDS * 1_000_000_000L;
+        measureUntil = measureFrom + seconds * 1_000_000_000L;
+        System.out.printf("%d clients connected, warming up%n", connected);
+      }
+
+      selector.select(100);
+      now = System.nanoTime();
+      Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        Client client = (Client) key.attachment();
+        try {
+          if (key.isConnectable()) {
+            client.channel.finishConnect();
+            pendingConnects--;
+            connected++;
+            client.send(random, now);
+            key.interestOps(SelectionKey.OP_READ);
+          } else if (key.isReadable()) {
+            int status = client.read();
+            if (status > 0) {
+              if (now >= measureFrom) {
+                record(now - client.sentAt, status);
+              }
+              client.send(random, now);
+            }
+          }
+        } catch (IOException e) {
+          if (key.isConnectable()) {
+            pendingConnects--;
+          }
+          key.cancel();
+          client.channel.close();
+          this.disconnects++;
+        }
+      }
+    }
+    selector.close();
+    report(seconds);
+  }
+
+  private void record(long latency, int status) {
+    if (status >= 400 && status != 409) {
+      this.errors++;
+    }
+    if (this.samples == this.latencies.length) {
+      this.latencies = Arrays.copyOf(this.latencies, this.samples * 2);
+    }
+    this.latencies[this.samples++] = latency;
+  }
+
+  private void report(int seconds) {
+    long[] sorted = Arrays.copyOf(this.latencies, this.samples);
+    Arrays.sort(sorted);
+    System.out.printf("clients %d: %.0f req/s, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms, errors %d, disconnects %d%n",
+        this.clients, (double) this.samples / seconds, percentile(sorted, 0.5), percentile(sorted, 0.99),
+        percentile(sorted, 0.999), percentile(sorted, 1), this.errors, this.disconnects);
+  }
+
+  private static double percentile(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    return sorted[(int) Math.min(sorted.length - 1, p * sorted.length)] / 1e6;
+  }
+
+  /**
+   * A room set up for the run and the session tokens of its players, in seat order.
+   */
+  private static class RoomSetup {
+    private final String roomId;
+    private final String[] tokens;
+
+    private RoomSetup(String roomId, String[] tokens) {
+      this.roomId = roomId;
+      this.tokens = tokens;
+    }
+  }
+
+  /**
+   * One keep-alive connection and its request in flight.
+   */
+  private static class Client {
+    private final SocketChannel channel;
+    private final byte[] stateRequest;
+    private final byte[][] shootRequests = new byte[PLAYERS_PER_ROOM][];
+    private final ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+    private long sentAt;
+
+    private Client(SocketChannel channel, RoomSetup room, String host) {
+      this.channel = channel;
+      this.stateRequest = request("GET", "/rooms/" + room.roomId + "/state", host);
+      for (int seat = 0; seat < PLAYERS_PER_ROOM; seat++) {
+        this.shootRequests[seat] = request("POST", "/rooms/" + room.roomId + "/shoot?token=" + room.tokens[seat], host);
+      }
+    }
+
+    private void send(Random random, long now) throws IOException {
+      byte[] request = random.nextInt(10) == 0
+          ? this.shootRequests[random.nextInt(PLAYERS_PER_ROOM)]
+          : this.stateRequest;
+      ByteBuffer out = ByteBuffer.wrap(request);
+      while (out.hasRemaining()) {
+        this.channel.write(out); // requests are tiny and the socket buffer is empty
+      }
+      this.sentAt = now;
+    }
+
+    /**
+     * Reads what has arrived.
+     * @return the response status once a whole response is in, otherwise 0.
+     */
+    private int read() throws IOException {
+      if (this.channel.read(this.in) < 0) {
+        throw new IOException("Connection closed by server");
+      }
+      byte[] data = this.in.array();
+      int length = this.in.position();
+      int headerEnd = indexOf(data, length, HEADER_END);
+      if (headerEnd < 0) {
+        return 0;
+      }
+      String headers = new String(data, 0, headerEnd, StandardCharsets.ISO_8859_1);
+      int bodyLength = contentLength(headers);
+      if (length < headerEnd + HEADER_END.length + bodyLength) {
+        return 0;
+      }
+      this.in.clear();
+      return Integer.parseInt(headers.substring(9, 12));
+    }
+
+    private static int contentLength(String headers) {
+      int index = headers.toLowerCase().indexOf("content-length:");
+      if (index < 0) {
+        return 0;
+      }
+      int end = headers.indexOf('\r', index);
+      return Integer.parseInt(headers.substring(index + 15, end < 0 ? headers.length() : end).trim());
+    }
+
+    private static int indexOf(byte[] data, int length, byte[] pattern) {
+      outer:
+      for (int i = 0; i + pattern.length <= length; i++) {
+        for (int j = 0; j < pattern.length; j++) {
+          if (data[i + j] != pattern[j]) {
+            continue outer;
+          }
+        }
+        return i;
+      }
+      return -1;
+    }
+
+    private static byte[] request(String method, String path, String host) {
+      return (method + " " + path + " HTTP/1.1\r\nHost: " + host + "\r\nContent-Length: 0\r\n\r\n")
+          .getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+}
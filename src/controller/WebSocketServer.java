@@ -0,0 +1,701 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.broadcast.SpectatorService;
+import model.broadcast.SpectatorSink;
+import model.broadcast.Subscription;
+import model.events.GameEvent;
+import model.events.GameEventListener;
+import model.events.GameEventPublisher;
+import model.network.Room;
+import model.network.RoomRegistry;
+import model.serialization.JsonEventWriter;
+
+/**
+ * WebSocket endpoint for watching rooms live, on raw NIO with a single selector thread.
+ *
+ * A client upgrades {@code GET /rooms/{id}/live} and is then sent every {@link GameEvent} of the
+ * room as a JSON text frame, and the public game state as binary STATE and STATE_DELTA frames from
+ * the {@link SpectatorService}, starting with a full state. Each event is encoded and framed once
+ * per room and the same bytes are queued for every watcher. Clients need not send anything; pings
+ * are answered and other data frames are ignored.
+ *
+ * Frames are queued on the connection by whichever thread produced them, and the selector thread
+ * writes everything queued for a connection with one gathering write. A connection whose queue is
+ * over the limit is handled by the {@link SlowConsumerPolicy}. An idle connection holds no
+ * buffers, so a node can keep as many open as it has file descriptors.
+ */
+public class WebSocketServer implements Closeable {
+  /**
+   * What to do with a connection that is not reading its frames fast enough.
+   */
+  public enum SlowConsumerPolicy {
+    /**
+     * Drop frames that do not fit in the queue. Dropped events are lost; the state catches up
+     * with a full STATE frame once the queue has drained to half the limit.
+     */
+    DROP,
+    /** Close the connection with status 1008 as soon as a frame does not fit. */
+    DISCONNECT
+  }
+
+  private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+  private static final String PATH_PREFIX = "/rooms/";
+  private static final String PATH_SUFFIX = "/live";
+  private static final int BACKLOG = 4096;
+  private static final int READ_BUFFER_BYTES = 16 * 1024;
+  private static final int MAX_HANDSHAKE_BYTES = 4096;
+  private static final int MAX_CLIENT_FRAME_BYTES = 1024;
+  private static final int MAX_GATHER = 64;
+  private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+  private static final int OP_TEXT = 0x1;
+  private static final int OP_BINARY = 0x2;
+  private static final int OP_CLOSE = 0x8;
+  private static final int OP_PING = 0x9;
+  private static final int OP_PONG = 0xA;
+  private static final int CLOSE_GOING_AWAY = 1001;
+  private static final int CLOSE_PROTOCOL_ERROR = 1002;
+  private static final int CLOSE_POLICY_VIOLATION = 1008;
+  private static final int CLOSE_TOO_BIG = 1009;
+
+  private final RoomRegistry registry;
+  private final SpectatorService spectators;
+  private final SlowConsumerPolicy policy;
+  private final int queueLimit;
+  private final ServerSocketChannel server;
+  private final Selector selector;
+  private final Thread thread;
+  private final Map<String, RoomStream> streams = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<Connection> flushes = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean wakeupPending = new AtomicBoolean();
+  private final AtomicInteger connections = new AtomicInteger();
+  private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+  private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+  private volatile boolean closed;
+
+  /**
+   * Binds the endpoint and starts serving.
+   * @param address address to listen on; port 0 picks a free port.
+   * @param registry registry to look rooms up in.
+   * @param spectators service streaming room state; it must be registered as a room listener.
+   * @param policy what to do with connections whose queue is full.
+   * @param queueLimit most bytes queued on one connection.
+   * @throws IOException if the address cannot be bound.
+   */
+  public WebSocketServer(InetSocketAddress address, RoomRegistry registry, SpectatorService spectators,
+      SlowConsumerPolicy policy, int queueLimit) throws IOException {
+    if (queueLimit <= 0) {
+      throw new IllegalArgumentException("Queue limit must be positive: " + queueLimit);
+    }
+    this.registry = registry;
+    this.spectators = spectators;
+    this.policy = policy;
+    this.queueLimit = queueLimit;
+    this.selector = Selector.open();
+    this.server = ServerSocketChannel.open();
+    this.server.bind(address, BACKLOG);
+    this.server.configureBlocking(false);
+    this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+    this.thread = new Thread(this::run, "websocket");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Getter for the port being listened on.
+   * @return the bound port.
+   */
+  public int getPort() {
+    return this.server.socket().getLocalPort();
+  }
+
+  /**
+   * Getter for the number of open connections, including ones still handshaking.
+   * @return open connections.
+   */
+  public int getConnectionCount() {
+    return this.connections.get();
+  }
+
+  @Override
+  public void close() {
+    this.closed = true;
+    this.selector.wakeup();
+    try {
+      this.thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    try {
+      while (!this.closed) {
+        this.selector.select();
+        this.wakeupPending.set(false);
+
+        Connection pending;
+        while ((pending = this.flushes.poll()) != null) {
+          pending.write();
+        }
+
+        Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept();
+            continue;
+          }
+          Connection connection = (Connection) key.attachment();
+          if (key.isWritable()) {
+            connection.write();
+          }
+          if (key.isValid() && key.isReadable()) {
+            connection.read();
+          }
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("WebSocket selector failed: " + e.getMessage());
+    } finally {
+      for (SelectionKey key : this.selector.keys()) {
+        if (key.attachment() instanceof Connection) {
+          ((Connection) key.attachment()).terminate();
+        }
+      }
+      try {
+        this.server.close();
+        this.selector.close();
+      } catch (IOException e) {
+        System.err.println("Error closing WebSocket server: " + e.getMessage());
+      }
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = this.server.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true); // writes are already coalesced
+      Connection connection = new Connection(channel);
+      connection.key = channel.register(this.selector, SelectionKey.OP_READ, connection);
+      this.connections.incrementAndGet();
+    }
+  }
+
+  private void scheduleFlush(Connection connection) {
+    this.flushes.add(connection);
+    if (this.wakeupPending.compareAndSet(false, true)) {
+      this.selector.wakeup();
+    }
+  }
+
+  /**
+   * Watches a room to get on it. Returns null if the stream was retired meanwhile.
+   */
+  private RoomStream join(Room room, Connection connection) {
+    while (true) {
+      RoomStream stream = this.streams.computeIfAbsent(room.getId(), id -> new RoomStream(room));
+      if (stream.add(connection)) {
+        return stream;
+      }
+    }
+  }
+
+  private static ByteBuffer header(int opcode, int length) {
+    ByteBuffer header = ByteBuffer.allocate(length < 126 ? 2 : length < 65536 ? 4 : 10);
+    header.put((byte) (0x80 | opcode));
+    if (length < 126) {
+      header.put((byte) length);
+    } else if (length < 65536) {
+      header.put((byte) 126).putShort((short) length);
+    } else {
+      header.put((byte) 127).putLong(length);
+    }
+    return header.flip();
+  }
+
+  private static ByteBuffer closeFrame(int status) {
+    ByteBuffer frame = ByteBuffer.allocate(4);
+    frame.put((byte) (0x80 | OP_CLOSE)).put((byte) 2).putShort((short) status);
+    return frame.flip();
+  }
+
+  private static ByteBuffer ascii(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static String acceptKey(String key) {
+    try {
+      MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+      byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not available", e);
+    }
+  }
+
+  private static int indexOf(ByteBuffer data, byte[] pattern) {
+    outer:
+    for (int i = data.position(); i + pattern.length <= data.limit(); i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (data.get(i + j) != pattern[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Connections watching one room, fed from the room's event publisher.
+   */
+  private class RoomStream implements GameEventListener {
+    private final String roomId;
+    private final GameEventPublisher publisher;
+    private final Set<Connection> watchers = ConcurrentHashMap.newKeySet();
+    private final JsonEventWriter json = new JsonEventWriter();
+    private boolean retired; // guarded by this
+
+    private RoomStream(Room room) {
+      this.roomId = room.getId();
+      this.publisher = room.getEventPublisher();
+      if (this.publisher != null) {
+        this.publisher.addListener(this);
+      }
+    }
+
+    private synchronized boolean add(Connection connection) {
+      if (this.retired) {
+        return false;
+      }
+      this.watchers.add(connection);
+      return true;
+    }
+
+    private void remove(Connection connection) {
+      synchronized (this) {
+        this.watchers.remove(connection);
+        if (!this.watchers.isEmpty() || this.retired) {
+          return;
+        }
+        this.retired = true;
+      }
+      if (this.publisher != null) {
+        this.publisher.removeListener(this);
+      }
+      streams.remove(this.roomId, this);
+    }
+
+    /** Events are published under the room's lock, so they arrive here in order. */
+    @Override
+    public void onGameEvent(GameEvent event) {
+      ByteBuffer frame;
+      synchronized (this.json) {
+        this.json.reset();
+        this.json.writeEvent(event);
+        ByteBuffer header = header(OP_TEXT, this.json.size());
+        ByteBuffer bytes = ByteBuffer.allocate(header.remaining() + this.json.size());
+        bytes.put(header).put(this.json.getBuffer(), 0, this.json.size()).flip();
+        frame = bytes.asReadOnlyBuffer();
+      }
+      for (Connection watcher : this.watchers) {
+        watcher.enqueue(frame.duplicate());
+      }
+    }
+  }
+
+  /**
+   * One client connection. Reads and writes happen on the selector thread; frames are queued
+   * from any thread.
+   */
+  private class Connection implements SpectatorSink {
+    private final SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer partial; // handshake bytes or an incomplete client frame; null when idle
+    private boolean upgraded;
+    private RoomStream stream;
+    private Subscription subscription;
+
+    // guarded by this
+    private ArrayDeque<ByteBuffer> queue;
+    private int queuedBytes;
+    private boolean flushScheduled;
+    private boolean closing;
+    private boolean starved;
+    private ByteBuffer pong; // the last pong queued, replaced by the next one while unsent
+
+    private Connection(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public boolean offer(ByteBuffer frame) {
+      return enqueue(header(OP_BINARY, frame.remaining()), frame);
+    }
+
+    /** Called when the room closes. */
+    @Override
+    public void close() {
+      closeWith(CLOSE_GOING_AWAY);
+    }
+
+    private boolean enqueue(ByteBuffer... parts) {
+      int bytes = 0;
+      for (ByteBuffer part : parts) {
+        bytes += part.remaining();
+      }
+      synchronized (this) {
+        if (this.closing) {
+          return false;
+        }
+        if (this.queuedBytes + bytes > queueLimit) {
+          if (policy == SlowConsumerPolicy.DISCONNECT) {
+            closeWith(CLOSE_POLICY_VIOLATION);
+          } else {
+            this.starved = true;
+          }
+          return false;
+        }
+        for (ByteBuffer part : parts) {
+          push(part);
+        }
+      }
+      return true;
+    }
+
+    /** Queues a close frame, past the limit if need be, and closes once it is written. */
+    private synchronized void closeWith(int status) {
+      if (this.closing) {
+        return;
+      }
+      push(closeFrame(status));
+      this.closing = true;
+    }
+
+    private void push(ByteBuffer part) {
+      if (this.queue == null) {
+        this.queue = new ArrayDeque<>();
+      }
+      this.queue.add(part);
+      this.queuedBytes += part.remaining();
+      if (!this.flushScheduled) {
+        this.flushScheduled = true;
+        scheduleFlush(this);
+      }
+    }
+
+    /**
+     * Writes as much of the queue as the socket takes. The flush stays scheduled until the queue
+     * is empty, so while the socket is full producers only queue and OP_WRITE resumes the flush.
+     */
+    private void write() {
+      if (!this.key.isValid()) {
+        return;
+      }
+      ByteBuffer[] buffers = gather;
+      boolean resume = false;
+      boolean finished = false;
+      try {
+        while (true) {
+          int count = 0;
+          synchronized (this) {
+            while (count < buffers.length && !this.queue.isEmpty()) {
+              buffers[count++] = this.queue.poll();
+            }
+            if (count == 0) {
+              this.flushScheduled = false;
+              finished = this.closing;
+              resume = this.starved && this.subscription != null;
+              this.starved = false;
+              break;
+            }
+          }
+          long written = this.channel.write(buffers, 0, count);
+          int done = 0;
+          while (done < count && !buffers[done].hasRemaining()) {
+            done++;
+          }
+          synchronized (this) {
+            this.queuedBytes -= (int) written;
+            for (int i = count - 1; i >= done; i--) {
+              this.queue.addFirst(buffers[i]);
+            }
+            if (this.starved && this.queuedBytes <= queueLimit / 2) {
+              resume = this.subscription != null;
+              this.starved = false;
+            }
+          }
+          Arrays.fill(buffers, 0, count, null);
+          if (done < count) {
+            this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            break;
+          }
+        }
+      } catch (IOException e) {
+        terminate();
+        return;
+      }
+      if (finished) {
+        terminate();
+        return;
+      }
+      if (this.key.isValid() && (this.key.interestOps() & SelectionKey.OP_WRITE) != 0 && !this.hasQueued()) {
+        this.key.interestOps(SelectionKey.OP_READ);
+      }
+      if (resume) {
+        this.subscription.resume();
+      }
+    }
+
+    /** Removes the last pong from the queue unless it has been written, even in part. */
+    private void dropUnsentPong() {
+      if (this.pong == null || this.pong.position() > 0) {
+        return;
+      }
+      for (Iterator<ByteBuffer> parts = this.queue.iterator(); parts.hasNext(); ) {
+        if (parts.next() == this.pong) {
+          parts.remove();
+          this.queuedBytes -= this.pong.remaining();
+          break;
+        }
+      }
+      this.pong = null;
+    }
+
+    private synchronized boolean hasQueued() {
+      return this.queue != null && !this.queue.isEmpty();
+    }
+
+    private void read() {
+      ByteBuffer in = readBuffer;
+      in.clear();
+      try {
+        int read = this.channel.read(in);
+        if (read < 0) {
+          terminate();
+          return;
+        }
+        in.flip();
+        if (this.partial != null) {
+          int limit = this.upgraded ? MAX_CLIENT_FRAME_BYTES + 14 : MAX_HANDSHAKE_BYTES;
+          if (this.partial.position() + in.remaining() > limit) {
+            fail(this.upgraded ? CLOSE_TOO_BIG : 0, "431 Request Header Fields Too Large");
+            return;
+          }
+          this.partial.put(in).flip();
+          in = this.partial;
+        }
+        if (!this.upgraded) {
+          handshake(in);
+        } else {
+          frames(in);
+        }
+      } catch (IOException e) {
+        terminate();
+      }
+    }
+
+    private void keep(ByteBuffer in, int limit) {
+      if (!in.hasRemaining()) {
+        this.partial = null;
+        return;
+      }
+      ByteBuffer kept = ByteBuffer.allocate(limit);
+      kept.put(in);
+      this.partial = kept;
+    }
+
+    private void handshake(ByteBuffer in) {
+      int end = indexOf(in, HEADER_END);
+      if (end < 0) {
+        keep(in, MAX_HANDSHAKE_BYTES);
+        return;
+      }
+      byte[] bytes = new byte[end - in.position()];
+      in.get(bytes);
+      this.partial = null;
+      String[] lines = new String(bytes, StandardCharsets.ISO_8859_1).split("\r\n");
+      String[] request = lines[0].split(" ");
+      String key = null;
+      String version = null;
+      boolean upgrade = false;
+      for (int i = 1; i < lines.length; i++) {
+        int colon = lines[i].indexOf(':');
+        if (colon < 0) {
+          continue;
+        }
+        String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+        String value = lines[i].substring(colon + 1).trim();
+        if (name.equals("sec-websocket-key")) {
+          key = value;
+        } else if (name.equals("sec-websocket-version")) {
+          version = value;
+        } else if (name.equals("upgrade")) {
+          upgrade = value.toLowerCase(Locale.ROOT).contains("websocket");
+        }
+      }
+
+      if (request.length != 3 || !request[0].equals("GET") || !upgrade || key == null) {
+        fail(0, "400 Bad Request");
+        return;
+      }
+      if (!"13".equals(version)) {
+        fail(0, "426 Upgrade Required\r\nSec-WebSocket-Version: 13");
+        return;
+      }
+      String path = request[1];
+      int query = path.indexOf('?');
+      if (query >= 0) {
+        path = path.substring(0, query);
+      }
+      Room room = null;
+      if (path.startsWith(PATH_PREFIX) && path.endsWith(PATH_SUFFIX)
+          && path.length() > PATH_PREFIX.length() + PATH_SUFFIX.length()) {
+        room = registry.getRoom(path.substring(PATH_PREFIX.length(), path.length() - PATH_SUFFIX.length()));
+      }
+      if (room == null) {
+        fail(0, "404 Not Found");
+        return;
+      }
+
+      this.upgraded = true;
+      enqueue(ascii("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+          + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n"));
+      this.stream = join(room, this);
+      try {
+        this.subscription = spectators.subscribe(room.getId(), this);
+      } catch (IllegalArgumentException e) {
+        closeWith(CLOSE_GOING_AWAY); // closed while connecting
+      }
+    }
+
+    private void frames(ByteBuffer in) {
+      while (in.remaining() >= 2) {
+        int start = in.position();
+        int first = in.get() & 0xFF;
+        int second = in.get() & 0xFF;
+        int opcode = first & 0x0F;
+        long length = second & 0x7F;
+        if ((second & 0x80) == 0) {
+          fail(CLOSE_PROTOCOL_ERROR, null); // client frames must be masked
+          return;
+        }
+        if (length == 126) {
+          if (in.remaining() < 2) {
+            in.position(start);
+            break;
+          }
+          length = in.getShort() & 0xFFFF;
+        } else if (length == 127) {
+          length = Long.MAX_VALUE;
+        }
+        if (length > MAX_CLIENT_FRAME_BYTES) {
+          fail(CLOSE_TOO_BIG, null);
+          return;
+        }
+        if (in.remaining() < 4 + length) {
+          in.position(start);
+          break;
+        }
+        byte[] mask = new byte[4];
+        in.get(mask);
+        byte[] payload = new byte[(int) length];
+        in.get(payload);
+        for (int i = 0; i < payload.length; i++) {
+          payload[i] ^= mask[i & 3];
+        }
+
+        if (opcode == OP_CLOSE) {
+          int status = payload.length >= 2 ? ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF) : 1000;
+          closeWith(status);
+          return;
+        } else if (opcode == OP_PING) {
+          ByteBuffer header = header(OP_PONG, payload.length);
+          ByteBuffer pong = ByteBuffer.allocate(header.remaining() + payload.length).put(header).put(payload).flip();
+          synchronized (this) {
+            if (!this.closing) {
+              // Control frames are not subject to the limit, so only the newest pong is kept queued
+              dropUnsentPong();
+              push(pong);
+              this.pong = pong;
+            }
+          }
+        }
+        // Pongs and data frames are ignored; moves go through the HTTP API
+      }
+      keep(in, MAX_CLIENT_FRAME_BYTES + 14);
+    }
+
+    /**
+     * Rejects a handshake with an HTTP status line, or an upgraded connection with a close
+     * status, and closes once that is written.
+     */
+    private void fail(int closeStatus, String httpStatus) {
+      this.partial = null;
+      if (!this.upgraded) {
+        synchronized (this) {
+          push(ascii("HTTP/1.1 " + httpStatus + "\r\nConnection: close\r\nContent-Length: 0\r\n\r\n"));
+          this.closing = true;
+        }
+      } else {
+        closeWith(closeStatus);
+      }
+    }
+
+    /** Closes the socket straight away and stops watching the room. Selector thread only. */
+    private void terminate() {
+      synchronized (this) {
+        this.closing = true;
+        this.queue = null;
+        this.queuedBytes = 0;
+      }
+      if (this.key.isValid()) {
+        connections.decrementAndGet();
+      }
+      this.key.cancel();
+      try {
+        this.channel.close();
+      } catch (IOException e) {
+        // Nothing left to do with a socket that fails to close
+      }
+      if (this.subscription != null) {
+        this.subscription.cancel();
+        this.subscription = null;
+      }
+      if (this.stream != null) {
+        this.stream.remove(this);
+        this.stream = null;
+      }
+    }
+  }
+}
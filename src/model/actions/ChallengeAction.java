@@ -1,5 +1,6 @@
 package model.actions;
 
+import model.diagnostics.ShotEvent;
 import model.game.Game;
 import model.game.Player;
 
@@ -13,7 +14,10 @@ public class ChallengeAction implements GameAction {
     try {
       System.out.println("⚔️ Challenging the last claim...");
       Player loser = game.challengeClaim(player);
+      ShotEvent event = new ShotEvent();
+      event.begin();
       boolean wasEliminated = loser.shoot();
+      event.finish(game.getRoomId(), game.getSeat(loser), wasEliminated);
       
       // Mark the claim as settled after the challenge is resolved
       game.settleLastClaim();
@@ -13,13 +13,28 @@ import model.game.Player;
  */
 public class ClaimAction implements GameAction {
   private final Scanner scanner;
+  private final int[] cardIndices;
   
   public ClaimAction(Scanner scanner) {
     this.scanner = scanner;
+    this.cardIndices = null;
+  }
+
+  /**
+   * Creates a non-interactive claim of the cards at the given hand positions
+   * @param cardIndices Positions in the player's hand, one per claimed card
+   */
+  public ClaimAction(int[] cardIndices) {
+    this.scanner = null;
+    this.cardIndices = cardIndices.clone();
   }
   
   @Override
   public ActionResult execute(Game game, Player player) {
+    if (cardIndices != null) {
+      return executeWithIndices(game, player);
+    }
+
     try {
       System.out.print("📊 Enter count of " + game.getRank() + "(s) to claim: ");
       int count = scanner.nextInt();
@@ -43,6 +58,53 @@ public class ClaimAction implements GameAction {
     }
   }
   
+  private ActionResult executeWithIndices(Game game, Player player) {
+    String invalid = checkIndices(player.getHand().getSize());
+    if (invalid != null) {
+      return ActionResult.failure("Failed to process claim: " + invalid);
+    }
+    try {
+      List<Card> discardedCards = new ArrayList<>(cardIndices.length);
+      for (int cardIndex : cardIndices) {
+        discardedCards.add(player.getHand().getAt(cardIndex));
+      }
+
+      game.claim(player, cardIndices.length, discardedCards, game.getRank());
+      game.moveToNextMove();
+
+      return ActionResult.success("Claim processed successfully");
+
+    } catch (Exception e) {
+      return ActionResult.failure("Failed to process claim: " + e.getMessage());
+    }
+  }
+  
+  /**
+   * Checks the claimed hand positions before any card is looked up, so each claimed card is
+   * discarded exactly once
+   * @param handSize Number of cards in the player's hand
+   * @return Why the positions cannot be claimed, or null if they can
+   */
+  private String checkIndices(int handSize) {
+    if (cardIndices.length == 0) {
+      return "no cards given";
+    }
+    if (cardIndices.length > handSize) {
+      return "cannot claim " + cardIndices.length + " cards from a hand of " + handSize;
+    }
+    boolean[] seen = new boolean[handSize];
+    for (int cardIndex : cardIndices) {
+      if (cardIndex < 0 || cardIndex >= handSize) {
+        return "no card at position " + cardIndex;
+      }
+      if (seen[cardIndex]) {
+        return "card at position " + cardIndex + " given twice";
+      }
+      seen[cardIndex] = true;
+    }
+    return null;
+  }
+
   @Override
   public String getActionName() {
     return "Play Claim";
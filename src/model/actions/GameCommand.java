@@ -0,0 +1,84 @@
+package model.actions;
+
+/**
+ * A non-interactive game action addressed by seat, so it can be recorded and replayed
+ */
+public class GameCommand {
+  /**
+   * Kinds of commands a seated player can issue
+   */
+  public enum Type {
+    CLAIM,
+    CHALLENGE,
+    SHOOT
+  }
+
+  private static final int[] NO_CARDS = new int[0];
+
+  private final Type type;
+  private final int seat;
+  private final int[] cardIndices;
+
+  private GameCommand(Type type, int seat, int[] cardIndices) {
+    this.type = type;
+    this.seat = seat;
+    this.cardIndices = cardIndices;
+  }
+
+  /**
+   * Creates a claim of the cards at the given hand positions
+   * @param seat Seat of the claiming player
+   * @param cardIndices Positions in the player's hand, one per claimed card
+   * @return The command
+   */
+  public static GameCommand claim(int seat, int... cardIndices) {
+    return new GameCommand(Type.CLAIM, seat, cardIndices.clone());
+  }
+
+  /**
+   * Creates a challenge of the last claim
+   * @param seat Seat of the challenging player
+   * @return The command
+   */
+  public static GameCommand challenge(int seat) {
+    return new GameCommand(Type.CHALLENGE, seat, NO_CARDS);
+  }
+
+  /**
+   * Creates a self-shot
+   * @param seat Seat of the shooting player
+   * @return The command
+   */
+  public static GameCommand shoot(int seat) {
+    return new GameCommand(Type.SHOOT, seat, NO_CARDS);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public int getSeat() {
+    return seat;
+  }
+
+  public int[] getCardIndices() {
+    return cardIndices.clone();
+  }
+
+  /**
+   * Creates the action that carries out this command
+   * @return The matching game action
+   */
+  public GameAction toAction() {
+    switch (type) {
+      case CLAIM:
+        return new ClaimAction(cardIndices);
+      case CHALLENGE:
+        return new ChallengeAction();
+      case SHOOT:
+        return new ShootAction();
+      default:
+        throw new IllegalStateException("Unknown command type: " + type);
+    }
+  }
+}
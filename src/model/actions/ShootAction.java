@@ -1,5 +1,6 @@
 package model.actions;
 
+import model.diagnostics.ShotEvent;
 import model.game.Game;
 import model.game.Player;
 
@@ -12,7 +13,10 @@ public class ShootAction implements GameAction {
   public ActionResult execute(Game game, Player player) {
     try {
       System.out.println("🔫 Player chooses to shoot themselves...");
+      ShotEvent event = new ShotEvent();
+      event.begin();
       boolean eliminated = player.shoot();
+      event.finish(game.getRoomId(), game.getSeat(player), eliminated);
       game.moveToNextMove();
       
       if (eliminated) {
@@ -0,0 +1,29 @@
+package model.analysis;
+
+import model.exceptions.NoActiveClaimException;
+import model.game.Player;
+import model.game.Revolver;
+import model.game.Round;
+
+/**
+ * Computes the odds a player faces when deciding whether to challenge, using only the
+ * information visible to that player.
+ */
+public interface ClaimOdds {
+  /**
+   * Computes the posterior probability that the last unsettled claim of a round is a lie,
+   * as seen by the viewer (their own hand and claims, plus public claim history).
+   * @param round the round being played
+   * @param viewer the player asking
+   * @return probability in [0, 1] that the last claim is a lie
+   * @throws NoActiveClaimException if the round has no unsettled claim
+   */
+  double lieProbability(Round round, Player viewer);
+
+  /**
+   * Computes the probability that the next pull of a revolver does not fire.
+   * @param revolver the revolver about to be shot
+   * @return probability in [0, 1] of surviving the next shot
+   */
+  double survivalProbability(Revolver revolver);
+}
@@ -0,0 +1,237 @@
+package model.analysis;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.exceptions.NoActiveClaimException;
+import model.game.Claim;
+import model.game.Hand;
+import model.game.Player;
+import model.game.Rank;
+import model.game.Revolver;
+import model.game.Round;
+import static model.game.GameConstants.*;
+
+/**
+ * Exact claim odds under a uniform-play model: every face-down card is treated as a uniformly
+ * random draw (without replacement) from the cards the viewer has not seen.
+ *
+ * Only the round rank matters for a claim's truth, so the unseen pool collapses to two counts
+ * (matching and other cards). Unsettled claims by other players carry no information and drop out
+ * by exchangeability; settled claims condition the pool on their revealed outcome, and the viewer's
+ * own claims remove known cards. The resulting state is canonicalised into a single long and the
+ * posterior is memoized in a bounded LRU cache.
+ */
+public class ClaimOddsImpl implements ClaimOdds {
+  private static final int DEFAULT_CACHE_SIZE = 1 << 16;
+  private static final Rank[] RANKS = Rank.values();
+  private static final int DECK_SIZE = (RANKS.length - 1) * DECK_CARDS_PER_RANK + DECK_WILD_CARDS;
+
+  private static final int FIELD_BITS = 6;
+  private static final int FIELD_MAX = (1 << FIELD_BITS) - 1;
+  private static final int CONSTRAINT_BITS = FIELD_BITS + 1;
+  private static final int MAX_CACHED_CONSTRAINTS = (Long.SIZE - 3 * FIELD_BITS) / CONSTRAINT_BITS;
+  private static final long NO_KEY = -1L;
+
+  private static final double[][] BINOMIALS = binomials(DECK_SIZE);
+
+  private final Map<Long, Double> cache;
+
+  public ClaimOddsImpl() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  public ClaimOddsImpl(int cacheSize) {
+    this.cache = new LinkedHashMap<Long, Double>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  @Override
+  public double lieProbability(Round round, Player viewer) {
+    Claim last = round.getLastClaim();
+    if (last == null) {
+      throw new NoActiveClaimException("No claim to evaluate");
+    }
+
+    // The viewer knows exactly what they played
+    if (last.getPlayer().equals(viewer)) {
+      return last.isValidClaim() ? 0.0 : 1.0;
+    }
+
+    Rank rank = round.getRank();
+    int matching = deckCountOf(rank);
+    int other = DECK_SIZE - matching;
+
+    Hand hand = viewer.getHand();
+    if (hand != null) {
+      matching -= hand.countOf(rank);
+      other -= hand.getSize() - hand.countOf(rank);
+    }
+
+    List<Claim> claims = round.getAllClaims();
+    int[] constraints = new int[claims.size()];
+    int constraintCount = 0;
+    for (int i = 0; i < claims.size() - 1; i++) {
+      Claim claim = claims.get(i);
+      if (claim.getPlayer().equals(viewer)) {
+        int played = 0;
+        for (Rank r : RANKS) {
+          played += claim.countOf(r);
+        }
+        matching -= claim.countOf(rank);
+        other -= played - claim.countOf(rank);
+      } else if (claim.isSettled() && claim.getCount() > 0) {
+        // Settled claims were challenged, so their outcome is public
+        constraints[constraintCount++] = claim.getCount() << 1 | (claim.isValidClaim() ? 1 : 0);
+      }
+    }
+
+    constraints = Arrays.copyOf(constraints, constraintCount);
+    Arrays.sort(constraints);
+    return lieProbability(Math.max(matching, 0), Math.max(other, 0), constraints, last.getCount());
+  }
+
+  /**
+   * Reproduces RevolverImpl: the bullet sits in a uniformly random chamber, and each pull advances
+   * the index before checking it, so chamber 0 never fires. Having survived the current index
+   * rules out chambers 1..index.
+   */
+  @Override
+  public double survivalProbability(Revolver revolver) {
+    int index = revolver.getCurrentIndex();
+    if (index + 1 >= REVOLVER_CHAMBERS) {
+      return 1.0;
+    }
+    return 1.0 - 1.0 / (REVOLVER_CHAMBERS - index);
+  }
+
+  private double lieProbability(int matching, int other, int[] constraints, int claimed) {
+    long key = keyOf(matching, other, constraints, claimed);
+    if (key != NO_KEY) {
+      synchronized (this.cache) {
+        Double cached = this.cache.get(key);
+        if (cached != null) {
+          return cached;
+        }
+      }
+    }
+
+    double probability = posterior(matching, other, constraints, claimed);
+
+    if (key != NO_KEY) {
+      synchronized (this.cache) {
+        this.cache.put(key, probability);
+      }
+    }
+    return probability;
+  }
+
+  /**
+   * Conditions the pool on each settled claim in turn, then evaluates the last claim.
+   * State is the number of matching cards left in the pool; the pool size is implied.
+   */
+  private static double posterior(int matching, int other, int[] constraints, int claimed) {
+    double[] dist = new double[matching + 1];
+    dist[matching] = 1.0;
+    int poolSize = matching + other;
+
+    for (int constraint : constraints) {
+      int played = constraint >>> 1;
+      boolean valid = (constraint & 1) == 1;
+      double[] next = new double[matching + 1];
+
+      for (int a = 0; a <= matching; a++) {
+        if (dist[a] == 0.0 || played > poolSize) {
+          continue;
+        }
+        int b = poolSize - a;
+        double draws = binomial(poolSize, played);
+        if (valid) {
+          if (a >= played) {
+            next[a - played] += dist[a] * binomial(a, played) / draws;
+          }
+        } else {
+          for (int j = 0; j < played && j <= a; j++) {
+            next[a - j] += dist[a] * binomial(a, j) * binomial(b, played - j) / draws;
+          }
+        }
+      }
+
+      dist = next;
+      poolSize = Math.max(poolSize - played, 0);
+    }
+
+    if (claimed > poolSize) {
+      // More cards than anyone could still hold cannot all be genuine
+      return 1.0;
+    }
+
+    double total = 0.0;
+    double truthful = 0.0;
+    double draws = binomial(poolSize, claimed);
+    for (int a = 0; a <= matching; a++) {
+      if (dist[a] == 0.0) {
+        continue;
+      }
+      total += dist[a];
+      truthful += dist[a] * binomial(a, claimed) / draws;
+    }
+
+    return total == 0.0 ? 1.0 : 1.0 - truthful / total;
+  }
+
+  private static long keyOf(int matching, int other, int[] constraints, int claimed) {
+    if (matching > FIELD_MAX || other > FIELD_MAX || claimed > FIELD_MAX
+        || constraints.length > MAX_CACHED_CONSTRAINTS) {
+      return NO_KEY;
+    }
+
+    long key = (long) matching | (long) other << FIELD_BITS | (long) claimed << (2 * FIELD_BITS);
+    int shift = 3 * FIELD_BITS;
+    for (int constraint : constraints) {
+      if ((constraint >>> 1) > FIELD_MAX) {
+        return NO_KEY;
+      }
+      key |= (long) constraint << shift;
+      shift += CONSTRAINT_BITS;
+    }
+    return key;
+  }
+
+  private static int deckCountOf(Rank rank) {
+    return rank == WILD_RANK ? DECK_WILD_CARDS : DECK_CARDS_PER_RANK;
+  }
+
+  private static double binomial(int n, int k) {
+    if (k < 0 || k > n) {
+      return 0.0;
+    }
+    if (n < BINOMIALS.length) {
+      return BINOMIALS[n][k];
+    }
+    double result = 1.0;
+    for (int i = 1; i <= k; i++) {
+      result = result * (n - k + i) / i;
+    }
+    return result;
+  }
+
+  private static double[][] binomials(int max) {
+    double[][] table = new double[max + 1][];
+    for (int n = 0; n <= max; n++) {
+      table[n] = new double[n + 1];
+      table[n][0] = 1.0;
+      table[n][n] = 1.0;
+      for (int k = 1; k < n; k++) {
+        table[n][k] = table[n - 1][k - 1] + table[n - 1][k];
+      }
+    }
+    return table;
+  }
+}
@@ -0,0 +1,343 @@
+package model.analytics;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import model.events.GameEvent;
+import model.events.GameEventListener;
+import model.events.GameEventType;
+import model.game.Rank;
+
+/**
+ * Aggregates game events into tumbling and sliding window metrics on a thread of its own.
+ *
+ * Register the pipeline with a {@link model.events.GameEventPublisher}. On the game thread an
+ * event the pipeline follows is packed into a single long (timestamp, type, rank and value) and
+ * offered to a bounded multi-producer ring with one compare-and-set; when the ring is full the
+ * event is dropped and counted rather than making the game wait. The pipeline thread drains the
+ * ring in batches and adds each event to the current pane of every window. A window is kept as
+ * size/slide panes of fixed counters, so its memory is constant however many events it sees, and
+ * closing a pane sums the panes into the {@link WindowStats} handed to the listeners.
+ *
+ * Time is event time: panes close once an event, or the clock while the ring is empty, passes
+ * their end. An event older than the open pane, from a publisher that was descheduled between
+ * creating and offering it, is counted in the open pane.
+ */
+public class AnalyticsPipeline implements GameEventListener, Closeable {
+  private static final int DEFAULT_CAPACITY = 1 << 16;
+  private static final int BATCH = 4096;
+  private static final long IDLE_PARK_NANOS = 200_000;
+  private static final int TIME_BITS = 44;
+  private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+  private static final int TYPE_SHIFT = TIME_BITS;
+  private static final int RANK_SHIFT = TYPE_SHIFT + 8;
+  private static final int VALUE_SHIFT = RANK_SHIFT + 4;
+  private static final int MAX_VALUE = 254;
+  private static final GameEventType[] TYPES = GameEventType.values();
+
+  private final long[] entries;
+  private final AtomicLongArray published;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long head;
+  private final LongAdder dropped = new LongAdder();
+  private final AtomicLong processed = new AtomicLong();
+  private final Aggregator[] aggregators;
+  private final List<WindowListener> listeners = new CopyOnWriteArrayList<>();
+  private final Thread thread;
+  private volatile boolean running = true;
+
+  /**
+   * Creates a pipeline with room for 65536 events in flight.
+   * @param windows windows to compute; every event is counted in each.
+   */
+  public AnalyticsPipeline(Window... windows) {
+    this(DEFAULT_CAPACITY, windows);
+  }
+
+  /**
+   * @param capacity events that may wait for the pipeline thread before new ones are dropped;
+   *     rounded up to a power of two.
+   * @param windows windows to compute; every event is counted in each.
+   */
+  public AnalyticsPipeline(int capacity, Window... windows) {
+    if (windows.length == 0) {
+      throw new IllegalArgumentException("No windows to compute");
+    }
+    int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    this.entries = new long[size];
+    this.published = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      this.published.set(i, -1);
+    }
+    this.mask = size - 1;
+    this.aggregators = new Aggregator[windows.length];
+    for (int i = 0; i < windows.length; i++) {
+      this.aggregators[i] = new Aggregator(windows[i]);
+    }
+    this.thread = new Thread(this::run, "analytics");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Adds a listener for closed windows.
+   * @param listener the listener to add.
+   */
+  public void addListener(WindowListener listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener for closed windows.
+   * @param listener the listener to remove.
+   */
+  public void removeListener(WindowListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Getter for the last closed window of a kind.
+   * @param window one of the windows the pipeline computes.
+   * @return its most recent stats, or null if none has closed yet.
+   * @throws IllegalArgumentException if the pipeline does not compute that window.
+   */
+  public WindowStats getLatest(Window window) {
+    for (Aggregator aggregator : this.aggregators) {
+      if (aggregator.window.equals(window)) {
+        return aggregator.latest;
+      }
+    }
+    throw new IllegalArgumentException("Not computing " + window);
+  }
+
+  /**
+   * Getter for the number of events dropped because the pipeline thread fell behind.
+   * @return dropped events since creation.
+   */
+  public long getDropped() {
+    return this.dropped.sum();
+  }
+
+  /**
+   * Getter for the number of events aggregated.
+   * @return events taken off the ring since creation.
+   */
+  public long getProcessed() {
+    return this.processed.get();
+  }
+
+  @Override
+  public void onGameEvent(GameEvent event) {
+    switch (event.getEventType()) {
+      case CLAIM_MADE:
+      case CHALLENGE_RESULT:
+      case TURN_CHANGED:
+      case ROUND_ENDED:
+      case PLAYER_SHOT:
+      case PLAYER_ELIMINATED:
+        offer(pack(event));
+        break;
+      default:
+        break;
+    }
+  }
+
+  /** Stops the pipeline thread once it has aggregated the events already offered. */
+  @Override
+  public void close() {
+    this.running = false;
+    LockSupport.unpark(this.thread);
+    try {
+      this.thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void offer(long entry) {
+    long sequence;
+    do {
+      sequence = this.tail.get();
+      if (sequence - this.head > this.mask) {
+        this.dropped.increment();
+        return;
+      }
+    } while (!this.tail.compareAndSet(sequence, sequence + 1));
+    int index = (int) sequence & this.mask;
+    this.entries[index] = entry;
+    // Release store: the consumer reads the entry only after seeing its sequence here
+    this.published.lazySet(index, sequence);
+  }
+
+  private void run() {
+    while (true) {
+      boolean stopping = !this.running;
+      int drained = drain();
+      if (drained == 0) {
+        if (stopping) {
+          return;
+        }
+        long now = System.currentTimeMillis();
+        for (Aggregator aggregator : this.aggregators) {
+          aggregator.advance(now);
+        }
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
+    }
+  }
+
+  /** Aggregates up to one batch of published events. */
+  private int drain() {
+    long next = this.head;
+    int count = 0;
+    while (count < BATCH) {
+      int index = (int) next & this.mask;
+      if (this.published.get(index) != next) {
+        break;
+      }
+      long entry = this.entries[index];
+      long time = entry & TIME_MASK;
+      for (Aggregator aggregator : this.aggregators) {
+        aggregator.advance(time);
+        aggregator.add(entry);
+      }
+      next++;
+      count++;
+    }
+    if (count > 0) {
+      this.head = next;
+      this.processed.lazySet(this.processed.get() + count);
+    }
+    return count;
+  }
+
+  private static long pack(GameEvent event) {
+    Rank rank = event.getRank();
+    long value = Math.max(0, Math.min(MAX_VALUE, event.getValue() + 1));
+    return (event.getTimestamp() & TIME_MASK)
+        | (long) event.getEventType().ordinal() << TYPE_SHIFT
+        | (long) (rank == null ? 0 : rank.ordinal() + 1) << RANK_SHIFT
+        | value << VALUE_SHIFT;
+  }
+
+  /**
+   * The panes of one window, owned by the pipeline thread. Panes are slide-long and kept in a
+   * circular array; the window is the sum of all of them.
+   */
+  private class Aggregator {
+    private final Window window;
+    private final long slide;
+    private final long[][] panes;
+    private int current;
+    private long paneStart = Long.MIN_VALUE;
+    private volatile WindowStats latest;
+
+    private Aggregator(Window window) {
+      this.window = window;
+      this.slide = window.getSlideMillis();
+      this.panes = new long[(int) (window.getSizeMillis() / this.slide)][WindowStats.COUNTERS];
+    }
+
+    /** Closes every pane that ends at or before a time, reporting the window ending with each. */
+    private void advance(long time) {
+      if (this.paneStart == Long.MIN_VALUE) {
+        this.paneStart = time - Math.floorMod(time, this.slide);
+        return;
+      }
+      while (time >= this.paneStart + this.slide) {
+        if (isEmpty()) {
+          // Nothing left to report; skip straight to the pane holding the time
+          this.paneStart = time - Math.floorMod(time, this.slide);
+          return;
+        }
+        this.paneStart += this.slide;
+        report();
+        this.current = (this.current + 1) % this.panes.length;
+        Arrays.fill(this.panes[this.current], 0);
+      }
+    }
+
+    private void add(long entry) {
+      long[] pane = this.panes[this.current];
+      int rank = (int) (entry >>> RANK_SHIFT & 0xF) - 1;
+      int value = (int) (entry >>> VALUE_SHIFT) - 1;
+      pane[WindowStats.EVENTS]++;
+      switch (TYPES[(int) (entry >>> TYPE_SHIFT & 0xFF)]) {
+        case CLAIM_MADE:
+          if (rank >= 0) {
+            pane[WindowStats.CLAIMS_BY_RANK + rank]++;
+          }
+          break;
+        case CHALLENGE_RESULT:
+          pane[WindowStats.CHALLENGES]++;
+          if (rank >= 0) {
+            pane[WindowStats.CHALLENGES_BY_RANK + rank]++;
+          }
+          if (value == 1) {
+            pane[WindowStats.LIES]++;
+            if (rank >= 0) {
+              pane[WindowStats.LIES_BY_RANK + rank]++;
+            }
+          }
+          break;
+        case TURN_CHANGED:
+          pane[WindowStats.TURNS]++;
+          break;
+        case ROUND_ENDED:
+          pane[WindowStats.ROUNDS]++;
+          break;
+        case PLAYER_SHOT:
+          // Announcing the pull carries no chamber; surviving it does
+          if (value >= 0 && value < WindowStats.CHAMBERS) {
+            pane[WindowStats.SURVIVED_BY_CHAMBER + value]++;
+          }
+          break;
+        case PLAYER_ELIMINATED:
+          if (value >= 0 && value < WindowStats.CHAMBERS) {
+            pane[WindowStats.ELIMINATED_BY_CHAMBER + value]++;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    private boolean isEmpty() {
+      for (long[] pane : this.panes) {
+        if (pane[WindowStats.EVENTS] != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Reports the window ending at the current pane start, if it saw anything. */
+    private void report() {
+      long[] sum = new long[WindowStats.COUNTERS];
+      for (long[] pane : this.panes) {
+        for (int i = 0; i < sum.length; i++) {
+          sum[i] += pane[i];
+        }
+      }
+      if (sum[WindowStats.EVENTS] == 0) {
+        return;
+      }
+      WindowStats stats = new WindowStats(this.window, this.paneStart - this.window.getSizeMillis(), sum);
+      this.latest = stats;
+      for (WindowListener listener : AnalyticsPipeline.this.listeners) {
+        try {
+          listener.onWindow(stats);
+        } catch (RuntimeException e) {
+          System.err.println("Error in window listener: " + e.getMessage());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package model.analytics;
+
+/**
+ * A time window metrics are aggregated over, aligned to multiples of its slide since the epoch.
+ * A tumbling window slides by its whole size, so its windows do not overlap.
+ */
+public final class Window {
+  private final long sizeMillis;
+  private final long slideMillis;
+
+  private Window(long sizeMillis, long slideMillis) {
+    if (slideMillis <= 0 || sizeMillis < slideMillis || sizeMillis % slideMillis != 0) {
+      throw new IllegalArgumentException("Window size must be a positive multiple of its slide, not "
+          + sizeMillis + "/" + slideMillis);
+    }
+    this.sizeMillis = sizeMillis;
+    this.slideMillis = slideMillis;
+  }
+
+  /**
+   * Creates a window reporting every period on that period alone.
+   * @param sizeMillis length of the window in milliseconds.
+   */
+  public static Window tumbling(long sizeMillis) {
+    return new Window(sizeMillis, sizeMillis);
+  }
+
+  /**
+   * Creates a window reporting every slide on the last size milliseconds.
+   * @param sizeMillis length of the window in milliseconds.
+   * @param slideMillis time between reports, which must divide the size.
+   */
+  public static Window sliding(long sizeMillis, long slideMillis) {
+    return new Window(sizeMillis, slideMillis);
+  }
+
+  public long getSizeMillis() {
+    return this.sizeMillis;
+  }
+
+  public long getSlideMillis() {
+    return this.slideMillis;
+  }
+
+  public boolean isTumbling() {
+    return this.sizeMillis == this.slideMillis;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Window)) {
+      return false;
+    }
+    Window window = (Window) other;
+    return this.sizeMillis == window.sizeMillis && this.slideMillis == window.slideMillis;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(this.sizeMillis) * 31 + Long.hashCode(this.slideMillis);
+  }
+
+  @Override
+  public String toString() {
+    return isTumbling() ? "tumbling(" + this.sizeMillis + "ms)"
+        : "sliding(" + this.sizeMillis + "ms every " + this.slideMillis + "ms)";
+  }
+}
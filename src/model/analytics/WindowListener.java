@@ -0,0 +1,13 @@
+package model.analytics;
+
+/**
+ * Receives the metrics of each window as it closes. Called on the pipeline's thread, so it should
+ * hand the stats off rather than block.
+ */
+public interface WindowListener {
+  /**
+   * Called once for every window that saw at least one event, in window order.
+   * @param stats the metrics of the closed window.
+   */
+  void onWindow(WindowStats stats);
+}
@@ -0,0 +1,140 @@
+package model.analytics;
+
+import model.game.GameConstants;
+import model.game.Rank;
+
+/**
+ * Metrics of one closed window. Rates are 0 when nothing they are a fraction of happened.
+ */
+public final class WindowStats {
+  static final int RANKS = Rank.values().length;
+  static final int CHAMBERS = GameConstants.REVOLVER_CHAMBERS + 1;
+  static final int CLAIMS_BY_RANK = 0;
+  static final int CHALLENGES_BY_RANK = CLAIMS_BY_RANK + RANKS;
+  static final int LIES_BY_RANK = CHALLENGES_BY_RANK + RANKS;
+  static final int CHALLENGES = LIES_BY_RANK + RANKS;
+  static final int LIES = CHALLENGES + 1;
+  static final int TURNS = LIES + 1;
+  static final int ROUNDS = TURNS + 1;
+  static final int SURVIVED_BY_CHAMBER = ROUNDS + 1;
+  static final int ELIMINATED_BY_CHAMBER = SURVIVED_BY_CHAMBER + CHAMBERS;
+  static final int EVENTS = ELIMINATED_BY_CHAMBER + CHAMBERS;
+  static final int COUNTERS = EVENTS + 1;
+
+  private final Window window;
+  private final long start;
+  private final long[] counters;
+
+  WindowStats(Window window, long start, long[] counters) {
+    this.window = window;
+    this.start = start;
+    this.counters = counters;
+  }
+
+  public Window getWindow() {
+    return this.window;
+  }
+
+  /**
+   * Getter for the start of the window.
+   * @return epoch milliseconds, inclusive.
+   */
+  public long getStart() {
+    return this.start;
+  }
+
+  /**
+   * Getter for the end of the window.
+   * @return epoch milliseconds, exclusive.
+   */
+  public long getEnd() {
+    return this.start + this.window.getSizeMillis();
+  }
+
+  /**
+   * Getter for the number of events aggregated.
+   * @return events of the types the pipeline follows.
+   */
+  public long getEvents() {
+    return this.counters[EVENTS];
+  }
+
+  public long getClaims(Rank rank) {
+    return this.counters[CLAIMS_BY_RANK + rank.ordinal()];
+  }
+
+  public long getChallenges() {
+    return this.counters[CHALLENGES];
+  }
+
+  /**
+   * Getter for the fraction of challenges that caught a lie.
+   * @return successful challenges over all challenges.
+   */
+  public double getChallengeSuccessRate() {
+    return ratio(this.counters[LIES], this.counters[CHALLENGES]);
+  }
+
+  /**
+   * Getter for the fraction of challenged claims of a round rank that were lies. Only challenged
+   * claims are ever revealed, so this is the lie rate among claims a player chose to doubt.
+   * @param rank rank of the round.
+   * @return lies over challenges in rounds of that rank.
+   */
+  public double getLieRate(Rank rank) {
+    return ratio(this.counters[LIES_BY_RANK + rank.ordinal()], this.counters[CHALLENGES_BY_RANK + rank.ordinal()]);
+  }
+
+  public long getRounds() {
+    return this.counters[ROUNDS];
+  }
+
+  /**
+   * Getter for the average number of turns per round.
+   * @return turn changes over rounds ended.
+   */
+  public double getAverageTurnsPerRound() {
+    return ratio(this.counters[TURNS], this.counters[ROUNDS]);
+  }
+
+  /**
+   * Getter for the number of trigger pulls that landed on a chamber.
+   * @param chamber revolver chamber index after the pull.
+   */
+  public long getShots(int chamber) {
+    return this.counters[SURVIVED_BY_CHAMBER + chamber] + this.counters[ELIMINATED_BY_CHAMBER + chamber];
+  }
+
+  /**
+   * Getter for the fraction of pulls on a chamber that eliminated the player.
+   * @param chamber revolver chamber index after the pull.
+   * @return eliminations over pulls on that chamber.
+   */
+  public double getEliminationRate(int chamber) {
+    return ratio(this.counters[ELIMINATED_BY_CHAMBER + chamber], getShots(chamber));
+  }
+
+  private static double ratio(long part, long whole) {
+    return whole == 0 ? 0 : (double) part / whole;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder()
+        .append(this.window).append(" from ").append(this.start).append(": ")
+        .append(getEvents()).append(" events, challenge success ")
+        .append(String.format("%.3f", getChallengeSuccessRate()))
+        .append(", turns/round ").append(String.format("%.2f", getAverageTurnsPerRound()))
+        .append(", lie rate");
+    for (Rank rank : Rank.values()) {
+      builder.append(' ').append(rank).append('=').append(String.format("%.3f", getLieRate(rank)));
+    }
+    builder.append(", elimination rate");
+    for (int chamber = 0; chamber < CHAMBERS; chamber++) {
+      if (getShots(chamber) > 0) {
+        builder.append(' ').append(chamber).append('=').append(String.format("%.3f", getEliminationRate(chamber)));
+      }
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,246 @@
+package model.archive;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import model.events.GameEventType;
+import model.serialization.BinaryUtil;
+
+/**
+ * The games of one archive block, held column by column, with the encoding used before the block
+ * is deflated:
+ *
+ * [games][game id gaps and event counts][type dictionary][player dictionary], then one column per
+ * field over all events of the block: packed type code and rank, timestamp gaps, player codes,
+ * target codes and values.
+ *
+ * Timestamps are stored as the gap from the previous event and game ids as the gap from the
+ * previous game, both zigzag varints. Event types are coded through a dictionary of the types in
+ * the block and packed into one byte with the rank. Players and targets are coded through a
+ * dictionary of the players in the block, 0 being {@link GameJournal#NO_PLAYER}, so the few
+ * players of a game take a byte each however long their ids.
+ */
+final class ArchiveBlock {
+  private static final int RANK_BITS = 3;
+  private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+
+  int games;
+  long[] gameIds = new long[64];
+  /** Index of the first event of each game; entry {@link #games} ends the last game. */
+  int[] firstEvents = new int[65];
+  int events;
+  long[] timestamps = new long[1024];
+  long[] players = new long[1024];
+  long[] targets = new long[1024];
+  int[] values = new int[1024];
+  /** {@link GameEventType} ordinal of each event. */
+  byte[] types = new byte[1024];
+  /** Rank ordinal plus one of each event, 0 for none. */
+  byte[] ranks = new byte[1024];
+
+  private long[] dictionary = new long[64];
+  private int dictionarySize;
+  private int[] slots = new int[128]; // open addressing: code, 0 when empty
+
+  void clear() {
+    this.games = 0;
+    this.events = 0;
+  }
+
+  void addGame(long gameId) {
+    if (this.games + 1 == this.gameIds.length) {
+      this.gameIds = Arrays.copyOf(this.gameIds, this.gameIds.length * 2);
+      this.firstEvents = Arrays.copyOf(this.firstEvents, this.gameIds.length + 1);
+    }
+    this.gameIds[this.games] = gameId;
+    this.firstEvents[this.games] = this.events;
+    this.games++;
+    this.firstEvents[this.games] = this.events;
+  }
+
+  void addEvent(long timestamp, long player, long target, int value, int type, int rank) {
+    if (this.events == this.timestamps.length) {
+      int capacity = this.events * 2;
+      this.timestamps = Arrays.copyOf(this.timestamps, capacity);
+      this.players = Arrays.copyOf(this.players, capacity);
+      this.targets = Arrays.copyOf(this.targets, capacity);
+      this.values = Arrays.copyOf(this.values, capacity);
+      this.types = Arrays.copyOf(this.types, capacity);
+      this.ranks = Arrays.copyOf(this.ranks, capacity);
+    }
+    int event = this.events++;
+    this.timestamps[event] = timestamp;
+    this.players[event] = player;
+    this.targets[event] = target;
+    this.values[event] = value;
+    this.types[event] = (byte) type;
+    this.ranks[event] = (byte) rank;
+    this.firstEvents[this.games] = this.events;
+  }
+
+  /**
+   * Getter for the most bytes {@link #encode(ByteBuffer)} may write.
+   * @return a bound on the encoded size.
+   */
+  int maxEncodedBytes() {
+    return 16 + this.games * 15 + GameEventType.values().length + this.events * 46;
+  }
+
+  void encode(ByteBuffer out) {
+    BinaryUtil.writeVarInt(out, this.games);
+    long previousGame = 0;
+    for (int game = 0; game < this.games; game++) {
+      BinaryUtil.writeSignedVarLong(out, this.gameIds[game] - previousGame);
+      BinaryUtil.writeVarInt(out, this.firstEvents[game + 1] - this.firstEvents[game]);
+      previousGame = this.gameIds[game];
+    }
+
+    int[] typeCodes = new int[GameEventType.values().length];
+    int typeCount = 0;
+    for (int event = 0; event < this.events; event++) {
+      if (typeCodes[this.types[event]] == 0) {
+        typeCodes[this.types[event]] = ++typeCount;
+      }
+    }
+    out.put((byte) typeCount);
+    for (int type = 0; type < typeCodes.length; type++) {
+      if (typeCodes[type] != 0) {
+        out.put((byte) type);
+      }
+    }
+    // Ordinals were written in order, so renumber the codes to match
+    for (int type = 0, code = 0; type < typeCodes.length; type++) {
+      if (typeCodes[type] != 0) {
+        typeCodes[type] = code++;
+      }
+    }
+
+    buildDictionary();
+    BinaryUtil.writeVarInt(out, this.dictionarySize);
+    for (int i = 0; i < this.dictionarySize; i++) {
+      BinaryUtil.writeSignedVarLong(out, this.dictionary[i]);
+    }
+
+    for (int event = 0; event < this.events; event++) {
+      out.put((byte) (typeCodes[this.types[event]] << RANK_BITS | this.ranks[event]));
+    }
+    long previous = 0;
+    for (int event = 0; event < this.events; event++) {
+      BinaryUtil.writeSignedVarLong(out, this.timestamps[event] - previous);
+      previous = this.timestamps[event];
+    }
+    for (int event = 0; event < this.events; event++) {
+      BinaryUtil.writeVarInt(out, code(this.players[event]));
+    }
+    for (int event = 0; event < this.events; event++) {
+      BinaryUtil.writeVarInt(out, code(this.targets[event]));
+    }
+    for (int event = 0; event < this.events; event++) {
+      BinaryUtil.writeSignedVarInt(out, this.values[event]);
+    }
+  }
+
+  static ArchiveBlock decode(ByteBuffer in) {
+    ArchiveBlock block = new ArchiveBlock();
+    int games = BinaryUtil.readVarInt(in);
+    block.games = games;
+    block.gameIds = new long[games + 1];
+    block.firstEvents = new int[games + 1];
+    long gameId = 0;
+    int events = 0;
+    for (int game = 0; game < games; game++) {
+      gameId += BinaryUtil.readSignedVarLong(in);
+      block.gameIds[game] = gameId;
+      block.firstEvents[game] = events;
+      events += BinaryUtil.readVarInt(in);
+    }
+    block.firstEvents[games] = events;
+    block.events = events;
+
+    byte[] typeDictionary = new byte[in.get()];
+    in.get(typeDictionary);
+    long[] playerDictionary = new long[BinaryUtil.readVarInt(in) + 1];
+    playerDictionary[0] = GameJournal.NO_PLAYER;
+    for (int i = 1; i < playerDictionary.length; i++) {
+      playerDictionary[i] = BinaryUtil.readSignedVarLong(in);
+    }
+
+    block.types = new byte[events];
+    block.ranks = new byte[events];
+    for (int event = 0; event < events; event++) {
+      int packed = in.get() & 0xFF;
+      block.types[event] = typeDictionary[packed >>> RANK_BITS];
+      block.ranks[event] = (byte) (packed & RANK_MASK);
+    }
+    block.timestamps = new long[events];
+    long timestamp = 0;
+    for (int event = 0; event < events; event++) {
+      timestamp += BinaryUtil.readSignedVarLong(in);
+      block.timestamps[event] = timestamp;
+    }
+    block.players = new long[events];
+    for (int event = 0; event < events; event++) {
+      block.players[event] = playerDictionary[BinaryUtil.readVarInt(in)];
+    }
+    block.targets = new long[events];
+    for (int event = 0; event < events; event++) {
+      block.targets[event] = playerDictionary[BinaryUtil.readVarInt(in)];
+    }
+    block.values = new int[events];
+    for (int event = 0; event < events; event++) {
+      block.values[event] = BinaryUtil.readSignedVarInt(in);
+    }
+    return block;
+  }
+
+  /**
+   * Finds a game of the block.
+   * @return its index, or -1 if the block does not hold it.
+   */
+  int indexOf(long gameId) {
+    int index = Arrays.binarySearch(this.gameIds, 0, this.games, gameId);
+    return index < 0 ? -1 : index;
+  }
+
+  /** Collects the players of the block in order of first appearance. */
+  private void buildDictionary() {
+    if (this.slots.length < this.events * 4) {
+      this.slots = new int[Integer.highestOneBit(this.events * 4 - 1) << 1];
+    } else {
+      Arrays.fill(this.slots, 0);
+    }
+    if (this.dictionary.length < this.events * 2) {
+      this.dictionary = new long[this.events * 2];
+    }
+    this.dictionarySize = 0;
+    for (int event = 0; event < this.events; event++) {
+      add(this.players[event]);
+      add(this.targets[event]);
+    }
+  }
+
+  private void add(long player) {
+    if (player == GameJournal.NO_PLAYER) {
+      return;
+    }
+    int slot = slot(player);
+    if (this.slots[slot] == 0) {
+      this.dictionary[this.dictionarySize++] = player;
+      this.slots[slot] = this.dictionarySize;
+    }
+  }
+
+  /** Code of a player: its index in the dictionary plus one, 0 for none. */
+  private int code(long player) {
+    return player == GameJournal.NO_PLAYER ? 0 : this.slots[slot(player)];
+  }
+
+  private int slot(long player) {
+    int mask = this.slots.length - 1;
+    int slot = (int) (player * 0x9E3779B97F4A7C15L >>> 40) & mask;
+    while (this.slots[slot] != 0 && this.dictionary[this.slots[slot] - 1] != player) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+}
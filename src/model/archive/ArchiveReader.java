@@ -0,0 +1,293 @@
+package model.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import model.events.GameEventType;
+import model.game.Rank;
+
+/**
+ * Cursor over an archive segment written by {@link ArchiveWriter}. Blocks are inflated when the
+ * cursor first enters them and the most recently used are kept decoded, so stepping back and forth
+ * between nearby games, or looking games up by id with {@link #seekGame(long)}, reads each block
+ * once. Not thread safe.
+ */
+public class ArchiveReader implements EventCursor {
+  private static final int CACHE_BLOCKS = 8;
+  private static final GameEventType[] TYPES = GameEventType.values();
+  private static final Rank[] RANKS = Rank.values();
+
+  private final FileChannel channel;
+  private final long[] firstGameIds;
+  private final long[] lastGameIds;
+  private final long[] offsets;
+  private final int[] deflatedBytes;
+  private final int[] encodedBytes;
+  private final long gameCount;
+  private final Map<Integer, ArchiveBlock> cache;
+  private final Inflater inflater = new Inflater();
+  private ByteBuffer deflated = ByteBuffer.allocate(ArchiveWriter.BLOCK_BYTES);
+  private ByteBuffer encoded = ByteBuffer.allocate(2 * ArchiveWriter.BLOCK_BYTES);
+  private int blockIndex = -1;
+  private ArchiveBlock block;
+  private int game = -1;
+  private int event;
+  private int eventEnd;
+  private long blocksRead;
+
+  /**
+   * Opens an archive keeping {@value #CACHE_BLOCKS} blocks decoded.
+   * @param file file holding the archive.
+   * @throws IOException if the file cannot be read or is not a complete archive.
+   */
+  public ArchiveReader(Path file) throws IOException {
+    this(file, CACHE_BLOCKS);
+  }
+
+  /**
+   * Opens an archive.
+   * @param file file holding the archive.
+   * @param cacheBlocks blocks kept decoded; at least 1.
+   * @throws IOException if the file cannot be read or is not a complete archive.
+   */
+  public ArchiveReader(Path file, int cacheBlocks) throws IOException {
+    this.cache = new LinkedHashMap<>(cacheBlocks * 2, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, ArchiveBlock> eldest) {
+        return size() > Math.max(1, cacheBlocks);
+      }
+    };
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long size = this.channel.size();
+      if (size < ArchiveWriter.HEADER_BYTES + ArchiveWriter.TRAILER_BYTES) {
+        throw new IOException(file + " is not a game archive");
+      }
+      ByteBuffer header = read(0, ArchiveWriter.HEADER_BYTES);
+      if (header.getInt(0) != ArchiveWriter.MAGIC) {
+        throw new IOException(file + " is not a game archive");
+      }
+      if (header.getInt(4) != ArchiveWriter.VERSION) {
+        throw new IOException("Unsupported game archive version " + header.getInt(4));
+      }
+      ByteBuffer trailer = read(size - ArchiveWriter.TRAILER_BYTES, ArchiveWriter.TRAILER_BYTES);
+      int blocks = trailer.getInt();
+      long indexOffset = trailer.getLong();
+      if (trailer.getInt() != ArchiveWriter.MAGIC) {
+        throw new IOException(file + " is not a complete game archive");
+      }
+
+      ByteBuffer index = read(indexOffset, blocks * ArchiveWriter.INDEX_ENTRY_BYTES);
+      this.firstGameIds = new long[blocks];
+      this.lastGameIds = new long[blocks];
+      this.offsets = new long[blocks];
+      this.deflatedBytes = new int[blocks];
+      this.encodedBytes = new int[blocks];
+      long games = 0;
+      for (int i = 0; i < blocks; i++) {
+        this.firstGameIds[i] = index.getLong();
+        this.lastGameIds[i] = index.getLong();
+        this.offsets[i] = index.getLong();
+        this.deflatedBytes[i] = index.getInt();
+        this.encodedBytes[i] = index.getInt();
+        games += index.getInt();
+      }
+      this.gameCount = games;
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Positions the cursor on a game, so its events are read next.
+   * @param gameId id of the game.
+   * @return false if the archive does not hold the game, leaving the cursor where it was.
+   * @throws IOException if the archive cannot be read.
+   */
+  public boolean seekGame(long gameId) throws IOException {
+    int low = 0;
+    int high = this.firstGameIds.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (this.lastGameIds[middle] < gameId) {
+        low = middle + 1;
+      } else if (this.firstGameIds[middle] > gameId) {
+        high = middle - 1;
+      } else {
+        ArchiveBlock candidate = load(middle);
+        int index = candidate.indexOf(gameId);
+        if (index < 0) {
+          return false;
+        }
+        this.blockIndex = middle;
+        this.block = candidate;
+        enter(index);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Positions the cursor so the next {@link #nextGame()} reads the first game. */
+  public void rewind() {
+    this.blockIndex = -1;
+    this.block = null;
+    this.game = -1;
+    this.eventEnd = 0;
+    this.event = 0;
+  }
+
+  @Override
+  public boolean nextGame() throws IOException {
+    if (this.block != null && this.game + 1 < this.block.games) {
+      enter(this.game + 1);
+      return true;
+    }
+    if (this.blockIndex + 1 >= this.firstGameIds.length) {
+      return false;
+    }
+    this.blockIndex++;
+    this.block = load(this.blockIndex);
+    enter(0);
+    return true;
+  }
+
+  @Override
+  public boolean nextEvent() {
+    if (this.event + 1 >= this.eventEnd) {
+      return false;
+    }
+    this.event++;
+    return true;
+  }
+
+  @Override
+  public long getGameId() {
+    return this.block.gameIds[this.game];
+  }
+
+  @Override
+  public int getEventCount() {
+    return this.block.firstEvents[this.game + 1] - this.block.firstEvents[this.game];
+  }
+
+  @Override
+  public long getTimestamp() {
+    return this.block.timestamps[this.event];
+  }
+
+  @Override
+  public long getPlayer() {
+    return this.block.players[this.event];
+  }
+
+  @Override
+  public long getTarget() {
+    return this.block.targets[this.event];
+  }
+
+  @Override
+  public int getValue() {
+    return this.block.values[this.event];
+  }
+
+  @Override
+  public GameEventType getType() {
+    return TYPES[this.block.types[this.event]];
+  }
+
+  @Override
+  public Rank getRank() {
+    int rank = this.block.ranks[this.event];
+    return rank == 0 ? null : RANKS[rank - 1];
+  }
+
+  public long getGameCount() {
+    return this.gameCount;
+  }
+
+  public int getBlockCount() {
+    return this.firstGameIds.length;
+  }
+
+  /**
+   * Getter for the id of the last game archived.
+   * @return the id, or -1 if the archive is empty.
+   */
+  public long getLastGameId() {
+    return this.lastGameIds.length == 0 ? -1 : this.lastGameIds[this.lastGameIds.length - 1];
+  }
+
+  /**
+   * Getter for the blocks inflated so far, which is the blocks visited less the cache hits.
+   * @return number of blocks read from the file.
+   */
+  public long getBlocksRead() {
+    return this.blocksRead;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.inflater.end();
+    this.channel.close();
+  }
+
+  private void enter(int game) {
+    this.game = game;
+    this.event = this.block.firstEvents[game] - 1;
+    this.eventEnd = this.block.firstEvents[game + 1];
+  }
+
+  private ArchiveBlock load(int index) throws IOException {
+    ArchiveBlock cached = this.cache.get(index);
+    if (cached != null) {
+      return cached;
+    }
+    if (this.deflated.capacity() < this.deflatedBytes[index]) {
+      this.deflated = ByteBuffer.allocate(this.deflatedBytes[index]);
+    }
+    if (this.encoded.capacity() < this.encodedBytes[index]) {
+      this.encoded = ByteBuffer.allocate(this.encodedBytes[index]);
+    }
+    readFully(this.deflated, this.offsets[index], this.deflatedBytes[index]);
+    this.inflater.reset();
+    this.inflater.setInput(this.deflated.array(), 0, this.deflatedBytes[index]);
+    try {
+      int bytes = this.inflater.inflate(this.encoded.array(), 0, this.encodedBytes[index]);
+      if (bytes != this.encodedBytes[index] || !this.inflater.finished()) {
+        throw new IOException("Corrupt archive block " + index);
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt archive block " + index, e);
+    }
+    this.encoded.clear().limit(this.encodedBytes[index]);
+    ArchiveBlock loaded = ArchiveBlock.decode(this.encoded);
+    this.blocksRead++;
+    this.cache.put(index, loaded);
+    return loaded;
+  }
+
+  private ByteBuffer read(long position, int bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(bytes);
+    readFully(buffer, position, bytes);
+    return buffer;
+  }
+
+  private void readFully(ByteBuffer buffer, long position, int bytes) throws IOException {
+    buffer.clear().limit(bytes);
+    while (buffer.hasRemaining()) {
+      if (this.channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of archive");
+      }
+    }
+    buffer.flip();
+  }
+}
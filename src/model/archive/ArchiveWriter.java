@@ -0,0 +1,130 @@
+package model.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+
+import model.game.Rank;
+
+/**
+ * Compacts a closed {@link GameJournal} into a compressed archive segment.
+ *
+ * Games are grouped into blocks of about {@value #BLOCK_BYTES} bytes of journal, each encoded
+ * column by column by {@link ArchiveBlock} and deflated, so a reader only inflates the blocks it
+ * visits. The file is [magic][version], the blocks, then an index with an entry per block:
+ * [first game id][last game id][offset][deflated length][encoded length][games], and last
+ * [block count][index offset][magic].
+ */
+public final class ArchiveWriter {
+  static final int MAGIC = 0x4C424152; // "LBAR"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 8;
+  static final int INDEX_ENTRY_BYTES = 3 * Long.BYTES + 3 * Integer.BYTES;
+  static final int TRAILER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+  static final int BLOCK_BYTES = 1 << 16;
+
+  private ArchiveWriter() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  /**
+   * Writes every game of a journal to a new archive and forces it to the device.
+   * @param journal the journal, which no longer receives games.
+   * @param archive file to write, replaced if it exists.
+   * @return the number of games archived.
+   * @throws IOException if the journal cannot be read or the archive written.
+   */
+  public static long compact(Path journal, Path archive) throws IOException {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    try (JournalReader reader = new JournalReader(journal);
+        FileChannel out = FileChannel.open(archive, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+      header.flip();
+      writeFully(out, header);
+
+      ArchiveBlock block = new ArchiveBlock();
+      ByteBuffer index = ByteBuffer.allocate(64 * INDEX_ENTRY_BYTES);
+      ByteBuffer encoded = ByteBuffer.allocate(2 * BLOCK_BYTES);
+      ByteBuffer deflated = ByteBuffer.allocate(2 * BLOCK_BYTES);
+      int blocks = 0;
+      long games = 0;
+      long blockBytes = 0;
+      while (reader.nextGame()) {
+        block.addGame(reader.getGameId());
+        while (reader.nextEvent()) {
+          Rank rank = reader.getRank();
+          block.addEvent(reader.getTimestamp(), reader.getPlayer(), reader.getTarget(),
+              reader.getValue(), reader.getType().ordinal(), rank == null ? 0 : rank.ordinal() + 1);
+        }
+        games++;
+        blockBytes += GameJournal.GAME_HEADER_BYTES + (long) reader.getEventCount() * GameJournal.EVENT_BYTES;
+        if (blockBytes >= BLOCK_BYTES) {
+          index = writeBlock(out, block, index, encoded, deflated, deflater);
+          blocks++;
+          block.clear();
+          blockBytes = 0;
+        }
+      }
+      if (block.games > 0) {
+        index = writeBlock(out, block, index, encoded, deflated, deflater);
+        blocks++;
+      }
+
+      long indexOffset = out.position();
+      index.flip();
+      writeFully(out, index);
+      ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).putInt(blocks).putLong(indexOffset).putInt(MAGIC);
+      trailer.flip();
+      writeFully(out, trailer);
+      out.force(true);
+      return games;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Encodes, deflates and writes a block, and adds its index entry.
+   * @return the index, grown if it was full.
+   */
+  private static ByteBuffer writeBlock(FileChannel out, ArchiveBlock block, ByteBuffer index,
+      ByteBuffer encoded, ByteBuffer deflated, Deflater deflater) throws IOException {
+    if (encoded.capacity() < block.maxEncodedBytes()) {
+      encoded = ByteBuffer.allocate(block.maxEncodedBytes());
+    }
+    encoded.clear();
+    block.encode(encoded);
+    encoded.flip();
+    int encodedBytes = encoded.remaining();
+
+    deflater.reset();
+    deflater.setInput(encoded.array(), 0, encodedBytes);
+    deflater.finish();
+    deflated.clear();
+    long offset = out.position();
+    while (!deflater.finished()) {
+      int bytes = deflater.deflate(deflated.array(), 0, deflated.capacity());
+      deflated.position(0).limit(bytes);
+      writeFully(out, deflated);
+    }
+
+    if (index.remaining() < INDEX_ENTRY_BYTES) {
+      ByteBuffer grown = ByteBuffer.allocate(index.capacity() * 2);
+      index.flip();
+      index = grown.put(index);
+    }
+    index.putLong(block.gameIds[0]).putLong(block.gameIds[block.games - 1]).putLong(offset)
+        .putInt((int) (out.position() - offset)).putInt(encodedBytes).putInt(block.games);
+    return index;
+  }
+
+  private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+  }
+}
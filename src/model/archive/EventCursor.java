@@ -0,0 +1,55 @@
+package model.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import model.events.GameEventType;
+import model.game.Rank;
+
+/**
+ * Reads journaled games in order: {@link #nextGame()} moves to the next game and {@link
+ * #nextEvent()} through its events, whose fields are then read from the getters.
+ */
+public interface EventCursor extends Closeable {
+  /**
+   * Moves to the next game, skipping any events of the current one not read.
+   * @return false after the last game.
+   * @throws IOException if the games cannot be read.
+   */
+  boolean nextGame() throws IOException;
+
+  /**
+   * Moves to the next event of the current game.
+   * @return false once the game's events are exhausted.
+   * @throws IOException if the games cannot be read.
+   */
+  boolean nextEvent() throws IOException;
+
+  long getGameId();
+
+  int getEventCount();
+
+  long getTimestamp();
+
+  /**
+   * Getter for the player the current event is about.
+   * @return their numeric id, or {@link GameJournal#NO_PLAYER}.
+   */
+  long getPlayer();
+
+  /**
+   * Getter for the other player involved in the current event.
+   * @return their numeric id, or {@link GameJournal#NO_PLAYER}.
+   */
+  long getTarget();
+
+  int getValue();
+
+  GameEventType getType();
+
+  /**
+   * Getter for the round rank of the current event.
+   * @return the rank, or null if the event is not tied to a round.
+   */
+  Rank getRank();
+}
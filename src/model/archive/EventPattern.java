@@ -0,0 +1,135 @@
+package model.archive;
+
+import model.events.GameEventType;
+import model.game.Rank;
+
+/**
+ * Describes the events a query looks for; a game matches when one of its events has every field
+ * the pattern sets. For example, games where player X lost a challenge in a QUEEN round are those
+ * matching either of
+ *
+ * <pre>
+ * new EventPattern.Builder().withType(CHALLENGE_RESULT).withRank(QUEEN).withPlayer(x).withValue(0).build()
+ * new EventPattern.Builder().withType(CHALLENGE_RESULT).withRank(QUEEN).withTarget(x).withValue(1).build()
+ * </pre>
+ */
+public final class EventPattern {
+  private final GameEventType type;
+  private final Rank rank;
+  private final boolean hasValue;
+  private final int value;
+  private final boolean hasPlayer;
+  private final long player;
+  private final boolean hasTarget;
+  private final long target;
+
+  private EventPattern(Builder builder) {
+    this.type = builder.type;
+    this.rank = builder.rank;
+    this.hasValue = builder.hasValue;
+    this.value = builder.value;
+    this.hasPlayer = builder.hasPlayer;
+    this.player = builder.player;
+    this.hasTarget = builder.hasTarget;
+    this.target = builder.target;
+  }
+
+  public static class Builder {
+    private GameEventType type;
+    private Rank rank;
+    private boolean hasValue;
+    private int value;
+    private boolean hasPlayer;
+    private long player;
+    private boolean hasTarget;
+    private long target;
+
+    public Builder withType(GameEventType type) {
+      this.type = type;
+      return this;
+    }
+
+    public Builder withRank(Rank rank) {
+      this.rank = rank;
+      return this;
+    }
+
+    /**
+     * Sets the type-specific value, as described at {@link model.events.GameEvent#getValue()}.
+     */
+    public Builder withValue(int value) {
+      this.hasValue = true;
+      this.value = value;
+      return this;
+    }
+
+    /**
+     * Sets the player the event is about (claimer, challenger, shooter, winner, ...).
+     * @param player numeric id of the player.
+     */
+    public Builder withPlayer(long player) {
+      this.hasPlayer = true;
+      this.player = player;
+      return this;
+    }
+
+    /**
+     * Sets the other player involved, such as the claimer being challenged.
+     * @param target numeric id of the player.
+     */
+    public Builder withTarget(long target) {
+      this.hasTarget = true;
+      this.target = target;
+      return this;
+    }
+
+    public EventPattern build() {
+      return new EventPattern(this);
+    }
+  }
+
+  /**
+   * Checks the current event of a cursor against the pattern.
+   * @param reader cursor positioned on an event.
+   * @return true if every field the pattern sets is equal.
+   */
+  public boolean matches(EventCursor reader) {
+    return (this.type == null || reader.getType() == this.type)
+        && (this.rank == null || reader.getRank() == this.rank)
+        && (!this.hasValue || reader.getValue() == this.value)
+        && (!this.hasPlayer || reader.getPlayer() == this.player)
+        && (!this.hasTarget || reader.getTarget() == this.target);
+  }
+
+  GameEventType getType() {
+    return this.type;
+  }
+
+  Rank getRank() {
+    return this.rank;
+  }
+
+  boolean hasValue() {
+    return this.hasValue;
+  }
+
+  int getValue() {
+    return this.value;
+  }
+
+  boolean hasPlayer() {
+    return this.hasPlayer;
+  }
+
+  long getPlayer() {
+    return this.player;
+  }
+
+  boolean hasTarget() {
+    return this.hasTarget;
+  }
+
+  long getTarget() {
+    return this.target;
+  }
+}
@@ -0,0 +1,367 @@
+package model.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import model.events.GameEventType;
+import model.game.Rank;
+
+/**
+ * Inverted index over a {@link GameJournal}, answering which games contain an event matching an
+ * {@link EventPattern}.
+ *
+ * Games are numbered in journal order, and for every term a {@link PostingList} holds the numbers
+ * of the games containing it. The terms are the player and the target of each event, its type,
+ * and its signature: type, rank and value together. A query intersects the lists of the terms
+ * its pattern sets, shortest first, and reads only the candidate games from the journal to check
+ * that a single event matches the whole pattern.
+ */
+public class GameIndex {
+  private static final int MAGIC = 0x4C424958; // "LBIX"
+  private static final int VERSION = 1;
+  private static final int TYPES = GameEventType.values().length;
+  private static final int RANKS = Rank.values().length + 1;
+  private static final int VALUES = 16;
+
+  private final long[] gameIds;
+  private final long[] offsets;
+  private final PostingList[] types;
+  private final PostingList[] signatures;
+  private final Map<Long, PostingList> players;
+  private final Map<Long, PostingList> targets;
+
+  private GameIndex(long[] gameIds, long[] offsets, PostingList[] types, PostingList[] signatures,
+      Map<Long, PostingList> players, Map<Long, PostingList> targets) {
+    this.gameIds = gameIds;
+    this.offsets = offsets;
+    this.types = types;
+    this.signatures = signatures;
+    this.players = players;
+    this.targets = targets;
+  }
+
+  /**
+   * Indexes every whole game of a journal.
+   * @param journal the journal to index.
+   * @return the index.
+   * @throws IOException if the journal cannot be read.
+   */
+  public static GameIndex build(Path journal) throws IOException {
+    long[] gameIds = new long[1024];
+    long[] offsets = new long[1024];
+    PostingList.Builder[] types = newBuilders(TYPES);
+    PostingList.Builder[] signatures = newBuilders(TYPES * RANKS * VALUES);
+    Map<Long, PostingList.Builder> players = new HashMap<>();
+    Map<Long, PostingList.Builder> targets = new HashMap<>();
+    int games = 0;
+    try (JournalReader reader = new JournalReader(journal)) {
+      while (reader.nextGame()) {
+        if (games == gameIds.length) {
+          gameIds = Arrays.copyOf(gameIds, games * 2);
+          offsets = Arrays.copyOf(offsets, games * 2);
+        }
+        gameIds[games] = reader.getGameId();
+        offsets[games] = reader.getGameOffset();
+        while (reader.nextEvent()) {
+          GameEventType type = reader.getType();
+          types[type.ordinal()].add(games);
+          signatures[signature(type, reader.getRank(), reader.getValue())].add(games);
+          if (reader.getPlayer() != GameJournal.NO_PLAYER) {
+            players.computeIfAbsent(reader.getPlayer(), id -> new PostingList.Builder()).add(games);
+          }
+          if (reader.getTarget() != GameJournal.NO_PLAYER) {
+            targets.computeIfAbsent(reader.getTarget(), id -> new PostingList.Builder()).add(games);
+          }
+        }
+        games++;
+      }
+    }
+    return new GameIndex(Arrays.copyOf(gameIds, games), Arrays.copyOf(offsets, games), build(types),
+        build(signatures), build(players), build(targets));
+  }
+
+  /**
+   * Loads an index saved by {@link #write(Path)}.
+   * @param file file holding the index.
+   * @return the index.
+   * @throws IOException if the file cannot be read or is not an index.
+   */
+  public static GameIndex open(Path file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(file + " is not a game index");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported game index version " + version);
+      }
+      int games = in.readInt();
+      long[] gameIds = new long[games];
+      long[] offsets = new long[games];
+      for (int i = 0; i < games; i++) {
+        gameIds[i] = in.readLong();
+        offsets[i] = in.readLong();
+      }
+      PostingList[] types = new PostingList[TYPES];
+      for (int i = 0; i < types.length; i++) {
+        types[i] = PostingList.read(in);
+      }
+      PostingList[] signatures = new PostingList[TYPES * RANKS * VALUES];
+      for (int i = 0; i < signatures.length; i++) {
+        signatures[i] = PostingList.read(in);
+      }
+      return new GameIndex(gameIds, offsets, types, signatures, readMap(in), readMap(in));
+    }
+  }
+
+  /**
+   * Saves the index.
+   * @param file file to write, replaced if it exists.
+   * @throws IOException if the file cannot be written.
+   */
+  public void write(Path file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(this.gameIds.length);
+      for (int i = 0; i < this.gameIds.length; i++) {
+        out.writeLong(this.gameIds[i]);
+        out.writeLong(this.offsets[i]);
+      }
+      for (PostingList list : this.types) {
+        list.write(out);
+      }
+      for (PostingList list : this.signatures) {
+        list.write(out);
+      }
+      writeMap(out, this.players);
+      writeMap(out, this.targets);
+    }
+  }
+
+  /**
+   * Getter for the number of games indexed.
+   * @return whole games in the journal when the index was built.
+   */
+  public int getGameCount() {
+    return this.gameIds.length;
+  }
+
+  /**
+   * Getter for the size of the compressed posting lists.
+   * @return bytes of list data and skip entries.
+   */
+  public long getPostingBytes() {
+    long bytes = 0;
+    for (PostingList list : this.types) {
+      bytes += list.bytes();
+    }
+    for (PostingList list : this.signatures) {
+      bytes += list.bytes();
+    }
+    for (PostingList list : this.players.values()) {
+      bytes += list.bytes();
+    }
+    for (PostingList list : this.targets.values()) {
+      bytes += list.bytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * Finds the games with an event matching any of the patterns.
+   * @param journal reader over the journal the index was built from.
+   * @param anyOf the patterns.
+   * @return ids of the matching games, in journal order.
+   * @throws IOException if the journal cannot be read.
+   */
+  public long[] find(JournalReader journal, EventPattern... anyOf) throws IOException {
+    int[] candidates = new int[0];
+    for (EventPattern pattern : anyOf) {
+      candidates = union(candidates, candidates(pattern));
+    }
+    long[] found = new long[Math.min(candidates.length, 1024)];
+    int count = 0;
+    for (int game : candidates) {
+      journal.seek(this.offsets[game]);
+      if (journal.nextGame() && containsMatch(journal, anyOf)) {
+        if (count == found.length) {
+          found = Arrays.copyOf(found, count * 2);
+        }
+        found[count++] = this.gameIds[game];
+      }
+    }
+    return Arrays.copyOf(found, count);
+  }
+
+  /**
+   * Finds the games with an event matching any of the patterns by reading the whole journal, for
+   * comparison with {@link #find}.
+   * @param journal reader positioned at the start of the journal.
+   * @param anyOf the patterns.
+   * @return ids of the matching games, in journal order.
+   * @throws IOException if the journal cannot be read.
+   */
+  public static long[] scan(JournalReader journal, EventPattern... anyOf) throws IOException {
+    long[] found = new long[1024];
+    int count = 0;
+    while (journal.nextGame()) {
+      if (containsMatch(journal, anyOf)) {
+        if (count == found.length) {
+          found = Arrays.copyOf(found, count * 2);
+        }
+        found[count++] = journal.getGameId();
+      }
+    }
+    return Arrays.copyOf(found, count);
+  }
+
+  /** Numbers of the games holding every term the pattern sets, ascending. */
+  private int[] candidates(EventPattern pattern) {
+    PostingList[] lists = new PostingList[3];
+    int count = 0;
+    if (pattern.hasPlayer()) {
+      lists[count++] = this.players.getOrDefault(pattern.getPlayer(), PostingList.EMPTY);
+    }
+    if (pattern.hasTarget()) {
+      lists[count++] = this.targets.getOrDefault(pattern.getTarget(), PostingList.EMPTY);
+    }
+    if (pattern.getType() != null && pattern.getRank() != null && pattern.hasValue()) {
+      lists[count++] = this.signatures[signature(pattern.getType(), pattern.getRank(), pattern.getValue())];
+    } else if (pattern.getType() != null) {
+      lists[count++] = this.types[pattern.getType().ordinal()];
+    }
+    if (count == 0) {
+      int[] all = new int[this.gameIds.length];
+      Arrays.setAll(all, game -> game);
+      return all;
+    }
+    return intersect(Arrays.copyOf(lists, count));
+  }
+
+  private static int[] intersect(PostingList[] lists) {
+    PostingList.Cursor[] cursors = new PostingList.Cursor[lists.length];
+    for (int i = 0; i < lists.length; i++) {
+      cursors[i] = lists[i].cursor();
+    }
+    Arrays.sort(cursors, Comparator.comparingInt(PostingList.Cursor::size));
+    int[] result = new int[Math.min(cursors[0].size(), 1024)];
+    int count = 0;
+    PostingList.Cursor lead = cursors[0];
+    if (!lead.next()) {
+      return result;
+    }
+    while (true) {
+      int game = lead.game();
+      boolean all = true;
+      for (int i = 1; i < cursors.length && all; i++) {
+        if (!cursors[i].advance(game)) {
+          return Arrays.copyOf(result, count);
+        }
+        if (cursors[i].game() != game) {
+          // Let the lead catch up with the list that is ahead
+          all = false;
+          if (!lead.advance(cursors[i].game())) {
+            return Arrays.copyOf(result, count);
+          }
+        }
+      }
+      if (all) {
+        if (count == result.length) {
+          result = Arrays.copyOf(result, count * 2);
+        }
+        result[count++] = game;
+        if (!lead.next()) {
+          return Arrays.copyOf(result, count);
+        }
+      }
+    }
+  }
+
+  private static int[] union(int[] left, int[] right) {
+    if (left.length == 0) {
+      return right;
+    }
+    int[] result = new int[left.length + right.length];
+    int i = 0;
+    int j = 0;
+    int count = 0;
+    while (i < left.length || j < right.length) {
+      int next = j == right.length || (i < left.length && left[i] <= right[j]) ? left[i] : right[j];
+      if (i < left.length && left[i] == next) {
+        i++;
+      }
+      if (j < right.length && right[j] == next) {
+        j++;
+      }
+      result[count++] = next;
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  private static boolean containsMatch(JournalReader journal, EventPattern[] anyOf) throws IOException {
+    while (journal.nextEvent()) {
+      for (EventPattern pattern : anyOf) {
+        if (pattern.matches(journal)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Values past the last bucket share it, so their signature list is a superset. */
+  private static int signature(GameEventType type, Rank rank, int value) {
+    int rankIndex = rank == null ? 0 : rank.ordinal() + 1;
+    int valueIndex = Math.max(0, Math.min(VALUES - 1, value + 1));
+    return (type.ordinal() * RANKS + rankIndex) * VALUES + valueIndex;
+  }
+
+  private static PostingList.Builder[] newBuilders(int count) {
+    PostingList.Builder[] builders = new PostingList.Builder[count];
+    for (int i = 0; i < count; i++) {
+      builders[i] = new PostingList.Builder();
+    }
+    return builders;
+  }
+
+  private static PostingList[] build(PostingList.Builder[] builders) {
+    PostingList[] lists = new PostingList[builders.length];
+    for (int i = 0; i < builders.length; i++) {
+      lists[i] = builders[i].build();
+    }
+    return lists;
+  }
+
+  private static Map<Long, PostingList> build(Map<Long, PostingList.Builder> builders) {
+    Map<Long, PostingList> lists = new HashMap<>(builders.size() * 4 / 3 + 1);
+    builders.forEach((id, builder) -> lists.put(id, builder.build()));
+    return lists;
+  }
+
+  private static void writeMap(DataOutputStream out, Map<Long, PostingList> lists) throws IOException {
+    out.writeInt(lists.size());
+    for (Map.Entry<Long, PostingList> entry : lists.entrySet()) {
+      out.writeLong(entry.getKey());
+      entry.getValue().write(out);
+    }
+  }
+
+  private static Map<Long, PostingList> readMap(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    Map<Long, PostingList> lists = new HashMap<>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      lists.put(in.readLong(), PostingList.read(in));
+    }
+    return lists;
+  }
+}
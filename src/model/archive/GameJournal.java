@@ -0,0 +1,203 @@
+package model.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+import model.events.GameEvent;
+import model.game.Rank;
+import model.network.Room;
+
+/**
+ * Append-only log of finished games, one contiguous block per game.
+ *
+ * A block is [game id][event count] followed by fixed {@value #EVENT_BYTES}-byte events:
+ * [timestamp][player][target][value][type][rank], with players as numeric ids and {@link
+ * #NO_PLAYER} for none, and the rank as its ordinal plus one, 0 for none. Event messages are not
+ * kept; they are rebuilt for display from the other fields. Keeping a game contiguous lets an
+ * index point at it with a single offset. A room's events are buffered until its game ends, so a
+ * game in progress is not in the log.
+ */
+public class GameJournal implements Closeable {
+  static final int MAGIC = 0x4C424A4E; // "LBJN"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 8;
+  static final int GAME_HEADER_BYTES = 12;
+  static final int EVENT_BYTES = 32;
+  public static final long NO_PLAYER = Long.MIN_VALUE;
+  private static final int BUFFER_BYTES = 1 << 20;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+  private final Map<String, GameRecorder> recorders = new ConcurrentHashMap<>();
+  private long nextGameId;
+
+  /**
+   * Opens a journal for appending, creating it if missing. A torn last block left by a crash is
+   * cut off.
+   * @param file file holding the journal.
+   * @throws IOException if the file cannot be opened or is not a journal.
+   */
+  public GameJournal(Path file) throws IOException {
+    this(file, 0);
+  }
+
+  /**
+   * Opens a journal for appending, creating it if missing, so that a new journal continues the
+   * game ids of another.
+   * @param file file holding the journal.
+   * @param firstGameId id of the first game if the journal is new.
+   * @throws IOException if the file cannot be opened or is not a journal.
+   */
+  public GameJournal(Path file, long firstGameId) throws IOException {
+    this.nextGameId = firstGameId;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      if (this.channel.size() == 0) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        this.channel.write(header, 0);
+        this.channel.position(HEADER_BYTES);
+      } else {
+        recover(file);
+      }
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Starts journaling the games of a room, if not already journaled.
+   * @param room the room to follow.
+   */
+  public void attach(Room room) {
+    if (room.getEventPublisher() == null) {
+      throw new IllegalStateException("Room " + room.getId() + " does not publish events");
+    }
+    this.recorders.computeIfAbsent(room.getId(), id -> {
+      GameRecorder recorder = new GameRecorder(room, this::append);
+      room.getEventPublisher().addListener(recorder);
+      return recorder;
+    });
+  }
+
+  /**
+   * Appends one finished game. The block reaches the file once the write buffer fills or on
+   * {@link #flush()}.
+   * @param events events of the game, in order.
+   * @param numericIds maps the players' string ids to their numeric ids.
+   * @return id assigned to the game.
+   */
+  public synchronized long append(List<GameEvent> events, ToLongFunction<String> numericIds) {
+    long gameId = this.nextGameId++;
+    int bytes = GAME_HEADER_BYTES + events.size() * EVENT_BYTES;
+    try {
+      ByteBuffer out = this.buffer;
+      if (bytes > out.remaining()) {
+        writeBuffer();
+        if (bytes > out.capacity()) {
+          out = ByteBuffer.allocate(bytes);
+        }
+      }
+      out.putLong(gameId).putInt(events.size());
+      for (GameEvent event : events) {
+        Rank rank = event.getRank();
+        out.putLong(event.getTimestamp())
+            .putLong(numericId(event.getPlayerId(), numericIds))
+            .putLong(numericId(event.getTargetPlayerId(), numericIds))
+            .putInt(event.getValue())
+            .put((byte) event.getEventType().ordinal())
+            .put((byte) (rank == null ? 0 : rank.ordinal() + 1))
+            .putShort((short) 0);
+      }
+      if (out != this.buffer) {
+        out.flip();
+        while (out.hasRemaining()) {
+          this.channel.write(out);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return gameId;
+  }
+
+  /**
+   * Getter for the size of the journal, including games not yet written.
+   * @return bytes in the file and the write buffer.
+   * @throws IOException if the file position cannot be read.
+   */
+  public synchronized long getSize() throws IOException {
+    return this.channel.position() + this.buffer.position();
+  }
+
+  public synchronized long getNextGameId() {
+    return this.nextGameId;
+  }
+
+  /**
+   * Writes buffered games and forces them to the device.
+   * @throws IOException if the games cannot be written.
+   */
+  public synchronized void flush() throws IOException {
+    writeBuffer();
+    this.channel.force(false);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      this.channel.close();
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  /** Finds the end of the last whole block and the next game id, and truncates past it. */
+  private void recover(Path file) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(GAME_HEADER_BYTES);
+    this.channel.read(header.limit(HEADER_BYTES), 0);
+    if (header.position() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+      throw new IOException(file + " is not a game journal");
+    }
+    if (header.getInt(4) != VERSION) {
+      throw new IOException("Unsupported game journal version " + header.getInt(4));
+    }
+    long size = this.channel.size();
+    long position = HEADER_BYTES;
+    while (position + GAME_HEADER_BYTES <= size) {
+      header.clear();
+      this.channel.read(header, position);
+      long end = position + GAME_HEADER_BYTES + (long) header.getInt(8) * EVENT_BYTES;
+      if (header.getInt(8) < 0 || end > size) {
+        break; // torn tail
+      }
+      this.nextGameId = header.getLong(0) + 1;
+      position = end;
+    }
+    this.channel.truncate(position);
+    this.channel.position(position);
+  }
+
+  private static long numericId(String playerId, ToLongFunction<String> numericIds) {
+    return playerId == null ? NO_PLAYER : numericIds.applyAsLong(playerId);
+  }
+}
@@ -0,0 +1,70 @@
+package model.archive;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+import model.events.GameEvent;
+import model.events.GameEventListener;
+import model.network.Room;
+import model.network.User;
+
+/**
+ * Buffers the events of one room's game until it ends, then hands the whole game to a journal.
+ * Events are published under the room's lock, so the room's members can be read here to map
+ * player ids to numbers.
+ */
+class GameRecorder implements GameEventListener {
+  private final Room room;
+  private final BiConsumer<List<GameEvent>, ToLongFunction<String>> journal;
+  private final List<GameEvent> events = new ArrayList<>();
+  private final Map<String, Long> numericIds = new HashMap<>();
+  private boolean playing;
+
+  /**
+   * @param room the room followed.
+   * @param journal appends a finished game, given its events and the players' numeric ids.
+   */
+  GameRecorder(Room room, BiConsumer<List<GameEvent>, ToLongFunction<String>> journal) {
+    this.room = room;
+    this.journal = journal;
+  }
+
+  @Override
+  public void onGameEvent(GameEvent event) {
+    switch (event.getEventType()) {
+      case GAME_STARTED:
+        this.events.clear();
+        this.playing = true;
+        this.events.add(event);
+        break;
+      case GAME_ENDED:
+        if (this.playing) {
+          this.events.add(event);
+          this.journal.accept(this.events, this::numericId);
+          this.events.clear();
+          this.playing = false;
+        }
+        break;
+      default:
+        if (this.playing) {
+          this.events.add(event);
+        }
+        break;
+    }
+  }
+
+  private long numericId(String playerId) {
+    Long numericId = this.numericIds.get(playerId);
+    if (numericId == null) {
+      for (User member : this.room.getMembers()) {
+        this.numericIds.put(member.getId(), member.getNumericId());
+      }
+      numericId = this.numericIds.get(playerId);
+    }
+    return numericId == null ? GameJournal.NO_PLAYER : numericId;
+  }
+}
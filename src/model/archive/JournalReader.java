@@ -0,0 +1,190 @@
+package model.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import model.events.GameEventType;
+import model.game.Rank;
+
+/**
+ * Cursor over a {@link GameJournal}. Nothing is allocated per game or event. Not thread safe.
+ */
+public class JournalReader implements EventCursor {
+  private static final int WINDOW_BYTES = 1 << 20;
+  private static final int SEEK_READ_BYTES = 8192;
+  private static final GameEventType[] TYPES = GameEventType.values();
+  private static final Rank[] RANKS = Rank.values();
+
+  private final FileChannel channel;
+  private final long size;
+  private final ByteBuffer window = ByteBuffer.allocateDirect(WINDOW_BYTES);
+  private long windowStart;
+  private long next;
+  private long gameOffset = -1;
+  private long gameId;
+  private int eventCount;
+  private int eventsLeft;
+  private int event = -1;
+  private int readAhead = WINDOW_BYTES;
+
+  /**
+   * Opens a journal for reading from its first game.
+   * @param file file holding the journal.
+   * @throws IOException if the file cannot be opened or is not a journal.
+   */
+  public JournalReader(Path file) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.size = this.channel.size();
+    this.window.limit(0);
+    try {
+      if (!fill(0, GameJournal.HEADER_BYTES) || this.window.getInt(0) != GameJournal.MAGIC) {
+        throw new IOException(file + " is not a game journal");
+      }
+      if (this.window.getInt(4) != GameJournal.VERSION) {
+        throw new IOException("Unsupported game journal version " + this.window.getInt(4));
+      }
+    } catch (IOException e) {
+      this.channel.close();
+      throw e;
+    }
+    this.next = GameJournal.HEADER_BYTES;
+  }
+
+  /**
+   * Positions the cursor so the next {@link #nextGame()} reads the game at an offset. Reads then
+   * fetch a few pages at a time rather than filling the whole window, until {@link #rewind()}.
+   * @param offset offset of a game block, as from {@link #getGameOffset()}.
+   */
+  public void seek(long offset) {
+    move(offset, SEEK_READ_BYTES);
+  }
+
+  /** Positions the cursor so the next {@link #nextGame()} reads the first game. */
+  public void rewind() {
+    move(GameJournal.HEADER_BYTES, WINDOW_BYTES);
+  }
+
+  /**
+   * {@inheritDoc} The journal ends at its last whole block.
+   */
+  @Override
+  public boolean nextGame() throws IOException {
+    if (!fill(this.next, GameJournal.GAME_HEADER_BYTES)) {
+      return false;
+    }
+    int at = (int) (this.next - this.windowStart);
+    long id = this.window.getLong(at);
+    int count = this.window.getInt(at + Long.BYTES);
+    long end = this.next + GameJournal.GAME_HEADER_BYTES + (long) count * GameJournal.EVENT_BYTES;
+    if (count < 0 || end > this.size) {
+      return false; // torn tail
+    }
+    this.gameOffset = this.next;
+    this.gameId = id;
+    this.eventCount = count;
+    this.eventsLeft = count;
+    this.event = -1;
+    this.next = end;
+    return true;
+  }
+
+  @Override
+  public boolean nextEvent() throws IOException {
+    if (this.eventsLeft == 0) {
+      return false;
+    }
+    long position = this.next - (long) this.eventsLeft * GameJournal.EVENT_BYTES;
+    fill(position, GameJournal.EVENT_BYTES);
+    this.event = (int) (position - this.windowStart);
+    this.eventsLeft--;
+    return true;
+  }
+
+  /**
+   * Getter for the offset of the current game, which {@link #seek(long)} returns to.
+   * @return the offset of its block in the file.
+   */
+  public long getGameOffset() {
+    return this.gameOffset;
+  }
+
+  @Override
+  public long getGameId() {
+    return this.gameId;
+  }
+
+  @Override
+  public int getEventCount() {
+    return this.eventCount;
+  }
+
+  @Override
+  public long getTimestamp() {
+    return this.window.getLong(this.event);
+  }
+
+  @Override
+  public long getPlayer() {
+    return this.window.getLong(this.event + 8);
+  }
+
+  @Override
+  public long getTarget() {
+    return this.window.getLong(this.event + 16);
+  }
+
+  @Override
+  public int getValue() {
+    return this.window.getInt(this.event + 24);
+  }
+
+  @Override
+  public GameEventType getType() {
+    return TYPES[this.window.get(this.event + 28)];
+  }
+
+  @Override
+  public Rank getRank() {
+    int rank = this.window.get(this.event + 29);
+    return rank == 0 ? null : RANKS[rank - 1];
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  private void move(long offset, int readAhead) {
+    this.next = offset;
+    this.readAhead = readAhead;
+    this.eventsLeft = 0;
+    this.event = -1;
+  }
+
+  /**
+   * Makes bytes of the file available in the window, reading ahead from their start if they are
+   * not already there.
+   * @return false if the file ends first.
+   */
+  private boolean fill(long position, int bytes) throws IOException {
+    if (position + bytes > this.size) {
+      return false;
+    }
+    if (position >= this.windowStart && position + bytes <= this.windowStart + this.window.limit()) {
+      return true;
+    }
+    this.window.clear();
+    this.window.limit(Math.max(bytes, this.readAhead));
+    this.windowStart = position;
+    while (this.window.position() < bytes) {
+      if (this.channel.read(this.window, position + this.window.position()) < 0) {
+        break;
+      }
+    }
+    this.window.flip();
+    return this.window.limit() >= bytes;
+  }
+}
@@ -0,0 +1,183 @@
+package model.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Ascending game numbers compressed as varint gaps, with a skip entry every {@value #SKIP}
+ * numbers so a {@link Cursor} can jump over whole blocks while intersecting.
+ */
+final class PostingList {
+  static final int SKIP = 128;
+  static final PostingList EMPTY = new Builder().build();
+
+  private final int size;
+  private final byte[] data;
+  private final int[] skipBases;
+  private final int[] skipOffsets;
+
+  private PostingList(int size, byte[] data, int[] skipBases, int[] skipOffsets) {
+    this.size = size;
+    this.data = data;
+    this.skipBases = skipBases;
+    this.skipOffsets = skipOffsets;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  int bytes() {
+    return this.data.length + Integer.BYTES * 2 * this.skipBases.length;
+  }
+
+  Cursor cursor() {
+    return new Cursor();
+  }
+
+  void write(DataOutput out) throws IOException {
+    out.writeInt(this.size);
+    out.writeInt(this.data.length);
+    out.write(this.data);
+    out.writeInt(this.skipBases.length);
+    for (int i = 0; i < this.skipBases.length; i++) {
+      out.writeInt(this.skipBases[i]);
+      out.writeInt(this.skipOffsets[i]);
+    }
+  }
+
+  static PostingList read(DataInput in) throws IOException {
+    int size = in.readInt();
+    byte[] data = new byte[in.readInt()];
+    in.readFully(data);
+    int skips = in.readInt();
+    int[] bases = new int[skips];
+    int[] offsets = new int[skips];
+    for (int i = 0; i < skips; i++) {
+      bases[i] = in.readInt();
+      offsets[i] = in.readInt();
+    }
+    return new PostingList(size, data, bases, offsets);
+  }
+
+  /**
+   * Collects game numbers in ascending order; adding the last number again is ignored, so every
+   * event of a game can add it.
+   */
+  static class Builder {
+    private byte[] data = new byte[16];
+    private int length;
+    private int size;
+    private int last = -1;
+    private int[] skipBases = new int[1];
+    private int[] skipOffsets = new int[1];
+    private int skips;
+
+    void add(int game) {
+      if (game == this.last) {
+        return;
+      }
+      if (game < this.last) {
+        throw new IllegalArgumentException("Games must be added in order: " + game + " after " + this.last);
+      }
+      if (this.size % SKIP == 0) {
+        if (this.skips == this.skipBases.length) {
+          this.skipBases = Arrays.copyOf(this.skipBases, this.skips * 2);
+          this.skipOffsets = Arrays.copyOf(this.skipOffsets, this.skips * 2);
+        }
+        this.skipBases[this.skips] = this.last;
+        this.skipOffsets[this.skips] = this.length;
+        this.skips++;
+      }
+      if (this.length + 5 > this.data.length) {
+        this.data = Arrays.copyOf(this.data, this.data.length * 2);
+      }
+      int gap = game - this.last;
+      while ((gap & ~0x7F) != 0) {
+        this.data[this.length++] = (byte) ((gap & 0x7F) | 0x80);
+        gap >>>= 7;
+      }
+      this.data[this.length++] = (byte) gap;
+      this.last = game;
+      this.size++;
+    }
+
+    PostingList build() {
+      return new PostingList(this.size, Arrays.copyOf(this.data, this.length),
+          Arrays.copyOf(this.skipBases, this.skips), Arrays.copyOf(this.skipOffsets, this.skips));
+    }
+  }
+
+  /** Reads a list in order; starts before the first number. */
+  final class Cursor {
+    private int offset;
+    private int index;
+    private int game = -1;
+
+    int game() {
+      return this.game;
+    }
+
+    int size() {
+      return PostingList.this.size;
+    }
+
+    /**
+     * Moves to the next number.
+     * @return false at the end of the list.
+     */
+    boolean next() {
+      if (this.index == PostingList.this.size) {
+        this.game = Integer.MAX_VALUE;
+        return false;
+      }
+      byte[] data = PostingList.this.data;
+      int gap = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = data[this.offset++];
+        gap |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          break;
+        }
+      }
+      this.game += gap;
+      this.index++;
+      return true;
+    }
+
+    /**
+     * Moves to the first number at or after a target, skipping whole blocks before it.
+     * @return false if the list has no such number.
+     */
+    boolean advance(int target) {
+      if (this.game >= target) {
+        return true;
+      }
+      int[] bases = PostingList.this.skipBases;
+      int block = this.index / SKIP;
+      if (block + 1 < bases.length && bases[block + 1] < target) {
+        int low = block + 1;
+        int high = bases.length - 1;
+        while (low < high) {
+          int middle = (low + high + 1) >>> 1;
+          if (bases[middle] < target) {
+            low = middle;
+          } else {
+            high = middle - 1;
+          }
+        }
+        this.index = low * SKIP;
+        this.offset = PostingList.this.skipOffsets[low];
+        this.game = bases[low];
+      }
+      while (this.game < target) {
+        if (!next()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package model.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import model.events.GameEvent;
+import model.network.Room;
+
+/**
+ * A {@link GameJournal} split into segments named after their first game id, so the log does not
+ * grow without bound. Games are appended to the newest segment; once it passes the segment size it
+ * is closed and a new one started, and a background thread compacts the closed segment into an
+ * archive of the same name with {@link ArchiveWriter}, then deletes it. Archives are read with an
+ * {@link ArchiveReader}, segments still waiting with a {@link JournalReader}.
+ *
+ * An archive is written to a temporary file and renamed into place before its segment is deleted,
+ * so a crash at any point leaves every game in exactly one readable file once reopened; segments
+ * left uncompacted by a crash or a failed compaction are compacted again on open.
+ */
+public class SegmentedJournal implements Closeable {
+  private static final String JOURNAL_SUFFIX = ".journal";
+  private static final String ARCHIVE_SUFFIX = ".archive";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final long segmentBytes;
+  private final ExecutorService compactor;
+  private final Map<String, GameRecorder> recorders = new ConcurrentHashMap<>();
+  private GameJournal active;
+  private long activeFirstGameId;
+
+  /**
+   * Opens the segments of a directory, creating it if missing, and compacts any closed segment
+   * not yet archived.
+   * @param directory directory holding the segments and archives.
+   * @param segmentBytes size past which a segment is closed.
+   * @throws IOException if the directory or its newest segment cannot be opened.
+   */
+  public SegmentedJournal(Path directory, long segmentBytes) throws IOException {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    Files.createDirectories(directory);
+    for (Path temp : list(directory, TEMP_SUFFIX)) {
+      Files.delete(temp);
+    }
+    List<Path> archives = list(directory, ARCHIVE_SUFFIX);
+    List<Path> journals = list(directory, JOURNAL_SUFFIX);
+    // A segment whose archive exists was compacted and only its deletion was lost
+    for (Path journal : journals) {
+      if (archives.contains(archiveOf(journal))) {
+        Files.delete(journal);
+      }
+    }
+    journals.removeIf(journal -> !Files.exists(journal));
+
+    this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "journal-compactor");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    try {
+      if (journals.isEmpty()) {
+        long nextGameId = 0;
+        if (!archives.isEmpty()) {
+          try (ArchiveReader last = new ArchiveReader(archives.get(archives.size() - 1), 1)) {
+            nextGameId = last.getLastGameId() + 1;
+          }
+        }
+        this.active = new GameJournal(segmentPath(nextGameId), nextGameId);
+        this.activeFirstGameId = nextGameId;
+      } else {
+        Path newest = journals.remove(journals.size() - 1);
+        this.activeFirstGameId = firstGameIdOf(newest);
+        this.active = new GameJournal(newest, this.activeFirstGameId);
+        for (Path journal : journals) {
+          compactLater(journal);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      this.compactor.shutdownNow();
+      throw e;
+    }
+  }
+
+  /**
+   * Starts journaling the games of a room, if not already journaled.
+   * @param room the room to follow.
+   */
+  public void attach(Room room) {
+    if (room.getEventPublisher() == null) {
+      throw new IllegalStateException("Room " + room.getId() + " does not publish events");
+    }
+    this.recorders.computeIfAbsent(room.getId(), id -> {
+      GameRecorder recorder = new GameRecorder(room, this::append);
+      room.getEventPublisher().addListener(recorder);
+      return recorder;
+    });
+  }
+
+  /**
+   * Appends one finished game to the newest segment, rolling to a new segment if it is full.
+   * @param events events of the game, in order.
+   * @param numericIds maps the players' string ids to their numeric ids.
+   * @return id assigned to the game.
+   */
+  public synchronized long append(List<GameEvent> events, ToLongFunction<String> numericIds) {
+    long gameId = this.active.append(events, numericIds);
+    try {
+      if (this.active.getSize() >= this.segmentBytes) {
+        roll();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return gameId;
+  }
+
+  /**
+   * Closes the newest segment and hands it to the compactor, unless it holds no games.
+   * @throws IOException if the segment cannot be closed or the next one created.
+   */
+  public synchronized void roll() throws IOException {
+    long nextGameId = this.active.getNextGameId();
+    if (nextGameId == this.activeFirstGameId) {
+      return;
+    }
+    this.active.close();
+    compactLater(segmentPath(this.activeFirstGameId));
+    this.active = new GameJournal(segmentPath(nextGameId), nextGameId);
+    this.activeFirstGameId = nextGameId;
+  }
+
+  /**
+   * Writes buffered games of the newest segment and forces them to the device.
+   * @throws IOException if the games cannot be written.
+   */
+  public synchronized void flush() throws IOException {
+    this.active.flush();
+  }
+
+  /**
+   * Getter for the segments not yet compacted, the newest being the one appended to.
+   * @return the segment files in game order.
+   * @throws IOException if the directory cannot be listed.
+   */
+  public List<Path> getJournalSegments() throws IOException {
+    return list(this.directory, JOURNAL_SUFFIX);
+  }
+
+  /**
+   * Getter for the archives written so far.
+   * @return the archive files in game order.
+   * @throws IOException if the directory cannot be listed.
+   */
+  public List<Path> getArchiveSegments() throws IOException {
+    return list(this.directory, ARCHIVE_SUFFIX);
+  }
+
+  /**
+   * Closes the newest segment, which stays the one appended to on the next open, and waits for
+   * the compactions already handed over.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      this.active.close();
+    } finally {
+      this.compactor.shutdown();
+      try {
+        this.compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void compactLater(Path journal) {
+    this.compactor.execute(() -> {
+      Path archive = archiveOf(journal);
+      Path temp = archive.resolveSibling(archive.getFileName() + TEMP_SUFFIX);
+      try {
+        ArchiveWriter.compact(journal, temp);
+        Files.move(temp, archive, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(journal);
+      } catch (IOException e) {
+        System.err.println("Compaction of " + journal + " failed: " + e.getMessage());
+      }
+    });
+  }
+
+  private Path segmentPath(long firstGameId) {
+    return this.directory.resolve(String.format("%020d%s", firstGameId, JOURNAL_SUFFIX));
+  }
+
+  private static Path archiveOf(Path journal) {
+    String name = journal.getFileName().toString();
+    return journal.resolveSibling(name.substring(0, name.length() - JOURNAL_SUFFIX.length()) + ARCHIVE_SUFFIX);
+  }
+
+  private static long firstGameIdOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.indexOf('.')));
+  }
+
+  private static List<Path> list(Path directory, String suffix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(path -> path.getFileName().toString().endsWith(suffix))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package model.broadcast;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import model.game.GameState;
+import model.game.Hand;
+import model.game.Player;
+import model.game.Rank;
+import model.serialization.BinaryUtil;
+import model.serialization.StateCodec;
+
+/**
+ * Viewer-specific projections of one room, encoded once per viewer class per turn.
+ *
+ * Each turn the public state is encoded once and each hand is encoded only if it differs from
+ * the previous turn, so a claim re-encodes the claimer's hand and nothing else. A projection
+ * frame is then assembled from those pieces by copying bytes the first time a viewer class asks
+ * for it, and shared by every viewer of that class until the next turn. The last turns are kept
+ * so delayed spectators can be shown every hand as it was a fixed number of turns ago.
+ *
+ * Frames are {@link model.serialization.MessageType#VIEW} messages. This class is thread safe.
+ */
+public class ProjectionCache {
+  private static final int BUFFER_BYTES = 512;
+  private static final Rank[] NO_CARDS = new Rank[0];
+
+  private final int revealDelay;
+  private final ArrayDeque<Turn> history = new ArrayDeque<>();
+  private ByteBuffer scratch = ByteBuffer.allocate(BUFFER_BYTES);
+  private long encodedHands;
+
+  /**
+   * @param revealDelay number of turns a delayed spectator lags behind the table.
+   */
+  public ProjectionCache(int revealDelay) {
+    if (revealDelay < 0) {
+      throw new IllegalArgumentException("Reveal delay must not be negative: " + revealDelay);
+    }
+    this.revealDelay = revealDelay;
+  }
+
+  /**
+   * Copies the hands of the players, in seat order. Must be called under the room's lock.
+   * @param players the players of the game.
+   * @return the ranks in each player's hand, in hand order.
+   */
+  public static Rank[][] captureHands(List<Player> players) {
+    Rank[][] hands = new Rank[players.size()][];
+    for (int seat = 0; seat < hands.length; seat++) {
+      Hand hand = players.get(seat).getHand();
+      if (hand == null) {
+        hands[seat] = NO_CARDS;
+        continue;
+      }
+      Rank[] ranks = new Rank[hand.getSize()];
+      for (int i = 0; i < ranks.length; i++) {
+        ranks[i] = hand.getAt(i).getRank();
+      }
+      hands[seat] = ranks;
+    }
+    return hands;
+  }
+
+  /**
+   * Records a new turn.
+   * @param state public state of the turn.
+   * @param hands hands of the turn, from {@link #captureHands}.
+   * @param sequence sequence number of the turn.
+   */
+  public synchronized void update(GameState state, Rank[][] hands, long sequence) {
+    Turn previous = this.history.peekLast();
+    if (previous != null && !StateCodec.isDeltaCompatible(previous.state, state)) {
+      this.history.clear(); // a new game: nothing from the old one may leak into its projections
+      previous = null;
+    }
+
+    byte[][] handBytes = new byte[hands.length][];
+    for (int seat = 0; seat < hands.length; seat++) {
+      if (previous != null && Arrays.equals(previous.hands[seat], hands[seat])) {
+        handBytes[seat] = previous.handBytes[seat];
+      } else {
+        Rank[] ranks = hands[seat];
+        handBytes[seat] = encode(buffer -> BinaryUtil.writeRanks(buffer, ranks));
+        this.encodedHands++;
+      }
+    }
+    byte[] stateBytes = encode(buffer -> StateCodec.encodeState(state, sequence, buffer));
+
+    this.history.addLast(new Turn(state, hands, stateBytes, handBytes));
+    while (this.history.size() > this.revealDelay + 1) {
+      this.history.removeFirst();
+    }
+  }
+
+  /**
+   * Getter for the projection a viewer class sees this turn.
+   * @param viewer the viewer class.
+   * @return read-only VIEW frame to be duplicated per recipient, or null if the viewer has
+   *     nothing to see yet (no turn recorded, a seat that does not exist, or a delayed spectator
+   *     still inside the reveal delay).
+   */
+  public synchronized ByteBuffer getFrame(ViewerClass viewer) {
+    Turn current = this.history.peekLast();
+    if (current == null) {
+      return null;
+    }
+
+    switch (viewer.getKind()) {
+      case SPECTATOR:
+        if (current.spectatorFrame == null) {
+          current.spectatorFrame = assemble(current, -1, false);
+        }
+        return current.spectatorFrame;
+      case PLAYER:
+        int seat = viewer.getSeat();
+        if (seat >= current.handBytes.length) {
+          return null;
+        }
+        if (current.playerFrames[seat] == null) {
+          current.playerFrames[seat] = assemble(current, seat, false);
+        }
+        return current.playerFrames[seat];
+      case DELAYED_SPECTATOR:
+        if (this.history.size() <= this.revealDelay) {
+          return null;
+        }
+        Turn revealed = this.history.peekFirst();
+        if (revealed.revealedFrame == null) {
+          revealed.revealedFrame = assemble(revealed, -1, true);
+        }
+        return revealed.revealedFrame;
+      default:
+        throw new IllegalStateException("Unknown viewer kind: " + viewer.getKind());
+    }
+  }
+
+  /**
+   * Getter for how many hands have been encoded, for checking how much work the cache saves.
+   * @return number of hand encodings since creation.
+   */
+  public synchronized long getEncodedHandCount() {
+    return this.encodedHands;
+  }
+
+  private ByteBuffer assemble(Turn turn, int viewerSeat, boolean allHands) {
+    byte[][] visible = allHands ? turn.handBytes : new byte[turn.handBytes.length][];
+    if (viewerSeat >= 0) {
+      visible[viewerSeat] = turn.handBytes[viewerSeat];
+    }
+    byte[] frame = encode(buffer -> StateCodec.encodeView(viewerSeat, turn.stateBytes, visible, buffer));
+    return ByteBuffer.wrap(frame).asReadOnlyBuffer();
+  }
+
+  private byte[] encode(Consumer<ByteBuffer> encoder) {
+    while (true) {
+      try {
+        this.scratch.clear();
+        encoder.accept(this.scratch);
+        this.scratch.flip();
+        byte[] bytes = new byte[this.scratch.remaining()];
+        this.scratch.get(bytes);
+        return bytes;
+      } catch (BufferOverflowException e) {
+        this.scratch = ByteBuffer.allocate(this.scratch.capacity() * 2);
+      }
+    }
+  }
+
+  /**
+   * Encoded pieces of one turn and the frames assembled from them so far.
+   */
+  private static class Turn {
+    private final GameState state;
+    private final Rank[][] hands;
+    private final byte[] stateBytes;
+    private final byte[][] handBytes;
+    private final ByteBuffer[] playerFrames;
+    private ByteBuffer spectatorFrame;
+    private ByteBuffer revealedFrame;
+
+    private Turn(GameState state, Rank[][] hands, byte[] stateBytes, byte[][] handBytes) {
+      this.state = state;
+      this.hands = hands;
+      this.stateBytes = stateBytes;
+      this.handBytes = handBytes;
+      this.playerFrames = new ByteBuffer[handBytes.length];
+    }
+  }
+}
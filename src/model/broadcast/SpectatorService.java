@@ -0,0 +1,35 @@
+package model.broadcast;
+
+import model.network.RoomListener;
+
+/**
+ * Streams the state of rooms to spectators and players, each seeing only what their
+ * {@link ViewerClass} allows. Register it as a {@link RoomListener} of the
+ * component that applies room changes.
+ */
+public interface SpectatorService extends RoomListener {
+  /**
+   * Starts streaming a room to a spectator. The first frame is a full state, followed by deltas.
+   * @param roomId id of the room to watch.
+   * @param sink connection of the spectator.
+   * @return handle for the subscription.
+   */
+  Subscription subscribe(String roomId, SpectatorSink sink);
+
+  /**
+   * Starts streaming a room to an observer who may see more or less than a spectator. Viewers
+   * other than plain spectators are sent a full VIEW projection on every change.
+   * @param roomId id of the room to watch.
+   * @param viewer what the observer is allowed to see.
+   * @param sink connection of the observer.
+   * @return handle for the subscription.
+   */
+  Subscription subscribe(String roomId, ViewerClass viewer, SpectatorSink sink);
+
+  /**
+   * Getter for the number of spectators of a room.
+   * @param roomId id of the room.
+   * @return number of active subscriptions.
+   */
+  int getSpectatorCount(String roomId);
+}
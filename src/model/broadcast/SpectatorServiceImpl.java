@@ -0,0 +1,326 @@
+package model.broadcast;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.game.Game;
+import model.game.GameState;
+import model.game.Rank;
+import model.network.Room;
+import model.network.RoomRegistry;
+import model.serialization.StateCodec;
+
+/**
+ * Spectator service that encodes each room change once and shares the frame with every viewer.
+ *
+ * Each watched room has a feed holding the last published state. A change is captured under the
+ * room's lock, diffed against that state and encoded as a single read-only delta; every viewer
+ * gets its own view of the same bytes. A viewer whose sink refuses a frame is marked lagging and
+ * skipped, so intermediate deltas are dropped rather than queued; once its sink takes frames
+ * again it is sent the latest full state, which stands in for everything it missed. Rooms nobody
+ * watches are not captured at all.
+ *
+ * Players and delayed spectators are served from a {@link ProjectionCache} that the feed creates
+ * when the first such viewer subscribes; each change is then projected once per viewer class.
+ */
+public class SpectatorServiceImpl implements SpectatorService {
+  private static final int FRAME_BUFFER_BYTES = 1024;
+  private static final int DEFAULT_REVEAL_DELAY = 8;
+
+  private final RoomRegistry registry;
+  private final int revealDelay;
+  private final Map<String, RoomFeed> feeds = new ConcurrentHashMap<>();
+
+  public SpectatorServiceImpl(RoomRegistry registry) {
+    this(registry, DEFAULT_REVEAL_DELAY);
+  }
+
+  /**
+   * @param registry registry to look rooms up in.
+   * @param revealDelay number of turns delayed spectators lag behind the table.
+   */
+  public SpectatorServiceImpl(RoomRegistry registry, int revealDelay) {
+    this.registry = registry;
+    this.revealDelay = revealDelay;
+  }
+
+  @Override
+  public Subscription subscribe(String roomId, SpectatorSink sink) {
+    return subscribe(roomId, ViewerClass.spectator(), sink);
+  }
+
+  @Override
+  public Subscription subscribe(String roomId, ViewerClass viewer, SpectatorSink sink) {
+    Room room = this.registry.getRoom(roomId);
+    if (room == null) {
+      throw new IllegalArgumentException("No room with id " + roomId);
+    }
+
+    while (true) {
+      RoomFeed feed = this.feeds.computeIfAbsent(roomId, RoomFeed::new);
+      boolean projecting = feed.hasProjections();
+      SubscriptionImpl subscription = feed.add(viewer, sink);
+      if (subscription == null) {
+        continue; // the feed was retired by its last viewer leaving; make a new one
+      }
+      if (feed.hasState() && projecting == feed.hasProjections()) {
+        feed.resync(subscription);
+      } else {
+        capture(room, feed);
+      }
+      if (this.registry.getRoom(roomId) == null) {
+        retire(feed, true); // closed while subscribing
+      }
+      return subscription;
+    }
+  }
+
+  @Override
+  public int getSpectatorCount(String roomId) {
+    RoomFeed feed = this.feeds.get(roomId);
+    return feed == null ? 0 : feed.size();
+  }
+
+  @Override
+  public void onRoomChanged(Room room) {
+    RoomFeed feed = this.feeds.get(room.getId());
+    if (feed != null) {
+      capture(room, feed);
+    }
+  }
+
+  @Override
+  public void onRoomClosed(Room room) {
+    RoomFeed feed = this.feeds.get(room.getId());
+    if (feed != null) {
+      retire(feed, true);
+    }
+  }
+
+  private static void capture(Room room, RoomFeed feed) {
+    GameState state;
+    Rank[][] hands = null;
+    long sequence;
+    synchronized (room) {
+      Game game = room.getGame();
+      if (game == null) {
+        return;
+      }
+      state = game.getGameState();
+      if (feed.hasProjections()) {
+        hands = ProjectionCache.captureHands(state.getPlayers());
+      }
+      sequence = feed.nextSequence();
+    }
+    feed.publish(state, hands, sequence);
+  }
+
+  private void retire(RoomFeed feed, boolean closeSinks) {
+    feed.close(closeSinks);
+    this.feeds.remove(feed.roomId, feed);
+  }
+
+  /**
+   * Last published state of one room and the viewers watching it.
+   */
+  private class RoomFeed {
+    private final String roomId;
+    private final AtomicLong sequences = new AtomicLong();
+    private final List<SubscriptionImpl> subscribers = new ArrayList<>();
+    private ByteBuffer scratch = ByteBuffer.allocate(FRAME_BUFFER_BYTES);
+    private GameState state;
+    private long stateSequence;
+    private ByteBuffer keyframe;
+    private volatile ProjectionCache projections;
+    private boolean closed;
+
+    private RoomFeed(String roomId) {
+      this.roomId = roomId;
+    }
+
+    private long nextSequence() {
+      return this.sequences.incrementAndGet();
+    }
+
+    private synchronized boolean hasState() {
+      return this.state != null;
+    }
+
+    private boolean hasProjections() {
+      return this.projections != null;
+    }
+
+    private synchronized int size() {
+      return this.subscribers.size();
+    }
+
+    private synchronized SubscriptionImpl add(ViewerClass viewer, SpectatorSink sink) {
+      if (this.closed) {
+        return null;
+      }
+      if (viewer.getKind() != ViewerClass.Kind.SPECTATOR && this.projections == null) {
+        this.projections = new ProjectionCache(revealDelay);
+      }
+      SubscriptionImpl subscription = new SubscriptionImpl(this, viewer, sink);
+      this.subscribers.add(subscription);
+      return subscription;
+    }
+
+    private void remove(SubscriptionImpl subscription) {
+      boolean empty;
+      synchronized (this) {
+        this.subscribers.remove(subscription);
+        empty = this.subscribers.isEmpty();
+      }
+      if (empty) {
+        retire(this, false);
+      }
+    }
+
+    /**
+     * Publishes a captured state. Captures may reach here out of order when several threads
+     * change the room; an older capture than the last published one is dropped.
+     */
+    private synchronized void publish(GameState next, Rank[][] hands, long sequence) {
+      if (this.closed || sequence <= this.stateSequence) {
+        return;
+      }
+
+      ByteBuffer delta = null;
+      if (this.state != null && StateCodec.isDeltaCompatible(this.state, next)) {
+        if (encodeDelta(next, sequence) == 0 && hands == null) {
+          return;
+        }
+        delta = frame();
+      }
+      this.state = next;
+      this.stateSequence = sequence;
+      this.keyframe = null;
+      if (hands != null) {
+        this.projections.update(next, hands, sequence);
+      }
+
+      for (SubscriptionImpl subscriber : this.subscribers) {
+        if (subscriber.viewer.getKind() != ViewerClass.Kind.SPECTATOR) {
+          offerProjection(subscriber);
+        } else if (subscriber.lagging || delta == null) {
+          subscriber.lagging = !subscriber.sink.offer(keyframe().duplicate());
+        } else if (!subscriber.sink.offer(delta.duplicate())) {
+          subscriber.lagging = true;
+        }
+      }
+    }
+
+    private synchronized void resync(SubscriptionImpl subscriber) {
+      if (this.closed || this.state == null || !subscriber.lagging) {
+        return;
+      }
+      if (subscriber.viewer.getKind() != ViewerClass.Kind.SPECTATOR) {
+        offerProjection(subscriber);
+      } else {
+        subscriber.lagging = !subscriber.sink.offer(keyframe().duplicate());
+      }
+    }
+
+    /** Projections are complete frames, so one a viewer refuses is simply skipped. */
+    private void offerProjection(SubscriptionImpl subscriber) {
+      ByteBuffer frame = this.projections.getFrame(subscriber.viewer);
+      if (frame != null) {
+        subscriber.lagging = !subscriber.sink.offer(frame.duplicate());
+      }
+    }
+
+    private synchronized void close(boolean closeSinks) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      if (closeSinks) {
+        for (SubscriptionImpl subscriber : this.subscribers) {
+          subscriber.sink.close();
+        }
+      }
+      this.subscribers.clear();
+    }
+
+    private int encodeDelta(GameState next, long sequence) {
+      while (true) {
+        try {
+          this.scratch.clear();
+          return StateCodec.encodeDelta(this.state, this.stateSequence, next, sequence, this.scratch);
+        } catch (BufferOverflowException e) {
+          this.scratch = ByteBuffer.allocate(this.scratch.capacity() * 2);
+        }
+      }
+    }
+
+    private ByteBuffer keyframe() {
+      if (this.keyframe == null) {
+        while (true) {
+          try {
+            this.scratch.clear();
+            StateCodec.encodeState(this.state, this.stateSequence, this.scratch);
+            break;
+          } catch (BufferOverflowException e) {
+            this.scratch = ByteBuffer.allocate(this.scratch.capacity() * 2);
+          }
+        }
+        this.keyframe = frame();
+      }
+      return this.keyframe;
+    }
+
+    /** Copies the scratch buffer into an exactly sized frame that viewers can share. */
+    private ByteBuffer frame() {
+      this.scratch.flip();
+      ByteBuffer frame = ByteBuffer.allocate(this.scratch.remaining());
+      frame.put(this.scratch).flip();
+      return frame.asReadOnlyBuffer();
+    }
+  }
+
+  private static class SubscriptionImpl implements Subscription {
+    private final RoomFeed feed;
+    private final ViewerClass viewer;
+    private final SpectatorSink sink;
+    private boolean lagging = true; // guarded by feed; starts waiting for its first full state
+
+    private SubscriptionImpl(RoomFeed feed, ViewerClass viewer, SpectatorSink sink) {
+      this.feed = feed;
+      this.viewer = viewer;
+      this.sink = sink;
+    }
+
+    @Override
+    public String getRoomId() {
+      return this.feed.roomId;
+    }
+
+    @Override
+    public ViewerClass getViewer() {
+      return this.viewer;
+    }
+
+    @Override
+    public boolean isLagging() {
+      synchronized (this.feed) {
+        return this.lagging;
+      }
+    }
+
+    @Override
+    public void resume() {
+      this.feed.resync(this);
+    }
+
+    @Override
+    public void cancel() {
+      this.feed.remove(this);
+    }
+  }
+}
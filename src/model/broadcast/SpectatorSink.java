@@ -0,0 +1,21 @@
+package model.broadcast;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Outbound connection of one spectator, such as a socket with a bounded send buffer.
+ */
+public interface SpectatorSink {
+  /**
+   * Hands a frame to the connection without blocking. Frames are shared between spectators and
+   * must not be modified; the buffer passed in is the sink's own view and may be kept.
+   * @param frame encoded STATE or STATE_DELTA message.
+   * @return false if the connection cannot take the frame right now.
+   */
+  boolean offer(ByteBuffer frame);
+
+  /**
+   * Called when the watched room closes; no more frames follow.
+   */
+  void close();
+}
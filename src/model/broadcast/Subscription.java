@@ -0,0 +1,28 @@
+package model.broadcast;
+
+/**
+ * Handle of one spectator watching one room.
+ */
+public interface Subscription {
+  String getRoomId();
+
+  ViewerClass getViewer();
+
+  /**
+   * Getter for whether the spectator has fallen behind. A lagging spectator is skipped until it
+   * can take a full state frame, which replaces every delta it missed.
+   * @return true if the spectator is waiting for a full state frame.
+   */
+  boolean isLagging();
+
+  /**
+   * Tells the service the sink can take frames again, so a lagging spectator is sent the latest
+   * full state straight away instead of waiting for the next change.
+   */
+  void resume();
+
+  /**
+   * Stops sending frames to the spectator.
+   */
+  void cancel();
+}
@@ -0,0 +1,76 @@
+package model.broadcast;
+
+/**
+ * What an observer of a room is allowed to see. Observers of the same class are sent the same
+ * encoded projection.
+ */
+public final class ViewerClass {
+  public enum Kind {
+    /** A seated player: public state plus their own hand. */
+    PLAYER,
+    /** A live spectator: public state only. */
+    SPECTATOR,
+    /** A spectator who sees every hand, but only once the reveal delay has passed. */
+    DELAYED_SPECTATOR
+  }
+
+  private static final ViewerClass SPECTATOR = new ViewerClass(Kind.SPECTATOR, -1);
+  private static final ViewerClass DELAYED_SPECTATOR = new ViewerClass(Kind.DELAYED_SPECTATOR, -1);
+
+  private final Kind kind;
+  private final int seat;
+
+  private ViewerClass(Kind kind, int seat) {
+    this.kind = kind;
+    this.seat = seat;
+  }
+
+  public static ViewerClass player(int seat) {
+    if (seat < 0) {
+      throw new IllegalArgumentException("Seat must not be negative: " + seat);
+    }
+    return new ViewerClass(Kind.PLAYER, seat);
+  }
+
+  public static ViewerClass spectator() {
+    return SPECTATOR;
+  }
+
+  public static ViewerClass delayedSpectator() {
+    return DELAYED_SPECTATOR;
+  }
+
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  /**
+   * Getter for the seat of a player viewer.
+   * @return the seat, or -1 for spectators.
+   */
+  public int getSeat() {
+    return this.seat;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ViewerClass)) {
+      return false;
+    }
+    ViewerClass other = (ViewerClass) o;
+    return this.kind == other.kind && this.seat == other.seat;
+  }
+
+  @Override
+  public int hashCode() {
+    return this.kind.hashCode() * 31 + this.seat;
+  }
+
+  @Override
+  public String toString() {
+    return this.kind == Kind.PLAYER ? "PLAYER(" + this.seat + ")" : this.kind.toString();
+  }
+}
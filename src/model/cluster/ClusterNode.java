@@ -0,0 +1,590 @@
+package model.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import model.actions.ActionResult;
+import model.actions.GameCommand;
+import model.events.GameEventPublisher;
+import model.exceptions.RoomFullException;
+import model.exceptions.RoutingException;
+import model.network.Room;
+import model.network.User;
+import model.persistence.RecoveryManager;
+import model.persistence.WalRecordType;
+import model.serialization.BinaryUtil;
+import model.serialization.GameCodec;
+import util.IdGenerator;
+
+/**
+ * One server node of a sharded cluster. Rooms are spread over the nodes by a {@link
+ * ConsistentHashRing} on their ids; each node hosts and persists its own rooms and forwards
+ * operations on other rooms to their owner, so a client can talk to any node.
+ *
+ * Operations on local rooms run directly. A node that receives an operation for a room it does
+ * not own, or does not hold yet, answers so and the sender retries against the current ring with
+ * a short backoff, which covers rooms in the middle of a move. When the membership changes each
+ * node moves the rooms the new ring assigns elsewhere: a room is encoded under its lock, imported
+ * durably by its new owner and only then closed here, so it is never lost and briefly at most
+ * held by both.
+ *
+ * Rooms can also be migrated live, such as to drain a node before a deploy. The target receives
+ * a snapshot of the room and then the log tail of changes made since, while the room keeps
+ * playing here; once the tail is short the room is frozen under its lock, the last records are
+ * sent and the target imports the room durably. Routing then flips to the target through a
+ * placement, and this node redirects callers still sending to it.
+ */
+public class ClusterNode implements Closeable {
+  private static final int MAX_ATTEMPTS = 6;
+  private static final long BACKOFF_MILLIS = 10;
+  private static final long REQUEST_TIMEOUT_MILLIS = 10_000;
+  private static final int ROOM_BUFFER_BYTES = 4 * 1024;
+  private static final int MAX_CATCH_UP_ROUNDS = 8;
+  private static final int FREEZE_THRESHOLD = 4;
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private final NodeInfo self;
+  private final ShardedRoomRegistry registry;
+  private final RecoveryManager manager;
+  private final Map<String, PeerClient> peers = new ConcurrentHashMap<>();
+  // Unbounded so handlers blocked on a room frozen for migration cannot starve the hand-over itself
+  private final ExecutorService handlers = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "cluster-handler");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Map<String, MigrationTail> migrations = new ConcurrentHashMap<>();
+  private final Map<String, Room> staged = new ConcurrentHashMap<>();
+  private final AtomicLong forwarded = new AtomicLong();
+  private ServerSocket server;
+
+  /**
+   * Creates a node hosting only its own rooms until {@link #setMembers} is called.
+   * @param self this node's identity and listening address.
+   * @param dataDir directory for this node's log and snapshots.
+   * @param eventPublisher publisher the node's rooms forward their events to.
+   * @throws IOException if the log cannot be opened.
+   */
+  public ClusterNode(NodeInfo self, Path dataDir, GameEventPublisher eventPublisher) throws IOException {
+    this.self = self;
+    this.registry = new ShardedRoomRegistry(self);
+    this.manager = new RecoveryManager(dataDir, this.registry, eventPublisher);
+    this.manager.addRecordListener(this::captureTail);
+  }
+
+  /**
+   * Recovers the rooms persisted by this node and starts accepting requests from peers.
+   * @return number of rooms recovered.
+   * @throws IOException if recovery fails or the port cannot be bound.
+   */
+  public synchronized int start() throws IOException {
+    int recovered = this.manager.recover();
+    this.server = new ServerSocket();
+    this.server.bind(new InetSocketAddress(this.self.getPort()));
+    Thread acceptor = new Thread(this::accept, "cluster-" + this.self.getId());
+    acceptor.setDaemon(true);
+    acceptor.start();
+    return recovered;
+  }
+
+  /**
+   * Replaces the cluster membership and moves every local room the new ring assigns to another
+   * node. Rooms that cannot be moved now stay here and are retried on the next call.
+   * @param members every node of the cluster, including this one.
+   * @return number of rooms moved away.
+   */
+  public int setMembers(Collection<NodeInfo> members) {
+    ConsistentHashRing ring = new ConsistentHashRing(members);
+    this.registry.setRing(ring);
+    this.peers.entrySet().removeIf(entry -> {
+      boolean gone = ring.getNodes().stream().noneMatch(node -> node.getId().equals(entry.getKey()));
+      if (gone) {
+        entry.getValue().close();
+      }
+      return gone;
+    });
+
+    int moved = 0;
+    for (Room room : this.registry.getMisplacedRooms()) {
+      if (transfer(room)) {
+        moved++;
+      }
+    }
+    return moved;
+  }
+
+  /**
+   * Moves a local room to another node while its game keeps running. The room only stops
+   * accepting changes for the final hand-over.
+   * @param roomId id of the room.
+   * @param target node to move it to.
+   * @return how long the room was frozen in nanoseconds, or -1 if it stayed here because it was
+   *     closed, already moving or the target did not take it.
+   */
+  public long migrate(String roomId, NodeInfo target) {
+    Room room = this.registry.getRoom(roomId);
+    if (room == null || target.equals(this.self)) {
+      return -1;
+    }
+    MigrationTail tail = new MigrationTail();
+    ByteBuffer snapshot;
+    synchronized (room) {
+      if (this.registry.getRoom(roomId) != room || this.migrations.putIfAbsent(roomId, tail) != null) {
+        return -1;
+      }
+      snapshot = encode(buffer -> GameCodec.encodeRoom(room, buffer));
+    }
+
+    PeerClient peer = peer(target);
+    try {
+      if (!isOk(peer.send(ClusterProtocol.STAGE_ROOM, roomId, snapshot))) {
+        return abort(peer, roomId);
+      }
+      for (int round = 0; round < MAX_CATCH_UP_ROUNDS && tail.size() > FREEZE_THRESHOLD; round++) {
+        if (tail.isClosed() || !isOk(peer.send(ClusterProtocol.APPLY_TAIL, roomId, tail.drain()))) {
+          return abort(peer, roomId);
+        }
+      }
+      synchronized (room) {
+        long frozenAt = System.nanoTime();
+        if (tail.isClosed() || this.registry.getRoom(roomId) != room
+            || !isOk(peer.send(ClusterProtocol.COMMIT_MIGRATION, roomId, tail.drain()))) {
+          return abort(peer, roomId);
+        }
+        // Operations blocked on the lock find the room gone and follow the placement
+        this.registry.setPlacement(roomId, target);
+        this.migrations.remove(roomId);
+        this.manager.closeRoom(roomId);
+        return System.nanoTime() - frozenAt;
+      }
+    } catch (RoutingException e) {
+      return abort(peer, roomId);
+    } finally {
+      this.migrations.remove(roomId, tail);
+    }
+  }
+
+  /**
+   * Migrates every local room to the node that would own it without this one, so this node can
+   * be stopped and removed from the membership without interrupting games.
+   * @param parallelism number of rooms moved at the same time.
+   * @return number of rooms moved.
+   */
+  public int drain(int parallelism) {
+    ConsistentHashRing remaining = this.registry.getRing().withoutNode(this.self);
+    ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    try {
+      List<Future<Long>> results = new ArrayList<>();
+      for (Room room : this.registry.getRooms()) {
+        String roomId = room.getId();
+        results.add(pool.submit(() -> migrate(roomId, remaining.ownerOf(roomId))));
+      }
+      int moved = 0;
+      for (Future<Long> result : results) {
+        if (result.get() >= 0) {
+          moved++;
+        }
+      }
+      return moved;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RoutingException("Interrupted while draining", e);
+    } catch (ExecutionException e) {
+      throw new RoutingException("Migration failed", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Creates an empty room on the node that owns its id.
+   * @return id of the new room.
+   */
+  public String createRoom() {
+    String roomId = IdGenerator.getDefault().nextString();
+    check(route(ClusterProtocol.CREATE_ROOM, roomId, EMPTY));
+    return roomId;
+  }
+
+  /**
+   * Seats a user in a room, wherever it is hosted.
+   * @param roomId id of the room.
+   * @param user the user joining.
+   */
+  public void addUser(String roomId, User user) {
+    check(route(ClusterProtocol.ADD_USER, roomId, encode(buffer -> GameCodec.encodeUser(user, buffer))));
+  }
+
+  /**
+   * Deals a new game in a room, wherever it is hosted.
+   * @param roomId id of the room.
+   */
+  public void startGame(String roomId) {
+    check(route(ClusterProtocol.START_GAME, roomId, EMPTY));
+  }
+
+  /**
+   * Applies a command to the game in a room, wherever it is hosted.
+   * @param roomId id of the room.
+   * @param command the command to apply.
+   * @return the outcome of the command.
+   */
+  public ActionResult execute(String roomId, GameCommand command) {
+    ClusterProtocol.Response response = route(ClusterProtocol.COMMAND, roomId,
+        encode(buffer -> GameCodec.encodeCommand(command, buffer)));
+    if (response.getStatus() == ClusterProtocol.FAILED) {
+      return ActionResult.failure(response.getMessage());
+    }
+    check(response);
+    return ActionResult.success(response.getMessage());
+  }
+
+  /**
+   * Closes a room, wherever it is hosted.
+   * @param roomId id of the room.
+   */
+  public void closeRoom(String roomId) {
+    check(route(ClusterProtocol.CLOSE_ROOM, roomId, EMPTY));
+    this.registry.clearPlacement(roomId);
+  }
+
+  public NodeInfo getSelf() {
+    return this.self;
+  }
+
+  public ShardedRoomRegistry getRegistry() {
+    return this.registry;
+  }
+
+  /**
+   * Getter for the manager persisting this node's rooms, for attaching local services.
+   * @return the recovery manager.
+   */
+  public RecoveryManager getRecoveryManager() {
+    return this.manager;
+  }
+
+  /**
+   * Getter for the number of operations this node sent to another node.
+   * @return forwarded operation count.
+   */
+  public long getForwardedCount() {
+    return this.forwarded.get();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.server != null) {
+      this.server.close();
+    }
+    for (PeerClient peer : this.peers.values()) {
+      peer.close();
+    }
+    this.peers.clear();
+    this.handlers.shutdown();
+    this.manager.close();
+  }
+
+  private ClusterProtocol.Response route(byte op, String roomId, ByteBuffer payload) {
+    ClusterProtocol.Response response = null;
+    boolean redirected = false;
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      if (attempt > 0 && !redirected) {
+        backoff(attempt);
+      }
+      NodeInfo owner = this.registry.ownerOf(roomId);
+      if (owner.equals(this.self)) {
+        response = handle(op, roomId, payload.duplicate());
+      } else {
+        this.forwarded.incrementAndGet();
+        response = await(peer(owner).send(op, roomId, payload));
+      }
+      if (response.getStatus() != ClusterProtocol.NOT_OWNER && response.getStatus() != ClusterProtocol.NOT_FOUND) {
+        return response;
+      }
+      // A node that handed the room over names its new host; follow it straight away
+      NodeInfo hinted = response.getStatus() == ClusterProtocol.NOT_OWNER
+          ? NodeInfo.parse(response.getMessage()) : null;
+      redirected = hinted != null && !hinted.equals(owner) && !hinted.equals(this.self);
+      if (redirected) {
+        this.registry.setPlacement(roomId, hinted);
+      }
+    }
+    return response;
+  }
+
+  private ClusterProtocol.Response handle(byte op, String roomId, ByteBuffer payload) {
+    if (op >= ClusterProtocol.IMPORT_ROOM) {
+      return handleTransfer(op, roomId, payload);
+    }
+    try {
+      if (!this.registry.isLocal(roomId)) {
+        return new ClusterProtocol.Response(ClusterProtocol.NOT_OWNER, this.registry.ownerOf(roomId).toString());
+      }
+      if (op != ClusterProtocol.CREATE_ROOM && this.registry.getRoom(roomId) == null) {
+        return new ClusterProtocol.Response(ClusterProtocol.NOT_FOUND, "No room with id " + roomId);
+      }
+      switch (op) {
+        case ClusterProtocol.CREATE_ROOM:
+          this.manager.createRoom(roomId);
+          break;
+        case ClusterProtocol.ADD_USER:
+          this.manager.addUser(roomId, GameCodec.decodeUser(payload, null));
+          break;
+        case ClusterProtocol.START_GAME:
+          this.manager.startGame(roomId);
+          break;
+        case ClusterProtocol.COMMAND:
+          ActionResult result = this.manager.execute(roomId, GameCodec.decodeCommand(payload));
+          return new ClusterProtocol.Response(result.isSuccess() ? ClusterProtocol.OK : ClusterProtocol.FAILED,
+              result.getMessage());
+        case ClusterProtocol.CLOSE_ROOM:
+          this.manager.closeRoom(roomId);
+          break;
+        default:
+          return new ClusterProtocol.Response(ClusterProtocol.ERROR, "Unknown operation " + op);
+      }
+      return new ClusterProtocol.Response(ClusterProtocol.OK, "");
+    } catch (IllegalArgumentException e) {
+      if (op != ClusterProtocol.CREATE_ROOM && this.registry.getRoom(roomId) == null) {
+        return new ClusterProtocol.Response(ClusterProtocol.NOT_FOUND, e.getMessage()); // moved away meanwhile
+      }
+      return new ClusterProtocol.Response(ClusterProtocol.FAILED, e.getMessage());
+    } catch (IllegalStateException | RoomFullException e) {
+      return new ClusterProtocol.Response(ClusterProtocol.FAILED, e.getMessage());
+    } catch (RuntimeException e) {
+      return new ClusterProtocol.Response(ClusterProtocol.ERROR, String.valueOf(e));
+    }
+  }
+
+  /**
+   * Handles the operations that move rooms between nodes, which are accepted whatever the ring
+   * says since the sender decides where the room goes.
+   */
+  private ClusterProtocol.Response handleTransfer(byte op, String roomId, ByteBuffer payload) {
+    try {
+      switch (op) {
+        case ClusterProtocol.IMPORT_ROOM:
+          this.manager.importRoom(payload);
+          break;
+        case ClusterProtocol.STAGE_ROOM:
+          // Staged copies publish to a detached publisher; the source already published these events
+          this.staged.put(roomId, GameCodec.decodeRoom(payload, new GameEventPublisher()));
+          break;
+        case ClusterProtocol.APPLY_TAIL: {
+          Room room = this.staged.get(roomId);
+          if (room == null) {
+            return new ClusterProtocol.Response(ClusterProtocol.NOT_FOUND, "No staged room with id " + roomId);
+          }
+          synchronized (room) {
+            MigrationTail.apply(room, payload);
+          }
+          break;
+        }
+        case ClusterProtocol.COMMIT_MIGRATION: {
+          Room room = this.staged.remove(roomId);
+          if (room == null) {
+            return new ClusterProtocol.Response(ClusterProtocol.NOT_FOUND, "No staged room with id " + roomId);
+          }
+          synchronized (room) {
+            MigrationTail.apply(room, payload);
+          }
+          this.registry.setPlacement(roomId, this.self);
+          this.manager.importRoom(encode(buffer -> GameCodec.encodeRoom(room, buffer)));
+          break;
+        }
+        case ClusterProtocol.ABORT_MIGRATION:
+          // The source keeps the room; drop the copy, even if a commit whose reply was lost went through
+          this.staged.remove(roomId);
+          if (this.registry.getRoom(roomId) != null && this.self.equals(this.registry.ownerOf(roomId))
+              && !this.self.equals(this.registry.getRing().ownerOf(roomId))) {
+            this.manager.closeRoom(roomId);
+          }
+          this.registry.clearPlacement(roomId);
+          break;
+        default:
+          return new ClusterProtocol.Response(ClusterProtocol.ERROR, "Unknown operation " + op);
+      }
+      return new ClusterProtocol.Response(ClusterProtocol.OK, "");
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      return new ClusterProtocol.Response(ClusterProtocol.FAILED, e.getMessage());
+    } catch (RuntimeException e) {
+      return new ClusterProtocol.Response(ClusterProtocol.ERROR, String.valueOf(e));
+    }
+  }
+
+  private void captureTail(Room room, WalRecordType type, ByteBuffer payload) {
+    MigrationTail tail = this.migrations.get(room.getId());
+    if (tail == null) {
+      return;
+    }
+    if (type == WalRecordType.ROOM_CLOSED) {
+      tail.markClosed();
+    } else {
+      tail.append(type, payload);
+    }
+  }
+
+  private long abort(PeerClient peer, String roomId) {
+    peer.send(ClusterProtocol.ABORT_MIGRATION, roomId, EMPTY);
+    return -1;
+  }
+
+  private boolean isOk(CompletableFuture<ClusterProtocol.Response> future) {
+    return await(future).getStatus() == ClusterProtocol.OK;
+  }
+
+  private boolean transfer(Room room) {
+    NodeInfo owner = this.registry.ownerOf(room.getId());
+    if (owner.equals(this.self)) {
+      return false;
+    }
+    // Holding the lock keeps the room unchanged until the owner has it durably; operations
+    // arriving meanwhile find it closed and retry at the new owner
+    synchronized (room) {
+      if (this.registry.getRoom(room.getId()) != room) {
+        return false;
+      }
+      ByteBuffer encoded = encode(buffer -> GameCodec.encodeRoom(room, buffer));
+      ClusterProtocol.Response response;
+      try {
+        response = await(peer(owner).send(ClusterProtocol.IMPORT_ROOM, room.getId(), encoded));
+      } catch (RoutingException e) {
+        return false;
+      }
+      if (response.getStatus() != ClusterProtocol.OK) {
+        return false;
+      }
+      this.manager.closeRoom(room.getId());
+    }
+    return true;
+  }
+
+  private void accept() {
+    while (!this.server.isClosed()) {
+      try {
+        Socket connection = this.server.accept();
+        connection.setTcpNoDelay(true);
+        Thread reader = new Thread(() -> serve(connection), "cluster-connection");
+        reader.setDaemon(true);
+        reader.start();
+      } catch (IOException e) {
+        // server closed, or a single failed accept
+      }
+    }
+  }
+
+  private void serve(Socket connection) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+      while (true) {
+        ByteBuffer body = ClusterProtocol.readFrame(in);
+        byte op = body.get();
+        long requestId = body.getLong();
+        String roomId = BinaryUtil.readString(body);
+        ByteBuffer payload = body.slice();
+        // Requests block on fsync, so they are handled concurrently to share group commits
+        this.handlers.execute(() -> reply(out, requestId, handle(op, roomId, payload)));
+      }
+    } catch (IOException e) {
+      // peer disconnected
+    } finally {
+      try {
+        connection.close();
+      } catch (IOException ignored) {
+        // already closed
+      }
+    }
+  }
+
+  private static void reply(DataOutputStream out, long requestId, ClusterProtocol.Response response) {
+    synchronized (out) {
+      try {
+        ClusterProtocol.writeFrame(out, ClusterProtocol.response(requestId, response));
+        out.flush();
+      } catch (IOException e) {
+        // the peer fails its pending requests when the connection drops
+      }
+    }
+  }
+
+  private PeerClient peer(NodeInfo node) {
+    return this.peers.computeIfAbsent(node.getId(), id -> new PeerClient(node));
+  }
+
+  private static ClusterProtocol.Response await(CompletableFuture<ClusterProtocol.Response> future) {
+    try {
+      return future.get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RoutingException) {
+        throw (RoutingException) e.getCause();
+      }
+      throw new RoutingException("Request failed", e.getCause());
+    } catch (TimeoutException e) {
+      throw new RoutingException("Request timed out", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RoutingException("Interrupted while waiting for a peer", e);
+    }
+  }
+
+  private static void check(ClusterProtocol.Response response) {
+    switch (response.getStatus()) {
+      case ClusterProtocol.OK:
+        return;
+      case ClusterProtocol.FAILED:
+        throw new IllegalStateException(response.getMessage());
+      case ClusterProtocol.NOT_FOUND:
+        throw new IllegalArgumentException(response.getMessage());
+      default:
+        throw new RoutingException(response.getMessage());
+    }
+  }
+
+  private static void backoff(int attempt) {
+    try {
+      Thread.sleep(BACKOFF_MILLIS << (attempt - 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RoutingException("Interrupted while retrying", e);
+    }
+  }
+
+  private static ByteBuffer encode(Consumer<ByteBuffer> encoder) {
+    int capacity = ROOM_BUFFER_BYTES;
+    while (true) {
+      ByteBuffer buffer = ByteBuffer.allocate(capacity);
+      try {
+        encoder.accept(buffer);
+        buffer.flip();
+        return buffer;
+      } catch (BufferOverflowException e) {
+        capacity *= 2;
+      }
+    }
+  }
+}
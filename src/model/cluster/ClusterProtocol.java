@@ -0,0 +1,95 @@
+package model.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import model.serialization.BinaryUtil;
+
+/**
+ * Wire format between cluster nodes. Every frame is [int length][body]. A request body is
+ * [op][long request id][room id][payload], where the payload is a {@link
+ * model.serialization.GameCodec} message or empty; a response body is [long request id][status]
+ * [message]. Responses may come back in any order.
+ */
+final class ClusterProtocol {
+  static final byte CREATE_ROOM = 1;
+  static final byte ADD_USER = 2;
+  static final byte START_GAME = 3;
+  static final byte COMMAND = 4;
+  static final byte CLOSE_ROOM = 5;
+  static final byte IMPORT_ROOM = 6;
+  static final byte STAGE_ROOM = 7;
+  static final byte APPLY_TAIL = 8;
+  static final byte COMMIT_MIGRATION = 9;
+  static final byte ABORT_MIGRATION = 10;
+
+  static final byte OK = 0;
+  static final byte FAILED = 1;
+  static final byte NOT_OWNER = 2;
+  static final byte NOT_FOUND = 3;
+  static final byte ERROR = 4;
+
+  private static final int MAX_FRAME_BYTES = 16 << 20;
+
+  private ClusterProtocol() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  static ByteBuffer request(byte op, long requestId, String roomId, ByteBuffer payload) {
+    ByteBuffer body = ByteBuffer.allocate(1 + Long.BYTES + 5 + roomId.length() * 3 + payload.remaining());
+    body.put(op).putLong(requestId);
+    BinaryUtil.writeString(body, roomId);
+    body.put(payload.duplicate());
+    body.flip();
+    return body;
+  }
+
+  static ByteBuffer response(long requestId, Response response) {
+    byte[] message = response.getMessage().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer body = ByteBuffer.allocate(Long.BYTES + 1 + 5 + message.length);
+    body.putLong(requestId).put(response.getStatus());
+    BinaryUtil.writeVarInt(body, message.length);
+    body.put(message);
+    body.flip();
+    return body;
+  }
+
+  static void writeFrame(DataOutputStream out, ByteBuffer body) throws IOException {
+    out.writeInt(body.remaining());
+    out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+  }
+
+  static ByteBuffer readFrame(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > MAX_FRAME_BYTES) {
+      throw new IOException("Invalid frame length " + length);
+    }
+    byte[] body = new byte[length];
+    in.readFully(body);
+    return ByteBuffer.wrap(body);
+  }
+
+  /**
+   * Outcome of a request, local or remote.
+   */
+  static final class Response {
+    private final byte status;
+    private final String message;
+
+    Response(byte status, String message) {
+      this.status = status;
+      this.message = message == null ? "" : message;
+    }
+
+    byte getStatus() {
+      return status;
+    }
+
+    String getMessage() {
+      return message;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package model.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable consistent hash ring with virtual nodes.
+ *
+ * Every node is placed on a 64-bit ring at a number of pseudo-random points, and a key belongs
+ * to the node owning the first point at or after the key's hash. Adding or removing a node only
+ * moves the keys between its points and their neighbours, about 1/n of all keys, and the virtual
+ * points spread each node's share evenly. Lookups are a binary search over a sorted long[].
+ */
+public final class ConsistentHashRing {
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private final int virtualNodes;
+  private final List<NodeInfo> nodes;
+  private final long[] points;
+  private final NodeInfo[] owners;
+
+  public ConsistentHashRing(Collection<NodeInfo> nodes) {
+    this(nodes, DEFAULT_VIRTUAL_NODES);
+  }
+
+  public ConsistentHashRing(Collection<NodeInfo> nodes, int virtualNodes) {
+    if (virtualNodes <= 0) {
+      throw new IllegalArgumentException("Virtual nodes must be positive: " + virtualNodes);
+    }
+    List<NodeInfo> sorted = new ArrayList<>(nodes);
+    sorted.sort(Comparator.comparing(NodeInfo::getId));
+    this.virtualNodes = virtualNodes;
+    this.nodes = Collections.unmodifiableList(sorted);
+
+    int count = sorted.size() * virtualNodes;
+    long[][] entries = new long[count][];
+    int next = 0;
+    for (int n = 0; n < sorted.size(); n++) {
+      for (int v = 0; v < virtualNodes; v++) {
+        entries[next++] = new long[] {hash(sorted.get(n).getId() + "#" + v), n};
+      }
+    }
+    Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+    this.points = new long[count];
+    this.owners = new NodeInfo[count];
+    for (int i = 0; i < count; i++) {
+      this.points[i] = entries[i][0];
+      this.owners[i] = sorted.get((int) entries[i][1]);
+    }
+  }
+
+  /**
+   * Getter for the node a key belongs to.
+   * @param key the key, such as a room id.
+   * @return the owning node.
+   * @throws IllegalStateException if the ring is empty.
+   */
+  public NodeInfo ownerOf(String key) {
+    if (this.points.length == 0) {
+      throw new IllegalStateException("No nodes in the ring");
+    }
+    int index = Arrays.binarySearch(this.points, hash(key));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return this.owners[index == this.points.length ? 0 : index];
+  }
+
+  public ConsistentHashRing withNode(NodeInfo node) {
+    List<NodeInfo> next = new ArrayList<>(this.nodes);
+    next.remove(node);
+    next.add(node);
+    return new ConsistentHashRing(next, this.virtualNodes);
+  }
+
+  public ConsistentHashRing withoutNode(NodeInfo node) {
+    List<NodeInfo> next = new ArrayList<>(this.nodes);
+    next.remove(node);
+    return new ConsistentHashRing(next, this.virtualNodes);
+  }
+
+  /**
+   * Getter for the nodes of the ring.
+   * @return the nodes, sorted by id.
+   */
+  public List<NodeInfo> getNodes() {
+    return this.nodes;
+  }
+
+  /**
+   * 64-bit FNV-1a over the characters, finished with the MurmurHash3 mixer so nearby keys land
+   * far apart on the ring.
+   */
+  static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      h = (h ^ key.charAt(i)) * 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
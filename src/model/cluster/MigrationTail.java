@@ -0,0 +1,83 @@
+package model.cluster;
+
+import java.nio.ByteBuffer;
+
+import model.network.Room;
+import model.persistence.RecoveryManager;
+import model.persistence.WalRecordType;
+import model.serialization.BinaryUtil;
+
+/**
+ * Changes made to a room while it is being migrated, buffered until they are sent to the target.
+ * A drained batch is [varint count] then, per record, [type][varint length][payload].
+ */
+final class MigrationTail {
+  private static final WalRecordType[] RECORD_TYPES = WalRecordType.values();
+  private static final int INITIAL_BYTES = 1024;
+  private static final int MAX_VARINT_BYTES = 5;
+
+  private ByteBuffer records = ByteBuffer.allocate(INITIAL_BYTES);
+  private int count;
+  private boolean closed;
+
+  synchronized void append(WalRecordType type, ByteBuffer payload) {
+    int needed = 1 + MAX_VARINT_BYTES + payload.remaining();
+    if (this.records.remaining() < needed) {
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(this.records.capacity() * 2, this.records.position() + needed));
+      this.records.flip();
+      grown.put(this.records);
+      this.records = grown;
+    }
+    this.records.put((byte) type.ordinal());
+    BinaryUtil.writeVarInt(this.records, payload.remaining());
+    this.records.put(payload.duplicate());
+    this.count++;
+  }
+
+  /**
+   * Marks the room as closed by a client, which cancels the migration.
+   */
+  synchronized void markClosed() {
+    this.closed = true;
+  }
+
+  synchronized boolean isClosed() {
+    return this.closed;
+  }
+
+  synchronized int size() {
+    return this.count;
+  }
+
+  /**
+   * Takes every buffered record as one batch.
+   * @return the batch, ready to send.
+   */
+  synchronized ByteBuffer drain() {
+    ByteBuffer batch = ByteBuffer.allocate(MAX_VARINT_BYTES + this.records.position());
+    BinaryUtil.writeVarInt(batch, this.count);
+    this.records.flip();
+    batch.put(this.records);
+    batch.flip();
+    this.records.clear();
+    this.count = 0;
+    return batch;
+  }
+
+  /**
+   * Applies a drained batch to the target's copy of the room, in order.
+   * @param room the staged room.
+   * @param batch batch produced by {@link #drain()}.
+   */
+  static void apply(Room room, ByteBuffer batch) {
+    int count = BinaryUtil.readVarInt(batch);
+    for (int i = 0; i < count; i++) {
+      WalRecordType type = RECORD_TYPES[batch.get()];
+      int length = BinaryUtil.readVarInt(batch);
+      ByteBuffer payload = batch.slice();
+      payload.limit(length);
+      batch.position(batch.position() + length);
+      RecoveryManager.applyRecord(room, type, payload);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package model.cluster;
+
+/**
+ * Address of one server process in the cluster. Nodes are identified by id alone.
+ */
+public final class NodeInfo {
+  private final String id;
+  private final String host;
+  private final int port;
+
+  public NodeInfo(String id, String host, int port) {
+    this.id = id;
+    this.host = host;
+    this.port = port;
+  }
+
+  /**
+   * Parses a node written as id@host:port.
+   * @param value the node description.
+   * @return the node.
+   * @throws IllegalArgumentException if the description is malformed.
+   */
+  public static NodeInfo parse(String value) {
+    int at = value.indexOf('@');
+    int colon = value.lastIndexOf(':');
+    if (at <= 0 || colon < at) {
+      throw new IllegalArgumentException("Expected id@host:port but got " + value);
+    }
+    try {
+      return new NodeInfo(value.substring(0, at), value.substring(at + 1, colon), Integer.parseInt(value.substring(colon + 1)));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid port in " + value);
+    }
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof NodeInfo && this.id.equals(((NodeInfo) o).id));
+  }
+
+  @Override
+  public int hashCode() {
+    return this.id.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return this.id + "@" + this.host + ":" + this.port;
+  }
+}
@@ -0,0 +1,122 @@
+package model.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.exceptions.RoutingException;
+import model.serialization.BinaryUtil;
+
+/**
+ * Connection to one peer node. Requests are pipelined over a single socket and matched to their
+ * responses by id, so many callers can share it. A broken connection fails every request in
+ * flight and is reopened by the next request.
+ */
+class PeerClient implements Closeable {
+  private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+
+  private final NodeInfo node;
+  private final AtomicLong requestIds = new AtomicLong();
+  private final Map<Long, CompletableFuture<ClusterProtocol.Response>> inflight = new ConcurrentHashMap<>();
+  private Socket socket;
+  private DataOutputStream out;
+  private boolean closed;
+
+  PeerClient(NodeInfo node) {
+    this.node = node;
+  }
+
+  CompletableFuture<ClusterProtocol.Response> send(byte op, String roomId, ByteBuffer payload) {
+    long requestId = this.requestIds.incrementAndGet();
+    CompletableFuture<ClusterProtocol.Response> future = new CompletableFuture<>();
+    this.inflight.put(requestId, future);
+    synchronized (this) {
+      try {
+        if (this.closed) {
+          throw new IOException("Client is closed");
+        }
+        connect();
+        ClusterProtocol.writeFrame(this.out, ClusterProtocol.request(op, requestId, roomId, payload));
+        this.out.flush();
+      } catch (IOException e) {
+        disconnect(this.socket, e);
+        fail(requestId, e);
+      }
+    }
+    return future;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      this.closed = true;
+    }
+    disconnect(this.socket, new IOException("Client is closed"));
+  }
+
+  private void connect() throws IOException {
+    if (this.socket != null) {
+      return;
+    }
+    Socket connection = new Socket();
+    connection.connect(new InetSocketAddress(this.node.getHost(), this.node.getPort()), CONNECT_TIMEOUT_MILLIS);
+    connection.setTcpNoDelay(true);
+    this.socket = connection;
+    this.out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+    Thread reader = new Thread(() -> read(connection), "peer-" + this.node.getId());
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  private void read(Socket connection) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()))) {
+      while (true) {
+        ByteBuffer body = ClusterProtocol.readFrame(in);
+        long requestId = body.getLong();
+        byte status = body.get();
+        String message = BinaryUtil.readString(body);
+        CompletableFuture<ClusterProtocol.Response> future = this.inflight.remove(requestId);
+        if (future != null) {
+          future.complete(new ClusterProtocol.Response(status, message));
+        }
+      }
+    } catch (IOException e) {
+      disconnect(connection, e);
+    }
+  }
+
+  private void disconnect(Socket connection, IOException cause) {
+    synchronized (this) {
+      if (connection == null || connection != this.socket) {
+        return;
+      }
+      this.socket = null;
+      this.out = null;
+      try {
+        connection.close();
+      } catch (IOException ignored) {
+        // already failing
+      }
+    }
+    for (Long requestId : this.inflight.keySet()) {
+      fail(requestId, cause);
+    }
+  }
+
+  private void fail(long requestId, IOException cause) {
+    CompletableFuture<ClusterProtocol.Response> future = this.inflight.remove(requestId);
+    if (future != null) {
+      future.completeExceptionally(new RoutingException("Node " + this.node.getId() + " unreachable", cause));
+    }
+  }
+}
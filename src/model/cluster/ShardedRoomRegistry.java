@@ -0,0 +1,113 @@
+package model.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.network.Room;
+import model.network.RoomRegistry;
+import model.network.RoomRegistryImpl;
+
+/**
+ * Room registry of one node in a sharded cluster. It holds the rooms hosted locally and knows,
+ * through a {@link ConsistentHashRing}, which node owns any room id. Rooms migrated away from
+ * their ring owner are tracked as placements, which take precedence over the ring until the
+ * membership next changes.
+ */
+public class ShardedRoomRegistry implements RoomRegistry {
+  private final NodeInfo self;
+  private final RoomRegistry local = new RoomRegistryImpl();
+  private final Map<String, NodeInfo> placements = new ConcurrentHashMap<>();
+  private volatile ConsistentHashRing ring;
+
+  public ShardedRoomRegistry(NodeInfo self) {
+    this.self = self;
+    this.ring = new ConsistentHashRing(Collections.singletonList(self));
+  }
+
+  public NodeInfo getSelf() {
+    return this.self;
+  }
+
+  public ConsistentHashRing getRing() {
+    return this.ring;
+  }
+
+  /**
+   * Replaces the ring, such as after a node joined or left. Rooms that now belong elsewhere stay
+   * registered until they are moved; see {@link #getMisplacedRooms()}. Placements are dropped.
+   * @param ring the new ring.
+   */
+  public void setRing(ConsistentHashRing ring) {
+    this.ring = ring;
+    this.placements.clear();
+  }
+
+  public NodeInfo ownerOf(String roomId) {
+    NodeInfo placed = this.placements.get(roomId);
+    return placed != null ? placed : this.ring.ownerOf(roomId);
+  }
+
+  /**
+   * Records that a room lives on a node other than its ring owner, such as after a migration.
+   * @param roomId id of the room.
+   * @param node node hosting the room.
+   */
+  public void setPlacement(String roomId, NodeInfo node) {
+    this.placements.put(roomId, node);
+  }
+
+  /**
+   * Forgets where a room was placed, so its ring owner applies again.
+   * @param roomId id of the room.
+   */
+  public void clearPlacement(String roomId) {
+    this.placements.remove(roomId);
+  }
+
+  public boolean isLocal(String roomId) {
+    return this.self.equals(ownerOf(roomId));
+  }
+
+  /**
+   * Getter for the rooms hosted here that the ring assigns to another node.
+   * @return the rooms to move.
+   */
+  public List<Room> getMisplacedRooms() {
+    List<Room> misplaced = new ArrayList<>();
+    for (Room room : this.local.getRooms()) {
+      if (!isLocal(room.getId())) {
+        misplaced.add(room);
+      }
+    }
+    return misplaced;
+  }
+
+  @Override
+  public void register(Room room) {
+    this.local.register(room);
+  }
+
+  @Override
+  public Room getRoom(String roomId) {
+    return this.local.getRoom(roomId);
+  }
+
+  @Override
+  public Room remove(String roomId) {
+    return this.local.remove(roomId);
+  }
+
+  @Override
+  public Collection<Room> getRooms() {
+    return this.local.getRooms();
+  }
+
+  @Override
+  public int size() {
+    return this.local.size();
+  }
+}
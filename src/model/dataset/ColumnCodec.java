@@ -0,0 +1,207 @@
+package model.dataset;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import model.serialization.BinaryUtil;
+
+/**
+ * Encodes one column of ints as a dictionary followed by the codes in the run-length/bit-packing
+ * hybrid: a run of {@value #MIN_RUN} or more equal codes is stored as its length and the code,
+ * and anything else as groups of eight codes packed at the dictionary's bit width. Each column is
+ * encoded both as its values and as the differences between them (which turns a slowly counting
+ * column such as the game number into 0s and 1s), and the smaller encoding is kept.
+ *
+ * [mode][dictionary size][zigzag dictionary values][bit width][runs]
+ *
+ * Not thread safe; a writer keeps one per thread for its scratch space.
+ */
+final class ColumnCodec {
+  private static final byte VALUES = 0;
+  private static final byte DELTAS = 1;
+  private static final int MIN_RUN = 8;
+  private static final int GROUP = 8;
+
+  private int[] codes = new int[0];
+  private int[] deltas = new int[0];
+  private int[] dictionary = new int[16];
+  private int dictionarySize;
+  private int[] slots = new int[64]; // open addressing: code + 1, 0 when empty
+
+  /**
+   * Encodes a column, choosing the smaller of its value and delta encodings.
+   * @throws java.nio.BufferOverflowException if the buffer is too small.
+   */
+  void encode(int[] values, int count, ByteBuffer out) {
+    if (this.deltas.length < count) {
+      this.deltas = new int[count];
+      this.codes = new int[count];
+    }
+    int start = out.position();
+    encode(VALUES, values, count, out);
+    int plainBytes = out.position() - start;
+    int previous = 0;
+    for (int i = 0; i < count; i++) {
+      this.deltas[i] = values[i] - previous;
+      previous = values[i];
+    }
+    ByteBuffer delta = out.duplicate();
+    encode(DELTAS, this.deltas, count, delta);
+    int deltaBytes = delta.position() - out.position();
+    if (deltaBytes < plainBytes) {
+      // Move the delta encoding down over the value encoding
+      ByteBuffer source = out.duplicate();
+      source.limit(delta.position());
+      out.position(start);
+      out.put(source);
+    }
+  }
+
+  /**
+   * Decodes a column.
+   * @param in buffer positioned at the column.
+   * @param count number of values in the column.
+   * @param values receives the values; at least count long.
+   */
+  static void decode(ByteBuffer in, int count, int[] values) {
+    byte mode = in.get();
+    int[] dictionary = new int[BinaryUtil.readVarInt(in)];
+    for (int i = 0; i < dictionary.length; i++) {
+      dictionary[i] = BinaryUtil.readSignedVarInt(in);
+    }
+    int width = in.get();
+    int mask = (1 << width) - 1;
+    int i = 0;
+    while (i < count) {
+      int header = BinaryUtil.readVarInt(in);
+      if ((header & 1) == 0) {
+        int value = dictionary[BinaryUtil.readVarInt(in)];
+        int end = i + (header >>> 1);
+        Arrays.fill(values, i, end, value);
+        i = end;
+      } else {
+        int groups = header >>> 1;
+        long bits = 0;
+        int available = 0;
+        for (int n = 0; n < groups * GROUP; n++) {
+          while (available < width) {
+            bits |= (long) (in.get() & 0xFF) << available;
+            available += 8;
+          }
+          if (i < count) {
+            values[i++] = dictionary[(int) bits & mask];
+          }
+          bits >>>= width;
+          available -= width;
+        }
+      }
+    }
+    if (mode == DELTAS) {
+      for (int n = 1; n < count; n++) {
+        values[n] += values[n - 1];
+      }
+    }
+  }
+
+  private void encode(byte mode, int[] values, int count, ByteBuffer out) {
+    buildDictionary(values, count);
+    out.put(mode);
+    BinaryUtil.writeVarInt(out, this.dictionarySize);
+    for (int i = 0; i < this.dictionarySize; i++) {
+      BinaryUtil.writeSignedVarInt(out, this.dictionary[i]);
+    }
+    int width = this.dictionarySize <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(this.dictionarySize - 1);
+    out.put((byte) width);
+
+    int[] codes = this.codes;
+    int i = 0;
+    while (i < count) {
+      int run = runLength(codes, i, count, count);
+      if (run >= MIN_RUN) {
+        BinaryUtil.writeVarInt(out, run << 1);
+        BinaryUtil.writeVarInt(out, codes[i]);
+        i += run;
+        continue;
+      }
+      int start = i;
+      int groups = 0;
+      do {
+        i += GROUP;
+        groups++;
+      } while (i < count && runLength(codes, i, count, MIN_RUN) < MIN_RUN);
+      BinaryUtil.writeVarInt(out, groups << 1 | 1);
+      long bits = 0;
+      int used = 0;
+      for (int n = start; n < start + groups * GROUP; n++) {
+        bits |= (long) (n < count ? codes[n] : 0) << used;
+        used += width;
+        while (used >= 8) {
+          out.put((byte) bits);
+          bits >>>= 8;
+          used -= 8;
+        }
+      }
+      i = Math.min(i, count);
+    }
+  }
+
+  /** Maps each value to its index in the dictionary, adding values in order of appearance. */
+  private void buildDictionary(int[] values, int count) {
+    Arrays.fill(this.slots, 0);
+    this.dictionarySize = 0;
+    for (int i = 0; i < count; i++) {
+      int value = values[i];
+      int mask = this.slots.length - 1;
+      int slot = hash(value) & mask;
+      while (this.slots[slot] != 0 && this.dictionary[this.slots[slot] - 1] != value) {
+        slot = (slot + 1) & mask;
+      }
+      if (this.slots[slot] == 0) {
+        if (this.dictionarySize == this.dictionary.length) {
+          this.dictionary = Arrays.copyOf(this.dictionary, this.dictionarySize * 2);
+        }
+        this.dictionary[this.dictionarySize++] = value;
+        this.slots[slot] = this.dictionarySize;
+        if (this.dictionarySize * 2 > this.slots.length) {
+          rehash();
+        }
+      }
+      this.codes[i] = findCode(value);
+    }
+  }
+
+  private int findCode(int value) {
+    int mask = this.slots.length - 1;
+    int slot = hash(value) & mask;
+    while (this.dictionary[this.slots[slot] - 1] != value) {
+      slot = (slot + 1) & mask;
+    }
+    return this.slots[slot] - 1;
+  }
+
+  private void rehash() {
+    this.slots = new int[this.slots.length * 2];
+    int mask = this.slots.length - 1;
+    for (int code = 0; code < this.dictionarySize; code++) {
+      int slot = hash(this.dictionary[code]) & mask;
+      while (this.slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      this.slots[slot] = code + 1;
+    }
+  }
+
+  private static int hash(int value) {
+    return value * 0x9E3779B9 >>> 7;
+  }
+
+  /** Length of the run of equal codes starting at an index, counting no further than a limit. */
+  private static int runLength(int[] codes, int start, int count, int limit) {
+    int end = Math.min(count, start + limit);
+    int i = start + 1;
+    while (i < end && codes[i] == codes[start]) {
+      i++;
+    }
+    return i - start;
+  }
+}
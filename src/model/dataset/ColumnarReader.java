@@ -0,0 +1,135 @@
+package model.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file written by {@link ColumnarWriter} one column of one row group at a time, so a
+ * trainer reads only the features it uses. Columns are found by name, so files written before a
+ * feature was added can still be read; such a column reads as all 0. Not thread safe.
+ */
+public class ColumnarReader implements Closeable {
+  private final FileChannel channel;
+  private final int[] columnIndex = new int[Feature.values().length];
+  private final int columnCount;
+  private final long[] groupOffsets;
+  private final int[] groupRows;
+  private final long rowCount;
+  private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+  /**
+   * Opens a file and reads its footer.
+   * @param file file to read.
+   * @throws IOException if the file cannot be read or is not a complete columnar file.
+   */
+  public ColumnarReader(Path file) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long size = this.channel.size();
+      if (size < ColumnarWriter.TRAILER_BYTES) {
+        throw new IOException(file + " is not a columnar file");
+      }
+      ByteBuffer trailer = read(size - ColumnarWriter.TRAILER_BYTES, ColumnarWriter.TRAILER_BYTES);
+      int groups = trailer.getInt();
+      long footer = trailer.getLong();
+      if (trailer.getInt() != ColumnarWriter.MAGIC) {
+        throw new IOException(file + " is not a columnar file or was not closed");
+      }
+
+      ByteBuffer header = read(0, (int) Math.min(footer, 1024));
+      if (header.getInt() != ColumnarWriter.MAGIC) {
+        throw new IOException(file + " is not a columnar file");
+      }
+      if (header.getInt() != ColumnarWriter.VERSION) {
+        throw new IOException("Unsupported columnar file version " + header.getInt(4));
+      }
+      this.columnCount = header.getInt();
+      Arrays.fill(this.columnIndex, -1);
+      for (int i = 0; i < this.columnCount; i++) {
+        byte[] name = new byte[header.get()];
+        header.get(name);
+        for (Feature feature : Feature.values()) {
+          if (feature.name().equals(new String(name, StandardCharsets.UTF_8))) {
+            this.columnIndex[feature.ordinal()] = i;
+          }
+        }
+      }
+
+      ByteBuffer index = read(footer, groups * (Long.BYTES + Integer.BYTES));
+      this.groupOffsets = new long[groups];
+      this.groupRows = new int[groups];
+      long rows = 0;
+      for (int i = 0; i < groups; i++) {
+        this.groupOffsets[i] = index.getLong();
+        this.groupRows[i] = index.getInt();
+        rows += this.groupRows[i];
+      }
+      this.rowCount = rows;
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  public int getRowGroupCount() {
+    return this.groupOffsets.length;
+  }
+
+  public long getRowCount() {
+    return this.rowCount;
+  }
+
+  public int getRowCount(int group) {
+    return this.groupRows[group];
+  }
+
+  /**
+   * Reads one column of a row group.
+   * @param group index of the row group.
+   * @param feature the column.
+   * @return the group's values of the column.
+   * @throws IOException if the file cannot be read.
+   */
+  public int[] read(int group, Feature feature) throws IOException {
+    int rows = this.groupRows[group];
+    int[] values = new int[rows];
+    int column = this.columnIndex[feature.ordinal()];
+    if (column < 0) {
+      return values;
+    }
+    long offset = this.groupOffsets[group];
+    ByteBuffer lengths = read(offset, Integer.BYTES * (1 + this.columnCount));
+    long start = offset + Integer.BYTES * (1 + this.columnCount);
+    for (int i = 0; i < column; i++) {
+      start += lengths.getInt(Integer.BYTES * (1 + i));
+    }
+    int length = lengths.getInt(Integer.BYTES * (1 + column));
+    ColumnCodec.decode(read(start, length), rows, values);
+    return values;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  /** Reads bytes at an offset into the reusable buffer, which is only valid until the next read. */
+  private ByteBuffer read(long position, int bytes) throws IOException {
+    if (this.buffer.capacity() < bytes) {
+      this.buffer = ByteBuffer.allocate(Math.max(bytes, this.buffer.capacity() * 2));
+    }
+    this.buffer.clear().limit(bytes);
+    while (this.buffer.hasRemaining()) {
+      if (this.channel.read(this.buffer, position + this.buffer.position()) < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+    }
+    return this.buffer.flip();
+  }
+}
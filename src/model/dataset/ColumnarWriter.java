@@ -0,0 +1,151 @@
+package model.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes decision batches to a columnar file, one row group per batch, so a dataset of any size
+ * is written in the memory of the batches in flight.
+ *
+ * The file is [magic][version][column count][column names], then the row groups, each
+ * [rows][encoded length of each column][columns], and last a footer listing the offset and rows
+ * of every group, followed by [group count][footer offset][magic]. Columns are encoded by {@link
+ * ColumnCodec}. Batches are encoded by the threads writing them and only appended under the lock,
+ * so producers encode in parallel.
+ */
+public class ColumnarWriter implements Closeable {
+  static final int MAGIC = 0x4C424346; // "LBCF"
+  static final int VERSION = 1;
+  static final int TRAILER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+  private static final Feature[] FEATURES = Feature.values();
+
+  private static final ThreadLocal<ColumnCodec> CODECS = ThreadLocal.withInitial(ColumnCodec::new);
+  private static final ThreadLocal<ByteBuffer[]> BUFFERS =
+      ThreadLocal.withInitial(() -> new ByteBuffer[] {ByteBuffer.allocate(1 << 16)});
+
+  private final FileChannel channel;
+  private long[] groupOffsets = new long[64];
+  private int[] groupRows = new int[64];
+  private int groupCount;
+  private long rowCount;
+  private boolean closed;
+
+  /**
+   * Creates a file, replacing any existing one.
+   * @param file file to write.
+   * @throws IOException if the file cannot be created.
+   */
+  public ColumnarWriter(Path file) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(1024);
+      header.putInt(MAGIC).putInt(VERSION).putInt(FEATURES.length);
+      for (Feature feature : FEATURES) {
+        byte[] name = feature.name().getBytes(StandardCharsets.UTF_8);
+        header.put((byte) name.length).put(name);
+      }
+      header.flip();
+      writeFully(header);
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Encodes a batch and appends it as a row group. The batch may be cleared and reused once this
+   * returns; an empty batch is skipped.
+   * @param batch rows to write.
+   * @throws IOException if the group cannot be written.
+   */
+  public void write(DecisionBatch batch) throws IOException {
+    int rows = batch.getRows();
+    if (rows == 0) {
+      return;
+    }
+    ByteBuffer out = encode(batch);
+    synchronized (this) {
+      if (this.closed) {
+        throw new IllegalStateException("Writer is closed");
+      }
+      if (this.groupCount == this.groupOffsets.length) {
+        this.groupOffsets = Arrays.copyOf(this.groupOffsets, this.groupCount * 2);
+        this.groupRows = Arrays.copyOf(this.groupRows, this.groupCount * 2);
+      }
+      this.groupOffsets[this.groupCount] = this.channel.position();
+      this.groupRows[this.groupCount] = rows;
+      writeFully(out);
+      this.groupCount++;
+      this.rowCount += rows;
+    }
+  }
+
+  /**
+   * Getter for the rows written so far.
+   * @return total rows of all groups.
+   */
+  public synchronized long getRowCount() {
+    return this.rowCount;
+  }
+
+  /** Writes the footer and closes the file, which is not readable until then. */
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      long footer = this.channel.position();
+      ByteBuffer out = ByteBuffer.allocate(this.groupCount * (Long.BYTES + Integer.BYTES) + TRAILER_BYTES);
+      for (int i = 0; i < this.groupCount; i++) {
+        out.putLong(this.groupOffsets[i]).putInt(this.groupRows[i]);
+      }
+      out.putInt(this.groupCount).putLong(footer).putInt(MAGIC);
+      out.flip();
+      writeFully(out);
+      this.channel.force(false);
+    } finally {
+      this.channel.close();
+    }
+  }
+
+  /** Encodes a group into this thread's buffer, growing it until the group fits. */
+  private static ByteBuffer encode(DecisionBatch batch) {
+    ColumnCodec codec = CODECS.get();
+    ByteBuffer[] holder = BUFFERS.get();
+    int rows = batch.getRows();
+    int lengths = Integer.BYTES * (1 + FEATURES.length);
+    while (true) {
+      ByteBuffer out = holder[0];
+      out.clear();
+      try {
+        out.putInt(rows);
+        out.position(lengths);
+        for (int i = 0; i < FEATURES.length; i++) {
+          int start = out.position();
+          codec.encode(batch.column(FEATURES[i]), rows, out);
+          out.putInt(Integer.BYTES * (1 + i), out.position() - start);
+        }
+        out.flip();
+        return out;
+      } catch (BufferOverflowException e) {
+        holder[0] = ByteBuffer.allocate(out.capacity() * 2);
+      }
+    }
+  }
+
+  private void writeFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      this.channel.write(buffer);
+    }
+  }
+}
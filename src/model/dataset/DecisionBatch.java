@@ -0,0 +1,62 @@
+package model.dataset;
+
+/**
+ * A block of decision rows held column by column, filled by one producer and handed to a {@link
+ * ColumnarWriter} whole. Not thread safe.
+ */
+public class DecisionBatch {
+  private final int[][] columns;
+  private int rows;
+
+  /**
+   * @param capacity rows the batch holds.
+   */
+  public DecisionBatch(int capacity) {
+    this.columns = new int[Feature.values().length][capacity];
+  }
+
+  /**
+   * Adds a row with every feature 0.
+   * @return index of the new row.
+   * @throws IllegalStateException if the batch is full.
+   */
+  public int addRow() {
+    if (this.rows == getCapacity()) {
+      throw new IllegalStateException("Batch is full");
+    }
+    int row = this.rows++;
+    for (int[] column : this.columns) {
+      column[row] = 0;
+    }
+    return row;
+  }
+
+  public void set(int row, Feature feature, int value) {
+    this.columns[feature.ordinal()][row] = value;
+  }
+
+  public int get(int row, Feature feature) {
+    return this.columns[feature.ordinal()][row];
+  }
+
+  public int getRows() {
+    return this.rows;
+  }
+
+  public int getCapacity() {
+    return this.columns[0].length;
+  }
+
+  /** Empties the batch for reuse. */
+  public void clear() {
+    this.rows = 0;
+  }
+
+  /**
+   * Getter for a whole column.
+   * @return the backing array; only the first {@link #getRows()} values are rows.
+   */
+  int[] column(Feature feature) {
+    return this.columns[feature.ordinal()];
+  }
+}
@@ -0,0 +1,45 @@
+package model.dataset;
+
+import model.game.Rank;
+
+/**
+ * Columns of a self-play dataset, one row per decision. The order is the order of the columns in
+ * a file, so new features go at the end.
+ */
+public enum Feature {
+  /** Number of the game the decision was made in, unique within a file. */
+  GAME,
+  /** Seat of the deciding player. */
+  SEAT,
+  /** {@link model.actions.GameCommand.Type} ordinal of the move. */
+  ACTION,
+  /** Ordinal of the round rank. */
+  ROUND_RANK,
+  /** Aces in the deciding player's hand before the move. */
+  HAND_ACE,
+  /** Kings in the deciding player's hand before the move. */
+  HAND_KING,
+  /** Queens in the deciding player's hand before the move. */
+  HAND_QUEEN,
+  /** Jacks in the deciding player's hand before the move. */
+  HAND_JACK,
+  /** Cards claimed, 0 for a challenge or a shot. */
+  CLAIM_COUNT,
+  /** 1 if the claim made, or for a challenge the claim challenged, was a lie. */
+  WAS_LIE,
+  /** 1 if the claim made was challenged by the next player. */
+  WAS_CHALLENGED,
+  /** 1 if the deciding player went on to win the game, 0 if they lost, -1 for a draw. */
+  OUTCOME;
+
+  private static final Feature[] FEATURES = values();
+
+  /**
+   * Getter for the hand count column of a rank.
+   * @param rank the rank counted.
+   * @return the column counting cards of that rank.
+   */
+  public static Feature handCount(Rank rank) {
+    return FEATURES[HAND_ACE.ordinal() + rank.ordinal()];
+  }
+}
@@ -0,0 +1,44 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Resolution of one challenge; successful means the claimant was lying.
+ */
+@Name("liarsbar.Challenge")
+@Label("Challenge")
+@Category({"Liar's Bar", "Game"})
+@Description("A player challenging the last claim")
+@StackTrace(false)
+public class ChallengeEvent extends Event {
+  @Label("Room Id")
+  String roomId;
+
+  @Label("Seat")
+  int seat;
+
+  @Label("Claimant Seat")
+  int claimantSeat;
+
+  @Label("Successful")
+  boolean successful;
+
+  /**
+   * Ends the event and records it with its fields if it is enabled and passes its threshold.
+   */
+  public void finish(String roomId, int seat, int claimantSeat, boolean successful) {
+    end();
+    if (shouldCommit()) {
+      this.roomId = roomId;
+      this.seat = seat;
+      this.claimantSeat = claimantSeat;
+      this.successful = successful;
+      commit();
+    }
+  }
+}
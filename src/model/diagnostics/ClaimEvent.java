@@ -0,0 +1,46 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import model.game.Rank;
+
+/**
+ * Processing of one claim.
+ */
+@Name("liarsbar.Claim")
+@Label("Claim")
+@Category({"Liar's Bar", "Game"})
+@Description("A player claiming cards of the round's rank")
+@StackTrace(false)
+public class ClaimEvent extends Event {
+  @Label("Room Id")
+  String roomId;
+
+  @Label("Seat")
+  int seat;
+
+  @Label("Count")
+  int count;
+
+  @Label("Rank")
+  String rank;
+
+  /**
+   * Ends the event and records it with its fields if it is enabled and passes its threshold.
+   */
+  public void finish(String roomId, int seat, int count, Rank rank) {
+    end();
+    if (shouldCommit()) {
+      this.roomId = roomId;
+      this.seat = seat;
+      this.count = count;
+      this.rank = String.valueOf(rank);
+      commit();
+    }
+  }
+}
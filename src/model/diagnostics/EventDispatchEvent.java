@@ -0,0 +1,45 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import model.events.GameEventType;
+
+/**
+ * Delivery of one game event to the listeners of a publisher. Dispatch happens for every
+ * event, so by default only deliveries slower than a millisecond are recorded.
+ */
+@Name("liarsbar.EventDispatch")
+@Label("Event Dispatch")
+@Category({"Liar's Bar", "Events"})
+@Description("Delivering a game event to every listener of a publisher")
+@StackTrace(false)
+@Threshold("1 ms")
+public class EventDispatchEvent extends Event {
+  @Label("Event Type")
+  String eventType;
+
+  @Label("Player Id")
+  String playerId;
+
+  @Label("Listeners")
+  int listeners;
+
+  /**
+   * Ends the event and records it with its fields if it is enabled and passes its threshold.
+   */
+  public void finish(GameEventType eventType, String playerId, int listeners) {
+    end();
+    if (shouldCommit()) {
+      this.eventType = String.valueOf(eventType);
+      this.playerId = playerId;
+      this.listeners = listeners;
+      commit();
+    }
+  }
+}
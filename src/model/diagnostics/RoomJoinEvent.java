@@ -0,0 +1,40 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A user joining a room.
+ */
+@Name("liarsbar.RoomJoin")
+@Label("Room Join")
+@Category({"Liar's Bar", "Room"})
+@Description("A user taking a seat in a room")
+@StackTrace(false)
+public class RoomJoinEvent extends Event {
+  @Label("Room Id")
+  String roomId;
+
+  @Label("User Id")
+  String userId;
+
+  @Label("Members")
+  int members;
+
+  /**
+   * Ends the event and records it with its fields if it is enabled and passes its threshold.
+   */
+  public void finish(String roomId, String userId, int members) {
+    end();
+    if (shouldCommit()) {
+      this.roomId = roomId;
+      this.userId = userId;
+      this.members = members;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import model.game.Rank;
+
+/**
+ * Advancing a game to its next round.
+ */
+@Name("liarsbar.RoundAdvance")
+@Label("Round Advance")
+@Category({"Liar's Bar", "Game"})
+@Description("Moving a game on to the next round and dealing it")
+@StackTrace(false)
+public class RoundAdvanceEvent extends Event {
+  @Label("Room Id")
+  String roomId;
+
+  @Label("Round")
+  int round;
+
+  @Label("Rank")
+  String rank;
+
+  @Label("Active Players")
+  int activePlayers;
+
+  /**
+   * Ends the event and records it with its fields if it is enabled and passes its threshold.
+   */
+  public void finish(String roomId, int round, Rank rank, int activePlayers) {
+    end();
+    if (shouldCommit()) {
+      this.roomId = roomId;
+      this.round = round;
+      this.rank = String.valueOf(rank);
+      this.activePlayers = activePlayers;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One pull of a player's revolver trigger, by choice or after losing a challenge.
+ */
+@Name("liarsbar.Shot")
+@Label("Shot")
+@Category({"Liar's Bar", "Game"})
+@Description("A player pulling the revolver's trigger")
+@StackTrace(false)
+public class ShotEvent extends Event {
+  @Label("Room Id")
+  String roomId;
+
+  @Label("Seat")
+  int seat;
+
+  @Label("Eliminated")
+  boolean eliminated;
+
+  /**
+   * Ends the event and records it with its fields if it is enabled and passes its threshold.
+   */
+  public void finish(String roomId, int seat, boolean eliminated) {
+    end();
+    if (shouldCommit()) {
+      this.roomId = roomId;
+      this.seat = seat;
+      this.eliminated = eliminated;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import model.game.Rank;
+
+/**
+ * A player's turn. Unlike the other events it spans several calls, so it is started with
+ * {@link #start} and committed when the next turn starts.
+ */
+@Name("liarsbar.Turn")
+@Label("Turn")
+@Category({"Liar's Bar", "Game"})
+@Description("A player's turn, from becoming the current player until the next player is up")
+@StackTrace(false)
+public class TurnEvent extends Event {
+  @Label("Room Id")
+  String roomId;
+
+  @Label("Seat")
+  int seat;
+
+  @Label("Player Id")
+  String playerId;
+
+  @Label("Rank")
+  String rank;
+
+  @Label("Round")
+  int round;
+
+  /**
+   * Starts timing a turn.
+   * @param roomId id of the room, or null if unknown.
+   * @param seat seat of the player whose turn it is.
+   * @param playerId id of that player.
+   * @param rank rank of the current round.
+   * @param round index of the current round.
+   * @return the started event, or null if turns are not being recorded.
+   */
+  public static TurnEvent start(String roomId, int seat, String playerId, Rank rank, int round) {
+    TurnEvent event = new TurnEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    event.roomId = roomId;
+    event.seat = seat;
+    event.playerId = playerId;
+    event.rank = String.valueOf(rank);
+    event.round = round;
+    return event;
+  }
+}
@@ -1,5 +1,7 @@
 package model.events;
 
+import model.game.Rank;
+
 /**
  * Base interface for all game events
  */
@@ -21,4 +23,32 @@ public interface GameEvent {
    * @return Event timestamp
    */
   long getTimestamp();
-}
\ No newline at end of file
+
+  /**
+   * Gets the id of the player the event is about (claimer, challenger, shooter, winner, ...)
+   * @return Player id, or null if the event is not about a player
+   */
+  String getPlayerId();
+
+  /**
+   * Gets the id of the other player involved, such as the claimer being challenged
+   * @return Player id, or null if no other player is involved
+   */
+  String getTargetPlayerId();
+
+  /**
+   * Gets the round rank the event happened in
+   * @return The rank, or null if the event is not tied to a round
+   */
+  Rank getRank();
+
+  /**
+   * Gets the type-specific value of the event: player count for GAME_STARTED and ROUND_STARTED,
+   * hand size for PLAYER_INITIALIZED, claimed count for CLAIM_MADE, claimed total for
+   * ROUND_ENDED, 1 for a successful CHALLENGE_RESULT and 0 for a failed one, chamber index after
+   * the pull for PLAYER_SHOT and PLAYER_ELIMINATED (-1 when announcing the pull), and member count
+   * for ROOM_JOINED
+   * @return The value, or -1 if the event carries none
+   */
+  int getValue();
+}
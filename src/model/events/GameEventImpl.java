@@ -1,5 +1,7 @@
 package model.events;
 
+import model.game.Rank;
+
 /**
  * Standard implementation of GameEvent
  */
@@ -7,11 +9,62 @@ public class GameEventImpl implements GameEvent {
   private final GameEventType eventType;
   private final String message;
   private final long timestamp;
+  private final String playerId;
+  private final String targetPlayerId;
+  private final Rank rank;
+  private final int value;
   
   public GameEventImpl(GameEventType eventType, String message) {
+    this(eventType, message, null, null, null, -1);
+  }
+
+  private GameEventImpl(GameEventType eventType, String message, String playerId, String targetPlayerId,
+                        Rank rank, int value) {
     this.eventType = eventType;
     this.message = message;
     this.timestamp = System.currentTimeMillis();
+    this.playerId = playerId;
+    this.targetPlayerId = targetPlayerId;
+    this.rank = rank;
+    this.value = value;
+  }
+
+  public static class Builder {
+    private final GameEventType eventType;
+    private final String message;
+    private String playerId;
+    private String targetPlayerId;
+    private Rank rank;
+    private int value = -1;
+
+    public Builder(GameEventType eventType, String message) {
+      this.eventType = eventType;
+      this.message = message;
+    }
+
+    public Builder withPlayer(String playerId) {
+      this.playerId = playerId;
+      return this;
+    }
+
+    public Builder withTarget(String targetPlayerId) {
+      this.targetPlayerId = targetPlayerId;
+      return this;
+    }
+
+    public Builder withRank(Rank rank) {
+      this.rank = rank;
+      return this;
+    }
+
+    public Builder withValue(int value) {
+      this.value = value;
+      return this;
+    }
+
+    public GameEvent build() {
+      return new GameEventImpl(eventType, message, playerId, targetPlayerId, rank, value);
+    }
   }
   
   @Override
@@ -28,9 +81,29 @@ public class GameEventImpl implements GameEvent {
   public long getTimestamp() {
     return timestamp;
   }
+
+  @Override
+  public String getPlayerId() {
+    return playerId;
+  }
+
+  @Override
+  public String getTargetPlayerId() {
+    return targetPlayerId;
+  }
+
+  @Override
+  public Rank getRank() {
+    return rank;
+  }
+
+  @Override
+  public int getValue() {
+    return value;
+  }
   
   @Override
   public String toString() {
     return String.format("[%s] %s", eventType, message);
   }
-}
\ No newline at end of file
+}
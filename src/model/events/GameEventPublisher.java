@@ -3,6 +3,8 @@ package model.events;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import model.diagnostics.EventDispatchEvent;
+
 /**
  * Publisher for game events using Observer pattern
  */
@@ -30,6 +32,8 @@ public class GameEventPublisher {
    * @param event The event to publish
    */
   public void publishEvent(GameEvent event) {
+    EventDispatchEvent dispatch = new EventDispatchEvent();
+    dispatch.begin();
     for (GameEventListener listener : listeners) {
       try {
         listener.onGameEvent(event);
@@ -38,6 +42,7 @@ public class GameEventPublisher {
         System.err.println("Error in event listener: " + e.getMessage());
       }
     }
+    dispatch.finish(event.getEventType(), event.getPlayerId(), listeners.size());
   }
   
   /**
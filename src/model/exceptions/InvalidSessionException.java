@@ -0,0 +1,7 @@
+package model.exceptions;
+
+public class InvalidSessionException extends RuntimeException {
+  public InvalidSessionException(String message) {
+    super(message);
+  }
+}
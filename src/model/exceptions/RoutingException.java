@@ -0,0 +1,11 @@
+package model.exceptions;
+
+public class RoutingException extends RuntimeException {
+  public RoutingException(String message) {
+    super(message);
+  }
+
+  public RoutingException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
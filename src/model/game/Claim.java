@@ -20,6 +20,13 @@ public interface Claim {
 
   List<Card> getCards();
 
+  /**
+   * Getter for the number of played cards of a rank.
+   * @param rank the rank to count.
+   * @return number of cards of the given rank that were actually played.
+   */
+  int countOf(Rank rank);
+
   boolean isValidClaim();
 
   boolean isSettled();
@@ -0,0 +1,331 @@
+package model.game;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact claim history of a single round.
+ *
+ * Each claim is packed into one long (seat, claimed count, claimed rank, per-rank counts of the
+ * cards actually played and the settled flag), so a round's history is a single primitive array
+ * that can be scanned without touching Claim or Card objects. Claims are exposed as small views
+ * that copy their entry when created, so a view keeps describing its claim after the history is
+ * reset for a new round; only the settled flag is read through, while the round lasts.
+ */
+public class ClaimHistory {
+  private static final Rank[] RANKS = Rank.values();
+
+  private static final int SETTLED_SHIFT = 0;
+  private static final int SEAT_SHIFT = 1;
+  private static final int SEAT_BITS = 3;
+  private static final int RANK_SHIFT = SEAT_SHIFT + SEAT_BITS;
+  private static final int RANK_BITS = 2;
+  private static final int COUNT_SHIFT = RANK_SHIFT + RANK_BITS;
+  private static final int COUNT_BITS = 8;
+  private static final int RANK_COUNTS_SHIFT = COUNT_SHIFT + COUNT_BITS;
+  private static final int RANK_COUNT_BITS = 6;
+
+  public static final int MAX_SEATS = 1 << SEAT_BITS;
+  public static final int MAX_COUNT = (1 << COUNT_BITS) - 1;
+  public static final int MAX_RANK_COUNT = (1 << RANK_COUNT_BITS) - 1;
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final List<Player> seats;
+  private long[] entries;
+  private int size;
+  private int resets; // bumped by reset, so views can tell their entry has been reused
+
+  public ClaimHistory() {
+    this.seats = new ArrayList<>(GameConstants.MAX_PLAYERS);
+    this.entries = new long[INITIAL_CAPACITY];
+    this.size = 0;
+  }
+
+  /**
+   * Clears the history and fixes the seating used to encode claimers.
+   * @param players players seated for the round, in turn order.
+   */
+  public void reset(List<Player> players) {
+    if (players.size() > MAX_SEATS) {
+      throw new IllegalArgumentException("Cannot seat more than " + MAX_SEATS + " players");
+    }
+    this.seats.clear();
+    this.seats.addAll(players);
+    this.size = 0;
+    this.resets++;
+  }
+
+  /**
+   * Restores a previously packed history.
+   * @param players seating the entries were packed against.
+   * @param packed packed claims in chronological order.
+   * @param count number of valid entries in packed.
+   */
+  public void restore(List<Player> players, long[] packed, int count) {
+    reset(players);
+    ensureCapacity(count);
+    System.arraycopy(packed, 0, this.entries, 0, count);
+    this.size = count;
+  }
+
+  /**
+   * Appends a claim to the history. The claim object is not retained.
+   * @param claim the claim to append.
+   * @return index of the appended entry.
+   */
+  public int add(Claim claim) {
+    int seat = seatOf(claim.getPlayer());
+    if (seat < 0) {
+      throw new IllegalArgumentException("Player " + claim.getPlayer().getName() + " is not seated in this round");
+    }
+
+    int[] rankCounts = new int[RANKS.length];
+    for (Rank rank : RANKS) {
+      rankCounts[rank.ordinal()] = claim.countOf(rank);
+    }
+
+    ensureCapacity(this.size + 1);
+    this.entries[this.size] = pack(seat, claim.getCount(), claim.getRank(), rankCounts, claim.isSettled());
+    return this.size++;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Getter for a raw packed entry.
+   * @param index entry index.
+   * @return the packed claim.
+   */
+  public long getPacked(int index) {
+    checkIndex(index);
+    return this.entries[index];
+  }
+
+  /**
+   * Getter for the seating the entries are packed against.
+   * @return unmodifiable view of the seated players.
+   */
+  public List<Player> getSeats() {
+    return Collections.unmodifiableList(this.seats);
+  }
+
+  /**
+   * Copies the packed entries into a new array.
+   * @return packed claims in chronological order.
+   */
+  public long[] toArray() {
+    return Arrays.copyOf(this.entries, this.size);
+  }
+
+  /**
+   * Getter for a claim view over an entry.
+   * @param index entry index.
+   * @return claim view holding a copy of the entry.
+   */
+  public Claim get(int index) {
+    checkIndex(index);
+    return new PackedClaim(index, this.entries[index], this.seats.get(seatOf(this.entries[index])));
+  }
+
+  /**
+   * Marks an entry as settled.
+   * @param index entry index.
+   */
+  public void settle(int index) {
+    checkIndex(index);
+    this.entries[index] |= 1L << SETTLED_SHIFT;
+  }
+
+  /**
+   * Gets a list view over every claim in chronological order.
+   * @return a read-only list backed by this history.
+   */
+  public List<Claim> asList() {
+    return new AbstractList<Claim>() {
+      @Override
+      public Claim get(int index) {
+        return ClaimHistory.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return ClaimHistory.this.size;
+      }
+    };
+  }
+
+  private int seatOf(Player player) {
+    for (int i = 0; i < this.seats.size(); i++) {
+      if (this.seats.get(i).equals(player)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > this.entries.length) {
+      this.entries = Arrays.copyOf(this.entries, Math.max(capacity, this.entries.length * 2));
+    }
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= this.size) throw new IndexOutOfBoundsException();
+  }
+
+  /**
+   * Packs a claim into a long.
+   * @param seat seat index of the claimer.
+   * @param count claimed number of cards.
+   * @param rank claimed rank.
+   * @param rankCounts number of played cards per rank, indexed by ordinal.
+   * @param settled whether the claim has been settled.
+   * @return the packed claim.
+   */
+  public static long pack(int seat, int count, Rank rank, int[] rankCounts, boolean settled) {
+    if (seat < 0 || seat >= MAX_SEATS) {
+      throw new IllegalArgumentException("Seat out of range: " + seat);
+    }
+    if (count < 0 || count > MAX_COUNT) {
+      throw new IllegalArgumentException("Claim count out of range: " + count);
+    }
+
+    long packed = (settled ? 1L : 0L) << SETTLED_SHIFT
+        | (long) seat << SEAT_SHIFT
+        | (long) rank.ordinal() << RANK_SHIFT
+        | (long) count << COUNT_SHIFT;
+    for (int i = 0; i < RANKS.length; i++) {
+      if (rankCounts[i] < 0 || rankCounts[i] > MAX_RANK_COUNT) {
+        throw new IllegalArgumentException("Too many " + RANKS[i] + " cards in claim: " + rankCounts[i]);
+      }
+      packed |= (long) rankCounts[i] << (RANK_COUNTS_SHIFT + i * RANK_COUNT_BITS);
+    }
+    return packed;
+  }
+
+  public static int seatOf(long packed) {
+    return (int) (packed >>> SEAT_SHIFT) & (MAX_SEATS - 1);
+  }
+
+  public static int countOf(long packed) {
+    return (int) (packed >>> COUNT_SHIFT) & MAX_COUNT;
+  }
+
+  public static Rank rankOf(long packed) {
+    return RANKS[(int) (packed >>> RANK_SHIFT) & ((1 << RANK_BITS) - 1)];
+  }
+
+  public static int countOf(long packed, Rank rank) {
+    return (int) (packed >>> (RANK_COUNTS_SHIFT + rank.ordinal() * RANK_COUNT_BITS)) & MAX_RANK_COUNT;
+  }
+
+  public static int cardCountOf(long packed) {
+    int total = 0;
+    for (Rank rank : RANKS) {
+      total += countOf(packed, rank);
+    }
+    return total;
+  }
+
+  public static boolean isSettled(long packed) {
+    return (packed & (1L << SETTLED_SHIFT)) != 0;
+  }
+
+  public static boolean isValid(long packed) {
+    return countOf(packed, rankOf(packed)) == countOf(packed);
+  }
+
+  /**
+   * Claim view over a copy of a history entry. The settled flag is read through while the
+   * history has not been reset, so a claim settled after the view was taken reads as settled.
+   */
+  private class PackedClaim implements Claim {
+    private final int index;
+    private final int resets;
+    private final Player player;
+    private long packed;
+
+    private PackedClaim(int index, long packed, Player player) {
+      this.index = index;
+      this.resets = ClaimHistory.this.resets;
+      this.packed = packed;
+      this.player = player;
+    }
+
+    @Override
+    public int getCount() {
+      return ClaimHistory.countOf(this.packed);
+    }
+
+    @Override
+    public Player getPlayer() {
+      return this.player;
+    }
+
+    /**
+     * Rebuilds the played cards from the per-rank counts. These are new cards of the same ranks,
+     * not the cards that were played, and their original order is not retained.
+     */
+    @Override
+    public List<Card> getCards() {
+      List<Card> cards = new ArrayList<>(cardCountOf(this.packed));
+      for (Rank rank : RANKS) {
+        for (int i = ClaimHistory.countOf(this.packed, rank); i > 0; i--) {
+          cards.add(new CardImpl(rank));
+        }
+      }
+      return cards;
+    }
+
+    @Override
+    public int countOf(Rank rank) {
+      return ClaimHistory.countOf(this.packed, rank);
+    }
+
+    @Override
+    public boolean isValidClaim() {
+      return isValid(this.packed);
+    }
+
+    @Override
+    public boolean isSettled() {
+      if (isCurrent()) {
+        this.packed = entries[this.index];
+      }
+      return ClaimHistory.isSettled(this.packed);
+    }
+
+    @Override
+    public void settle() {
+      if (!isCurrent()) {
+        throw new IllegalStateException("Claim belongs to a round that has ended");
+      }
+      ClaimHistory.this.settle(this.index);
+      this.packed = entries[this.index];
+    }
+
+    @Override
+    public Rank getRank() {
+      return rankOf(this.packed);
+    }
+
+    @Override
+    public String toString() {
+      return this.player.getName() + " claims " + getCount() + " " + getRank() + "(s)";
+    }
+
+    private boolean isCurrent() {
+      return this.resets == ClaimHistory.this.resets;
+    }
+  }
+}
@@ -7,14 +7,12 @@ public class ClaimImpl implements Claim {
   private final Player player;
   private final List<Card> cards;
   private final Rank rank;
+  private final int[] rankCounts;
+  private final boolean isValid;
   private boolean isSettled;
 
   public ClaimImpl(int count, Player player, List<Card> cards, Rank rank) {
-    this.cards = cards;
-    this.count = count;
-    this.player = player;
-    this.rank = rank;
-    this.isSettled = false;
+    this(count, player, cards, rank, false);
   }
 
   public ClaimImpl(int count, Player player, List<Card> cards, Rank rank, boolean isSettled) {
@@ -23,6 +21,13 @@ public class ClaimImpl implements Claim {
     this.player = player;
     this.rank = rank;
     this.isSettled = isSettled;
+
+    // Played cards never change after the claim, so count them once up front
+    this.rankCounts = new int[Rank.values().length];
+    for (Card card : cards) {
+      this.rankCounts[card.getRank().ordinal()]++;
+    }
+    this.isValid = this.rankCounts[rank.ordinal()] == count;
   }
 
   @Override
@@ -47,15 +52,13 @@ public class ClaimImpl implements Claim {
   }
 
   @Override
-  public boolean isValidClaim() {
-    int realCount = 0;
-    for (Card card : this.cards) {
-      if (card.getRank() == this.rank) {
-        realCount++;
-      }
-    }
+  public int countOf(Rank rank) {
+    return this.rankCounts[rank.ordinal()];
+  }
 
-    return realCount == this.count;
+  @Override
+  public boolean isValidClaim() {
+    return this.isValid;
   }
 
   @Override
@@ -9,4 +9,15 @@ public interface Deck {
   Card drawRandomCard();
 
   List<Card> drawNRandomCards(int n);
+
+  /**
+   * Getter for the cards still in the deck.
+   * @return a copy of the remaining cards in deck order.
+   */
+  List<Card> getCards();
+
+  /**
+   * Puts every card drawn back, so the deck can be dealt again.
+   */
+  void reset();
 }
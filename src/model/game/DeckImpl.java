@@ -4,22 +4,26 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import static model.game.GameConstants.*;
+
 public class DeckImpl implements Deck {
   private final ArrayList<Card> cards;
+  private final List<Card> dealt; // the cards the deck was created with, for reset
   private final int SIZE;
   private final Random random = new Random();
   // TODO: change the wild card here
-  private final Rank wild = Rank.ACE;
+  private final Rank wild = WILD_RANK;
 
   public DeckImpl(ArrayList<Card> cards) {
     this.cards = new ArrayList<>(cards);
     this.SIZE = this.cards.size();
+    this.dealt = new ArrayList<>(this.cards);
   }
 
   // TODO: how is the deck built?
   public DeckImpl() {
-    int normalNumberOfCardsPerRank = 6;
-    int wildNumberOfCards = 2; 
+    int normalNumberOfCardsPerRank = DECK_CARDS_PER_RANK;
+    int wildNumberOfCards = DECK_WILD_CARDS;
 
     int numberOfRanks = Rank.values().length;
 
@@ -36,6 +40,7 @@ public class DeckImpl implements Deck {
           this.cards.add(new CardImpl(rank));
         }
     }
+    this.dealt = new ArrayList<>(this.cards);
   }
 
   @Override
@@ -68,6 +73,17 @@ public class DeckImpl implements Deck {
     return drawnCards;
   }
 
+  @Override
+  public List<Card> getCards() {
+    return new ArrayList<>(cards);
+  }
+
+  @Override
+  public void reset() {
+    cards.clear();
+    cards.addAll(dealt);
+  }
+
   /**
    * Gets the current number of cards remaining in the deck
    * @return Number of cards left
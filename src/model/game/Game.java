@@ -141,11 +141,37 @@ public interface Game {
   boolean isRoundComplete();
 
   /**
-   * Resets the game to initial state
+   * Resets the game to initial state, with every player alive and the deck full, ready for
+   * {@link #startGame()}
    */
   void resetGame();
 
   void claim(Player player, int count, List<Card> cards, Rank claimedRank) throws NoSuchCardException ;
 
   void moveToNextMove();
-}
\ No newline at end of file
+
+  /**
+   * Gets the id of the room hosting this game
+   * @return The room id, or null if the game is not in a room
+   */
+  String getRoomId();
+
+  /**
+   * Sets the id of the room hosting this game, used to label diagnostics
+   * @param roomId The room id
+   */
+  void setRoomId(String roomId);
+
+  /**
+   * Gets the seat of a player in this game
+   * @param player The player to look up
+   * @return The player's seat (0-based), or -1 if not seated
+   */
+  int getSeat(Player player);
+
+  /**
+   * Gets the current round being played
+   * @return The current round, or null if no round is active
+   */
+  Round getCurrentRound();
+}
@@ -10,6 +10,11 @@ public final class GameConstants {
   public static final int MIN_PLAYERS = 2;
   public static final int INITIAL_HAND_SIZE = 5;
   public static final int CARDS_PER_RANK = 4; // In a standard deck
+
+  // Deck composition
+  public static final int DECK_CARDS_PER_RANK = 6;
+  public static final int DECK_WILD_CARDS = 2;
+  public static final Rank WILD_RANK = Rank.ACE;
   
   // Room configuration
   public static final int DEFAULT_ROOM_CAPACITY = 4;
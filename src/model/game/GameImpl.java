@@ -3,9 +3,14 @@ package model.game;
 import java.util.ArrayList;
 import java.util.List;
 
+import model.diagnostics.ChallengeEvent;
+import model.diagnostics.ClaimEvent;
+import model.diagnostics.RoundAdvanceEvent;
+import model.diagnostics.TurnEvent;
 import model.exceptions.GameFullException;
 import model.exceptions.GameNotOverException;
 import model.exceptions.NoSuchCardException;
+import model.events.GameEventImpl;
 import model.events.GameEventPublisher;
 import model.events.GameEventType;
 import static model.game.GameConstants.*;
@@ -31,6 +36,13 @@ public class GameImpl implements Game {
   // Event publisher for observers
   private final GameEventPublisher eventPublisher;
 
+  // Set once GAME_ENDED has been published, since isGameOver is polled repeatedly
+  private boolean gameEndAnnounced;
+
+  // Diagnostics
+  private String roomId;
+  private TurnEvent currentTurn;
+
   private GameImpl(Builder builder) {
     this.deck = builder.deck != null ? builder.deck : new DeckImpl();
     this.players = new ArrayList<>(MAX_PLAYERS);
@@ -92,21 +104,28 @@ public class GameImpl implements Game {
 
   @Override
   public void startGame() {
-    eventPublisher.publishEvent(GameEventType.GAME_STARTED, "Starting new game with " + this.players.size() + " players");
+    eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.GAME_STARTED,
+        "Starting new game with " + this.players.size() + " players")
+        .withValue(this.players.size())
+        .build());
     
     for (Player player : this.players) {
       Hand hand = new HandImpl(deck.drawNRandomCards(INITIAL_HAND_SIZE));
       player.setHand(hand);
       player.setRevolver(new RevolverImpl());
       player.getRevolver().reset();
-      eventPublisher.publishEvent(GameEventType.PLAYER_INITIALIZED, 
-          "Player " + player.getName() + " initialized with " + INITIAL_HAND_SIZE + " cards and revolver");
+      eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.PLAYER_INITIALIZED,
+          "Player " + player.getName() + " initialized with " + INITIAL_HAND_SIZE + " cards and revolver")
+          .withPlayer(player.getId())
+          .withValue(INITIAL_HAND_SIZE)
+          .build());
     }
     
     // Start the first round
     this.currentRoundIndex = 0;
     this.currentRound = this.rounds.get(currentRoundIndex);
     this.currentRound.startRound(this.getActivePlayers());
+    startTurn();
   }
 
   @Override
@@ -120,8 +139,16 @@ public class GameImpl implements Game {
       throw new IllegalStateException("No active round");
     }
     
-    eventPublisher.publishEvent(GameEventType.CLAIM_MADE, "Player " + player.getName() + " claims " + count + " " + claimedRank + "(s)");
+    ClaimEvent event = new ClaimEvent();
+    event.begin();
+    eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.CLAIM_MADE,
+        "Player " + player.getName() + " claims " + count + " " + claimedRank + "(s)")
+        .withPlayer(player.getId())
+        .withRank(claimedRank)
+        .withValue(count)
+        .build());
     currentRound.claim(player, count, cards, claimedRank);
+    event.finish(this.roomId, getSeat(player), count, claimedRank);
     
     // Check if round is complete and advance to next round if needed
     if (currentRound.isRoundComplete()) {
@@ -135,8 +162,18 @@ public class GameImpl implements Game {
       throw new IllegalStateException("No active round");
     }
     
-    eventPublisher.publishEvent(GameEventType.CHALLENGE_MADE, "Player " + player.getName() + " challenges the claim!");
+    ChallengeEvent event = new ChallengeEvent();
+    event.begin();
+    Claim challenged = currentRound.getLastClaim();
+    eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.CHALLENGE_MADE,
+        "Player " + player.getName() + " challenges the claim!")
+        .withPlayer(player.getId())
+        .withTarget(challenged != null ? challenged.getPlayer().getId() : null)
+        .withRank(currentRound.getRank())
+        .build());
     Player loser = currentRound.challengeClaim(player);
+    event.finish(this.roomId, getSeat(player), challenged != null ? getSeat(challenged.getPlayer()) : -1,
+        !player.equals(loser));
     
     // Player status may change after challenge, invalidate cache
     invalidateActivePlayersCache();
@@ -156,7 +193,7 @@ public class GameImpl implements Game {
 
   @Override
   public GameState getGameState() {
-    return null;
+    return new GameStateImpl(this.players, getRank(), this.currentRoundIndex, getCurrentPlayer(), getLastClaim());
   }
 
   @Override
@@ -214,13 +251,18 @@ public class GameImpl implements Game {
         .count();
     
     boolean gameOver = activePlayerCount <= 1;
-    if (gameOver && activePlayerCount == 1) {
+    if (gameOver && activePlayerCount == 1 && !gameEndAnnounced) {
+      gameEndAnnounced = true;
+      endTurn();
       Player winner = players.stream()
           .filter(Player::isAlive)
           .findFirst()
           .orElse(null);
       if (winner != null) {
-        eventPublisher.publishEvent(GameEventType.GAME_ENDED, "Game Over! Winner: " + winner.getName());
+        eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.GAME_ENDED,
+            "Game Over! Winner: " + winner.getName())
+            .withPlayer(winner.getId())
+            .build());
       }
     }
     return gameOver;
@@ -266,13 +308,17 @@ public class GameImpl implements Game {
     this.currentRound = null;
     this.claims.clear();
     this.currentPlayingPlayerIndex = 0;
+    this.gameEndAnnounced = false;
     
-    // Reset players
+    // Reset players and return their cards, so the same game can be dealt again
     for (Player player : players) {
       player.setHand(null);
       player.setRevolver(null);
-      // Note: Player.isAlive() state should be reset in player implementation
+      player.setAlive(true);
     }
+    this.deck.reset();
+    invalidateActivePlayersCache();
+    endTurn();
   }
 
   @Override
@@ -289,8 +335,13 @@ public class GameImpl implements Game {
       currentRound.moveToNextPlayer();
       Player nextPlayer = getCurrentPlayer();
       if (nextPlayer != null) {
-        eventPublisher.publishEvent(GameEventType.TURN_CHANGED, "Turn passed to: " + nextPlayer.getName());
+        eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.TURN_CHANGED,
+            "Turn passed to: " + nextPlayer.getName())
+            .withPlayer(nextPlayer.getId())
+            .withRank(currentRound.getRank())
+            .build());
       }
+      startTurn();
     }
   }
   
@@ -303,15 +354,112 @@ public class GameImpl implements Game {
       return; // Don't advance if game is over
     }
     
+    RoundAdvanceEvent event = new RoundAdvanceEvent();
+    event.begin();
     this.currentRoundIndex = (this.currentRoundIndex + 1) % this.rounds.size();
     this.currentRound = this.rounds.get(currentRoundIndex);
-    this.currentRound.startRound(this.getActivePlayers());
+    List<Player> activePlayers = this.getActivePlayers();
+    this.currentRound.startRound(activePlayers);
+    event.finish(this.roomId, this.currentRoundIndex, this.currentRound.getRank(), activePlayers.size());
+  }
+
+  /**
+   * Ends the turn being timed, if any, and starts timing the current player's turn unless the
+   * game is over
+   */
+  private void startTurn() {
+    endTurn();
+    Player player = getCurrentPlayer();
+    if (player != null && players.stream().filter(Player::isAlive).count() > 1) {
+      this.currentTurn = TurnEvent.start(this.roomId, getSeat(player), player.getId(), getRank(), this.currentRoundIndex);
+    }
+  }
+
+  /**
+   * Commits the turn being timed, if any
+   */
+  private void endTurn() {
+    if (this.currentTurn != null) {
+      this.currentTurn.commit();
+      this.currentTurn = null;
+    }
   }
   
+  /**
+   * Resumes a restored game at the given round without restarting it
+   * @param roundIndex Index of the round in progress
+   */
+  public void restoreCurrentRound(int roundIndex) {
+    this.currentRoundIndex = roundIndex;
+    this.currentRound = this.rounds.get(roundIndex);
+    invalidateActivePlayersCache();
+    startTurn();
+  }
+
+  /**
+   * Whether GAME_ENDED has been published for this game
+   * @return true once the end of the game was announced
+   */
+  public boolean isGameEndAnnounced() {
+    return this.gameEndAnnounced;
+  }
+
+  /**
+   * Restores whether GAME_ENDED was already published, so a decoded game does not announce
+   * its end twice
+   * @param gameEndAnnounced true if the end of the game was announced
+   */
+  public void restoreGameEndAnnounced(boolean gameEndAnnounced) {
+    this.gameEndAnnounced = gameEndAnnounced;
+    if (gameEndAnnounced) {
+      endTurn();
+    }
+  }
+
+  @Override
+  public String getRoomId() {
+    return this.roomId;
+  }
+
+  @Override
+  public void setRoomId(String roomId) {
+    this.roomId = roomId;
+  }
+
+  @Override
+  public int getSeat(Player player) {
+    return this.players.indexOf(player);
+  }
+
+  /**
+   * Gets every player seated in the game, in seat order
+   * @return Copy of the seated players
+   */
+  public List<Player> getPlayers() {
+    return new ArrayList<>(this.players);
+  }
+
+  /**
+   * Gets the deck cards are drawn from
+   * @return The deck
+   */
+  public Deck getDeck() {
+    return this.deck;
+  }
+
+  /**
+   * Gets all rounds of the game in play order
+   * @return Copy of the round list
+   */
+  public List<Round> getRounds() {
+    return new ArrayList<>(this.rounds);
+  }
+
   /**
    * Gets the current round being played
    * @return The current round, or null if no round is active
    */
+  @Override
   public Round getCurrentRound() {
     return this.currentRound;
   }
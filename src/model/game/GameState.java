@@ -2,8 +2,63 @@ package model.game;
 
 import java.util.List;
 
+/**
+ * Immutable snapshot of the public state of a game at one point in time.
+ * Per-player values are addressed by seat, the player's index in {@link #getPlayers()}.
+ */
 public interface GameState {
   List<Player> getPlayers();
 
+  /**
+   * Getter for the rank of the round in play.
+   * @return the round rank, or null if the game has not started.
+   */
+  Rank getRank();
 
+  /**
+   * Getter for the index of the round in play.
+   * @return 0-based round index.
+   */
+  int getRoundNumber();
+
+  /**
+   * Getter for the player whose turn it is.
+   * @return the current player, or null if no round is active.
+   */
+  Player getCurrentPlayer();
+
+  /**
+   * Getter for the number of cards a player holds.
+   * @param seat seat of the player.
+   * @return number of cards in hand.
+   */
+  int getCardCount(int seat);
+
+  /**
+   * Getter for whether a player is still in the game.
+   * @param seat seat of the player.
+   * @return true if the player is alive.
+   */
+  boolean isAlive(int seat);
+
+  /**
+   * Getter for how far a player's revolver has advanced.
+   * @param seat seat of the player.
+   * @return chamber position, or -1 if the player has no revolver.
+   */
+  int getChamberPosition(int seat);
+
+  /**
+   * Getter for the player who made the last unsettled claim.
+   * @return the claimer, or null if there is no unsettled claim.
+   */
+  Player getLastClaimPlayer();
+
+  /**
+   * Getter for the count of the last unsettled claim.
+   * @return claimed count, or -1 if there is no unsettled claim.
+   */
+  int getLastClaimCount();
+
+  boolean isGameOver();
 }
@@ -1,11 +1,93 @@
 package model.game;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class GameStateImpl implements GameState {
+  private final List<Player> players;
+  private final Rank rank;
+  private final int roundNumber;
+  private final Player currentPlayer;
+  private final int[] cardCounts;
+  private final boolean[] alive;
+  private final int[] chamberPositions;
+  private final Player lastClaimPlayer;
+  private final int lastClaimCount;
+  private final boolean gameOver;
+
+  public GameStateImpl(List<Player> players, Rank rank, int roundNumber, Player currentPlayer, Claim lastClaim) {
+    this.players = Collections.unmodifiableList(new ArrayList<>(players));
+    this.rank = rank;
+    this.roundNumber = roundNumber;
+    this.currentPlayer = currentPlayer;
+    this.lastClaimPlayer = lastClaim != null ? lastClaim.getPlayer() : null;
+    this.lastClaimCount = lastClaim != null ? lastClaim.getCount() : -1;
+
+    int size = players.size();
+    this.cardCounts = new int[size];
+    this.alive = new boolean[size];
+    this.chamberPositions = new int[size];
+    int aliveCount = 0;
+    for (int seat = 0; seat < size; seat++) {
+      Player player = players.get(seat);
+      this.cardCounts[seat] = player.getHand() != null ? player.getHand().getSize() : 0;
+      this.alive[seat] = player.isAlive();
+      this.chamberPositions[seat] = player.getRevolver() != null ? player.getRevolver().getCurrentIndex() : -1;
+      if (this.alive[seat]) {
+        aliveCount++;
+      }
+    }
+    this.gameOver = aliveCount <= 1;
+  }
 
   @Override
   public List<Player> getPlayers() {
-    return List.of();
+    return this.players;
+  }
+
+  @Override
+  public Rank getRank() {
+    return this.rank;
+  }
+
+  @Override
+  public int getRoundNumber() {
+    return this.roundNumber;
+  }
+
+  @Override
+  public Player getCurrentPlayer() {
+    return this.currentPlayer;
+  }
+
+  @Override
+  public int getCardCount(int seat) {
+    return this.cardCounts[seat];
+  }
+
+  @Override
+  public boolean isAlive(int seat) {
+    return this.alive[seat];
+  }
+
+  @Override
+  public int getChamberPosition(int seat) {
+    return this.chamberPositions[seat];
+  }
+
+  @Override
+  public Player getLastClaimPlayer() {
+    return this.lastClaimPlayer;
+  }
+
+  @Override
+  public int getLastClaimCount() {
+    return this.lastClaimCount;
+  }
+
+  @Override
+  public boolean isGameOver() {
+    return this.gameOver;
   }
 }
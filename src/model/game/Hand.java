@@ -21,4 +21,11 @@ public interface Hand {
    * @param card the card to be discarded.
    */
   void discard(Card card) throws NoSuchCardException;
+
+  /**
+   * Getter for the number of cards of a rank held in the hand.
+   * @param rank the rank to count.
+   * @return number of cards of the given rank currently in the hand.
+   */
+  int countOf(Rank rank);
 }
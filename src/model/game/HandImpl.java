@@ -7,9 +7,14 @@ import model.exceptions.HandFullException;
 
 public class HandImpl implements Hand {
   private final List<Card> cards;
+  private final int[] rankCounts;
 
   public HandImpl(List<Card> cards) {
     this.cards = cards;
+    this.rankCounts = new int[Rank.values().length];
+    for (Card card : cards) {
+      this.rankCounts[card.getRank().ordinal()]++;
+    }
   }
 
   @Override
@@ -28,6 +33,7 @@ public class HandImpl implements Hand {
   public void add(Card card) {
     // Note: Removed arbitrary size limit since hand size should be dynamic in the game
     this.cards.add(card);
+    this.rankCounts[card.getRank().ordinal()]++;
   }
 
   @Override
@@ -36,7 +42,14 @@ public class HandImpl implements Hand {
       throw new HandEmptyException("Hand is empty!");
     }
 
-    this.cards.remove(card);
+    if (this.cards.remove(card)) {
+      this.rankCounts[card.getRank().ordinal()]--;
+    }
+  }
+
+  @Override
+  public int countOf(Rank rank) {
+    return this.rankCounts[rank.ordinal()];
   }
 
   @Override
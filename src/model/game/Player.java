@@ -10,6 +10,12 @@ import model.exceptions.NoSuchCardException;
 public interface Player {
   String getId();
 
+  /**
+   * Getter for the id as a number, for cheap identity checks.
+   * @return the numeric id; players are equal exactly when their ids are.
+   */
+  long getNumericId();
+
   String getName();
 
   Claim claim(Rank rank, int count, List<Card> droppedCards) throws NoSuchCardException;
@@ -20,6 +26,12 @@ public interface Player {
 
   boolean isAlive();
 
+  /**
+   * Setter for whether the player is still in the game, such as to seat them again after a reset.
+   * @param alive true if the player is in the game.
+   */
+  void setAlive(boolean alive);
+
   Hand getHand();
 
   void setHand(Hand hand);
@@ -3,7 +3,7 @@ package model.game;
 import java.util.Random;
 
 public class RevolverImpl implements Revolver {
-  private final int BARREL_SIZE = 6;
+  private final int BARREL_SIZE = GameConstants.REVOLVER_CHAMBERS;
   private int BULLET_INDEX;
   private int currentIndex;
 
@@ -12,6 +12,11 @@ public class RevolverImpl implements Revolver {
     this.BULLET_INDEX = new Random().nextInt(this.BARREL_SIZE);
   }
 
+  public RevolverImpl(int bulletIndex, int currentIndex) {
+    this.currentIndex = currentIndex;
+    this.BULLET_INDEX = bulletIndex;
+  }
+
   @Override
   public boolean shoot() {
     this.currentIndex = this.currentIndex + 1;
@@ -28,4 +33,12 @@ public class RevolverImpl implements Revolver {
   public int getCurrentIndex() {
     return this.currentIndex;
   }
+
+  /**
+   * Getter for the chamber holding the bullet, used when persisting the revolver.
+   * @return index of the loaded chamber.
+   */
+  public int getBulletIndex() {
+    return this.BULLET_INDEX;
+  }
 }
@@ -84,7 +84,7 @@ public interface Round {
   
   /**
    * Gets all claims made during this round
-   * @return List of all claims in chronological order
+   * @return Read-only list of all claims in chronological order
    */
   List<Claim> getAllClaims();
   
@@ -7,6 +7,7 @@ import model.exceptions.InvalidClaimException;
 import model.exceptions.NoActiveClaimException;
 import model.exceptions.NoSuchCardException;
 import model.exceptions.NotPlayerTurnException;
+import model.events.GameEventImpl;
 import model.events.GameEventPublisher;
 import model.events.GameEventType;
 import static model.game.GameConstants.*;
@@ -15,7 +16,7 @@ public class RoundImpl implements Round {
   private final Rank rank;
   private List<Player> activePlayers;
   private int currentPlayerIndex;
-  private final List<Claim> claims;
+  private final ClaimHistory claims;
   private int totalClaimedCards;
   private final GameEventPublisher eventPublisher;
   
@@ -23,7 +24,7 @@ public class RoundImpl implements Round {
     this.rank = rank;
     this.activePlayers = new ArrayList<>();
     this.currentPlayerIndex = 0;
-    this.claims = new ArrayList<>();
+    this.claims = new ClaimHistory();
     this.totalClaimedCards = 0;
     this.eventPublisher = eventPublisher;
   }
@@ -40,11 +41,14 @@ public class RoundImpl implements Round {
         .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
     
     this.currentPlayerIndex = 0;
-    this.claims.clear();
+    this.claims.reset(this.activePlayers);
     this.totalClaimedCards = 0;
     
-    eventPublisher.publishEvent(GameEventType.ROUND_STARTED, 
-        "Starting round with rank: " + this.rank + " (" + this.activePlayers.size() + " active players)");
+    eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.ROUND_STARTED,
+        "Starting round with rank: " + this.rank + " (" + this.activePlayers.size() + " active players)")
+        .withRank(this.rank)
+        .withValue(this.activePlayers.size())
+        .build());
   }
   
   @Override
@@ -88,7 +92,12 @@ public class RoundImpl implements Round {
     } else {
       resultMessage = "Challenge failed! " + lastClaim.getPlayer().getName() + " was telling the truth";
     }
-    eventPublisher.publishEvent(GameEventType.CHALLENGE_RESULT, resultMessage);
+    eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.CHALLENGE_RESULT, resultMessage)
+        .withPlayer(player.getId())
+        .withTarget(lastClaim.getPlayer().getId())
+        .withRank(this.rank)
+        .withValue(isChallengeSuccessful ? 1 : 0)
+        .build());
     
     this.moveToNextPlayer();
     
@@ -102,9 +111,9 @@ public class RoundImpl implements Round {
       return null;
     }
 
-    Claim lastClaim = this.claims.get(this.claims.size() - 1);
+    int lastIndex = this.claims.size() - 1;
 
-    return lastClaim.isSettled() ? null : lastClaim;
+    return ClaimHistory.isSettled(this.claims.getPacked(lastIndex)) ? null : this.claims.get(lastIndex);
   }
 
   @Override
@@ -115,9 +124,8 @@ public class RoundImpl implements Round {
     
     // Find the last unsettled claim and settle it
     for (int i = claims.size() - 1; i >= 0; i--) {
-      Claim claim = claims.get(i);
-      if (!claim.isSettled()) {
-        claim.settle();
+      if (!ClaimHistory.isSettled(claims.getPacked(i))) {
+        claims.settle(i);
         return;
       }
     }
@@ -153,15 +161,29 @@ public class RoundImpl implements Round {
       } else {
         reason = "All " + CARDS_PER_RANK + " " + this.rank + " cards have been claimed";
       }
-      eventPublisher.publishEvent(GameEventType.ROUND_ENDED, "Round complete: " + reason);
+      eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.ROUND_ENDED, "Round complete: " + reason)
+          .withRank(this.rank)
+          .withValue(totalClaimedCards)
+          .build());
     }
     
     return complete;
   }
   
+  /**
+   * Claims are returned as a read-only view over the round's packed history.
+   */
   @Override
   public List<Claim> getAllClaims() {
-    return new ArrayList<>(this.claims);
+    return this.claims.asList();
+  }
+
+  /**
+   * Gets the packed claim history of this round
+   * @return The round's claim history
+   */
+  public ClaimHistory getClaimHistory() {
+    return this.claims;
   }
   
   @Override
@@ -178,6 +200,38 @@ public class RoundImpl implements Round {
     }
   }
   
+  /**
+   * Gets the players taking turns, including any eliminated since the last turn change
+   * @return Copy of the turn order the current player index refers to
+   */
+  public List<Player> getTurnOrder() {
+    return new ArrayList<>(this.activePlayers);
+  }
+
+  /**
+   * Gets the index of the current player within the active players
+   * @return The current player index
+   */
+  public int getCurrentPlayerIndex() {
+    return this.currentPlayerIndex;
+  }
+
+  /**
+   * Restores the round to a previously captured state without publishing events
+   * @param seats The players seated when the round started
+   * @param activePlayers The players still taking turns
+   * @param currentPlayerIndex Index of the current player within activePlayers
+   * @param claims Packed claim history in chronological order
+   * @param totalClaimedCards Total count of claimed cards so far
+   */
+  public void restore(List<Player> seats, List<Player> activePlayers, int currentPlayerIndex,
+                      long[] claims, int totalClaimedCards) {
+    this.activePlayers = new ArrayList<>(activePlayers);
+    this.currentPlayerIndex = currentPlayerIndex;
+    this.claims.restore(seats, claims, claims.length);
+    this.totalClaimedCards = totalClaimedCards;
+  }
+
   @Override
   public int getTotalClaimedCards() {
     return this.totalClaimedCards;
@@ -187,7 +241,7 @@ public class RoundImpl implements Round {
   public void resetRound() {
     this.activePlayers.clear();
     this.currentPlayerIndex = 0;
-    this.claims.clear();
+    this.claims.reset(this.activePlayers);
     this.totalClaimedCards = 0;
   }
 }
\ No newline at end of file
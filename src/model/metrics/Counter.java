@@ -0,0 +1,22 @@
+package model.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter. Increments are lock-free and striped, so hot threads do not contend.
+ */
+public class Counter {
+  private final LongAdder value = new LongAdder();
+
+  public void inc() {
+    this.value.increment();
+  }
+
+  public void add(long amount) {
+    this.value.add(amount);
+  }
+
+  public long get() {
+    return this.value.sum();
+  }
+}
@@ -0,0 +1,92 @@
+package model.metrics;
+
+import model.events.GameEvent;
+import model.events.GameEventListener;
+import model.game.GameConstants;
+import model.network.RoomRegistry;
+
+/**
+ * Game activity metrics fed from the event stream. Attach it to the shared publisher every room
+ * forwards to; each event costs a switch and a striped counter increment on the game thread.
+ * Rates such as turns per second are derived from the counters by the scraper.
+ */
+public class GameMetrics implements GameEventListener {
+  private static final double[] LAG_BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5};
+
+  private final Counter gamesStarted;
+  private final Counter gamesFinished;
+  private final Counter turns;
+  private final Counter claims;
+  private final Counter challenges;
+  private final Counter successfulChallenges;
+  private final Counter shots;
+  private final Counter[] eliminationsByChamber;
+  private final Histogram listenerLag;
+
+  /**
+   * Registers the game metrics.
+   * @param metrics registry to register into.
+   * @param rooms rooms counted as active.
+   */
+  public GameMetrics(MetricsRegistry metrics, RoomRegistry rooms) {
+    metrics.gauge("liarsbar_rooms_active", "Rooms currently hosted by this node", rooms::size);
+    this.gamesStarted = metrics.counter("liarsbar_games_started_total", "Games dealt");
+    this.gamesFinished = metrics.counter("liarsbar_games_finished_total", "Games won by a last surviving player");
+    this.turns = metrics.counter("liarsbar_turns_total", "Turns passed to the next player");
+    this.claims = metrics.counter("liarsbar_claims_total", "Claims made");
+    this.challenges = metrics.counter("liarsbar_challenges_total", "Challenges resolved");
+    this.successfulChallenges = metrics.counter("liarsbar_challenges_successful_total",
+        "Challenges that caught a lie");
+    metrics.gauge("liarsbar_challenge_success_ratio", "Fraction of challenges that caught a lie", () -> {
+      long total = this.challenges.get();
+      return total == 0 ? 0 : (double) this.successfulChallenges.get() / total;
+    });
+    this.shots = metrics.counter("liarsbar_shots_total", "Revolver trigger pulls");
+    this.eliminationsByChamber = new Counter[GameConstants.REVOLVER_CHAMBERS + 1];
+    for (int chamber = 0; chamber < this.eliminationsByChamber.length; chamber++) {
+      this.eliminationsByChamber[chamber] = metrics.counter("liarsbar_eliminations_total",
+          "Players eliminated, by revolver chamber index", "chamber", Integer.toString(chamber));
+    }
+    this.listenerLag = metrics.histogram("liarsbar_event_listener_lag_seconds",
+        "Time from an event being created to this listener receiving it, at millisecond resolution",
+        LAG_BUCKETS);
+  }
+
+  @Override
+  public void onGameEvent(GameEvent event) {
+    switch (event.getEventType()) {
+      case GAME_STARTED:
+        this.gamesStarted.inc();
+        break;
+      case GAME_ENDED:
+        this.gamesFinished.inc();
+        break;
+      case TURN_CHANGED:
+        this.turns.inc();
+        break;
+      case CLAIM_MADE:
+        this.claims.inc();
+        break;
+      case CHALLENGE_RESULT:
+        this.challenges.inc();
+        if (event.getValue() == 1) {
+          this.successfulChallenges.inc();
+        }
+        break;
+      case PLAYER_SHOT:
+        // Published once before the trigger is pulled and once if the player survives
+        if (event.getValue() >= 0) {
+          this.shots.inc();
+        }
+        break;
+      case PLAYER_ELIMINATED:
+        this.shots.inc();
+        int chamber = Math.max(0, Math.min(event.getValue(), this.eliminationsByChamber.length - 1));
+        this.eliminationsByChamber[chamber].inc();
+        break;
+      default:
+        break;
+    }
+    this.listenerLag.observe(Math.max(0, System.currentTimeMillis() - event.getTimestamp()) / 1000.0);
+  }
+}
@@ -0,0 +1,64 @@
+package model.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of observed values over fixed bucket bounds. Observations are lock-free; buckets
+ * are kept non-cumulative and summed up when scraped.
+ */
+public class Histogram {
+  private final double[] bounds;
+  private final LongAdder[] buckets;
+  private final DoubleAdder sum = new DoubleAdder();
+
+  /**
+   * Creates a histogram with the given upper bounds; an implicit +Inf bucket follows them.
+   * @param bounds bucket upper bounds, strictly increasing.
+   */
+  public Histogram(double... bounds) {
+    for (int i = 1; i < bounds.length; i++) {
+      if (bounds[i] <= bounds[i - 1]) {
+        throw new IllegalArgumentException("Bucket bounds must be strictly increasing");
+      }
+    }
+    this.bounds = bounds.clone();
+    this.buckets = new LongAdder[bounds.length + 1];
+    for (int i = 0; i < this.buckets.length; i++) {
+      this.buckets[i] = new LongAdder();
+    }
+  }
+
+  public void observe(double value) {
+    int index = Arrays.binarySearch(this.bounds, value);
+    this.buckets[index >= 0 ? index : -index - 1].increment();
+    this.sum.add(value);
+  }
+
+  /**
+   * Getter for the bucket upper bounds, without the +Inf bucket.
+   * @return copy of the bounds.
+   */
+  public double[] getBounds() {
+    return this.bounds.clone();
+  }
+
+  /**
+   * Getter for the cumulative count of observations at or below each bound, then the total.
+   * @return one count per bound plus one for +Inf.
+   */
+  public long[] getCumulativeCounts() {
+    long[] counts = new long[this.buckets.length];
+    long total = 0;
+    for (int i = 0; i < counts.length; i++) {
+      total += this.buckets[i].sum();
+      counts[i] = total;
+    }
+    return counts;
+  }
+
+  public double getSum() {
+    return this.sum.sum();
+  }
+}
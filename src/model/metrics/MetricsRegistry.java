@@ -0,0 +1,160 @@
+package model.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named metrics rendered in the Prometheus text exposition format.
+ *
+ * Metrics are registered up front and then only updated, so recording never takes a lock and a
+ * scrape walks a fixed list whose length depends on the metrics defined, not on how many rooms or
+ * players exist. Gauges are read from their supplier at scrape time.
+ */
+public class MetricsRegistry {
+  private final Map<String, Family> families = new LinkedHashMap<>();
+
+  /**
+   * Registers a counter without labels.
+   * @param name metric name, ending in _total by convention.
+   * @param help description of the metric.
+   * @return the counter to increment.
+   */
+  public Counter counter(String name, String help) {
+    return counter(name, help, null, null);
+  }
+
+  /**
+   * Registers one labelled series of a counter; series of the same name share a family.
+   * @param name metric name.
+   * @param help description of the metric.
+   * @param label label name, or null for none.
+   * @param value label value.
+   * @return the counter to increment.
+   */
+  public synchronized Counter counter(String name, String help, String label, String value) {
+    Counter counter = new Counter();
+    family(name, help, "counter").series.add(new Series(labels(label, value), counter));
+    return counter;
+  }
+
+  /**
+   * Registers a gauge read when scraped. The supplier must be cheap and thread-safe.
+   * @param name metric name.
+   * @param help description of the metric.
+   * @param supplier current value.
+   */
+  public synchronized void gauge(String name, String help, DoubleSupplier supplier) {
+    family(name, help, "gauge").series.add(new Series("", supplier));
+  }
+
+  /**
+   * Registers a histogram.
+   * @param name metric name, ending in the unit by convention.
+   * @param help description of the metric.
+   * @param bounds bucket upper bounds, strictly increasing.
+   * @return the histogram to observe into.
+   */
+  public synchronized Histogram histogram(String name, String help, double... bounds) {
+    Histogram histogram = new Histogram(bounds);
+    family(name, help, "histogram").series.add(new Series("", histogram));
+    return histogram;
+  }
+
+  /**
+   * Renders every metric in the Prometheus text format, version 0.0.4.
+   * @param out destination.
+   */
+  public synchronized void writeTo(StringBuilder out) {
+    for (Family family : this.families.values()) {
+      out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+      out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+      for (Series series : family.series) {
+        if (series.metric instanceof Histogram) {
+          writeHistogram(out, family.name, (Histogram) series.metric);
+        } else {
+          out.append(family.name).append(series.labels).append(' ');
+          appendValue(out, series.metric instanceof Counter
+              ? ((Counter) series.metric).get()
+              : ((DoubleSupplier) series.metric).getAsDouble());
+          out.append('\n');
+        }
+      }
+    }
+  }
+
+  private static void writeHistogram(StringBuilder out, String name, Histogram histogram) {
+    double[] bounds = histogram.getBounds();
+    long[] counts = histogram.getCumulativeCounts();
+    for (int i = 0; i < counts.length; i++) {
+      out.append(name).append("_bucket{le=\"");
+      if (i < bounds.length) {
+        appendValue(out, bounds[i]);
+      } else {
+        out.append("+Inf");
+      }
+      out.append("\"} ").append(counts[i]).append('\n');
+    }
+    out.append(name).append("_sum ");
+    appendValue(out, histogram.getSum());
+    out.append('\n');
+    out.append(name).append("_count ").append(counts[counts.length - 1]).append('\n');
+  }
+
+  private static void appendValue(StringBuilder out, double value) {
+    if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+      out.append((long) value);
+    } else if (Double.isNaN(value)) {
+      out.append("NaN");
+    } else {
+      out.append(value);
+    }
+  }
+
+  private Family family(String name, String help, String type) {
+    Family family = this.families.computeIfAbsent(name, key -> new Family(name, help, type));
+    if (!family.type.equals(type)) {
+      throw new IllegalArgumentException("Metric " + name + " is already a " + family.type);
+    }
+    return family;
+  }
+
+  private static String labels(String label, String value) {
+    if (label == null) {
+      return "";
+    }
+    String escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    return "{" + label + "=\"" + escaped + "\"}";
+  }
+
+  /**
+   * Metrics sharing a name, help text and type.
+   */
+  private static class Family {
+    private final String name;
+    private final String help;
+    private final String type;
+    private final List<Series> series = new ArrayList<>();
+
+    private Family(String name, String help, String type) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+    }
+  }
+
+  /**
+   * One metric of a family with its rendered label set.
+   */
+  private static class Series {
+    private final String labels;
+    private final Object metric;
+
+    private Series(String labels, Object metric) {
+      this.labels = labels;
+      this.metric = metric;
+    }
+  }
+}
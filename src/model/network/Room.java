@@ -2,12 +2,20 @@ package model.network;
 
 import java.util.List;
 
+import model.events.GameEventPublisher;
 import model.exceptions.RoomFullException;
+import model.game.Game;
 
 /**
  * Interface represents a room of a max of n Users playing the Game Liars Bar.
  */
 public interface Room {
+  /**
+   * Getter for the unique id of the Room.
+   * @return the id of the Room.
+   */
+  String getId();
+
   /**
    * Getter for capacity.
    *
@@ -27,4 +35,22 @@ public interface Room {
    * @return a copy of the array list of Members in the Room.
    */
   List<User> getMembers();
-}
\ No newline at end of file
+
+  /**
+   * Getter for the Game being played in the Room.
+   * @return the Game, or null if no game has been started.
+   */
+  Game getGame();
+
+  /**
+   * Setter for the Game being played in the Room.
+   * @param game the Game members of the Room are playing.
+   */
+  void setGame(Game game);
+
+  /**
+   * Getter for the publisher events of the Room and its Game are sent to.
+   * @return the publisher, or null if the Room does not publish events.
+   */
+  GameEventPublisher getEventPublisher();
+}
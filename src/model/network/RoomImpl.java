@@ -3,25 +3,51 @@ package model.network;
 import java.util.ArrayList;
 import java.util.List;
 
+import model.diagnostics.RoomJoinEvent;
 import model.exceptions.RoomFullException;
+import model.events.GameEventImpl;
 import model.events.GameEventPublisher;
 import model.events.GameEventType;
+import model.game.Game;
+import util.IdGenerator;
 import static model.game.GameConstants.*;
 
 public class RoomImpl implements Room {
   private final int CAPACITY = DEFAULT_ROOM_CAPACITY;
+  private final String id;
   private List<User> members;
+  private Game game;
   private GameEventPublisher eventPublisher; // Optional
 
   public RoomImpl() {
+    this.id = IdGenerator.getDefault().nextString();
     this.members = new ArrayList<>(this.CAPACITY);
   }
   
   public RoomImpl(GameEventPublisher eventPublisher) {
+    this.id = IdGenerator.getDefault().nextString();
     this.members = new ArrayList<>(this.CAPACITY);
     this.eventPublisher = eventPublisher;
   }
 
+  /**
+   * Recreates a room with existing members without announcing them again.
+   */
+  public RoomImpl(String id, List<User> members, GameEventPublisher eventPublisher) {
+    if (members.size() > this.CAPACITY) {
+      throw new RoomFullException("Room is full!");
+    }
+    this.id = id;
+    this.members = new ArrayList<>(this.CAPACITY);
+    this.members.addAll(members);
+    this.eventPublisher = eventPublisher;
+  }
+
+  @Override
+  public String getId() {
+    return this.id;
+  }
+
   @Override
   public int getCapacity() {
     return this.CAPACITY;
@@ -33,16 +59,40 @@ public class RoomImpl implements Room {
       throw new RoomFullException("Room is full!");
     }
 
+    RoomJoinEvent event = new RoomJoinEvent();
+    event.begin();
     this.members.add(user);
     
     if (eventPublisher != null) {
-      eventPublisher.publishEvent(GameEventType.ROOM_JOINED, 
-          "User " + user.getName() + " joined the room (" + this.members.size() + "/" + this.CAPACITY + ")");
+      eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.ROOM_JOINED,
+          "User " + user.getName() + " joined the room (" + this.members.size() + "/" + this.CAPACITY + ")")
+          .withPlayer(user.getId())
+          .withValue(this.members.size())
+          .build());
     }
+    event.finish(this.id, user.getId(), this.members.size());
   }
 
   @Override
   public List<User> getMembers() {
     return new ArrayList<User>(this.members);
   }
+
+  @Override
+  public Game getGame() {
+    return this.game;
+  }
+
+  @Override
+  public void setGame(Game game) {
+    this.game = game;
+    if (game != null) {
+      game.setRoomId(this.id);
+    }
+  }
+
+  @Override
+  public GameEventPublisher getEventPublisher() {
+    return this.eventPublisher;
+  }
 }
@@ -0,0 +1,19 @@
+package model.network;
+
+/**
+ * Interface for being told when the state of a room has changed.
+ */
+public interface RoomListener {
+  /**
+   * Called after a change to a room, its members or its game has been applied and made durable.
+   * The room's lock is not held.
+   * @param room the room that changed.
+   */
+  void onRoomChanged(Room room);
+
+  /**
+   * Called after a room has been closed and removed.
+   * @param room the closed room.
+   */
+  void onRoomClosed(Room room);
+}
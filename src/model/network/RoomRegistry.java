@@ -0,0 +1,40 @@
+package model.network;
+
+import java.util.Collection;
+
+/**
+ * Interface represents the set of live Rooms hosted by a server, looked up by id.
+ */
+public interface RoomRegistry {
+  /**
+   * Registers a Room.
+   * @param room the Room to register.
+   */
+  void register(Room room);
+
+  /**
+   * Looks up a Room.
+   * @param roomId id of the Room.
+   * @return the Room, or null if no Room has the id.
+   */
+  Room getRoom(String roomId);
+
+  /**
+   * Removes a Room.
+   * @param roomId id of the Room.
+   * @return the removed Room, or null if no Room has the id.
+   */
+  Room remove(String roomId);
+
+  /**
+   * Getter for every registered Room.
+   * @return a read-only view of the registered Rooms.
+   */
+  Collection<Room> getRooms();
+
+  /**
+   * Getter for the number of registered Rooms.
+   * @return number of Rooms.
+   */
+  int size();
+}
@@ -0,0 +1,35 @@
+package model.network;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RoomRegistryImpl implements RoomRegistry {
+  private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+  @Override
+  public void register(Room room) {
+    this.rooms.put(room.getId(), room);
+  }
+
+  @Override
+  public Room getRoom(String roomId) {
+    return this.rooms.get(roomId);
+  }
+
+  @Override
+  public Room remove(String roomId) {
+    return this.rooms.remove(roomId);
+  }
+
+  @Override
+  public Collection<Room> getRooms() {
+    return Collections.unmodifiableCollection(this.rooms.values());
+  }
+
+  @Override
+  public int size() {
+    return this.rooms.size();
+  }
+}
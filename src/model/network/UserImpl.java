@@ -1,7 +1,7 @@
 package model.network;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 
 import model.game.Card;
@@ -10,12 +10,18 @@ import model.game.ClaimImpl;
 import model.game.Hand;
 import model.game.Rank;
 import model.game.Revolver;
+import model.events.GameEventImpl;
 import model.events.GameEventPublisher;
 import model.events.GameEventType;
+import util.IdGenerator;
 
 public class UserImpl implements User {
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
   private final String username;
   private final String id;
+  private final long numericId;
 
   private boolean isAlive;
 
@@ -25,16 +31,25 @@ public class UserImpl implements User {
 
   public UserImpl(String username) {
     this.username = username;
-    this.id = UUID.randomUUID().toString();
+    this.numericId = IdGenerator.getDefault().nextId();
+    this.id = IdGenerator.toString(this.numericId);
     this.isAlive = true;
   }
 
   public UserImpl(String username, String id) { 
     this.username = username; 
     this.id = id;
+    this.numericId = numericIdOf(id);
     this.isAlive = true;
   }
 
+  public UserImpl(String username, String id, boolean isAlive) {
+    this.username = username;
+    this.id = id;
+    this.numericId = numericIdOf(id);
+    this.isAlive = isAlive;
+  }
+
   @Override
   public String getUserName() {
     return this.username;
@@ -50,13 +65,14 @@ public class UserImpl implements User {
     if (this == obj) return true; // Same reference
     if (obj == null || getClass() != obj.getClass()) return false; // Type check
 
-    User user = (UserImpl) obj;
-    return this.id.equals(user.getId()) && this.username.equals(user.getUserName());
+    UserImpl user = (UserImpl) obj;
+    // Generated ids map one to one onto their numbers; other ids are only hashed, so confirm them
+    return this.numericId == user.numericId && (this.numericId >= 0 || this.id.equals(user.id));
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(this.id, this.username); // Must be consistent with equals
+    return Long.hashCode(this.numericId); // Must be consistent with equals
   }
 
   @Override
@@ -64,6 +80,33 @@ public class UserImpl implements User {
     return this.id;
   }
 
+  @Override
+  public long getNumericId() {
+    return this.numericId;
+  }
+
+  /**
+   * Maps an id string to its number: generated ids decode to their own value, while ids from
+   * elsewhere (such as UUIDs from older data) are hashed to a negative number.
+   */
+  private static long numericIdOf(String id) {
+    long parsed = IdGenerator.tryParse(id);
+    if (parsed >= 0) {
+      return parsed;
+    }
+    long hash;
+    try {
+      UUID uuid = UUID.fromString(id);
+      hash = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+    } catch (IllegalArgumentException e) {
+      hash = FNV_OFFSET;
+      for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+        hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+      }
+    }
+    return hash | Long.MIN_VALUE;
+  }
+
   @Override
   public String toString() { 
     return username + " (" + id + ")";
@@ -88,7 +131,10 @@ public class UserImpl implements User {
   @Override
   public boolean shoot() {
     if (eventPublisher != null) {
-      eventPublisher.publishEvent(GameEventType.PLAYER_SHOT, this.username + " is spinning the revolver and pulling the trigger...");
+      eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.PLAYER_SHOT,
+          this.username + " is spinning the revolver and pulling the trigger...")
+          .withPlayer(this.id)
+          .build());
     }
     
     boolean isBullet = this.revolver.shoot();
@@ -96,9 +142,17 @@ public class UserImpl implements User {
     
     if (eventPublisher != null) {
       if (isBullet) {
-        eventPublisher.publishEvent(GameEventType.PLAYER_ELIMINATED, "BANG! " + this.username + " is eliminated!");
+        eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.PLAYER_ELIMINATED,
+            "BANG! " + this.username + " is eliminated!")
+            .withPlayer(this.id)
+            .withValue(this.revolver.getCurrentIndex())
+            .build());
       } else {
-        eventPublisher.publishEvent(GameEventType.PLAYER_SHOT, "Click! " + this.username + " survives this round");
+        eventPublisher.publishEvent(new GameEventImpl.Builder(GameEventType.PLAYER_SHOT,
+            "Click! " + this.username + " survives this round")
+            .withPlayer(this.id)
+            .withValue(this.revolver.getCurrentIndex())
+            .build());
       }
     }
     
@@ -110,6 +164,11 @@ public class UserImpl implements User {
     return this.isAlive;
   }
 
+  @Override
+  public void setAlive(boolean alive) {
+    this.isAlive = alive;
+  }
+
   @Override
   public Hand getHand() {
     return this.hand;
@@ -0,0 +1,20 @@
+package model.persistence;
+
+import java.nio.ByteBuffer;
+
+import model.network.Room;
+
+/**
+ * Interface for seeing every change to a room in the order it is logged, such as to stream it
+ * to another node.
+ */
+public interface RecordListener {
+  /**
+   * Called while the room's lock is held, right after a change was applied and appended to the
+   * log but before it is durable. Must not block.
+   * @param room the room that changed.
+   * @param type type of the logged record.
+   * @param payload record payload; read-only and only valid during the call.
+   */
+  void onRecord(Room room, WalRecordType type, ByteBuffer payload);
+}
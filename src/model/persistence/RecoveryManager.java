@@ -0,0 +1,482 @@
+package model.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import model.actions.ActionResult;
+import model.actions.GameAction;
+import model.actions.GameCommand;
+import model.events.GameEventPublisher;
+import model.game.Game;
+import model.game.GameImpl;
+import model.game.Player;
+import model.network.Room;
+import model.network.RoomImpl;
+import model.network.RoomListener;
+import model.network.RoomRegistry;
+import model.network.User;
+import model.serialization.GameCodec;
+
+/**
+ * Makes rooms and their games survive a JVM restart.
+ *
+ * Every change goes through this class: it is applied to the room under the room's lock and
+ * appended to the write-ahead log before the lock is released, then the caller waits for the
+ * group-committed fsync. Periodic snapshots bound the log that has to be replayed; recovery loads
+ * the latest snapshot and replays the log tail, so games resume on the exact turn, revolver
+ * chamber and claim they were on.
+ *
+ * Each room gets its own event publisher, which forwards to the shared one, so per-room
+ * listeners can be attached through {@link Room#getEventPublisher()}.
+ */
+public class RecoveryManager implements Closeable {
+  private static final String WAL_DIRECTORY = "wal";
+  private static final String SNAPSHOT_DIRECTORY = "snapshots";
+  private static final int RECORD_BUFFER_BYTES = 1024;
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+  private static final long ANY_LSN = Long.MIN_VALUE;
+
+  private final Path walDirectory;
+  private final SnapshotStore snapshots;
+  private final RoomRegistry registry;
+  private final GameEventPublisher eventPublisher;
+  private final Map<String, Long> roomLsns = new ConcurrentHashMap<>();
+  private final Object snapshotLock = new Object();
+  private final List<RoomListener> listeners = new CopyOnWriteArrayList<>();
+  private final List<RecordListener> recordListeners = new CopyOnWriteArrayList<>();
+
+  private WriteAheadLog wal;
+  private ScheduledExecutorService scheduler;
+
+  public RecoveryManager(Path directory, RoomRegistry registry, GameEventPublisher eventPublisher) throws IOException {
+    this.walDirectory = directory.resolve(WAL_DIRECTORY);
+    this.snapshots = new SnapshotStore(directory.resolve(SNAPSHOT_DIRECTORY));
+    this.registry = registry;
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Rebuilds the registry from the latest snapshot and the log tail, then opens the log for
+   * appending. Must be called once before any other operation.
+   * @return number of rooms recovered.
+   * @throws IOException if the snapshot or log cannot be read.
+   */
+  public int recover() throws IOException {
+    long boundary = this.snapshots.load(this::newRoomPublisher, (room, lsn) -> {
+      this.registry.register(room);
+      this.roomLsns.put(room.getId(), lsn);
+    });
+    long nextLsn = WriteAheadLog.replay(this.walDirectory, boundary, this::replay);
+    this.wal = new WriteAheadLog(this.walDirectory, nextLsn);
+    return this.registry.size();
+  }
+
+  /**
+   * Adds a listener told about every change once it is durable.
+   * @param listener the listener to add.
+   */
+  public void addRoomListener(RoomListener listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Removes a room listener.
+   * @param listener the listener to remove.
+   */
+  public void removeRoomListener(RoomListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Adds a listener told about every logged record, in log order, under the room's lock.
+   * @param listener the listener to add.
+   */
+  public void addRecordListener(RecordListener listener) {
+    this.recordListeners.add(listener);
+  }
+
+  /**
+   * Removes a record listener.
+   * @param listener the listener to remove.
+   */
+  public void removeRecordListener(RecordListener listener) {
+    this.recordListeners.remove(listener);
+  }
+
+  /**
+   * Creates and registers an empty room.
+   * @return the new room.
+   */
+  public Room createRoom() {
+    return createRoom(new RoomImpl(newRoomPublisher()));
+  }
+
+  /**
+   * Creates and registers an empty room with a given id, such as one chosen by another node.
+   * @param roomId id of the new room.
+   * @return the new room.
+   * @throws IllegalArgumentException if a room with the id already exists.
+   */
+  public Room createRoom(String roomId) {
+    if (this.registry.getRoom(roomId) != null) {
+      throw new IllegalArgumentException("Room " + roomId + " already exists");
+    }
+    return createRoom(new RoomImpl(roomId, new ArrayList<>(), newRoomPublisher()));
+  }
+
+  /**
+   * Takes over a room from elsewhere, such as another node, with its members and game.
+   * @param encodedRoom the room as a {@link GameCodec} ROOM message.
+   * @return the imported room.
+   * @throws IllegalArgumentException if a room with the id already exists.
+   */
+  public Room importRoom(ByteBuffer encodedRoom) {
+    ByteBuffer payload = encodedRoom.duplicate();
+    Room room = GameCodec.decodeRoom(encodedRoom, newRoomPublisher());
+    if (this.registry.getRoom(room.getId()) != null) {
+      throw new IllegalArgumentException("Room " + room.getId() + " already exists");
+    }
+    long lsn;
+    synchronized (room) {
+      this.registry.register(room);
+      lsn = log(room, WalRecordType.ROOM_IMPORTED, payload);
+    }
+    await(lsn);
+    notifyChanged(room);
+    return room;
+  }
+
+  private Room createRoom(Room room) {
+    long lsn;
+    synchronized (room) {
+      this.registry.register(room);
+      lsn = log(room, WalRecordType.ROOM_CREATED, EMPTY);
+    }
+    await(lsn);
+    notifyChanged(room);
+    return room;
+  }
+
+  /**
+   * Seats a user in a room.
+   * @param roomId id of the room.
+   * @param user the user joining.
+   */
+  public void addUser(String roomId, User user) {
+    Room room = getRoom(roomId);
+    long lsn;
+    synchronized (room) {
+      checkRegistered(room);
+      user.setEventPublisher(room.getEventPublisher());
+      room.addUser(user);
+      lsn = log(room, WalRecordType.USER_JOINED, encode(buffer -> GameCodec.encodeUser(user, buffer)));
+    }
+    await(lsn);
+    notifyChanged(room);
+  }
+
+  /**
+   * Deals a new game to the members of a room, all of them alive again. The dealt state is logged
+   * in full since dealing is random and cannot be replayed.
+   * @param roomId id of the room.
+   * @return the started game.
+   * @throws IllegalStateException if the room's game is still in progress.
+   */
+  public Game startGame(String roomId) {
+    Room room = getRoom(roomId);
+    GameImpl game;
+    long lsn;
+    synchronized (room) {
+      checkRegistered(room);
+      if (room.getGame() != null && !room.getGame().isGameOver()) {
+        throw new IllegalStateException("Room " + roomId + " has a game in progress");
+      }
+      reviveMembers(room);
+      GameImpl.Builder builder = new GameImpl.Builder().withEventPublisher(room.getEventPublisher());
+      for (User member : room.getMembers()) {
+        builder.addPlayer(member);
+      }
+      game = (GameImpl) builder.build();
+      game.startGame();
+      room.setGame(game);
+      GameImpl started = game;
+      List<User> members = room.getMembers();
+      lsn = log(room, WalRecordType.GAME_STARTED, encode(buffer -> GameCodec.encodeGame(started, members, buffer)));
+    }
+    await(lsn);
+    notifyChanged(room);
+    return game;
+  }
+
+  /**
+   * Applies a command to the game in a room. Only successful commands are logged.
+   * @param roomId id of the room.
+   * @param command the command to apply.
+   * @return the outcome of the command.
+   */
+  public ActionResult execute(String roomId, GameCommand command) {
+    return execute(roomId, command, ANY_LSN);
+  }
+
+  /**
+   * Applies a command to the game in a room only if nothing has been logged for the room since a
+   * given position, so a command decided on from an earlier state is not applied to a later one.
+   * @param roomId id of the room.
+   * @param command the command to apply.
+   * @param expectedLsn position of the last change the caller saw, from {@link #getRoomLsn(String)}.
+   * @return the outcome of the command; a failure if the room has changed since.
+   */
+  public ActionResult execute(String roomId, GameCommand command, long expectedLsn) {
+    Room room = getRoom(roomId);
+    ActionResult result;
+    long lsn;
+    synchronized (room) {
+      checkRegistered(room);
+      if (expectedLsn != ANY_LSN && this.roomLsns.getOrDefault(roomId, -1L) != expectedLsn) {
+        return ActionResult.failure("Room " + roomId + " changed");
+      }
+      result = apply(room, command);
+      if (!result.isSuccess()) {
+        return result;
+      }
+      lsn = log(room, WalRecordType.COMMAND, encode(buffer -> GameCodec.encodeCommand(command, buffer)));
+    }
+    await(lsn);
+    notifyChanged(room);
+    return result;
+  }
+
+  /**
+   * Getter for the position of the last change logged for a room. It moves on every change, so
+   * read under the room's lock it identifies the state seen.
+   * @param roomId id of the room.
+   * @return the log sequence number, or -1 if nothing is logged for the room.
+   */
+  public long getRoomLsn(String roomId) {
+    return this.roomLsns.getOrDefault(roomId, -1L);
+  }
+
+  /**
+   * Removes a room and its game.
+   * @param roomId id of the room.
+   */
+  public void closeRoom(String roomId) {
+    Room room = getRoom(roomId);
+    long lsn;
+    synchronized (room) {
+      checkRegistered(room);
+      lsn = log(room, WalRecordType.ROOM_CLOSED, EMPTY);
+      this.registry.remove(roomId);
+      this.roomLsns.remove(roomId);
+    }
+    await(lsn);
+    for (RoomListener listener : this.listeners) {
+      listener.onRoomClosed(room);
+    }
+  }
+
+  /**
+   * Writes a snapshot of every room and drops the log segments it makes redundant.
+   * @return number of rooms written.
+   * @throws IOException if the snapshot cannot be written.
+   */
+  public int snapshot() throws IOException {
+    synchronized (this.snapshotLock) {
+      long boundary = this.wal.rollSegment();
+      int count = this.snapshots.write(boundary, new ArrayList<>(this.registry.getRooms()),
+          room -> this.roomLsns.getOrDefault(room.getId(), -1L));
+      this.wal.deleteSegmentsBefore(boundary);
+      return count;
+    }
+  }
+
+  /**
+   * Takes snapshots periodically on a background thread.
+   * @param period time between snapshots.
+   * @param unit unit of the period.
+   */
+  public synchronized void scheduleSnapshots(long period, TimeUnit unit) {
+    if (this.scheduler != null) {
+      this.scheduler.shutdownNow();
+    }
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "snapshot-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        snapshot();
+      } catch (IOException e) {
+        System.err.println("Snapshot failed: " + e.getMessage());
+      }
+    }, period, period, unit);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.scheduler != null) {
+      this.scheduler.shutdownNow();
+    }
+    if (this.wal != null) {
+      this.wal.close();
+    }
+  }
+
+  private void replay(WalRecord record) {
+    String roomId = record.getRoomId();
+    if (record.getType() == WalRecordType.ROOM_IMPORTED) {
+      if (record.getLsn() > this.roomLsns.getOrDefault(roomId, -1L)) {
+        this.registry.register(GameCodec.decodeRoom(record.getPayload(), newRoomPublisher()));
+        this.roomLsns.put(roomId, record.getLsn());
+      }
+      return;
+    }
+    if (record.getType() == WalRecordType.ROOM_CREATED) {
+      if (this.registry.getRoom(roomId) == null) {
+        this.registry.register(new RoomImpl(roomId, new ArrayList<>(), newRoomPublisher()));
+        this.roomLsns.put(roomId, record.getLsn());
+      }
+      return;
+    }
+
+    Room room = this.registry.getRoom(roomId);
+    if (room == null || record.getLsn() <= this.roomLsns.getOrDefault(roomId, -1L)) {
+      return; // already captured by the snapshot, or the room was closed
+    }
+
+    if (record.getType() == WalRecordType.ROOM_CLOSED) {
+      this.registry.remove(roomId);
+      this.roomLsns.remove(roomId);
+      return;
+    }
+    applyRecord(room, record.getType(), record.getPayload());
+    this.roomLsns.put(roomId, record.getLsn());
+  }
+
+  /**
+   * Re-applies a logged change to a room, as replay does. Events are published through the
+   * room's own publisher.
+   * @param room the room to change.
+   * @param type USER_JOINED, GAME_STARTED or COMMAND.
+   * @param payload record payload.
+   */
+  public static void applyRecord(Room room, WalRecordType type, ByteBuffer payload) {
+    switch (type) {
+      case USER_JOINED:
+        room.addUser(GameCodec.decodeUser(payload, room.getEventPublisher()));
+        break;
+      case GAME_STARTED:
+        reviveMembers(room);
+        room.setGame(GameCodec.decodeGame(payload, room.getMembers(), room.getEventPublisher()));
+        break;
+      case COMMAND:
+        apply(room, GameCodec.decodeCommand(payload));
+        break;
+      default:
+        throw new IllegalStateException("Cannot apply record type: " + type);
+    }
+  }
+
+  private static ActionResult apply(Room room, GameCommand command) {
+    Game game = room.getGame();
+    if (!(game instanceof GameImpl)) {
+      return ActionResult.failure("No game in progress");
+    }
+
+    List<Player> players = ((GameImpl) game).getPlayers();
+    if (command.getSeat() < 0 || command.getSeat() >= players.size()) {
+      return ActionResult.failure("No player in seat " + command.getSeat());
+    }
+
+    Player player = players.get(command.getSeat());
+    GameAction action = command.toAction();
+    if (!action.isValidFor(game, player)) {
+      return ActionResult.failure(action.getActionName() + " is not allowed for " + player.getName());
+    }
+    return action.execute(game, player);
+  }
+
+  /** Seats the members eliminated in the room's last game again; dealing gives them new cards. */
+  private static void reviveMembers(Room room) {
+    for (User member : room.getMembers()) {
+      member.setAlive(true);
+    }
+  }
+
+  private Room getRoom(String roomId) {
+    Room room = this.registry.getRoom(roomId);
+    if (room == null) {
+      throw new IllegalArgumentException("No room with id " + roomId);
+    }
+    return room;
+  }
+
+  private void checkRegistered(Room room) {
+    // The room may have been closed or moved while the caller waited for its lock
+    if (this.registry.getRoom(room.getId()) != room) {
+      throw new IllegalArgumentException("No room with id " + room.getId());
+    }
+  }
+
+  private long log(Room room, WalRecordType type, ByteBuffer payload) {
+    long lsn = this.wal.append(type, room.getId(), payload);
+    this.roomLsns.put(room.getId(), lsn);
+    for (RecordListener listener : this.recordListeners) {
+      listener.onRecord(room, type, payload.asReadOnlyBuffer());
+    }
+    return lsn;
+  }
+
+  private void await(long lsn) {
+    try {
+      this.wal.sync(lsn).join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw new UncheckedIOException((IOException) cause);
+      }
+      throw e;
+    }
+  }
+
+  private GameEventPublisher newRoomPublisher() {
+    GameEventPublisher publisher = new GameEventPublisher();
+    publisher.addListener(this.eventPublisher::publishEvent);
+    return publisher;
+  }
+
+  private void notifyChanged(Room room) {
+    for (RoomListener listener : this.listeners) {
+      listener.onRoomChanged(room);
+    }
+  }
+
+  private static ByteBuffer encode(Consumer<ByteBuffer> encoder) {
+    int capacity = RECORD_BUFFER_BYTES;
+    while (true) {
+      ByteBuffer buffer = ByteBuffer.allocate(capacity);
+      try {
+        encoder.accept(buffer);
+        buffer.flip();
+        return buffer;
+      } catch (BufferOverflowException e) {
+        capacity *= 2;
+      }
+    }
+  }
+}
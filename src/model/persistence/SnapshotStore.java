@@ -0,0 +1,171 @@
+package model.persistence;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import model.events.GameEventPublisher;
+import model.network.Room;
+import model.serialization.BinaryUtil;
+import model.serialization.GameCodec;
+
+/**
+ * Stores point-in-time images of every room in a single file per snapshot.
+ *
+ * A snapshot records the WAL boundary it was started at plus, for each room, the LSN of the last
+ * record applied to it and the room in {@link GameCodec} format. Rooms are captured one at a
+ * time, so replaying the log from the boundary and skipping records at or below each room's LSN
+ * reproduces the live state exactly. Files are written to a temporary name, fsynced and
+ * atomically renamed, so a crash never leaves a partial snapshot behind.
+ */
+public class SnapshotStore {
+  private static final int MAGIC = 0x4C424152; // "LBAR"
+  private static final int VERSION = 2;
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".bin";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int ROOM_BUFFER_BYTES = 4 * 1024;
+  private static final int MAX_VARLONG_BYTES = 10;
+  private static final byte ENTRY = 1;
+  private static final byte END = 0;
+  private static final int OUTPUT_BUFFER_BYTES = 1 << 20;
+
+  private final Path directory;
+
+  public SnapshotStore(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    this.directory = directory;
+  }
+
+  /**
+   * Writes a snapshot of the given rooms and removes older snapshots once it is durable.
+   * @param boundary WAL LSN at which the snapshot was started.
+   * @param rooms rooms to capture; each is locked while it is encoded.
+   * @param roomLsn supplies the last applied LSN of a room, read under the room's lock.
+   * @return number of rooms written.
+   * @throws IOException if the snapshot cannot be written.
+   */
+  public int write(long boundary, Iterable<Room> rooms, ToLongFunction<Room> roomLsn) throws IOException {
+    Path target = this.directory.resolve(snapshotName(boundary));
+    Path temp = this.directory.resolve(snapshotName(boundary) + TEMP_SUFFIX);
+    int count = 0;
+
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer out = ByteBuffer.allocateDirect(OUTPUT_BUFFER_BYTES);
+      ByteBuffer scratch = ByteBuffer.allocate(ROOM_BUFFER_BYTES);
+      out.putInt(MAGIC).putInt(VERSION).putLong(boundary);
+      GameCodec.writeHeader(out);
+
+      for (Room room : rooms) {
+        long lsn;
+        while (true) {
+          try {
+            scratch.clear();
+            synchronized (room) {
+              lsn = roomLsn.applyAsLong(room);
+              GameCodec.encodeRoom(room, scratch);
+            }
+            break;
+          } catch (BufferOverflowException e) {
+            scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+          }
+        }
+        scratch.flip();
+
+        int entryBytes = 1 + MAX_VARLONG_BYTES + scratch.remaining();
+        if (out.remaining() < entryBytes) {
+          drain(out, channel);
+          if (out.remaining() < entryBytes) {
+            out = ByteBuffer.allocateDirect(entryBytes);
+          }
+        }
+        out.put(ENTRY);
+        BinaryUtil.writeVarLong(out, lsn + 1);
+        out.put(scratch);
+        count++;
+      }
+
+      if (!out.hasRemaining()) {
+        drain(out, channel);
+      }
+      out.put(END);
+      drain(out, channel);
+      channel.force(true);
+    }
+
+    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    for (Path older : listSnapshots()) {
+      if (!older.equals(target)) {
+        Files.deleteIfExists(older);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Loads the latest snapshot.
+   * @param publishers supplies a publisher for each recreated room.
+   * @param consumer receives each room with the last LSN applied to it.
+   * @return the WAL boundary of the snapshot, or 0 if there is no snapshot.
+   * @throws IOException if the snapshot cannot be read or is corrupt.
+   */
+  public long load(Supplier<GameEventPublisher> publishers, ObjLongConsumer<Room> consumer) throws IOException {
+    List<Path> snapshots = listSnapshots();
+    if (snapshots.isEmpty()) {
+      return 0;
+    }
+
+    Path latest = snapshots.get(snapshots.size() - 1);
+    try (FileChannel channel = FileChannel.open(latest, StandardOpenOption.READ)) {
+      MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+        throw new IOException("Unrecognised snapshot " + latest);
+      }
+      long boundary = data.getLong();
+      GameCodec.readHeader(data);
+
+      while (data.get() == ENTRY) {
+        long lsn = BinaryUtil.readVarLong(data) - 1;
+        consumer.accept(GameCodec.decodeRoom(data, publishers.get()), lsn);
+      }
+      return boundary;
+    }
+  }
+
+  private static void drain(ByteBuffer out, FileChannel channel) throws IOException {
+    out.flip();
+    while (out.hasRemaining()) {
+      channel.write(out);
+    }
+    out.clear();
+  }
+
+  private List<Path> listSnapshots() throws IOException {
+    try (Stream<Path> files = Files.list(this.directory)) {
+      return files
+          .filter(path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+          })
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static String snapshotName(long boundary) {
+    return String.format("%s%020d%s", SNAPSHOT_PREFIX, boundary, SNAPSHOT_SUFFIX);
+  }
+}
@@ -0,0 +1,44 @@
+package model.persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single record read back from the write-ahead log
+ */
+public class WalRecord {
+  private final long lsn;
+  private final WalRecordType type;
+  private final String roomId;
+  private final ByteBuffer payload;
+
+  public WalRecord(long lsn, WalRecordType type, String roomId, ByteBuffer payload) {
+    this.lsn = lsn;
+    this.type = type;
+    this.roomId = roomId;
+    this.payload = payload;
+  }
+
+  /**
+   * Gets the log sequence number of the record
+   * @return Position of the record in the log
+   */
+  public long getLsn() {
+    return lsn;
+  }
+
+  public WalRecordType getType() {
+    return type;
+  }
+
+  public String getRoomId() {
+    return roomId;
+  }
+
+  /**
+   * Gets the record payload
+   * @return Read-only buffer positioned at the start of the payload
+   */
+  public ByteBuffer getPayload() {
+    return payload.duplicate();
+  }
+}
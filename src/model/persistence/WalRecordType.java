@@ -0,0 +1,13 @@
+package model.persistence;
+
+/**
+ * Enumeration of the records kept in the write-ahead log
+ */
+public enum WalRecordType {
+  ROOM_CREATED,
+  USER_JOINED,
+  GAME_STARTED,
+  COMMAND,
+  ROOM_CLOSED,
+  ROOM_IMPORTED
+}
@@ -0,0 +1,350 @@
+package model.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import model.serialization.BinaryUtil;
+import model.serialization.GameCodec;
+
+/**
+ * Append-only log of room and game changes, split into segments named after their first LSN.
+ *
+ * Appends are queued and written by a single writer thread that drains everything pending,
+ * writes it with one gathering write and issues one fsync, so concurrent rooms share the cost
+ * of each flush (group commit). Each segment starts with the {@link GameCodec} header, and each
+ * record is framed as [length][crc32][body] so a torn tail left by a crash is detected and
+ * ignored on replay. Record payloads are GameCodec messages.
+ */
+public class WriteAheadLog implements Closeable {
+  private static final String SEGMENT_PREFIX = "wal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final int FRAME_HEADER_BYTES = 8;
+  private static final int SEGMENT_HEADER_BYTES = 16;
+  private static final int MAX_BATCH = 4096;
+  private static final WalRecordType[] RECORD_TYPES = WalRecordType.values();
+
+  private final Path directory;
+  private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+  private final TreeMap<Long, CompletableFuture<Void>> waiters = new TreeMap<>();
+  private final Thread writer;
+
+  private long nextLsn;
+  private volatile long durableLsn;
+  private volatile boolean running = true;
+  private volatile IOException failure;
+  private FileChannel segment;
+
+  /**
+   * Opens a new segment starting at the given LSN and starts the writer thread.
+   * @param directory directory holding the segments.
+   * @param firstLsn LSN assigned to the first appended record.
+   * @throws IOException if the segment cannot be created.
+   */
+  public WriteAheadLog(Path directory, long firstLsn) throws IOException {
+    Files.createDirectories(directory);
+    this.directory = directory;
+    this.nextLsn = firstLsn;
+    this.durableLsn = firstLsn - 1;
+    this.segment = openSegment(firstLsn);
+    this.writer = new Thread(this::runWriter, "wal-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Queues a record for writing. Records are written in LSN order.
+   * @param type record type.
+   * @param roomId room the record belongs to.
+   * @param payload record payload, read from its position to its limit.
+   * @return LSN assigned to the record; pass it to {@link #sync} to wait for durability.
+   */
+  public synchronized long append(WalRecordType type, String roomId, ByteBuffer payload) {
+    if (!running) {
+      throw new IllegalStateException("Write-ahead log is closed");
+    }
+    long lsn = this.nextLsn++;
+    this.queue.add(new PendingRecord(lsn, frame(lsn, type, roomId, payload)));
+    return lsn;
+  }
+
+  /**
+   * Returns a future completed once every record up to the LSN is on disk.
+   * @param lsn LSN returned by {@link #append}.
+   * @return future completed on durability, or exceptionally if writing failed.
+   */
+  public CompletableFuture<Void> sync(long lsn) {
+    if (lsn <= this.durableLsn) {
+      return CompletableFuture.completedFuture(null);
+    }
+    synchronized (this.waiters) {
+      if (this.failure != null) {
+        return CompletableFuture.failedFuture(this.failure);
+      }
+      if (lsn <= this.durableLsn) {
+        return CompletableFuture.completedFuture(null);
+      }
+      return this.waiters.computeIfAbsent(lsn, key -> new CompletableFuture<>());
+    }
+  }
+
+  /**
+   * Starts a new segment. Every record with an LSN below the returned boundary is written to an
+   * older segment; the new segment is created when the writer reaches the roll.
+   * @return the first LSN of the new segment.
+   */
+  public synchronized long rollSegment() {
+    long boundary = this.nextLsn;
+    this.queue.add(new PendingRecord(boundary, null));
+    return boundary;
+  }
+
+  /**
+   * Deletes segments that only hold records below the given LSN.
+   * @param lsn first LSN that must be kept.
+   * @throws IOException if a segment cannot be deleted.
+   */
+  public void deleteSegmentsBefore(long lsn) throws IOException {
+    List<Path> segments = listSegments(this.directory);
+    for (int i = 0; i + 1 < segments.size(); i++) {
+      if (startLsnOf(segments.get(i + 1)) <= lsn) {
+        Files.deleteIfExists(segments.get(i));
+      }
+    }
+  }
+
+  /**
+   * Reads every intact record at or after an LSN, in order.
+   * @param directory directory holding the segments.
+   * @param fromLsn first LSN to deliver.
+   * @param consumer receives each record.
+   * @return the LSN following the last intact record, or fromLsn if there is none.
+   * @throws IOException if a segment cannot be read.
+   */
+  public static long replay(Path directory, long fromLsn, Consumer<WalRecord> consumer) throws IOException {
+    long next = fromLsn;
+    if (!Files.isDirectory(directory)) {
+      return next;
+    }
+
+    CRC32 crc = new CRC32();
+    for (Path path : listSegments(directory)) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (data.remaining() < SEGMENT_HEADER_BYTES) {
+          continue; // created but never written
+        }
+        try {
+          GameCodec.readHeader(data);
+        } catch (IllegalStateException e) {
+          throw new IOException("Unreadable log segment " + path + ": " + e.getMessage());
+        }
+        data.position(SEGMENT_HEADER_BYTES);
+        while (data.remaining() >= FRAME_HEADER_BYTES) {
+          int length = data.getInt();
+          int checksum = data.getInt();
+          if (length <= 0 || length > data.remaining()) {
+            break; // torn tail
+          }
+
+          ByteBuffer body = data.slice();
+          body.limit(length);
+          crc.reset();
+          crc.update(body.duplicate());
+          if ((int) crc.getValue() != checksum) {
+            break; // torn tail
+          }
+          data.position(data.position() + length);
+
+          long lsn = body.getLong();
+          WalRecordType type = RECORD_TYPES[body.get()];
+          String roomId = BinaryUtil.readString(body);
+          if (lsn >= fromLsn) {
+            consumer.accept(new WalRecord(lsn, type, roomId, body.slice().asReadOnlyBuffer()));
+          }
+          next = Math.max(next, lsn + 1);
+        }
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Flushes pending records, stops the writer and closes the current segment.
+   * @throws IOException if the final flush fails.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      this.running = false;
+    }
+    try {
+      this.writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.segment.close();
+    if (this.failure != null) {
+      throw this.failure;
+    }
+  }
+
+  private void runWriter() {
+    List<PendingRecord> batch = new ArrayList<>();
+    List<ByteBuffer> buffers = new ArrayList<>();
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, MAX_BATCH - 1);
+        writeBatch(batch, buffers);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (IOException e) {
+        fail(e);
+        return;
+      } finally {
+        batch.clear();
+        buffers.clear();
+      }
+    }
+  }
+
+  private void writeBatch(List<PendingRecord> batch, List<ByteBuffer> buffers) throws IOException {
+    long lastLsn = this.durableLsn;
+    for (PendingRecord record : batch) {
+      if (record.frame == null) {
+        flush(buffers);
+        this.segment.close();
+        this.segment = openSegment(record.lsn);
+        continue;
+      }
+      buffers.add(record.frame);
+      lastLsn = record.lsn;
+    }
+    flush(buffers);
+    markDurable(lastLsn);
+  }
+
+  private void flush(List<ByteBuffer> buffers) throws IOException {
+    if (buffers.isEmpty()) {
+      return;
+    }
+    ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+    int last = array.length - 1;
+    while (array[last].hasRemaining()) {
+      this.segment.write(array);
+    }
+    this.segment.force(false);
+    buffers.clear();
+  }
+
+  private void markDurable(long lsn) {
+    synchronized (this.waiters) {
+      this.durableLsn = lsn;
+      Map<Long, CompletableFuture<Void>> ready = this.waiters.headMap(lsn, true);
+      for (CompletableFuture<Void> waiter : ready.values()) {
+        waiter.complete(null);
+      }
+      ready.clear();
+    }
+  }
+
+  private void fail(IOException e) {
+    synchronized (this.waiters) {
+      this.failure = e;
+      for (CompletableFuture<Void> waiter : this.waiters.values()) {
+        waiter.completeExceptionally(e);
+      }
+      this.waiters.clear();
+    }
+  }
+
+  private FileChannel openSegment(long startLsn) throws IOException {
+    // A segment with the same start can only hold a torn first record, so it is safe to replace
+    FileChannel channel = FileChannel.open(this.directory.resolve(segmentName(startLsn)),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+    GameCodec.writeHeader(header);
+    header.position(SEGMENT_HEADER_BYTES).flip();
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+    return channel;
+  }
+
+  private static ByteBuffer frame(long lsn, WalRecordType type, String roomId, ByteBuffer payload) {
+    byte[] roomBytes = roomId.getBytes(StandardCharsets.UTF_8);
+    int capacity = FRAME_HEADER_BYTES + Long.BYTES + 1 + 5 + roomBytes.length + payload.remaining();
+    ByteBuffer frame = ByteBuffer.allocate(capacity);
+    frame.position(FRAME_HEADER_BYTES);
+    frame.putLong(lsn);
+    frame.put((byte) type.ordinal());
+    BinaryUtil.writeString(frame, roomId);
+    frame.put(payload.duplicate());
+    int bodyLength = frame.position() - FRAME_HEADER_BYTES;
+    frame.putInt(0, bodyLength);
+
+    CRC32 crc = new CRC32();
+    crc.update(frame.array(), FRAME_HEADER_BYTES, bodyLength);
+    frame.putInt(Integer.BYTES, (int) crc.getValue());
+    frame.flip();
+    return frame;
+  }
+
+  private static List<Path> listSegments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+          })
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static String segmentName(long startLsn) {
+    return String.format("%s%020d%s", SEGMENT_PREFIX, startLsn, SEGMENT_SUFFIX);
+  }
+
+  private static long startLsnOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  /**
+   * A framed record waiting for the writer, or a segment roll marker when frame is null.
+   */
+  private static class PendingRecord {
+    private final long lsn;
+    private final ByteBuffer frame;
+
+    private PendingRecord(long lsn, ByteBuffer frame) {
+      this.lsn = lsn;
+      this.frame = frame;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package model.presence;
+
+/**
+ * A user's move from one presence status to another.
+ */
+public class PresenceChange {
+  private final String userId;
+  private final PresenceStatus previous;
+  private final PresenceStatus current;
+  private final long timestamp;
+
+  public PresenceChange(String userId, PresenceStatus previous, PresenceStatus current, long timestamp) {
+    this.userId = userId;
+    this.previous = previous;
+    this.current = current;
+    this.timestamp = timestamp;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public PresenceStatus getPrevious() {
+    return previous;
+  }
+
+  public PresenceStatus getCurrent() {
+    return current;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+}
@@ -0,0 +1,14 @@
+package model.presence;
+
+import java.util.List;
+
+/**
+ * Interface for receiving presence changes in batches.
+ */
+public interface PresenceListener {
+  /**
+   * Called with the changes collected since the previous batch, oldest first per user.
+   * @param changes the changes; never empty.
+   */
+  void onPresenceChanged(List<PresenceChange> changes);
+}
@@ -0,0 +1,54 @@
+package model.presence;
+
+import java.io.Closeable;
+
+import model.network.RoomListener;
+
+/**
+ * Tracks which users are online, idle, queueing or seated, from client heartbeats and room
+ * changes. Register it as a {@link RoomListener} to have seating tracked automatically.
+ */
+public interface PresenceService extends RoomListener, Closeable {
+  /**
+   * Records a heartbeat. A user who stops sending them goes offline after the timeout.
+   * @param userId id of the user.
+   * @param active whether the user did something since the last heartbeat; a user who is only
+   *     connected goes idle after the idle timeout.
+   */
+  void heartbeat(String userId, boolean active);
+
+  /**
+   * Puts an online user in or takes them out of the matchmaking queue.
+   * @param userId id of the user.
+   * @param queued true to enter the queue.
+   */
+  void setQueued(String userId, boolean queued);
+
+  /**
+   * Marks a user offline straight away, such as when they log out.
+   * @param userId id of the user.
+   */
+  void disconnect(String userId);
+
+  PresenceStatus getStatus(String userId);
+
+  /**
+   * Getter for the room a seated user is in.
+   * @param userId id of the user.
+   * @return the room id, or null if the user is not seated.
+   */
+  String getRoomId(String userId);
+
+  /**
+   * Getter for the number of users that are not offline.
+   * @return users present.
+   */
+  int getPresentCount();
+
+  void addPresenceListener(PresenceListener listener);
+
+  void removePresenceListener(PresenceListener listener);
+
+  @Override
+  void close();
+}
@@ -0,0 +1,326 @@
+package model.presence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.network.Room;
+import model.network.User;
+import util.TimingWheel;
+
+/**
+ * Presence service built for heartbeat rates in the millions per second.
+ *
+ * Users are spread over striped concurrent maps by id. A heartbeat from a user whose status does
+ * not change is two plain timestamp writes: no lock, no allocation and no timer work. Expiry is
+ * lazy instead: each present user has a single timeout on a {@link TimingWheel}, set for the
+ * earliest moment they could go idle or offline. When it fires it looks at the timestamps and
+ * either applies the change or re-arms for the new earliest moment, so a timer is touched at
+ * most once per idle or offline period rather than once per heartbeat. Users who go offline
+ * are dropped unless they hold a seat, so memory stays proportional to users present.
+ *
+ * Status changes are collected per stripe and handed to listeners in one batch per flush
+ * interval. A heartbeat that lands in the same instant a user times out may be missed; the
+ * next one brings the user back.
+ */
+public class PresenceServiceImpl implements PresenceService {
+  private static final long DEFAULT_IDLE_MILLIS = 60_000;
+  private static final long DEFAULT_OFFLINE_MILLIS = 15_000;
+  private static final long TICK_MILLIS = 50;
+  private static final long FLUSH_MILLIS = 200;
+
+  private final long idleMillis;
+  private final long offlineMillis;
+  private final Stripe[] stripes;
+  private final int stripeMask;
+  private final TimingWheel wheel;
+  private final LongAdder present = new LongAdder();
+  private final List<PresenceListener> listeners = new CopyOnWriteArrayList<>();
+  private volatile boolean running = true;
+
+  public PresenceServiceImpl() {
+    this(DEFAULT_IDLE_MILLIS, DEFAULT_OFFLINE_MILLIS);
+  }
+
+  /**
+   * @param idleMillis time without activity before an online user is idle.
+   * @param offlineMillis time without a heartbeat before a user is offline.
+   */
+  public PresenceServiceImpl(long idleMillis, long offlineMillis) {
+    this.idleMillis = idleMillis;
+    this.offlineMillis = offlineMillis;
+    int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1) << 1;
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      this.stripes[i] = new Stripe();
+    }
+    this.stripeMask = stripeCount - 1;
+    this.wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS);
+    this.wheel.schedule(this::flush, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    this.wheel.start();
+  }
+
+  @Override
+  public void heartbeat(String userId, boolean active) {
+    long now = System.currentTimeMillis();
+    Stripe stripe = stripeOf(userId);
+    while (true) {
+      Presence presence = stripe.users.get(userId);
+      if (presence == null) {
+        presence = stripe.users.computeIfAbsent(userId, Presence::new);
+      }
+      presence.lastHeartbeat = now;
+      if (active) {
+        presence.lastActivity = now;
+      }
+      PresenceStatus status = presence.status;
+      if (status != PresenceStatus.OFFLINE && (status != PresenceStatus.IDLE || !active)) {
+        return;
+      }
+
+      synchronized (presence) {
+        if (presence.removed) {
+          continue; // expired and dropped while we looked; start over with a fresh entry
+        }
+        if (presence.status == PresenceStatus.OFFLINE) {
+          presence.lastActivity = now;
+          change(stripe, presence, presence.roomId != null ? PresenceStatus.SEATED : PresenceStatus.ONLINE, now);
+          arm(stripe, presence, now);
+        } else if (presence.status == PresenceStatus.IDLE) {
+          change(stripe, presence, PresenceStatus.ONLINE, now);
+        }
+      }
+      return;
+    }
+  }
+
+  @Override
+  public void setQueued(String userId, boolean queued) {
+    Stripe stripe = stripeOf(userId);
+    Presence presence = stripe.users.get(userId);
+    if (presence == null) {
+      throw new IllegalArgumentException("User " + userId + " is not online");
+    }
+    synchronized (presence) {
+      PresenceStatus status = presence.status;
+      if (queued && (status == PresenceStatus.ONLINE || status == PresenceStatus.IDLE)) {
+        change(stripe, presence, PresenceStatus.IN_QUEUE, System.currentTimeMillis());
+      } else if (!queued && status == PresenceStatus.IN_QUEUE) {
+        change(stripe, presence, PresenceStatus.ONLINE, System.currentTimeMillis());
+      } else if (queued && status != PresenceStatus.IN_QUEUE) {
+        throw new IllegalStateException("User " + userId + " cannot queue while " + status);
+      }
+    }
+  }
+
+  @Override
+  public void disconnect(String userId) {
+    Stripe stripe = stripeOf(userId);
+    Presence presence = stripe.users.get(userId);
+    if (presence != null) {
+      synchronized (presence) {
+        goOffline(stripe, presence, System.currentTimeMillis());
+      }
+    }
+  }
+
+  @Override
+  public PresenceStatus getStatus(String userId) {
+    Presence presence = stripeOf(userId).users.get(userId);
+    return presence == null ? PresenceStatus.OFFLINE : presence.status;
+  }
+
+  @Override
+  public String getRoomId(String userId) {
+    Presence presence = stripeOf(userId).users.get(userId);
+    if (presence == null) {
+      return null;
+    }
+    synchronized (presence) {
+      return presence.roomId;
+    }
+  }
+
+  @Override
+  public int getPresentCount() {
+    return this.present.intValue();
+  }
+
+  @Override
+  public void addPresenceListener(PresenceListener listener) {
+    this.listeners.add(listener);
+  }
+
+  @Override
+  public void removePresenceListener(PresenceListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  @Override
+  public void onRoomChanged(Room room) {
+    long now = System.currentTimeMillis();
+    for (User member : room.getMembers()) {
+      Stripe stripe = stripeOf(member.getId());
+      Presence presence = stripe.users.get(member.getId());
+      if (presence == null) {
+        continue; // never connected; nothing to show
+      }
+      synchronized (presence) {
+        presence.roomId = room.getId();
+        if (presence.status != PresenceStatus.OFFLINE) {
+          change(stripe, presence, PresenceStatus.SEATED, now);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void onRoomClosed(Room room) {
+    long now = System.currentTimeMillis();
+    for (User member : room.getMembers()) {
+      Stripe stripe = stripeOf(member.getId());
+      Presence presence = stripe.users.get(member.getId());
+      if (presence == null) {
+        continue;
+      }
+      synchronized (presence) {
+        if (!room.getId().equals(presence.roomId)) {
+          continue;
+        }
+        presence.roomId = null;
+        if (presence.status == PresenceStatus.SEATED) {
+          presence.lastActivity = now;
+          change(stripe, presence, PresenceStatus.ONLINE, now);
+        } else if (presence.status == PresenceStatus.OFFLINE) {
+          drop(stripe, presence);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    this.running = false;
+    this.wheel.close();
+    flush();
+  }
+
+  /** Runs on the wheel thread at the earliest moment a user could change status. */
+  private void check(Stripe stripe, Presence presence) {
+    long now = System.currentTimeMillis();
+    synchronized (presence) {
+      presence.timeout = null;
+      if (presence.removed || presence.status == PresenceStatus.OFFLINE) {
+        return;
+      }
+      if (now - presence.lastHeartbeat >= this.offlineMillis) {
+        goOffline(stripe, presence, now);
+        return;
+      }
+      if (presence.status == PresenceStatus.ONLINE && now - presence.lastActivity >= this.idleMillis) {
+        change(stripe, presence, PresenceStatus.IDLE, now);
+      }
+      arm(stripe, presence, now);
+    }
+  }
+
+  private void arm(Stripe stripe, Presence presence, long now) {
+    long next = presence.lastHeartbeat + this.offlineMillis;
+    if (presence.status == PresenceStatus.ONLINE) {
+      next = Math.min(next, presence.lastActivity + this.idleMillis);
+    }
+    if (presence.timeout != null) {
+      presence.timeout.cancel();
+    }
+    presence.timeout = this.wheel.schedule(() -> check(stripe, presence), Math.max(1, next - now), TimeUnit.MILLISECONDS);
+  }
+
+  private void goOffline(Stripe stripe, Presence presence, long now) {
+    if (presence.timeout != null) {
+      presence.timeout.cancel();
+      presence.timeout = null;
+    }
+    change(stripe, presence, PresenceStatus.OFFLINE, now);
+    if (presence.roomId == null) {
+      drop(stripe, presence);
+    }
+  }
+
+  private void drop(Stripe stripe, Presence presence) {
+    presence.removed = true;
+    stripe.users.remove(presence.userId, presence);
+  }
+
+  /** Applies a status change under the presence's lock and queues it for the next batch. */
+  private void change(Stripe stripe, Presence presence, PresenceStatus next, long now) {
+    PresenceStatus previous = presence.status;
+    if (previous == next) {
+      return;
+    }
+    presence.status = next;
+    if (previous == PresenceStatus.OFFLINE) {
+      this.present.increment();
+    } else if (next == PresenceStatus.OFFLINE) {
+      this.present.decrement();
+    }
+    synchronized (stripe) {
+      stripe.pending.add(new PresenceChange(presence.userId, previous, next, now));
+    }
+  }
+
+  private void flush() {
+    List<PresenceChange> batch = new ArrayList<>();
+    for (Stripe stripe : this.stripes) {
+      synchronized (stripe) {
+        batch.addAll(stripe.pending);
+        stripe.pending.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      for (PresenceListener listener : this.listeners) {
+        try {
+          listener.onPresenceChanged(batch);
+        } catch (RuntimeException e) {
+          System.err.println("Error in presence listener: " + e.getMessage());
+        }
+      }
+    }
+    if (this.running) {
+      this.wheel.schedule(this::flush, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private Stripe stripeOf(String userId) {
+    int hash = userId.hashCode();
+    return this.stripes[(hash ^ (hash >>> 16)) & this.stripeMask];
+  }
+
+  /**
+   * Users of one stripe and the changes they made since the last flush.
+   */
+  private static class Stripe {
+    private final ConcurrentHashMap<String, Presence> users = new ConcurrentHashMap<>();
+    private final List<PresenceChange> pending = new ArrayList<>();
+  }
+
+  /**
+   * Presence of one user. Timestamps are written without a lock by heartbeats; everything
+   * else is guarded by the object's own lock.
+   */
+  private static class Presence {
+    private final String userId;
+    private volatile long lastHeartbeat;
+    private volatile long lastActivity;
+    private volatile PresenceStatus status = PresenceStatus.OFFLINE;
+    private String roomId;
+    private TimingWheel.Timeout timeout;
+    private boolean removed;
+
+    private Presence(String userId) {
+      this.userId = userId;
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package model.presence;
+
+/**
+ * Enumeration of where a user is, as far as the lobby can tell.
+ */
+public enum PresenceStatus {
+  OFFLINE,
+  ONLINE,
+  IDLE,
+  IN_QUEUE,
+  SEATED
+}
@@ -0,0 +1,163 @@
+package model.rating;
+
+import java.util.Arrays;
+
+/**
+ * Players ordered by rating, for rank and top-K queries in O(log n).
+ *
+ * Ratings are bucketed to hundredths of a point and clamped to [0, {@value #MAX_RATING}). A
+ * Fenwick tree over the buckets, highest rating first, counts the players rated above any
+ * bucket, and each bucket chains its players through next/prev arrays indexed by slot, so a
+ * player costs twelve bytes here whatever the size of the board. Not thread safe.
+ */
+class Leaderboard {
+  static final int SCALE = 100;
+  static final int MAX_RATING = 5000;
+  private static final int BUCKETS = MAX_RATING * SCALE;
+  private static final int NONE = -1;
+  private static final int INITIAL_SLOTS = 1024;
+
+  private final int[] tree = new int[BUCKETS + 1];
+  private final int[] heads = new int[BUCKETS];
+  private int[] bucketOf = new int[INITIAL_SLOTS];
+  private int[] next = new int[INITIAL_SLOTS];
+  private int[] prev = new int[INITIAL_SLOTS];
+  private int size;
+
+  Leaderboard() {
+    Arrays.fill(this.heads, NONE);
+    Arrays.fill(this.bucketOf, NONE);
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Places a player at a rating, adding them if new.
+   * @param slot dense index of the player.
+   * @param rating their current rating.
+   */
+  void update(int slot, double rating) {
+    if (slot >= this.bucketOf.length) {
+      grow(slot);
+    }
+    int bucket = bucketOf(rating);
+    int old = this.bucketOf[slot];
+    if (old == bucket) {
+      return;
+    }
+    if (old == NONE) {
+      this.size++;
+    } else {
+      unlink(slot, old);
+      add(old, -1);
+    }
+    link(slot, bucket);
+    add(bucket, 1);
+  }
+
+  /**
+   * Getter for a player's place.
+   * @param slot dense index of the player.
+   * @return 1 plus the number of players in higher buckets, or 0 if the player is not placed.
+   */
+  int rank(int slot) {
+    if (slot >= this.bucketOf.length || this.bucketOf[slot] == NONE) {
+      return 0;
+    }
+    return 1 + countAbove(this.bucketOf[slot]);
+  }
+
+  /**
+   * Collects the players of the highest buckets, bucket by bucket, until at least the given
+   * number are collected or the board runs out. Players within a bucket come in no set order.
+   * @param count number of players wanted.
+   * @return slots of the players, best buckets first.
+   */
+  int[] top(int count) {
+    int wanted = Math.min(count, this.size);
+    int[] slots = new int[Math.max(wanted, 0)];
+    int taken = 0;
+    while (taken < wanted) {
+      int bucket = findPosition(taken + 1) - 1;
+      for (int slot = this.heads[bucket]; slot != NONE; slot = this.next[slot]) {
+        if (taken == slots.length) {
+          slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        slots[taken++] = slot;
+      }
+    }
+    return Arrays.copyOf(slots, taken);
+  }
+
+  private static int bucketOf(double rating) {
+    int scaled = (int) Math.round(rating * SCALE);
+    int clamped = Math.max(0, Math.min(BUCKETS - 1, scaled));
+    return BUCKETS - 1 - clamped; // highest rating first
+  }
+
+  private void link(int slot, int bucket) {
+    int head = this.heads[bucket];
+    this.next[slot] = head;
+    this.prev[slot] = NONE;
+    if (head != NONE) {
+      this.prev[head] = slot;
+    }
+    this.heads[bucket] = slot;
+    this.bucketOf[slot] = bucket;
+  }
+
+  private void unlink(int slot, int bucket) {
+    int before = this.prev[slot];
+    int after = this.next[slot];
+    if (before == NONE) {
+      this.heads[bucket] = after;
+    } else {
+      this.next[before] = after;
+    }
+    if (after != NONE) {
+      this.prev[after] = before;
+    }
+  }
+
+  private void add(int bucket, int delta) {
+    for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+      this.tree[i] += delta;
+    }
+  }
+
+  private int countAbove(int bucket) {
+    int count = 0;
+    for (int i = bucket; i > 0; i -= i & -i) {
+      count += this.tree[i];
+    }
+    return count;
+  }
+
+  /**
+   * Finds the bucket holding the player at a position by descending the tree.
+   * @return the 1-based index of the bucket.
+   */
+  private int findPosition(int position) {
+    int index = 0;
+    int remaining = position;
+    for (int step = Integer.highestOneBit(BUCKETS); step > 0; step >>= 1) {
+      int probe = index + step;
+      if (probe <= BUCKETS && this.tree[probe] < remaining) {
+        index = probe;
+        remaining -= this.tree[probe];
+      }
+    }
+    return index + 1;
+  }
+
+  private void grow(int slot) {
+    int capacity = Math.max(slot + 1, this.bucketOf.length * 2);
+    int from = this.bucketOf.length;
+    this.bucketOf = Arrays.copyOf(this.bucketOf, capacity);
+    Arrays.fill(this.bucketOf, from, capacity, NONE);
+    this.next = Arrays.copyOf(this.next, capacity);
+    this.prev = Arrays.copyOf(this.prev, capacity);
+  }
+}
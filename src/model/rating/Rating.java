@@ -0,0 +1,48 @@
+package model.rating;
+
+/**
+ * A player's Glicko rating at one point in time.
+ */
+public final class Rating {
+  private final long playerId;
+  private final double rating;
+  private final double deviation;
+  private final int games;
+
+  public Rating(long playerId, double rating, double deviation, int games) {
+    this.playerId = playerId;
+    this.rating = rating;
+    this.deviation = deviation;
+    this.games = games;
+  }
+
+  /**
+   * Getter for the player's numeric id.
+   * @return the id, as from {@link model.game.Player#getNumericId()}.
+   */
+  public long getPlayerId() {
+    return this.playerId;
+  }
+
+  public double getRating() {
+    return this.rating;
+  }
+
+  /**
+   * Getter for the rating deviation; the true strength is within about two deviations of the
+   * rating with 95% confidence.
+   * @return the deviation in rating points.
+   */
+  public double getDeviation() {
+    return this.deviation;
+  }
+
+  public int getGames() {
+    return this.games;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d: %.1f ± %.1f after %d games", this.playerId, this.rating, this.deviation, this.games);
+  }
+}
@@ -0,0 +1,56 @@
+package model.rating;
+
+import java.util.List;
+
+import model.network.Room;
+
+/**
+ * Rates players from the finishing order of their games and ranks them on a leaderboard.
+ * Results of games in different rooms may be recorded concurrently.
+ */
+public interface RatingService {
+  /**
+   * Starts rating the games of a room, if not already rated. Each game is recorded when it ends,
+   * with the winner first and the other players in reverse order of elimination.
+   * @param room the room to rate.
+   */
+  void attach(Room room);
+
+  /**
+   * Records the result of one game. Every player is treated as having beaten everyone listed
+   * after them and lost to everyone listed before them. Unrated players start at the default
+   * rating.
+   * @param finishingOrder numeric ids of the players, winner first.
+   * @throws IllegalArgumentException if there are fewer than two or more than the maximum number
+   *     of players, or a player is listed twice.
+   */
+  void recordResult(long... finishingOrder);
+
+  /**
+   * Getter for a player's rating.
+   * @param playerId numeric id of the player.
+   * @return the rating, or null if the player has not played a rated game.
+   */
+  Rating getRating(long playerId);
+
+  /**
+   * Getter for a player's place on the leaderboard. Players whose ratings round to the same
+   * hundredth of a point share a place.
+   * @param playerId numeric id of the player.
+   * @return 1 plus the number of players rated higher, or 0 if the player is unrated.
+   */
+  int getRank(long playerId);
+
+  /**
+   * Getter for the best rated players.
+   * @param count number of players wanted.
+   * @return up to that many ratings, highest first.
+   */
+  List<Rating> getTop(int count);
+
+  /**
+   * Getter for the number of rated players.
+   * @return players with at least one rated game.
+   */
+  int getPlayerCount();
+}
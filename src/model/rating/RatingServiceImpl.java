@@ -0,0 +1,422 @@
+package model.rating;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import model.events.GameEvent;
+import model.events.GameEventListener;
+import model.network.Room;
+import model.network.User;
+
+import static model.game.GameConstants.MAX_PLAYERS;
+import static model.game.GameConstants.MIN_PLAYERS;
+
+/**
+ * Glicko rating service with striped player state and a batched leaderboard.
+ *
+ * A game is one Glicko rating period: each player is scored against every other player in it,
+ * winning against those who finished behind. Players live in dense slots of chunked primitive
+ * arrays, and each is guarded by one of {@value #STRIPES} stripe locks chosen by id, so games in
+ * different rooms only contend when their players share a stripe; a game takes the stripes of
+ * its players in index order. Changed slots are queued on their stripe and moved on the
+ * {@link Leaderboard} in batches, by whichever recording thread finds the board free once enough
+ * are queued, and by every query before it reads.
+ */
+public class RatingServiceImpl implements RatingService {
+  private static final double INITIAL_RATING = 1500;
+  private static final double INITIAL_DEVIATION = 350;
+  private static final double MIN_DEVIATION = 30;
+  private static final double Q = Math.log(10) / 400;
+  private static final int STRIPES = 64;
+  private static final int CHUNK_BITS = 16;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int MAX_CHUNKS = 1 << 14;
+  private static final int BATCH = 1024;
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final AtomicInteger slots = new AtomicInteger();
+  private final long[][] ids = new long[MAX_CHUNKS][];
+  private final double[][] ratings = new double[MAX_CHUNKS][];
+  private final double[][] deviations = new double[MAX_CHUNKS][];
+  private final int[][] games = new int[MAX_CHUNKS][];
+  private final ReentrantLock boardLock = new ReentrantLock();
+  private final Leaderboard board = new Leaderboard();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Map<String, GameRecorder> recorders = new ConcurrentHashMap<>();
+
+  public RatingServiceImpl() {
+    for (int i = 0; i < STRIPES; i++) {
+      this.stripes[i] = new Stripe();
+    }
+  }
+
+  @Override
+  public void attach(Room room) {
+    if (room.getEventPublisher() == null) {
+      throw new IllegalStateException("Room " + room.getId() + " does not publish events");
+    }
+    this.recorders.computeIfAbsent(room.getId(), id -> {
+      GameRecorder recorder = new GameRecorder(room);
+      room.getEventPublisher().addListener(recorder);
+      return recorder;
+    });
+  }
+
+  @Override
+  public void recordResult(long... finishingOrder) {
+    int count = finishingOrder.length;
+    if (count < MIN_PLAYERS || count > MAX_PLAYERS) {
+      throw new IllegalArgumentException("A game has " + MIN_PLAYERS + " to " + MAX_PLAYERS + " players, not " + count);
+    }
+    int[] players = new int[count];
+    int[] locked = new int[count];
+    for (int i = 0; i < count; i++) {
+      for (int j = 0; j < i; j++) {
+        if (finishingOrder[j] == finishingOrder[i]) {
+          throw new IllegalArgumentException("Player " + finishingOrder[i] + " is listed twice");
+        }
+      }
+      players[i] = slotOf(finishingOrder[i], true);
+      locked[i] = stripeOf(finishingOrder[i]);
+    }
+    Arrays.sort(locked);
+
+    double[] before = new double[count];
+    double[] spread = new double[count];
+    lockAll(locked);
+    try {
+      for (int i = 0; i < count; i++) {
+        before[i] = this.ratings[chunk(players[i])][offset(players[i])];
+        spread[i] = this.deviations[chunk(players[i])][offset(players[i])];
+      }
+      for (int i = 0; i < count; i++) {
+        update(players[i], i, before, spread);
+        this.stripes[stripeOf(finishingOrder[i])].queue(players[i]);
+      }
+    } finally {
+      unlockAll(locked);
+    }
+
+    if (this.queued.addAndGet(count) >= BATCH && this.boardLock.tryLock()) {
+      try {
+        drain();
+      } finally {
+        this.boardLock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public Rating getRating(long playerId) {
+    Stripe stripe = this.stripes[stripeOf(playerId)];
+    stripe.lock.lock();
+    try {
+      int slot = stripe.get(playerId);
+      return slot < 0 ? null : rating(slot);
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  @Override
+  public int getRank(long playerId) {
+    int slot = slotOf(playerId, false);
+    if (slot < 0) {
+      return 0;
+    }
+    this.boardLock.lock();
+    try {
+      drain();
+      return this.board.rank(slot);
+    } finally {
+      this.boardLock.unlock();
+    }
+  }
+
+  @Override
+  public List<Rating> getTop(int count) {
+    int[] top;
+    this.boardLock.lock();
+    try {
+      drain();
+      top = this.board.top(count);
+    } finally {
+      this.boardLock.unlock();
+    }
+    List<Rating> result = new ArrayList<>(top.length);
+    for (int slot : top) {
+      result.add(getRating(this.ids[chunk(slot)][offset(slot)]));
+    }
+    // The board orders buckets; order players within the last few by their exact ratings
+    result.sort(Comparator.comparingDouble(Rating::getRating).reversed());
+    return result.subList(0, Math.min(count, result.size()));
+  }
+
+  @Override
+  public int getPlayerCount() {
+    return this.slots.get();
+  }
+
+  /**
+   * Applies the Glicko update to one player of a game.
+   * @param place index of the player in the finishing order.
+   * @param before ratings of the players before the game.
+   * @param spread deviations of the players before the game.
+   */
+  private void update(int slot, int place, double[] before, double[] spread) {
+    double rating = before[place];
+    double deviation = spread[place];
+    double variance = 0;
+    double score = 0;
+    for (int other = 0; other < before.length; other++) {
+      if (other == place) {
+        continue;
+      }
+      double g = g(spread[other]);
+      double expected = 1 / (1 + Math.pow(10, -g * (rating - before[other]) / 400));
+      variance += g * g * expected * (1 - expected);
+      score += g * ((other > place ? 1 : 0) - expected);
+    }
+    double precision = 1 / (deviation * deviation) + Q * Q * variance;
+    int chunk = chunk(slot);
+    int offset = offset(slot);
+    this.ratings[chunk][offset] = rating + Q / precision * score;
+    this.deviations[chunk][offset] = Math.max(MIN_DEVIATION, Math.sqrt(1 / precision));
+    this.games[chunk][offset]++;
+  }
+
+  private static double g(double deviation) {
+    return 1 / Math.sqrt(1 + 3 * Q * Q * deviation * deviation / (Math.PI * Math.PI));
+  }
+
+  /** Moves every queued player to their current rating. Needs the board lock. */
+  private void drain() {
+    for (Stripe stripe : this.stripes) {
+      int[] changed;
+      int count;
+      stripe.lock.lock();
+      try {
+        changed = stripe.pending;
+        count = stripe.pendingSize;
+        if (count == 0) {
+          continue;
+        }
+        stripe.pending = stripe.spare;
+        stripe.pendingSize = 0;
+        stripe.spare = changed;
+        for (int i = 0; i < count; i++) {
+          int slot = changed[i];
+          this.board.update(slot, this.ratings[chunk(slot)][offset(slot)]);
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+      this.queued.addAndGet(-count);
+    }
+  }
+
+  private int slotOf(long playerId, boolean create) {
+    Stripe stripe = this.stripes[stripeOf(playerId)];
+    stripe.lock.lock();
+    try {
+      int slot = stripe.get(playerId);
+      if (slot < 0 && create) {
+        slot = newSlot(playerId);
+        stripe.put(playerId, slot);
+      }
+      return slot;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /** Called under the player's stripe lock, which publishes the slot to later readers. */
+  private int newSlot(long playerId) {
+    int slot = this.slots.getAndIncrement();
+    int chunk = chunk(slot);
+    if (chunk >= MAX_CHUNKS) {
+      throw new IllegalStateException("Too many rated players");
+    }
+    if (this.ids[chunk] == null) {
+      synchronized (this.ids) {
+        if (this.ids[chunk] == null) {
+          this.ratings[chunk] = new double[CHUNK_SIZE];
+          this.deviations[chunk] = new double[CHUNK_SIZE];
+          this.games[chunk] = new int[CHUNK_SIZE];
+          this.ids[chunk] = new long[CHUNK_SIZE];
+        }
+      }
+    }
+    int offset = offset(slot);
+    this.ids[chunk][offset] = playerId;
+    this.ratings[chunk][offset] = INITIAL_RATING;
+    this.deviations[chunk][offset] = INITIAL_DEVIATION;
+    return slot;
+  }
+
+  private Rating rating(int slot) {
+    int chunk = chunk(slot);
+    int offset = offset(slot);
+    return new Rating(this.ids[chunk][offset], this.ratings[chunk][offset], this.deviations[chunk][offset],
+        this.games[chunk][offset]);
+  }
+
+  private void lockAll(int[] sortedStripes) {
+    for (int i = 0; i < sortedStripes.length; i++) {
+      if (i == 0 || sortedStripes[i] != sortedStripes[i - 1]) {
+        this.stripes[sortedStripes[i]].lock.lock();
+      }
+    }
+  }
+
+  private void unlockAll(int[] sortedStripes) {
+    for (int i = sortedStripes.length - 1; i >= 0; i--) {
+      if (i == 0 || sortedStripes[i] != sortedStripes[i - 1]) {
+        this.stripes[sortedStripes[i]].lock.unlock();
+      }
+    }
+  }
+
+  private static int stripeOf(long playerId) {
+    long mixed = playerId * 0x9E3779B97F4A7C15L;
+    return (int) (mixed >>> 58) & (STRIPES - 1);
+  }
+
+  private static int chunk(int slot) {
+    return slot >>> CHUNK_BITS;
+  }
+
+  private static int offset(int slot) {
+    return slot & (CHUNK_SIZE - 1);
+  }
+
+  /**
+   * Players whose ids map to one lock: an open-addressing index from id to slot, and the slots
+   * changed since the leaderboard last caught up.
+   */
+  private static class Stripe {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY]; // slot + 1, 0 for an empty cell
+    private int size;
+    private int[] pending = new int[64];
+    private int[] spare = new int[64];
+    private int pendingSize;
+
+    private int get(long key) {
+      int mask = this.keys.length - 1;
+      for (int i = index(key, mask); this.values[i] != 0; i = (i + 1) & mask) {
+        if (this.keys[i] == key) {
+          return this.values[i] - 1;
+        }
+      }
+      return -1;
+    }
+
+    private void put(long key, int slot) {
+      if (2 * (this.size + 1) > this.keys.length) {
+        resize();
+      }
+      int mask = this.keys.length - 1;
+      int i = index(key, mask);
+      while (this.values[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      this.keys[i] = key;
+      this.values[i] = slot + 1;
+      this.size++;
+    }
+
+    private void queue(int slot) {
+      if (this.pendingSize == this.pending.length) {
+        this.pending = Arrays.copyOf(this.pending, this.pendingSize * 2);
+      }
+      this.pending[this.pendingSize++] = slot;
+    }
+
+    private void resize() {
+      long[] oldKeys = this.keys;
+      int[] oldValues = this.values;
+      this.keys = new long[oldKeys.length * 2];
+      this.values = new int[oldValues.length * 2];
+      int mask = this.keys.length - 1;
+      for (int j = 0; j < oldKeys.length; j++) {
+        if (oldValues[j] != 0) {
+          int i = index(oldKeys[j], mask);
+          while (this.values[i] != 0) {
+            i = (i + 1) & mask;
+          }
+          this.keys[i] = oldKeys[j];
+          this.values[i] = oldValues[j];
+        }
+      }
+    }
+
+    private static int index(long key, int mask) {
+      long mixed = key * 0xC2B2AE3D27D4EB4FL;
+      return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+  }
+
+  /**
+   * Follows the games of one room and records each when it ends. Events are published under the
+   * room's lock, so the room's members can be read here.
+   */
+  private class GameRecorder implements GameEventListener {
+    private final Room room;
+    private final List<String> eliminated = new ArrayList<>();
+
+    private GameRecorder(Room room) {
+      this.room = room;
+    }
+
+    @Override
+    public void onGameEvent(GameEvent event) {
+      switch (event.getEventType()) {
+        case GAME_STARTED:
+          this.eliminated.clear();
+          break;
+        case PLAYER_ELIMINATED:
+          this.eliminated.add(event.getPlayerId());
+          break;
+        case GAME_ENDED:
+          record(event.getPlayerId());
+          this.eliminated.clear();
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void record(String winnerId) {
+      List<String> order = new ArrayList<>(MAX_PLAYERS);
+      order.add(winnerId);
+      for (int i = this.eliminated.size() - 1; i >= 0; i--) {
+        if (!order.contains(this.eliminated.get(i))) {
+          order.add(this.eliminated.get(i));
+        }
+      }
+      long[] players = new long[order.size()];
+      int count = 0;
+      for (String id : order) {
+        for (User member : this.room.getMembers()) {
+          if (member.getId().equals(id)) {
+            players[count++] = member.getNumericId();
+            break;
+          }
+        }
+      }
+      if (count >= MIN_PLAYERS) {
+        recordResult(Arrays.copyOf(players, count));
+      }
+    }
+  }
+}
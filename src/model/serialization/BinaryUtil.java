@@ -0,0 +1,183 @@
+package model.serialization;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import model.game.Card;
+import model.game.Rank;
+
+/**
+ * Primitive encodings shared by the binary formats: LEB128 varints, zigzag for signed values,
+ * length-prefixed UTF-8 strings and bit-packed ranks.
+ */
+public final class BinaryUtil {
+  private static final Rank[] RANKS = Rank.values();
+
+  /** Bits needed to store one rank ordinal. */
+  public static final int RANK_BITS = Math.max(1, 32 - Integer.numberOfLeadingZeros(RANKS.length - 1));
+  private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+
+  private BinaryUtil() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  public static void writeVarInt(ByteBuffer buffer, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  public static int readVarInt(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("Malformed varint");
+  }
+
+  public static void writeVarLong(ByteBuffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  public static long readVarLong(ByteBuffer buffer) {
+    long value = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      byte b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("Malformed varint");
+  }
+
+  public static void writeSignedVarInt(ByteBuffer buffer, int value) {
+    writeVarInt(buffer, (value << 1) ^ (value >> 31));
+  }
+
+  public static int readSignedVarInt(ByteBuffer buffer) {
+    int raw = readVarInt(buffer);
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+
+  public static void writeSignedVarLong(ByteBuffer buffer, long value) {
+    writeVarLong(buffer, (value << 1) ^ (value >> 63));
+  }
+
+  public static long readSignedVarLong(ByteBuffer buffer) {
+    long raw = readVarLong(buffer);
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+
+  /**
+   * Writes a varint padded to a fixed width so it can be patched in place once the value is known.
+   * @param buffer destination buffer.
+   * @param index absolute position to write at.
+   * @param value non-negative value below 2^(7 * width).
+   * @param width number of bytes to use.
+   */
+  public static void putPaddedVarInt(ByteBuffer buffer, int index, int value, int width) {
+    if (value < 0 || (width < 5 && value >>> (7 * width) != 0)) {
+      throw new IllegalArgumentException("Value " + value + " does not fit in " + width + " varint bytes");
+    }
+    for (int i = 0; i < width - 1; i++) {
+      buffer.put(index + i, (byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put(index + width - 1, (byte) value);
+  }
+
+  public static void writeString(ByteBuffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(buffer, bytes.length);
+    buffer.put(bytes);
+  }
+
+  public static String readString(ByteBuffer buffer) {
+    int length = readVarInt(buffer);
+    if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    String value;
+    if (buffer.hasArray()) {
+      value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+      buffer.position(buffer.position() + length);
+    } else {
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      value = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return value;
+  }
+
+  /**
+   * Writes the ranks of the cards as a varint count followed by ranks packed {@link #RANK_BITS}
+   * to the bit, in order.
+   * @param buffer destination buffer.
+   * @param cards cards whose ranks to write.
+   */
+  public static void writeRanks(ByteBuffer buffer, List<Card> cards) {
+    writeRanks(buffer, cards.size(), i -> cards.get(i).getRank().ordinal());
+  }
+
+  /**
+   * Writes ranks in the same layout as {@link #writeRanks(ByteBuffer, List)}.
+   * @param buffer destination buffer.
+   * @param ranks ranks to write.
+   */
+  public static void writeRanks(ByteBuffer buffer, Rank[] ranks) {
+    writeRanks(buffer, ranks.length, i -> ranks[i].ordinal());
+  }
+
+  private static void writeRanks(ByteBuffer buffer, int count, IntUnaryOperator ordinalAt) {
+    writeVarInt(buffer, count);
+    int acc = 0;
+    int bits = 0;
+    for (int i = 0; i < count; i++) {
+      acc |= ordinalAt.applyAsInt(i) << bits;
+      bits += RANK_BITS;
+      if (bits > 8 - RANK_BITS) {
+        buffer.put((byte) acc);
+        acc = 0;
+        bits = 0;
+      }
+    }
+    if (bits > 0) {
+      buffer.put((byte) acc);
+    }
+  }
+
+  /**
+   * Reads ranks written by {@link #writeRanks}.
+   * @param buffer source buffer.
+   * @return the ranks, in order.
+   */
+  public static Rank[] readRanks(ByteBuffer buffer) {
+    Rank[] ranks = new Rank[readVarInt(buffer)];
+    int acc = 0;
+    int bits = 0;
+    for (int i = 0; i < ranks.length; i++) {
+      if (bits == 0) {
+        acc = buffer.get() & 0xFF;
+        bits = 8 - (8 % RANK_BITS);
+      }
+      ranks[i] = RANKS[acc & RANK_MASK];
+      acc >>>= RANK_BITS;
+      bits -= RANK_BITS;
+    }
+    return ranks;
+  }
+}
@@ -0,0 +1,403 @@
+package model.serialization;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.actions.GameCommand;
+import model.events.GameEventPublisher;
+import model.game.Card;
+import model.game.CardImpl;
+import model.game.ClaimHistory;
+import model.game.DeckImpl;
+import model.game.Game;
+import model.game.GameImpl;
+import model.game.Hand;
+import model.game.HandImpl;
+import model.game.Player;
+import model.game.Rank;
+import model.game.Revolver;
+import model.game.RevolverImpl;
+import model.game.Round;
+import model.game.RoundImpl;
+import model.network.Room;
+import model.network.RoomImpl;
+import model.network.User;
+import model.network.UserImpl;
+import static model.serialization.BinaryUtil.*;
+
+/**
+ * Versioned binary format for rooms, games and commands, used for snapshots, the write-ahead
+ * log, replication and wire transfer.
+ *
+ * A stream starts with a header (magic and format version) and carries length-delimited
+ * messages ([tag][length][body], see {@link MessageType} for each body's schema). Integers are
+ * varints, ranks are bit-packed and players are referred to by seat number instead of by id.
+ * Encoding writes straight into the caller's buffer and decoding reads straight from it; a
+ * BufferOverflowException tells the caller to retry with a larger buffer.
+ */
+public final class GameCodec {
+  public static final int MAGIC = 0x4C424746; // "LBGF"
+  public static final int FORMAT_VERSION = 1;
+
+  /** Message lengths are padded varints so they can be patched after the body is written. */
+  private static final int LENGTH_BYTES = 3;
+  private static final Rank[] RANKS = Rank.values();
+  private static final GameCommand.Type[] COMMAND_TYPES = GameCommand.Type.values();
+
+  private GameCodec() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  /**
+   * Writes the stream header.
+   * @param buffer destination buffer.
+   */
+  public static void writeHeader(ByteBuffer buffer) {
+    buffer.putInt(MAGIC);
+    writeVarInt(buffer, FORMAT_VERSION);
+  }
+
+  /**
+   * Reads and checks the stream header.
+   * @param buffer source buffer.
+   * @return the format version of the stream.
+   * @throws IllegalStateException if the stream is not in this format or is newer than supported.
+   */
+  public static int readHeader(ByteBuffer buffer) {
+    if (buffer.getInt() != MAGIC) {
+      throw new IllegalStateException("Not a game format stream");
+    }
+    int version = readVarInt(buffer);
+    if (version < 1 || version > FORMAT_VERSION) {
+      throw new IllegalStateException("Unsupported format version " + version);
+    }
+    return version;
+  }
+
+  /**
+   * Describes every message of the current format version.
+   * @return human-readable schema.
+   */
+  public static String describeSchema() {
+    StringBuilder sb = new StringBuilder("format ").append(FORMAT_VERSION).append('\n');
+    for (MessageType type : MessageType.values()) {
+      sb.append(type).append(" (").append(type.getTag()).append(") { ").append(type.getSchema()).append(" }\n");
+    }
+    return sb.toString();
+  }
+
+  public static void encodeRoom(Room room, ByteBuffer buffer) {
+    int start = beginMessage(buffer, MessageType.ROOM);
+    writeString(buffer, room.getId());
+    List<User> members = room.getMembers();
+    writeVarInt(buffer, members.size());
+    for (User member : members) {
+      writeUser(buffer, member);
+    }
+
+    Game game = room.getGame();
+    if (game == null) {
+      buffer.put((byte) 0);
+    } else {
+      buffer.put((byte) 1);
+      encodeGame(asGameImpl(game), members, buffer);
+    }
+    endMessage(buffer, start);
+  }
+
+  public static Room decodeRoom(ByteBuffer buffer, GameEventPublisher eventPublisher) {
+    ByteBuffer body = openMessage(buffer, MessageType.ROOM);
+    String id = readString(body);
+    int memberCount = readVarInt(body);
+    List<User> members = new ArrayList<>(memberCount);
+    for (int i = 0; i < memberCount; i++) {
+      members.add(readUser(body, eventPublisher));
+    }
+
+    Room room = new RoomImpl(id, members, eventPublisher);
+    if (body.get() == 1) {
+      room.setGame(decodeGame(body, members, eventPublisher));
+    }
+    return room;
+  }
+
+  public static void encodeUser(Player user, ByteBuffer buffer) {
+    int start = beginMessage(buffer, MessageType.USER);
+    writeUser(buffer, user);
+    endMessage(buffer, start);
+  }
+
+  public static User decodeUser(ByteBuffer buffer, GameEventPublisher eventPublisher) {
+    return readUser(openMessage(buffer, MessageType.USER), eventPublisher);
+  }
+
+  /**
+   * Encodes the full state of a game. Players found among the members are written as their
+   * member seat; anyone else is written in full.
+   * @param game the game to encode.
+   * @param members users the decoder will resolve seats against.
+   * @param buffer destination buffer.
+   */
+  public static void encodeGame(GameImpl game, List<User> members, ByteBuffer buffer) {
+    int start = beginMessage(buffer, MessageType.GAME);
+    List<Player> players = game.getPlayers();
+    writeVarInt(buffer, players.size());
+    for (Player player : players) {
+      int memberSeat = members.indexOf(player);
+      writeSignedVarInt(buffer, memberSeat);
+      if (memberSeat < 0) {
+        writeUser(buffer, player);
+      }
+      writeHand(buffer, player.getHand());
+      writeRevolver(buffer, player.getRevolver());
+    }
+
+    writeRanks(buffer, game.getDeck().getCards());
+    writeSignedVarInt(buffer, game.getRank() == null ? -1 : game.getRank().ordinal());
+    writeSignedVarInt(buffer, game.getCurrentRound() == null ? -1 : game.getCurrentRoundNumber());
+
+    List<Round> rounds = game.getRounds();
+    writeVarInt(buffer, rounds.size());
+    for (Round round : rounds) {
+      writeRound(buffer, asRoundImpl(round), players);
+    }
+    buffer.put((byte) (game.isGameEndAnnounced() ? 1 : 0));
+    endMessage(buffer, start);
+  }
+
+  public static GameImpl decodeGame(ByteBuffer buffer, List<User> members, GameEventPublisher eventPublisher) {
+    ByteBuffer body = openMessage(buffer, MessageType.GAME);
+    int playerCount = readVarInt(body);
+    List<Player> players = new ArrayList<>(playerCount);
+    for (int i = 0; i < playerCount; i++) {
+      int memberSeat = readSignedVarInt(body);
+      Player player = memberSeat >= 0 ? members.get(memberSeat) : readUser(body, eventPublisher);
+      player.setHand(readHand(body));
+      player.setRevolver(readRevolver(body));
+      players.add(player);
+    }
+
+    GameImpl.Builder builder = new GameImpl.Builder()
+        .withDeck(new DeckImpl(toCards(readRanks(body))))
+        .withEventPublisher(eventPublisher);
+    for (Player player : players) {
+      builder.addPlayer(player);
+    }
+    int rank = readSignedVarInt(body);
+    if (rank >= 0) {
+      builder.setRank(RANKS[rank]);
+    }
+    int currentRoundIndex = readSignedVarInt(body);
+
+    GameImpl game = (GameImpl) builder.build();
+    List<Round> rounds = game.getRounds();
+    int roundCount = readVarInt(body);
+    if (roundCount != rounds.size()) {
+      throw new IllegalStateException("Encoded game has " + roundCount + " rounds, game has " + rounds.size());
+    }
+    for (Round round : rounds) {
+      readRound(body, asRoundImpl(round), players);
+    }
+
+    if (currentRoundIndex >= 0) {
+      game.restoreCurrentRound(currentRoundIndex);
+    }
+    // Games encoded before the flag was written count as announced once they are over
+    boolean gameEndAnnounced = body.hasRemaining()
+        ? body.get() != 0
+        : players.stream().filter(Player::isAlive).count() <= 1;
+    game.restoreGameEndAnnounced(gameEndAnnounced);
+    return game;
+  }
+
+  public static void encodeCommand(GameCommand command, ByteBuffer buffer) {
+    int start = beginMessage(buffer, MessageType.COMMAND);
+    buffer.put((byte) command.getType().ordinal());
+    writeVarInt(buffer, command.getSeat());
+    int[] cardIndices = command.getCardIndices();
+    writeVarInt(buffer, cardIndices.length);
+    for (int cardIndex : cardIndices) {
+      writeVarInt(buffer, cardIndex);
+    }
+    endMessage(buffer, start);
+  }
+
+  public static GameCommand decodeCommand(ByteBuffer buffer) {
+    ByteBuffer body = openMessage(buffer, MessageType.COMMAND);
+    GameCommand.Type type = COMMAND_TYPES[body.get()];
+    int seat = readVarInt(body);
+    int[] cardIndices = new int[readVarInt(body)];
+    for (int i = 0; i < cardIndices.length; i++) {
+      cardIndices[i] = readVarInt(body);
+    }
+
+    switch (type) {
+      case CLAIM:
+        return GameCommand.claim(seat, cardIndices);
+      case CHALLENGE:
+        return GameCommand.challenge(seat);
+      case SHOOT:
+        return GameCommand.shoot(seat);
+      default:
+        throw new IllegalStateException("Unknown command type: " + type);
+    }
+  }
+
+  /**
+   * Peeks at the type of the next message without consuming it.
+   * @param buffer source buffer positioned at a message.
+   * @return the message type.
+   */
+  public static MessageType peekType(ByteBuffer buffer) {
+    return MessageType.fromTag(buffer.get(buffer.position()));
+  }
+
+  static int beginMessage(ByteBuffer buffer, MessageType type) {
+    if (buffer.remaining() < 1 + LENGTH_BYTES) {
+      throw new BufferOverflowException();
+    }
+    buffer.put((byte) type.getTag());
+    int lengthIndex = buffer.position();
+    buffer.position(lengthIndex + LENGTH_BYTES);
+    return lengthIndex;
+  }
+
+  static void endMessage(ByteBuffer buffer, int lengthIndex) {
+    putPaddedVarInt(buffer, lengthIndex, buffer.position() - lengthIndex - LENGTH_BYTES, LENGTH_BYTES);
+  }
+
+  /**
+   * Reads a message header and returns its body as a slice, leaving the buffer after the body
+   * so fields appended by newer versions are skipped.
+   */
+  static ByteBuffer openMessage(ByteBuffer buffer, MessageType expected) {
+    MessageType type = MessageType.fromTag(buffer.get());
+    if (type != expected) {
+      throw new IllegalStateException("Expected " + expected + " message but found " + type);
+    }
+    int length = readVarInt(buffer);
+    ByteBuffer body = buffer.slice();
+    body.limit(length);
+    buffer.position(buffer.position() + length);
+    return body;
+  }
+
+  private static void writeUser(ByteBuffer buffer, Player user) {
+    writeString(buffer, user.getId());
+    writeString(buffer, user.getName());
+    buffer.put((byte) (user.isAlive() ? 1 : 0));
+  }
+
+  private static User readUser(ByteBuffer buffer, GameEventPublisher eventPublisher) {
+    String id = readString(buffer);
+    String name = readString(buffer);
+    boolean alive = buffer.get() == 1;
+    User user = new UserImpl(name, id, alive);
+    user.setEventPublisher(eventPublisher);
+    return user;
+  }
+
+  private static void writeHand(ByteBuffer buffer, Hand hand) {
+    if (hand == null) {
+      writeVarInt(buffer, 0);
+      return;
+    }
+    List<Card> cards = new ArrayList<>(hand.getSize());
+    for (int i = 0; i < hand.getSize(); i++) {
+      cards.add(hand.getAt(i));
+    }
+    writeVarInt(buffer, 1);
+    writeRanks(buffer, cards);
+  }
+
+  private static Hand readHand(ByteBuffer buffer) {
+    if (readVarInt(buffer) == 0) {
+      return null;
+    }
+    return new HandImpl(toCards(readRanks(buffer)));
+  }
+
+  private static void writeRevolver(ByteBuffer buffer, Revolver revolver) {
+    if (revolver == null) {
+      writeVarInt(buffer, 0);
+      return;
+    }
+    if (!(revolver instanceof RevolverImpl)) {
+      throw new IllegalArgumentException("Cannot encode revolver of type " + revolver.getClass().getName());
+    }
+    writeVarInt(buffer, ((RevolverImpl) revolver).getBulletIndex() + 1);
+    writeVarInt(buffer, revolver.getCurrentIndex());
+  }
+
+  private static Revolver readRevolver(ByteBuffer buffer) {
+    int bullet = readVarInt(buffer);
+    if (bullet == 0) {
+      return null;
+    }
+    return new RevolverImpl(bullet - 1, readVarInt(buffer));
+  }
+
+  private static void writeRound(ByteBuffer buffer, RoundImpl round, List<Player> players) {
+    ClaimHistory history = round.getClaimHistory();
+    writeSeats(buffer, history.getSeats(), players);
+    writeSeats(buffer, round.getTurnOrder(), players);
+    writeVarInt(buffer, round.getCurrentPlayerIndex());
+    writeVarInt(buffer, round.getTotalClaimedCards());
+    writeVarInt(buffer, history.size());
+    for (int i = 0; i < history.size(); i++) {
+      writeVarLong(buffer, history.getPacked(i));
+    }
+  }
+
+  private static void readRound(ByteBuffer buffer, RoundImpl round, List<Player> players) {
+    List<Player> seats = readSeats(buffer, players);
+    List<Player> turnOrder = readSeats(buffer, players);
+    int currentPlayerIndex = readVarInt(buffer);
+    int totalClaimedCards = readVarInt(buffer);
+    long[] claims = new long[readVarInt(buffer)];
+    for (int i = 0; i < claims.length; i++) {
+      claims[i] = readVarLong(buffer);
+    }
+    round.restore(seats, turnOrder, currentPlayerIndex, claims, totalClaimedCards);
+  }
+
+  private static void writeSeats(ByteBuffer buffer, List<Player> seated, List<Player> players) {
+    writeVarInt(buffer, seated.size());
+    for (Player player : seated) {
+      writeVarInt(buffer, players.indexOf(player));
+    }
+  }
+
+  private static List<Player> readSeats(ByteBuffer buffer, List<Player> players) {
+    int count = readVarInt(buffer);
+    List<Player> seated = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      seated.add(players.get(readVarInt(buffer)));
+    }
+    return seated;
+  }
+
+  private static ArrayList<Card> toCards(Rank[] ranks) {
+    ArrayList<Card> cards = new ArrayList<>(ranks.length);
+    for (Rank rank : ranks) {
+      cards.add(new CardImpl(rank));
+    }
+    return cards;
+  }
+
+  private static GameImpl asGameImpl(Game game) {
+    if (!(game instanceof GameImpl)) {
+      throw new IllegalArgumentException("Cannot encode game of type " + game.getClass().getName());
+    }
+    return (GameImpl) game;
+  }
+
+  private static RoundImpl asRoundImpl(Round round) {
+    if (!(round instanceof RoundImpl)) {
+      throw new IllegalArgumentException("Cannot encode round of type " + round.getClass().getName());
+    }
+    return (RoundImpl) round;
+  }
+}
@@ -0,0 +1,429 @@
+package model.serialization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import model.events.GameEvent;
+import model.events.GameEventType;
+import model.game.GameState;
+import model.game.Player;
+import model.game.Rank;
+
+/**
+ * Streams game events and state snapshots as JSON into a reusable byte buffer.
+ *
+ * Field names and enum constants are encoded once up front, numbers are formatted digit by digit
+ * and strings are escaped and UTF-8 encoded in place, so writing an event allocates nothing once
+ * the buffer has grown to fit. Optional event fields are omitted when absent. Other documents,
+ * such as API responses, can be written with the generic object, array, name and value methods,
+ * which insert commas themselves. A writer is not thread safe; give each thread its own.
+ */
+public class JsonEventWriter {
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] TRUE = ascii("true");
+  private static final byte[] FALSE = ascii("false");
+  private static final byte[] NULL = ascii("null");
+
+  private static final byte[] EVENT_TYPE = ascii("{\"type\":");
+  private static final byte[] EVENT_TIMESTAMP = ascii(",\"timestamp\":");
+  private static final byte[] EVENT_PLAYER = ascii(",\"player\":");
+  private static final byte[] EVENT_TARGET = ascii(",\"target\":");
+  private static final byte[] EVENT_RANK = ascii(",\"rank\":");
+  private static final byte[] EVENT_VALUE = ascii(",\"value\":");
+  private static final byte[] EVENT_MESSAGE = ascii(",\"message\":");
+
+  private static final byte[] STATE_RANK = ascii("{\"rank\":");
+  private static final byte[] STATE_ROUND = ascii(",\"round\":");
+  private static final byte[] STATE_CURRENT = ascii(",\"currentPlayer\":");
+  private static final byte[] STATE_CLAIM_PLAYER = ascii(",\"lastClaimPlayer\":");
+  private static final byte[] STATE_CLAIM_COUNT = ascii(",\"lastClaimCount\":");
+  private static final byte[] STATE_GAME_OVER = ascii(",\"gameOver\":");
+  private static final byte[] STATE_PLAYERS = ascii(",\"players\":[");
+  private static final byte[] PLAYER_ID = ascii("{\"id\":");
+  private static final byte[] PLAYER_NAME = ascii(",\"name\":");
+  private static final byte[] PLAYER_CARDS = ascii(",\"cards\":");
+  private static final byte[] PLAYER_ALIVE = ascii(",\"alive\":");
+  private static final byte[] PLAYER_CHAMBER = ascii(",\"chamber\":");
+  private static final byte[] STATE_HAND = ascii(",\"hand\":[");
+
+  private static final byte[][] EVENT_TYPE_NAMES = quotedNames(GameEventType.values());
+  private static final byte[][] RANK_NAMES = quotedNames(Rank.values());
+
+  private byte[] buffer;
+  private int size;
+  private boolean needsComma;
+
+  public JsonEventWriter() {
+    this(INITIAL_CAPACITY);
+  }
+
+  public JsonEventWriter(int initialCapacity) {
+    this.buffer = new byte[Math.max(16, initialCapacity)];
+  }
+
+  /**
+   * Appends an event as a single JSON object.
+   * @param event the event to write.
+   * @return this writer.
+   */
+  public JsonEventWriter writeEvent(GameEvent event) {
+    comma();
+    raw(EVENT_TYPE);
+    raw(EVENT_TYPE_NAMES[event.getEventType().ordinal()]);
+    raw(EVENT_TIMESTAMP);
+    number(event.getTimestamp());
+    if (event.getPlayerId() != null) {
+      raw(EVENT_PLAYER);
+      string(event.getPlayerId());
+    }
+    if (event.getTargetPlayerId() != null) {
+      raw(EVENT_TARGET);
+      string(event.getTargetPlayerId());
+    }
+    if (event.getRank() != null) {
+      raw(EVENT_RANK);
+      raw(RANK_NAMES[event.getRank().ordinal()]);
+    }
+    if (event.getValue() >= 0) {
+      raw(EVENT_VALUE);
+      number(event.getValue());
+    }
+    if (event.getMessage() != null) {
+      raw(EVENT_MESSAGE);
+      string(event.getMessage());
+    }
+    return end('}');
+  }
+
+  /**
+   * Appends a game state snapshot as a single JSON object.
+   * @param state the snapshot to write.
+   * @return this writer.
+   */
+  public JsonEventWriter writeState(GameState state) {
+    return writeState(state, null);
+  }
+
+  /**
+   * Appends a game state snapshot as a single JSON object, with the hand of the player it is
+   * written for.
+   * @param state the snapshot to write.
+   * @param hand ranks in the viewer's hand, in hand order, or null to leave the hand out.
+   * @return this writer.
+   */
+  public JsonEventWriter writeState(GameState state, Rank[] hand) {
+    comma();
+    raw(STATE_RANK);
+    if (state.getRank() != null) {
+      raw(RANK_NAMES[state.getRank().ordinal()]);
+    } else {
+      raw(NULL);
+    }
+    raw(STATE_ROUND);
+    number(state.getRoundNumber());
+    raw(STATE_CURRENT);
+    playerId(state.getCurrentPlayer());
+    raw(STATE_CLAIM_PLAYER);
+    playerId(state.getLastClaimPlayer());
+    raw(STATE_CLAIM_COUNT);
+    number(state.getLastClaimCount());
+    raw(STATE_GAME_OVER);
+    raw(state.isGameOver() ? TRUE : FALSE);
+
+    raw(STATE_PLAYERS);
+    List<Player> players = state.getPlayers();
+    for (int seat = 0; seat < players.size(); seat++) {
+      Player player = players.get(seat);
+      if (seat > 0) {
+        put(',');
+      }
+      raw(PLAYER_ID);
+      string(player.getId());
+      raw(PLAYER_NAME);
+      string(player.getName());
+      raw(PLAYER_CARDS);
+      number(state.getCardCount(seat));
+      raw(PLAYER_ALIVE);
+      raw(state.isAlive(seat) ? TRUE : FALSE);
+      raw(PLAYER_CHAMBER);
+      number(state.getChamberPosition(seat));
+      put('}');
+    }
+    put(']');
+    if (hand != null) {
+      raw(STATE_HAND);
+      for (int i = 0; i < hand.length; i++) {
+        if (i > 0) {
+          put(',');
+        }
+        raw(RANK_NAMES[hand[i].ordinal()]);
+      }
+      put(']');
+    }
+    return end('}');
+  }
+
+  /**
+   * Starts an object, as a value, array element or top-level document.
+   * @return this writer.
+   */
+  public JsonEventWriter beginObject() {
+    comma();
+    return put('{');
+  }
+
+  public JsonEventWriter endObject() {
+    return end('}');
+  }
+
+  /**
+   * Starts an array, as a value, array element or top-level document.
+   * @return this writer.
+   */
+  public JsonEventWriter beginArray() {
+    comma();
+    return put('[');
+  }
+
+  public JsonEventWriter endArray() {
+    return end(']');
+  }
+
+  /**
+   * Writes an object member name; the member's value must follow.
+   * @param name the member name.
+   * @return this writer.
+   */
+  public JsonEventWriter name(String name) {
+    comma();
+    string(name);
+    return put(':');
+  }
+
+  /**
+   * Writes a string value, or null.
+   * @param value the value.
+   * @return this writer.
+   */
+  public JsonEventWriter value(String value) {
+    comma();
+    if (value != null) {
+      string(value);
+    } else {
+      raw(NULL);
+    }
+    this.needsComma = true;
+    return this;
+  }
+
+  public JsonEventWriter value(long value) {
+    comma();
+    number(value);
+    this.needsComma = true;
+    return this;
+  }
+
+  public JsonEventWriter value(boolean value) {
+    comma();
+    raw(value ? TRUE : FALSE);
+    this.needsComma = true;
+    return this;
+  }
+
+  /**
+   * Appends a newline, ending the current NDJSON line.
+   * @return this writer.
+   */
+  public JsonEventWriter newLine() {
+    this.needsComma = false;
+    return put('\n');
+  }
+
+  /**
+   * Discards the written bytes, keeping the buffer for reuse.
+   */
+  public void reset() {
+    this.size = 0;
+    this.needsComma = false;
+  }
+
+  /**
+   * Getter for the buffer holding the written bytes, for writing them out without a copy. Only
+   * the first {@link #size()} bytes are valid, and only until the next write.
+   * @return the internal buffer.
+   */
+  public byte[] getBuffer() {
+    return this.buffer;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Copies the written bytes out.
+   * @return a new array holding the JSON.
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(this.buffer, this.size);
+  }
+
+  /**
+   * Writes the buffered bytes to a stream. The buffer is left untouched.
+   * @param out destination stream.
+   * @throws IOException if the stream fails.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(this.buffer, 0, this.size);
+  }
+
+  @Override
+  public String toString() {
+    return new String(this.buffer, 0, this.size, StandardCharsets.UTF_8);
+  }
+
+  private void playerId(Player player) {
+    if (player != null) {
+      string(player.getId());
+    } else {
+      raw(NULL);
+    }
+  }
+
+  private void comma() {
+    if (this.needsComma) {
+      put(',');
+      this.needsComma = false;
+    }
+  }
+
+  private JsonEventWriter end(char c) {
+    put(c);
+    this.needsComma = true;
+    return this;
+  }
+
+  private JsonEventWriter put(char c) {
+    ensure(1);
+    this.buffer[this.size++] = (byte) c;
+    return this;
+  }
+
+  private void raw(byte[] bytes) {
+    ensure(bytes.length);
+    System.arraycopy(bytes, 0, this.buffer, this.size, bytes.length);
+    this.size += bytes.length;
+  }
+
+  private void number(long value) {
+    if (value == Long.MIN_VALUE) {
+      raw(MIN_LONG);
+      return;
+    }
+    ensure(20);
+    byte[] buf = this.buffer;
+    if (value < 0) {
+      buf[this.size++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long rest = value / 10; rest != 0; rest /= 10) {
+      digits++;
+    }
+    int end = this.size + digits;
+    for (int pos = end - 1; pos >= this.size; pos--) {
+      buf[pos] = (byte) ('0' + (int) (value % 10));
+      value /= 10;
+    }
+    this.size = end;
+  }
+
+  private void string(String value) {
+    int length = value.length();
+    // Worst case is six bytes per char for a \\u escape
+    ensure(2 + length * 6);
+    byte[] buf = this.buffer;
+    int pos = this.size;
+    buf[pos++] = '"';
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= 0x20 && c < 0x80) {
+        if (c == '"' || c == '\\') {
+          buf[pos++] = '\\';
+        }
+        buf[pos++] = (byte) c;
+      } else if (c < 0x20) {
+        pos = escapeControl(buf, pos, c);
+      } else if (c < 0x800) {
+        buf[pos++] = (byte) (0xC0 | (c >> 6));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+        buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        buf[pos++] = '?'; // unpaired surrogate
+      } else {
+        buf[pos++] = (byte) (0xE0 | (c >> 12));
+        buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    buf[pos++] = '"';
+    this.size = pos;
+  }
+
+  private static int escapeControl(byte[] buf, int pos, char c) {
+    buf[pos++] = '\\';
+    switch (c) {
+      case '\n':
+        buf[pos++] = 'n';
+        break;
+      case '\r':
+        buf[pos++] = 'r';
+        break;
+      case '\t':
+        buf[pos++] = 't';
+        break;
+      case '\b':
+        buf[pos++] = 'b';
+        break;
+      case '\f':
+        buf[pos++] = 'f';
+        break;
+      default:
+        buf[pos++] = 'u';
+        buf[pos++] = '0';
+        buf[pos++] = '0';
+        buf[pos++] = HEX[c >> 4];
+        buf[pos++] = HEX[c & 0xF];
+    }
+    return pos;
+  }
+
+  private void ensure(int extra) {
+    int required = this.size + extra;
+    if (required > this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, Math.max(required, this.buffer.length * 2));
+    }
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static byte[][] quotedNames(Enum<?>[] constants) {
+    byte[][] names = new byte[constants.length][];
+    for (Enum<?> constant : constants) {
+      names[constant.ordinal()] = ascii("\"" + constant.name() + "\"");
+    }
+    return names;
+  }
+}
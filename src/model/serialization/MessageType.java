@@ -0,0 +1,60 @@
+package model.serialization;
+
+/**
+ * Enumeration of the length-delimited messages of the binary game format, with the schema of
+ * each body. Fields are written in the listed order; readers skip any bytes left in a body after
+ * the fields they know, so fields may only ever be appended.
+ */
+public enum MessageType {
+  ROOM(1, "id: string, members: varint n * USER_BODY, hasGame: byte, game?: GAME"),
+  USER(2, "USER_BODY = id: string, name: string, alive: byte"),
+  GAME(3, "players: varint n * (member: zigzag varint seat in ROOM.members or -1, user?: USER_BODY,"
+      + " hand: varint 1 then ranks (0 = none), revolver: varint bullet+1 (0 = none),"
+      + " chamber?: varint), deck: ranks, rank: zigzag varint ordinal or -1,"
+      + " currentRound: zigzag varint or -1, rounds: varint n * (seats: varint n * varint player,"
+      + " turnOrder: varint n * varint player, currentPlayer: varint, totalClaimed: varint,"
+      + " claims: varint n * varlong packed claim), gameEndAnnounced: byte"),
+  COMMAND(4, "type: byte, seat: varint, cards: varint n * varint hand index"),
+  STATE(5, "sequence: varlong, rank: zigzag varint ordinal or -1, round: varint,"
+      + " currentPlayer: zigzag varint seat or -1, lastClaimPlayer: zigzag varint seat or -1,"
+      + " lastClaimCount: zigzag varint, gameOver: byte, players: varint n * (id: string,"
+      + " name: string, cards: varint, alive: byte, chamber: zigzag varint)"),
+  STATE_DELTA(6, "baseSequence: varlong, sequence: varlong, changed: byte mask of STATE fields"
+      + " rank (1), round (2), currentPlayer (4), lastClaimPlayer (8), lastClaimCount (16),"
+      + " gameOver (32), then each changed field as in STATE, seats: varint n * (seat: varint,"
+      + " changed: byte mask cards (1), alive (2), chamber (4), then each changed field)"),
+  VIEW(7, "viewerSeat: zigzag varint or -1, state: STATE, hands: varint n * (seat: varint,"
+      + " cards: ranks)");
+
+  private static final MessageType[] BY_TAG = new MessageType[16];
+
+  static {
+    for (MessageType type : values()) {
+      BY_TAG[type.tag] = type;
+    }
+  }
+
+  private final int tag;
+  private final String schema;
+
+  MessageType(int tag, String schema) {
+    this.tag = tag;
+    this.schema = schema;
+  }
+
+  public int getTag() {
+    return tag;
+  }
+
+  public String getSchema() {
+    return schema;
+  }
+
+  public static MessageType fromTag(int tag) {
+    MessageType type = tag >= 0 && tag < BY_TAG.length ? BY_TAG[tag] : null;
+    if (type == null) {
+      throw new IllegalArgumentException("Unknown message tag: " + tag);
+    }
+    return type;
+  }
+}
@@ -0,0 +1,85 @@
+package model.serialization;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import model.events.GameEvent;
+import model.events.GameEventListener;
+import model.game.GameState;
+
+/**
+ * Writes events as newline-delimited JSON to a stream, one object per line.
+ *
+ * Lines accumulate in a {@link JsonEventWriter} and are handed to the stream in one write once the
+ * batch reaches its size limit, on {@link #flush()} or on {@link #close()}. Register the sink with
+ * a {@link model.events.GameEventPublisher} to stream every published event.
+ */
+public class NdjsonEventSink implements GameEventListener, Closeable {
+  private static final int DEFAULT_BATCH_BYTES = 64 * 1024;
+
+  private final OutputStream out;
+  private final int batchBytes;
+  private final JsonEventWriter writer;
+
+  public NdjsonEventSink(OutputStream out) {
+    this(out, DEFAULT_BATCH_BYTES);
+  }
+
+  public NdjsonEventSink(OutputStream out, int batchBytes) {
+    this.out = out;
+    this.batchBytes = batchBytes;
+    this.writer = new JsonEventWriter(batchBytes + batchBytes / 4);
+  }
+
+  @Override
+  public synchronized void onGameEvent(GameEvent event) {
+    this.writer.writeEvent(event).newLine();
+    flushIfFull();
+  }
+
+  /**
+   * Writes a state snapshot as its own line.
+   * @param state the snapshot to write.
+   */
+  public synchronized void writeState(GameState state) {
+    this.writer.writeState(state).newLine();
+    flushIfFull();
+  }
+
+  /**
+   * Writes every buffered line to the stream and flushes it.
+   * @throws IOException if the stream fails.
+   */
+  public synchronized void flush() throws IOException {
+    drain();
+    this.out.flush();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      this.out.close();
+    }
+  }
+
+  private void flushIfFull() {
+    if (this.writer.size() >= this.batchBytes) {
+      try {
+        drain();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private void drain() throws IOException {
+    if (this.writer.size() > 0) {
+      this.writer.writeTo(this.out);
+      this.writer.reset();
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package model.serialization;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import model.game.GameState;
+import model.game.Player;
+import static model.serialization.BinaryUtil.*;
+
+/**
+ * Encodes public game state for observers as either a full {@link MessageType#STATE} keyframe or
+ * a {@link MessageType#STATE_DELTA} holding only the fields that changed since a base state.
+ * Players are referred to by seat; a delta can only be applied on top of the keyframe or delta
+ * carrying its base sequence.
+ */
+public final class StateCodec {
+  private static final int RANK = 1;
+  private static final int ROUND = 1 << 1;
+  private static final int CURRENT_PLAYER = 1 << 2;
+  private static final int LAST_CLAIM_PLAYER = 1 << 3;
+  private static final int LAST_CLAIM_COUNT = 1 << 4;
+  private static final int GAME_OVER = 1 << 5;
+
+  private static final int SEAT_CARDS = 1;
+  private static final int SEAT_ALIVE = 1 << 1;
+  private static final int SEAT_CHAMBER = 1 << 2;
+
+  private StateCodec() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  /**
+   * Checks whether a delta can describe the change between two states, which requires the same
+   * players in the same seats.
+   * @param base the earlier state.
+   * @param state the later state.
+   * @return true if {@link #encodeDelta} can be used.
+   */
+  public static boolean isDeltaCompatible(GameState base, GameState state) {
+    List<Player> before = base.getPlayers();
+    List<Player> after = state.getPlayers();
+    if (before.size() != after.size()) {
+      return false;
+    }
+    for (int seat = 0; seat < before.size(); seat++) {
+      if (before.get(seat) != after.get(seat)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static void encodeState(GameState state, long sequence, ByteBuffer buffer) {
+    int start = GameCodec.beginMessage(buffer, MessageType.STATE);
+    List<Player> players = state.getPlayers();
+    writeVarLong(buffer, sequence);
+    writeSignedVarInt(buffer, rankOf(state));
+    writeVarInt(buffer, state.getRoundNumber());
+    writeSignedVarInt(buffer, players.indexOf(state.getCurrentPlayer()));
+    writeSignedVarInt(buffer, players.indexOf(state.getLastClaimPlayer()));
+    writeSignedVarInt(buffer, state.getLastClaimCount());
+    buffer.put((byte) (state.isGameOver() ? 1 : 0));
+
+    writeVarInt(buffer, players.size());
+    for (int seat = 0; seat < players.size(); seat++) {
+      Player player = players.get(seat);
+      writeString(buffer, player.getId());
+      writeString(buffer, player.getName());
+      writeVarInt(buffer, state.getCardCount(seat));
+      buffer.put((byte) (state.isAlive(seat) ? 1 : 0));
+      writeSignedVarInt(buffer, state.getChamberPosition(seat));
+    }
+    GameCodec.endMessage(buffer, start);
+  }
+
+  /**
+   * Encodes the difference between two states of the same table.
+   * @param base the state the receiver already has.
+   * @param baseSequence sequence the base state was sent with.
+   * @param state the new state.
+   * @param sequence sequence of the new state.
+   * @param buffer destination buffer.
+   * @return number of changed fields; 0 means the states are equal and the message can be dropped.
+   * @throws IllegalArgumentException if the states are not {@link #isDeltaCompatible compatible}.
+   */
+  public static int encodeDelta(GameState base, long baseSequence, GameState state, long sequence, ByteBuffer buffer) {
+    if (!isDeltaCompatible(base, state)) {
+      throw new IllegalArgumentException("States belong to different tables");
+    }
+
+    int start = GameCodec.beginMessage(buffer, MessageType.STATE_DELTA);
+    List<Player> players = state.getPlayers();
+    writeVarLong(buffer, baseSequence);
+    writeVarLong(buffer, sequence);
+
+    int rank = rankOf(state);
+    int currentPlayer = players.indexOf(state.getCurrentPlayer());
+    int lastClaimPlayer = players.indexOf(state.getLastClaimPlayer());
+    int mask = 0;
+    mask |= rank != rankOf(base) ? RANK : 0;
+    mask |= state.getRoundNumber() != base.getRoundNumber() ? ROUND : 0;
+    mask |= currentPlayer != players.indexOf(base.getCurrentPlayer()) ? CURRENT_PLAYER : 0;
+    mask |= lastClaimPlayer != players.indexOf(base.getLastClaimPlayer()) ? LAST_CLAIM_PLAYER : 0;
+    mask |= state.getLastClaimCount() != base.getLastClaimCount() ? LAST_CLAIM_COUNT : 0;
+    mask |= state.isGameOver() != base.isGameOver() ? GAME_OVER : 0;
+    int changes = Integer.bitCount(mask);
+
+    buffer.put((byte) mask);
+    if ((mask & RANK) != 0) {
+      writeSignedVarInt(buffer, rank);
+    }
+    if ((mask & ROUND) != 0) {
+      writeVarInt(buffer, state.getRoundNumber());
+    }
+    if ((mask & CURRENT_PLAYER) != 0) {
+      writeSignedVarInt(buffer, currentPlayer);
+    }
+    if ((mask & LAST_CLAIM_PLAYER) != 0) {
+      writeSignedVarInt(buffer, lastClaimPlayer);
+    }
+    if ((mask & LAST_CLAIM_COUNT) != 0) {
+      writeSignedVarInt(buffer, state.getLastClaimCount());
+    }
+    if ((mask & GAME_OVER) != 0) {
+      buffer.put((byte) (state.isGameOver() ? 1 : 0));
+    }
+
+    // Seat count is patched in once the changed seats are known; a seat count fits in one byte
+    int countIndex = buffer.position();
+    buffer.put((byte) 0);
+    int changedSeats = 0;
+    for (int seat = 0; seat < players.size(); seat++) {
+      int seatMask = 0;
+      seatMask |= state.getCardCount(seat) != base.getCardCount(seat) ? SEAT_CARDS : 0;
+      seatMask |= state.isAlive(seat) != base.isAlive(seat) ? SEAT_ALIVE : 0;
+      seatMask |= state.getChamberPosition(seat) != base.getChamberPosition(seat) ? SEAT_CHAMBER : 0;
+      if (seatMask == 0) {
+        continue;
+      }
+      writeVarInt(buffer, seat);
+      buffer.put((byte) seatMask);
+      if ((seatMask & SEAT_CARDS) != 0) {
+        writeVarInt(buffer, state.getCardCount(seat));
+      }
+      if ((seatMask & SEAT_ALIVE) != 0) {
+        buffer.put((byte) (state.isAlive(seat) ? 1 : 0));
+      }
+      if ((seatMask & SEAT_CHAMBER) != 0) {
+        writeSignedVarInt(buffer, state.getChamberPosition(seat));
+      }
+      changedSeats++;
+      changes += Integer.bitCount(seatMask);
+    }
+    putPaddedVarInt(buffer, countIndex, changedSeats, 1);
+    GameCodec.endMessage(buffer, start);
+    return changes;
+  }
+
+  /**
+   * Assembles a {@link MessageType#VIEW} from pieces encoded earlier, so projections for
+   * different viewers can share them.
+   * @param viewerSeat seat of the viewer, or -1 for a spectator.
+   * @param state an encoded STATE message.
+   * @param hands ranks encoded with {@link BinaryUtil#writeRanks}, by seat; null for hidden hands.
+   * @param buffer destination buffer.
+   */
+  public static void encodeView(int viewerSeat, byte[] state, byte[][] hands, ByteBuffer buffer) {
+    int start = GameCodec.beginMessage(buffer, MessageType.VIEW);
+    writeSignedVarInt(buffer, viewerSeat);
+    buffer.put(state);
+    int visible = 0;
+    for (byte[] hand : hands) {
+      visible += hand != null ? 1 : 0;
+    }
+    writeVarInt(buffer, visible);
+    for (int seat = 0; seat < hands.length; seat++) {
+      if (hands[seat] != null) {
+        writeVarInt(buffer, seat);
+        buffer.put(hands[seat]);
+      }
+    }
+    GameCodec.endMessage(buffer, start);
+  }
+
+  private static int rankOf(GameState state) {
+    return state.getRank() == null ? -1 : state.getRank().ordinal();
+  }
+}
@@ -0,0 +1,64 @@
+package model.session;
+
+import java.util.Collections;
+import java.util.List;
+
+import model.game.GameState;
+import model.game.Rank;
+
+/**
+ * What a reconnecting client needs to catch up: either the events it missed, or a full snapshot
+ * when too many were missed. Either way the client continues from {@link #getSequence()}.
+ */
+public class Resync {
+  private final long sequence;
+  private final boolean snapshotted;
+  private final List<SequencedEvent> events;
+  private final GameState snapshot;
+  private final Rank[] hand;
+
+  private Resync(long sequence, boolean snapshotted, List<SequencedEvent> events, GameState snapshot, Rank[] hand) {
+    this.sequence = sequence;
+    this.snapshotted = snapshotted;
+    this.events = events;
+    this.snapshot = snapshot;
+    this.hand = hand;
+  }
+
+  public static Resync ofEvents(long sequence, List<SequencedEvent> events) {
+    return new Resync(sequence, false, Collections.unmodifiableList(events), null, null);
+  }
+
+  /**
+   * @param sequence sequence of the last event reflected in the snapshot.
+   * @param snapshot state of the game, or null if the room has no game.
+   * @param hand the session player's hand, or null if they hold none.
+   */
+  public static Resync ofSnapshot(long sequence, GameState snapshot, Rank[] hand) {
+    return new Resync(sequence, true, Collections.emptyList(), snapshot, hand);
+  }
+
+  /**
+   * Getter for the sequence the client is caught up to once it has applied this resync.
+   * @return the last sequence covered.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  public boolean isSnapshot() {
+    return snapshotted;
+  }
+
+  public List<SequencedEvent> getEvents() {
+    return events;
+  }
+
+  public GameState getSnapshot() {
+    return snapshot;
+  }
+
+  public Rank[] getHand() {
+    return hand;
+  }
+}
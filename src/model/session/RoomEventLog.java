@@ -0,0 +1,54 @@
+package model.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.events.GameEvent;
+import model.events.GameEventListener;
+
+/**
+ * Numbers the events of one room and keeps the most recent ones in a ring buffer so that
+ * reconnecting clients can be sent only what they missed. Sequences start at 1 and increase by
+ * one per event; 0 means nothing has been seen.
+ */
+public class RoomEventLog implements GameEventListener {
+  private final GameEvent[] ring;
+  private long lastSequence;
+
+  /**
+   * @param capacity number of recent events to keep.
+   */
+  public RoomEventLog(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.ring = new GameEvent[capacity];
+  }
+
+  @Override
+  public synchronized void onGameEvent(GameEvent event) {
+    this.lastSequence++;
+    this.ring[(int) (this.lastSequence % this.ring.length)] = event;
+  }
+
+  public synchronized long getLastSequence() {
+    return this.lastSequence;
+  }
+
+  /**
+   * Getter for every event after a sequence.
+   * @param sequence last sequence the reader has seen.
+   * @return the events after it in order, or null if some of them are no longer kept or the
+   *     sequence has not been reached yet.
+   */
+  public synchronized List<SequencedEvent> readAfter(long sequence) {
+    if (sequence < 0 || sequence > this.lastSequence || this.lastSequence - sequence > this.ring.length) {
+      return null;
+    }
+    List<SequencedEvent> events = new ArrayList<>((int) (this.lastSequence - sequence));
+    for (long next = sequence + 1; next <= this.lastSequence; next++) {
+      events.add(new SequencedEvent(next, this.ring[(int) (next % this.ring.length)]));
+    }
+    return events;
+  }
+}
@@ -0,0 +1,24 @@
+package model.session;
+
+import model.events.GameEvent;
+
+/**
+ * A game event with its position in the event stream of its room.
+ */
+public class SequencedEvent {
+  private final long sequence;
+  private final GameEvent event;
+
+  public SequencedEvent(long sequence, GameEvent event) {
+    this.sequence = sequence;
+    this.event = event;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public GameEvent getEvent() {
+    return event;
+  }
+}
@@ -0,0 +1,24 @@
+package model.session;
+
+/**
+ * A user's claim on a seat in a room that outlives any single connection.
+ */
+public interface Session {
+  /**
+   * Getter for the secret the client presents to reconnect.
+   * @return the session token.
+   */
+  String getToken();
+
+  String getRoomId();
+
+  String getUserId();
+
+  boolean isConnected();
+
+  /**
+   * Getter for when the session lost its connection.
+   * @return epoch milliseconds of the disconnect, or 0 while connected.
+   */
+  long getDisconnectedAt();
+}
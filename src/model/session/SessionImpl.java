@@ -0,0 +1,47 @@
+package model.session;
+
+public class SessionImpl implements Session {
+  private final String token;
+  private final String roomId;
+  private final String userId;
+  private volatile long disconnectedAt;
+
+  public SessionImpl(String token, String roomId, String userId) {
+    this.token = token;
+    this.roomId = roomId;
+    this.userId = userId;
+  }
+
+  @Override
+  public String getToken() {
+    return this.token;
+  }
+
+  @Override
+  public String getRoomId() {
+    return this.roomId;
+  }
+
+  @Override
+  public String getUserId() {
+    return this.userId;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return this.disconnectedAt == 0;
+  }
+
+  @Override
+  public long getDisconnectedAt() {
+    return this.disconnectedAt;
+  }
+
+  void markConnected() {
+    this.disconnectedAt = 0;
+  }
+
+  void markDisconnected(long now) {
+    this.disconnectedAt = Math.max(1, now);
+  }
+}
@@ -0,0 +1,69 @@
+package model.session;
+
+import model.exceptions.InvalidSessionException;
+import model.network.Room;
+import model.network.RoomListener;
+
+/**
+ * Issues session tokens for room members and brings reconnecting clients back up to date.
+ * Register it as a {@link RoomListener} of the component that applies room changes.
+ */
+public interface SessionManager extends RoomListener {
+  /**
+   * Starts recording the event stream of a room, if not already recorded.
+   * @param room the room to record.
+   */
+  void attach(Room room);
+
+  /**
+   * Opens a session for a member of a room.
+   * @param roomId id of the room.
+   * @param userId id of the member.
+   * @return the new session; send its token to the client.
+   * @throws IllegalArgumentException if there is no such room or the user is not a member.
+   */
+  Session open(String roomId, String userId);
+
+  /**
+   * Looks up a live session, such as to find who sent a request.
+   * @param token the session token.
+   * @return the session.
+   * @throws InvalidSessionException if the token is unknown or has expired.
+   */
+  Session getSession(String token) throws InvalidSessionException;
+
+  /**
+   * Reconnects a session and returns what the client missed since the last sequence it saw.
+   * @param token the session token.
+   * @param lastSeenSequence last event sequence the client applied, or 0 on first connect, which
+   *     always yields a snapshot.
+   * @return the missed events, or a snapshot if they are no longer all kept.
+   * @throws InvalidSessionException if the token is unknown or has expired.
+   */
+  Resync resume(String token, long lastSeenSequence) throws InvalidSessionException;
+
+  /**
+   * Marks a session as having lost its connection. It can be resumed until it expires.
+   * @param token the session token.
+   */
+  void disconnect(String token);
+
+  /**
+   * Ends a session for good.
+   * @param token the session token.
+   */
+  void close(String token);
+
+  /**
+   * Drops sessions that have been disconnected for longer than the timeout.
+   * @return number of sessions dropped.
+   */
+  int expireSessions();
+
+  /**
+   * Getter for the recorded event stream of a room.
+   * @param roomId id of the room.
+   * @return the log, or null if the room is not recorded.
+   */
+  RoomEventLog getEventLog(String roomId);
+}
@@ -0,0 +1,195 @@
+package model.session;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.broadcast.ProjectionCache;
+import model.exceptions.InvalidSessionException;
+import model.game.Game;
+import model.game.GameState;
+import model.game.Player;
+import model.game.Rank;
+import model.network.Room;
+import model.network.RoomRegistry;
+import model.network.User;
+
+/**
+ * In-memory session manager.
+ *
+ * Every recorded room has a {@link RoomEventLog} listening on the room's publisher. Events are
+ * published while the room's lock is held, so reading the log or taking a snapshot under the
+ * same lock gives a resync that lines up exactly with the stream the client continues on.
+ * Sessions do not survive a restart; clients then open a new one.
+ */
+public class SessionManagerImpl implements SessionManager {
+  private static final int DEFAULT_HISTORY_SIZE = 256;
+  private static final long DEFAULT_SESSION_TIMEOUT_MILLIS = 60_000;
+  private static final int TOKEN_BYTES = 16;
+
+  private final RoomRegistry registry;
+  private final int historySize;
+  private final long sessionTimeoutMillis;
+  private final SecureRandom random = new SecureRandom();
+  private final Base64.Encoder tokenEncoder = Base64.getUrlEncoder().withoutPadding();
+  private final Map<String, SessionImpl> sessions = new ConcurrentHashMap<>();
+  private final Map<String, RoomEventLog> logs = new ConcurrentHashMap<>();
+
+  public SessionManagerImpl(RoomRegistry registry) {
+    this(registry, DEFAULT_HISTORY_SIZE, DEFAULT_SESSION_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * @param registry registry to look rooms up in.
+   * @param historySize number of events kept per room for reconnecting clients.
+   * @param sessionTimeoutMillis how long a disconnected session can still be resumed.
+   */
+  public SessionManagerImpl(RoomRegistry registry, int historySize, long sessionTimeoutMillis) {
+    this.registry = registry;
+    this.historySize = historySize;
+    this.sessionTimeoutMillis = sessionTimeoutMillis;
+  }
+
+  @Override
+  public void attach(Room room) {
+    if (room.getEventPublisher() == null) {
+      throw new IllegalStateException("Room " + room.getId() + " does not publish events");
+    }
+    this.logs.computeIfAbsent(room.getId(), id -> {
+      RoomEventLog log = new RoomEventLog(this.historySize);
+      room.getEventPublisher().addListener(log);
+      return log;
+    });
+  }
+
+  @Override
+  public Session open(String roomId, String userId) {
+    Room room = getRoom(roomId);
+    boolean member = false;
+    for (User user : room.getMembers()) {
+      member |= user.getId().equals(userId);
+    }
+    if (!member) {
+      throw new IllegalArgumentException("User " + userId + " is not a member of room " + roomId);
+    }
+
+    attach(room);
+    SessionImpl session = new SessionImpl(newToken(), roomId, userId);
+    this.sessions.put(session.getToken(), session);
+    return session;
+  }
+
+  @Override
+  public Session getSession(String token) {
+    return getLive(token);
+  }
+
+  @Override
+  public Resync resume(String token, long lastSeenSequence) {
+    SessionImpl session = getLive(token);
+    Room room = this.registry.getRoom(session.getRoomId());
+    RoomEventLog log = this.logs.get(session.getRoomId());
+    if (room == null || log == null) {
+      this.sessions.remove(token);
+      throw new InvalidSessionException("Room of the session has closed");
+    }
+
+    session.markConnected();
+    synchronized (room) {
+      List<SequencedEvent> missed = lastSeenSequence > 0 ? log.readAfter(lastSeenSequence) : null;
+      if (missed != null) {
+        return Resync.ofEvents(log.getLastSequence(), missed);
+      }
+
+      Game game = room.getGame();
+      if (game == null) {
+        return Resync.ofSnapshot(log.getLastSequence(), null, null);
+      }
+      GameState state = game.getGameState();
+      Rank[][] hands = ProjectionCache.captureHands(state.getPlayers());
+      Rank[] hand = null;
+      List<Player> players = state.getPlayers();
+      for (int seat = 0; seat < players.size(); seat++) {
+        if (players.get(seat).getId().equals(session.getUserId())) {
+          hand = hands[seat];
+        }
+      }
+      return Resync.ofSnapshot(log.getLastSequence(), state, hand);
+    }
+  }
+
+  @Override
+  public void disconnect(String token) {
+    SessionImpl session = this.sessions.get(token);
+    if (session != null) {
+      session.markDisconnected(System.currentTimeMillis());
+    }
+  }
+
+  @Override
+  public void close(String token) {
+    this.sessions.remove(token);
+  }
+
+  @Override
+  public int expireSessions() {
+    long now = System.currentTimeMillis();
+    int expired = 0;
+    Iterator<SessionImpl> it = this.sessions.values().iterator();
+    while (it.hasNext()) {
+      if (isExpired(it.next(), now)) {
+        it.remove();
+        expired++;
+      }
+    }
+    return expired;
+  }
+
+  @Override
+  public RoomEventLog getEventLog(String roomId) {
+    return this.logs.get(roomId);
+  }
+
+  @Override
+  public void onRoomChanged(Room room) {
+    attach(room);
+  }
+
+  @Override
+  public void onRoomClosed(Room room) {
+    RoomEventLog log = this.logs.remove(room.getId());
+    if (log != null) {
+      room.getEventPublisher().removeListener(log);
+    }
+    this.sessions.values().removeIf(session -> session.getRoomId().equals(room.getId()));
+  }
+
+  private SessionImpl getLive(String token) {
+    SessionImpl session = token == null ? null : this.sessions.get(token);
+    if (session == null || isExpired(session, System.currentTimeMillis())) {
+      throw new InvalidSessionException("Unknown or expired session");
+    }
+    return session;
+  }
+
+  private boolean isExpired(SessionImpl session, long now) {
+    return !session.isConnected() && now - session.getDisconnectedAt() > this.sessionTimeoutMillis;
+  }
+
+  private Room getRoom(String roomId) {
+    Room room = this.registry.getRoom(roomId);
+    if (room == null) {
+      throw new IllegalArgumentException("No room with id " + roomId);
+    }
+    return room;
+  }
+
+  private String newToken() {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    this.random.nextBytes(bytes);
+    return this.tokenEncoder.encodeToString(bytes);
+  }
+}
@@ -0,0 +1,60 @@
+package model.stats;
+
+import java.util.Arrays;
+
+/**
+ * A player's lifetime counters at one point in time.
+ */
+public final class PlayerStats {
+  private static final Stat[] STATS = Stat.values();
+
+  private final long playerId;
+  private final int[] counts;
+
+  /**
+   * @param playerId numeric id of the player.
+   * @param counts one count per {@link Stat}, in declaration order; not copied.
+   */
+  public PlayerStats(long playerId, int[] counts) {
+    if (counts.length != STATS.length) {
+      throw new IllegalArgumentException("Expected " + STATS.length + " counts, got " + counts.length);
+    }
+    this.playerId = playerId;
+    this.counts = counts;
+  }
+
+  /**
+   * Getter for the player's numeric id.
+   * @return the id, as from {@link model.game.Player#getNumericId()}.
+   */
+  public long getPlayerId() {
+    return this.playerId;
+  }
+
+  public int get(Stat stat) {
+    return this.counts[stat.ordinal()];
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof PlayerStats)) {
+      return false;
+    }
+    PlayerStats stats = (PlayerStats) other;
+    return this.playerId == stats.playerId && Arrays.equals(this.counts, stats.counts);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(this.playerId) + Arrays.hashCode(this.counts);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder().append(this.playerId).append(':');
+    for (Stat stat : STATS) {
+      builder.append(' ').append(stat.name().toLowerCase()).append('=').append(this.counts[stat.ordinal()]);
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,44 @@
+package model.stats;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import model.network.Room;
+
+/**
+ * Durable lifetime statistics per player, derived from game events. Players in different rooms
+ * may be updated concurrently.
+ */
+public interface PlayerStatsStore extends Closeable {
+  /**
+   * Starts counting the events of a room, if not already counted.
+   * @param room the room to follow.
+   */
+  void attach(Room room);
+
+  /**
+   * Adds one to a counter of a player, creating their record if needed.
+   * @param playerId numeric id of the player.
+   * @param stat counter to increase.
+   */
+  void increment(long playerId, Stat stat);
+
+  /**
+   * Getter for a player's counters.
+   * @param playerId numeric id of the player.
+   * @return the counters, or null if nothing was recorded for the player.
+   */
+  PlayerStats get(long playerId);
+
+  /**
+   * Getter for the number of players with a record.
+   * @return number of records.
+   */
+  long size();
+
+  /**
+   * Writes every change made so far to the storage device.
+   * @throws IOException if the changes cannot be written.
+   */
+  void flush() throws IOException;
+}
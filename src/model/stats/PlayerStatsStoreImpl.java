@@ -0,0 +1,415 @@
+package model.stats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import model.events.GameEvent;
+import model.events.GameEventListener;
+import model.network.Room;
+import model.network.User;
+
+/**
+ * Player statistics kept in a memory-mapped file of fixed-size records.
+ *
+ * The file is an open-addressing hash table: a player's id hashes straight to a record, which
+ * holds the id and one int per {@link Stat}, so a lookup touches one page and an update is an
+ * in-place write to the mapping with nothing serialized. The table is split into {@value
+ * #PARTITIONS} partitions, each probed on its own and guarded by its own lock, so players in
+ * different rooms rarely contend. When a partition fills to three quarters the whole table is
+ * rehashed into a file twice the size, which is fsynced and renamed over the old one.
+ *
+ * Changes reach the file as soon as they are made and survive the process dying; they are on the
+ * device after {@link #flush()} or {@link #close()}.
+ */
+public class PlayerStatsStoreImpl implements PlayerStatsStore {
+  private static final int MAGIC = 0x4C425354; // "LBST"
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 4096;
+  private static final int SIZES_OFFSET = 64;
+  private static final int RECORD_BYTES = 64;
+  private static final int STATE_OFFSET = 8;
+  private static final int COUNTS_OFFSET = 12;
+  private static final int USED = 1;
+  private static final int PARTITIONS = 64;
+  private static final int PARTITION_BITS = 6;
+  private static final int MIN_PARTITION_CAPACITY = 1024;
+  private static final int MAX_PARTITION_CAPACITY = 1 << 30;
+  private static final int SEGMENT_BITS = 30;
+  private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final Stat[] STATS = Stat.values();
+
+  private final Path file;
+  private final ReentrantLock[] locks = new ReentrantLock[PARTITIONS];
+  private final Map<String, StatsRecorder> recorders = new ConcurrentHashMap<>();
+  private volatile Table table;
+
+  /**
+   * Opens the store in a file, creating it at the smallest size if missing.
+   * @param file file holding the records.
+   * @throws IOException if the file cannot be opened or is not a statistics file.
+   */
+  public PlayerStatsStoreImpl(Path file) throws IOException {
+    this(file, (long) PARTITIONS * MIN_PARTITION_CAPACITY / 2);
+  }
+
+  /**
+   * Opens the store in a file, creating it if missing.
+   * @param file file holding the records.
+   * @param expectedPlayers number of players to size a new file for, so it never needs to grow
+   *     before then; ignored when the file exists.
+   * @throws IOException if the file cannot be opened or is not a statistics file.
+   */
+  public PlayerStatsStoreImpl(Path file, long expectedPlayers) throws IOException {
+    this.file = file;
+    for (int i = 0; i < PARTITIONS; i++) {
+      this.locks[i] = new ReentrantLock();
+    }
+    if (Files.exists(file)) {
+      this.table = Table.open(file);
+    } else {
+      long perPartition = expectedPlayers / PARTITIONS * 4 / 3 + 1;
+      int capacity = MIN_PARTITION_CAPACITY;
+      while (capacity < perPartition && capacity < MAX_PARTITION_CAPACITY) {
+        capacity <<= 1;
+      }
+      Path temp = temp(file);
+      Table created = Table.create(temp, capacity);
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      this.table = created;
+    }
+  }
+
+  @Override
+  public void attach(Room room) {
+    if (room.getEventPublisher() == null) {
+      throw new IllegalStateException("Room " + room.getId() + " does not publish events");
+    }
+    this.recorders.computeIfAbsent(room.getId(), id -> {
+      StatsRecorder recorder = new StatsRecorder(room);
+      room.getEventPublisher().addListener(recorder);
+      return recorder;
+    });
+  }
+
+  @Override
+  public void increment(long playerId, Stat stat) {
+    long hash = hash(playerId);
+    int partition = (int) (hash >>> (Long.SIZE - PARTITION_BITS));
+    ReentrantLock lock = this.locks[partition];
+    while (true) {
+      Table full;
+      lock.lock();
+      try {
+        Table table = this.table;
+        long position = table.find(partition, playerId, hash);
+        if (table.getInt(position + STATE_OFFSET) == USED) {
+          increment(table, position, stat);
+          return;
+        }
+        int size = table.getSize(partition);
+        if (size + 1 <= table.capacity / 4 * 3) {
+          table.putLong(position, playerId);
+          table.putInt(position + STATE_OFFSET, USED);
+          table.setSize(partition, size + 1);
+          increment(table, position, stat);
+          return;
+        }
+        full = table;
+      } finally {
+        lock.unlock();
+      }
+      // Growing takes every partition's lock, in order, so this one has to be released first
+      grow(full);
+    }
+  }
+
+  @Override
+  public PlayerStats get(long playerId) {
+    long hash = hash(playerId);
+    int partition = (int) (hash >>> (Long.SIZE - PARTITION_BITS));
+    ReentrantLock lock = this.locks[partition];
+    lock.lock();
+    try {
+      Table table = this.table;
+      long position = table.find(partition, playerId, hash);
+      if (table.getInt(position + STATE_OFFSET) != USED) {
+        return null;
+      }
+      int[] counts = new int[STATS.length];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = table.getInt(position + COUNTS_OFFSET + (long) Integer.BYTES * i);
+      }
+      return new PlayerStats(playerId, counts);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long size() {
+    long size = 0;
+    for (int partition = 0; partition < PARTITIONS; partition++) {
+      this.locks[partition].lock();
+      try {
+        size += this.table.getSize(partition);
+      } finally {
+        this.locks[partition].unlock();
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public void flush() {
+    // A concurrent grow forces the new file itself before anything is written to it
+    this.table.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    lockAll();
+    try {
+      this.table.force();
+      this.table.channel.close();
+    } finally {
+      unlockAll();
+    }
+  }
+
+  private static void increment(Table table, long record, Stat stat) {
+    long counter = record + COUNTS_OFFSET + (long) Integer.BYTES * stat.ordinal();
+    table.putInt(counter, table.getInt(counter) + 1);
+  }
+
+  /** Doubles the table, unless another thread already replaced it. */
+  private void grow(Table full) {
+    lockAll();
+    try {
+      if (this.table != full) {
+        return;
+      }
+      if (full.capacity >= MAX_PARTITION_CAPACITY) {
+        throw new IllegalStateException("Statistics store is full");
+      }
+      Path temp = temp(this.file);
+      Table grown = Table.create(temp, full.capacity * 2);
+      for (int partition = 0; partition < PARTITIONS; partition++) {
+        for (int index = 0; index < full.capacity; index++) {
+          long from = full.position(partition, index);
+          if (full.getInt(from + STATE_OFFSET) == USED) {
+            long playerId = full.getLong(from);
+            long to = grown.find(partition, playerId, hash(playerId));
+            for (int offset = 0; offset < RECORD_BYTES; offset += Long.BYTES) {
+              grown.putLong(to + offset, full.getLong(from + offset));
+            }
+          }
+        }
+        grown.setSize(partition, full.getSize(partition));
+      }
+      grown.force();
+      Files.move(temp, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      this.table = grown;
+      full.channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  private void lockAll() {
+    for (ReentrantLock lock : this.locks) {
+      lock.lock();
+    }
+  }
+
+  private void unlockAll() {
+    for (int i = PARTITIONS - 1; i >= 0; i--) {
+      this.locks[i].unlock();
+    }
+  }
+
+  private static Path temp(Path file) {
+    return file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+  }
+
+  /** Mixes an id so both the high bits (partition) and low bits (index) are spread. */
+  private static long hash(long playerId) {
+    long h = playerId;
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+
+  /**
+   * One mapping of the file: the header page followed by the partitions' records, mapped in
+   * 1 GiB segments since a single mapping is limited to 2 GiB. Records never straddle segments.
+   */
+  private static class Table {
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int capacity;
+
+    private Table(FileChannel channel, int capacity) throws IOException {
+      this.channel = channel;
+      this.capacity = capacity;
+      long bytes = HEADER_BYTES + (long) PARTITIONS * capacity * RECORD_BYTES;
+      this.segments = new MappedByteBuffer[(int) ((bytes + SEGMENT_MASK) >>> SEGMENT_BITS)];
+      for (int i = 0; i < this.segments.length; i++) {
+        long start = (long) i << SEGMENT_BITS;
+        this.segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(bytes - start, 1L << SEGMENT_BITS));
+      }
+    }
+
+    private static Table create(Path file, int capacity) throws IOException {
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      Table table = new Table(channel, capacity);
+      table.putInt(0, MAGIC);
+      table.putInt(4, VERSION);
+      table.putInt(8, RECORD_BYTES);
+      table.putInt(12, PARTITIONS);
+      table.putInt(16, capacity);
+      return table;
+    }
+
+    private static Table open(Path file) throws IOException {
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_BYTES));
+        if (header.limit() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+          throw new IOException(file + " is not a statistics file");
+        }
+        if (header.getInt(4) != VERSION || header.getInt(8) != RECORD_BYTES || header.getInt(12) != PARTITIONS) {
+          throw new IOException("Unsupported statistics file version " + header.getInt(4));
+        }
+        return new Table(channel, header.getInt(16));
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Finds the record of a player, or the empty record where they belong.
+     * @return position of the record in the file.
+     */
+    private long find(int partition, long playerId, long hash) {
+      int mask = this.capacity - 1;
+      for (int index = (int) hash & mask; ; index = (index + 1) & mask) {
+        long position = position(partition, index);
+        if (getInt(position + STATE_OFFSET) != USED || getLong(position) == playerId) {
+          return position;
+        }
+      }
+    }
+
+    private long position(int partition, int index) {
+      return HEADER_BYTES + ((long) partition * this.capacity + index) * RECORD_BYTES;
+    }
+
+    private int getSize(int partition) {
+      return getInt(SIZES_OFFSET + (long) Integer.BYTES * partition);
+    }
+
+    private void setSize(int partition, int size) {
+      putInt(SIZES_OFFSET + (long) Integer.BYTES * partition, size);
+    }
+
+    private int getInt(long position) {
+      return this.segments[(int) (position >>> SEGMENT_BITS)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+    private long getLong(long position) {
+      return this.segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    private void putInt(long position, int value) {
+      this.segments[(int) (position >>> SEGMENT_BITS)].putInt((int) (position & SEGMENT_MASK), value);
+    }
+
+    private void putLong(long position, long value) {
+      this.segments[(int) (position >>> SEGMENT_BITS)].putLong((int) (position & SEGMENT_MASK), value);
+    }
+
+    private void force() {
+      for (MappedByteBuffer segment : this.segments) {
+        segment.force();
+      }
+    }
+  }
+
+  /**
+   * Counts the events of one room. Events are published under the room's lock, so the room's
+   * members can be read here to map player ids to numbers.
+   */
+  private class StatsRecorder implements GameEventListener {
+    private final Room room;
+    private final Map<String, Long> numericIds = new HashMap<>();
+
+    private StatsRecorder(Room room) {
+      this.room = room;
+    }
+
+    @Override
+    public void onGameEvent(GameEvent event) {
+      switch (event.getEventType()) {
+        case PLAYER_INITIALIZED:
+          count(event.getPlayerId(), Stat.GAMES);
+          break;
+        case GAME_ENDED:
+          count(event.getPlayerId(), Stat.WINS);
+          break;
+        case CLAIM_MADE:
+          count(event.getPlayerId(), Stat.CLAIMS);
+          break;
+        case CHALLENGE_RESULT:
+          if (event.getValue() == 1) {
+            count(event.getPlayerId(), Stat.LIES_CAUGHT);
+            count(event.getPlayerId(), Stat.CHALLENGES_WON);
+            count(event.getTargetPlayerId(), Stat.LIES_TOLD);
+            count(event.getTargetPlayerId(), Stat.CHALLENGES_LOST);
+          } else {
+            count(event.getPlayerId(), Stat.CHALLENGES_LOST);
+            count(event.getTargetPlayerId(), Stat.CHALLENGES_WON);
+          }
+          break;
+        case PLAYER_SHOT:
+          // Announcing the pull carries no chamber; the outcome does
+          if (event.getValue() >= 0) {
+            count(event.getPlayerId(), Stat.SHOTS_SURVIVED);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void count(String playerId, Stat stat) {
+      if (playerId == null) {
+        return;
+      }
+      Long numericId = this.numericIds.get(playerId);
+      if (numericId == null) {
+        for (User member : this.room.getMembers()) {
+          this.numericIds.put(member.getId(), member.getNumericId());
+        }
+        numericId = this.numericIds.get(playerId);
+      }
+      if (numericId != null) {
+        increment(numericId, stat);
+      }
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package model.stats;
+
+/**
+ * Lifetime counters kept for every player. The order is the order of the counters in a stored
+ * record, so new counters go at the end.
+ */
+public enum Stat {
+  /** Games the player was dealt into. */
+  GAMES,
+  /** Games the player was the last one standing in. */
+  WINS,
+  /** Claims made. */
+  CLAIMS,
+  /** Claims shown to be lies by a challenge; unchallenged lies are never revealed. */
+  LIES_TOLD,
+  /** Challenges by the player that exposed a lie. */
+  LIES_CAUGHT,
+  /** Challenges decided in the player's favour, as challenger or as the challenged claimer. */
+  CHALLENGES_WON,
+  /** Challenges decided against the player, as challenger or as the challenged claimer. */
+  CHALLENGES_LOST,
+  /** Trigger pulls on an empty chamber. */
+  SHOTS_SURVIVED
+}
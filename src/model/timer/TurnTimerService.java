@@ -0,0 +1,28 @@
+package model.timer;
+
+import java.io.Closeable;
+
+import model.network.RoomListener;
+
+/**
+ * Gives every turn a deadline and plays a default move for a player who misses it. Register it
+ * as a {@link RoomListener} of the component that applies room changes; each change starts the
+ * clock for the player now on turn.
+ */
+public interface TurnTimerService extends RoomListener, Closeable {
+  /**
+   * Getter for when the current turn of a room times out.
+   * @param roomId id of the room.
+   * @return deadline in epoch milliseconds, or 0 if no turn is running.
+   */
+  long getDeadline(String roomId);
+
+  /**
+   * Getter for the number of rooms with a running turn clock.
+   * @return rooms being timed.
+   */
+  int getTimedRoomCount();
+
+  @Override
+  void close();
+}
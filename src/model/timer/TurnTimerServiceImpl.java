@@ -0,0 +1,161 @@
+package model.timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import model.actions.ActionResult;
+import model.actions.GameCommand;
+import model.game.Game;
+import model.game.GameState;
+import model.network.Room;
+import model.persistence.RecoveryManager;
+import util.TimingWheel;
+
+/**
+ * Turn timer backed by a {@link TimingWheel}, so rearming the clock of every room on every turn
+ * costs O(1) per room.
+ *
+ * Each room's clock carries a generation that is bumped on every change, and a timeout whose
+ * generation is no longer current does nothing. A move can still land after that check, or be
+ * waiting on the log flush before the generation is bumped, so the forced move is only applied if
+ * the room's last logged change is still the one the clock was armed for. The default move is
+ * claiming the first card in hand, or challenging and then shooting when a claim is not allowed.
+ * It goes through the {@link RecoveryManager} like any other command, on a separate pool because
+ * commands wait for the log to be flushed.
+ */
+public class TurnTimerServiceImpl implements TurnTimerService {
+  private static final long DEFAULT_TICK_MILLIS = 100;
+  private static final int DEFAULT_EXPIRY_THREADS = 2;
+
+  private final RecoveryManager manager;
+  private final long turnTimeoutMillis;
+  private final TimingWheel wheel;
+  private final ExecutorService expiries;
+  private final Map<String, RoomClock> clocks = new ConcurrentHashMap<>();
+
+  /**
+   * @param manager manager to apply default moves through.
+   * @param turnTimeoutMillis time each player gets per turn.
+   */
+  public TurnTimerServiceImpl(RecoveryManager manager, long turnTimeoutMillis) {
+    this.manager = manager;
+    this.turnTimeoutMillis = turnTimeoutMillis;
+    this.wheel = new TimingWheel(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    this.expiries = Executors.newFixedThreadPool(DEFAULT_EXPIRY_THREADS, runnable -> {
+      Thread thread = new Thread(runnable, "turn-timeout");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.wheel.start();
+  }
+
+  @Override
+  public void onRoomChanged(Room room) {
+    int seat;
+    long lsn;
+    synchronized (room) {
+      lsn = this.manager.getRoomLsn(room.getId());
+      Game game = room.getGame();
+      GameState state = game == null ? null : game.getGameState();
+      seat = state == null || state.isGameOver() ? -1 : state.getPlayers().indexOf(state.getCurrentPlayer());
+    }
+
+    RoomClock clock = this.clocks.computeIfAbsent(room.getId(), RoomClock::new);
+    synchronized (clock) {
+      clock.generation++;
+      if (clock.timeout != null) {
+        clock.timeout.cancel();
+        clock.timeout = null;
+      }
+      clock.deadline = 0;
+      if (seat < 0) {
+        this.clocks.remove(room.getId(), clock);
+        return;
+      }
+      long generation = clock.generation;
+      clock.deadline = System.currentTimeMillis() + this.turnTimeoutMillis;
+      clock.timeout = this.wheel.schedule(
+          () -> this.expiries.execute(() -> expire(clock, generation, seat, lsn)),
+          this.turnTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public void onRoomClosed(Room room) {
+    RoomClock clock = this.clocks.remove(room.getId());
+    if (clock != null) {
+      synchronized (clock) {
+        clock.generation++;
+        if (clock.timeout != null) {
+          clock.timeout.cancel();
+        }
+      }
+    }
+  }
+
+  @Override
+  public long getDeadline(String roomId) {
+    RoomClock clock = this.clocks.get(roomId);
+    if (clock == null) {
+      return 0;
+    }
+    synchronized (clock) {
+      return clock.deadline;
+    }
+  }
+
+  @Override
+  public int getTimedRoomCount() {
+    return this.clocks.size();
+  }
+
+  @Override
+  public void close() {
+    this.wheel.close();
+    this.expiries.shutdownNow();
+  }
+
+  private void expire(RoomClock clock, long generation, int seat, long lsn) {
+    synchronized (clock) {
+      if (clock.generation != generation) {
+        return; // the player moved in time
+      }
+    }
+
+    for (GameCommand command : defaultMoves(seat)) {
+      try {
+        ActionResult result = this.manager.execute(clock.roomId, command, lsn);
+        if (result.isSuccess()) {
+          return;
+        }
+      } catch (IllegalArgumentException e) {
+        return; // the room has closed
+      }
+    }
+  }
+
+  private static GameCommand[] defaultMoves(int seat) {
+    return new GameCommand[] {
+        GameCommand.claim(seat, 0),
+        GameCommand.challenge(seat),
+        GameCommand.shoot(seat)
+    };
+  }
+
+  /**
+   * Turn clock of one room; guarded by its own lock.
+   */
+  private static class RoomClock {
+    private final String roomId;
+    private long generation;
+    private long deadline;
+    private TimingWheel.Timeout timeout;
+
+    private RoomClock(String roomId) {
+      this.roomId = roomId;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package model.tournament;
+
+import java.util.Random;
+
+import model.actions.GameCommand;
+import model.game.Game;
+import model.game.Player;
+
+/**
+ * Decides the moves of a computer-controlled player. An instance is only used by one thread at
+ * a time, so it may keep caches; a tournament creates one per worker thread.
+ */
+public interface BotPolicy {
+  /**
+   * Chooses a move for the player whose turn it is.
+   * @param game the game being played.
+   * @param player the current player.
+   * @param random source of randomness for the decision.
+   * @return a move the player may make: a claim while they hold cards, a challenge while there is
+   *     an unsettled claim by another live player, otherwise a shot.
+   */
+  GameCommand decide(Game game, Player player, Random random);
+}
@@ -0,0 +1,51 @@
+package model.tournament;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.actions.GameCommand;
+import model.game.Card;
+import model.game.Game;
+import model.game.Player;
+
+/**
+ * Applies bot moves to headless games.
+ */
+final class Moves {
+  private Moves() {
+    throw new UnsupportedOperationException("Utility class cannot be instantiated");
+  }
+
+  /**
+   * Does what the claim, challenge and shoot actions do, without their console output, since the
+   * actions print to the shared, synchronized {@code System.out}. The move must already have been
+   * checked with the action's validity rules.
+   * @param game the game to play the move in.
+   * @param player the current player.
+   * @param command the move.
+   */
+  static void apply(Game game, Player player, GameCommand command) {
+    switch (command.getType()) {
+      case CLAIM: {
+        int[] indices = command.getCardIndices();
+        List<Card> cards = new ArrayList<>(indices.length);
+        for (int index : indices) {
+          cards.add(player.getHand().getAt(index));
+        }
+        game.claim(player, cards.size(), cards, game.getRank());
+        game.moveToNextMove();
+        break;
+      }
+      case CHALLENGE: {
+        Player loser = game.challengeClaim(player);
+        loser.shoot();
+        game.settleLastClaim();
+        game.moveToNextMove();
+        break;
+      }
+      default:
+        player.shoot();
+        game.moveToNextMove();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package model.tournament;
+
+import java.util.Random;
+
+import model.actions.GameCommand;
+import model.analysis.ClaimOdds;
+import model.analysis.ClaimOddsImpl;
+import model.game.Claim;
+import model.game.Game;
+import model.game.Hand;
+import model.game.Player;
+import model.game.Rank;
+
+/**
+ * Policy that challenges when the last claim is likely enough to be a lie and otherwise claims
+ * every card it holds of the round rank, bluffing with a single card when it
+ * holds none. It shoots only when it has neither a card nor a claim to challenge.
+ */
+public class OddsPolicy implements BotPolicy {
+  private final ClaimOdds odds = new ClaimOddsImpl();
+  private final double challengeThreshold;
+  private final double bluffRate;
+
+  /**
+   * @param challengeThreshold lie probability at or above which the last claim is challenged.
+   * @param bluffRate chance of adding one card of another rank to a truthful claim.
+   */
+  public OddsPolicy(double challengeThreshold, double bluffRate) {
+    this.challengeThreshold = challengeThreshold;
+    this.bluffRate = bluffRate;
+  }
+
+  @Override
+  public GameCommand decide(Game game, Player player, Random random) {
+    int seat = game.getSeat(player);
+    Claim last = game.getLastClaim();
+    boolean canChallenge = last != null && !last.getPlayer().equals(player) && last.getPlayer().isAlive();
+    if (canChallenge && this.odds.lieProbability(game.getCurrentRound(), player) >= this.challengeThreshold) {
+      return GameCommand.challenge(seat);
+    }
+
+    Hand hand = player.getHand();
+    if (hand == null || hand.getSize() == 0) {
+      return canChallenge ? GameCommand.challenge(seat) : GameCommand.shoot(seat);
+    }
+    Rank rank = game.getRank();
+    int[] matching = new int[hand.getSize()];
+    int count = 0;
+    int other = -1;
+    for (int i = 0; i < hand.getSize(); i++) {
+      Rank card = hand.getAt(i).getRank();
+      if (card == rank) {
+        matching[count++] = i;
+      } else if (other < 0) {
+        other = i;
+      }
+    }
+    if (other >= 0 && (count == 0 || random.nextDouble() < this.bluffRate)) {
+      matching[count++] = other;
+    }
+    int[] indices = new int[count];
+    System.arraycopy(matching, 0, indices, 0, count);
+    return GameCommand.claim(seat, indices);
+  }
+
+  @Override
+  public String toString() {
+    return "OddsPolicy(challenge >= " + this.challengeThreshold + ", bluff " + this.bluffRate + ")";
+  }
+}
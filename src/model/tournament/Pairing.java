@@ -0,0 +1,19 @@
+package model.tournament;
+
+/**
+ * How entrants are paired into head-to-head matches.
+ */
+public enum Pairing {
+  /** Every entrant plays every other entrant once. */
+  ROUND_ROBIN,
+  /**
+   * A fixed number of rounds; each pairs entrants with equal or nearby scores who have not met
+   * yet. An odd entrant out gets a bye worth a match win.
+   */
+  SWISS,
+  /**
+   * Single elimination; the loser of each match is out. Tied matches are decided by extra games.
+   * With an odd field the best seed still in gets a bye.
+   */
+  KNOCKOUT
+}
@@ -0,0 +1,305 @@
+package model.tournament;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import model.actions.GameCommand;
+import model.dataset.ColumnarWriter;
+import model.dataset.DecisionBatch;
+import model.dataset.Feature;
+import model.game.Claim;
+import model.game.Deck;
+import model.game.DeckImpl;
+import model.game.Game;
+import model.game.GameConstants;
+import model.game.GameImpl;
+import model.game.Player;
+import model.game.Rank;
+import model.network.UserImpl;
+
+/**
+ * Plays games between bot policies to produce training data: every decision becomes a row of
+ * {@link Feature}s, written to a {@link ColumnarWriter} in batches.
+ *
+ * Each worker owns one table of the configured size, dealt again for every game, its own instance
+ * of every policy and its own batch, and claims games a chunk at a time. Games are never split
+ * across batches, so a game's outcome can be filled into its rows when it ends, and a batch is
+ * handed to the writer when it might not hold another game. Memory is therefore bounded by the
+ * batches of the workers, whatever the number of games. Policies take turns in the seats, moving
+ * one seat along every game.
+ *
+ * As in the {@link TournamentRunner}, a policy whose move is not valid loses the game and the
+ * other players draw, as do all players of a game still going after {@value
+ * TournamentRunner#MAX_MOVES} moves.
+ */
+public class SelfPlayRunner {
+  private static final int GAMES_PER_CLAIM = 64;
+  private static final int DRAW = -1;
+
+  private final List<Supplier<BotPolicy>> policies;
+  private final int players;
+  private final int games;
+  private final int parallelism;
+  private final Supplier<Deck> decks;
+  private final int batchRows;
+
+  private SelfPlayRunner(Builder builder) {
+    this.policies = new ArrayList<>(builder.policies);
+    this.players = builder.players;
+    this.games = builder.games;
+    this.parallelism = builder.parallelism;
+    this.decks = builder.decks;
+    this.batchRows = builder.batchRows;
+  }
+
+  public static class Builder {
+    private final List<Supplier<BotPolicy>> policies = new ArrayList<>();
+    private int players = GameConstants.MIN_PLAYERS;
+    private int games = 10_000;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Supplier<Deck> decks = DeckImpl::new;
+    private int batchRows = 1 << 16;
+
+    /**
+     * Adds a policy to the rotation of seats.
+     * @param policies creates the policy, once per worker thread.
+     * @return this builder.
+     */
+    public Builder addPolicy(Supplier<BotPolicy> policies) {
+      this.policies.add(policies);
+      return this;
+    }
+
+    public Builder setPlayers(int players) {
+      this.players = players;
+      return this;
+    }
+
+    public Builder setGames(int games) {
+      this.games = games;
+      return this;
+    }
+
+    public Builder setParallelism(int parallelism) {
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Sets the deck each worker's table is dealt from, to play a rule variant.
+     * @param decks creates a deck, once per worker thread.
+     * @return this builder.
+     */
+    public Builder withDeck(Supplier<Deck> decks) {
+      this.decks = decks;
+      return this;
+    }
+
+    /**
+     * Sets the rows of each worker's batch, which is also the size of the row groups written.
+     * @param batchRows rows per batch; at least the moves a game may last.
+     * @return this builder.
+     */
+    public Builder setBatchRows(int batchRows) {
+      this.batchRows = batchRows;
+      return this;
+    }
+
+    public SelfPlayRunner build() {
+      if (this.policies.isEmpty()) {
+        throw new IllegalStateException("Self-play needs at least one policy");
+      }
+      if (this.players < GameConstants.MIN_PLAYERS || this.players > GameConstants.MAX_PLAYERS) {
+        throw new IllegalStateException("Players must be between " + GameConstants.MIN_PLAYERS
+            + " and " + GameConstants.MAX_PLAYERS);
+      }
+      if (this.games < 0 || this.parallelism < 1) {
+        throw new IllegalStateException("Games must not be negative and parallelism must be positive");
+      }
+      if (this.batchRows < TournamentRunner.MAX_MOVES) {
+        throw new IllegalStateException("Batches must hold at least " + TournamentRunner.MAX_MOVES + " rows");
+      }
+      return new SelfPlayRunner(this);
+    }
+  }
+
+  /**
+   * Plays the games and writes their decisions. The writer is left open.
+   * @param writer receives a row group per batch.
+   * @return the number of decisions written.
+   * @throws IOException if the writer fails.
+   */
+  public long run(ColumnarWriter writer) throws IOException {
+    ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+    AtomicInteger nextGame = new AtomicInteger();
+    List<Future<Long>> workers = new ArrayList<>(this.parallelism);
+    try {
+      for (int i = 0; i < this.parallelism; i++) {
+        workers.add(pool.submit(() -> new Table().playAll(nextGame, writer)));
+      }
+      long decisions = 0;
+      for (Future<Long> worker : workers) {
+        decisions += worker.get();
+      }
+      return decisions;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while playing", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw new IllegalStateException("Self-play failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * A worker's reusable game, policies and batch.
+   */
+  private class Table {
+    private final Game game;
+    private final BotPolicy[] instances = new BotPolicy[policies.size()];
+    private final DecisionBatch batch = new DecisionBatch(batchRows);
+
+    private Table() {
+      GameImpl.Builder builder = new GameImpl.Builder().withDeck(decks.get());
+      for (int seat = 0; seat < players; seat++) {
+        builder.addPlayer(new UserImpl("seat " + seat));
+      }
+      this.game = builder.build();
+    }
+
+    /**
+     * Plays games until none are left to claim, writing full batches and the last one.
+     * @return decisions written.
+     */
+    private long playAll(AtomicInteger nextGame, ColumnarWriter writer) {
+      long decisions = 0;
+      try {
+        int from;
+        while ((from = nextGame.getAndAdd(GAMES_PER_CLAIM)) < games) {
+          int to = Math.min(games, from + GAMES_PER_CLAIM);
+          for (int number = from; number < to; number++) {
+            if (this.batch.getCapacity() - this.batch.getRows() < TournamentRunner.MAX_MOVES) {
+              decisions += this.batch.getRows();
+              writer.write(this.batch);
+              this.batch.clear();
+            }
+            play(number);
+          }
+        }
+        decisions += this.batch.getRows();
+        writer.write(this.batch);
+        this.batch.clear();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return decisions;
+    }
+
+    /** Plays one game, adding a row per move and filling in the outcome when it ends. */
+    private void play(int number) {
+      BotPolicy[] bySeat = new BotPolicy[players];
+      for (int seat = 0; seat < players; seat++) {
+        bySeat[seat] = policy((number + seat) % policies.size());
+      }
+      Random random = ThreadLocalRandom.current();
+      int firstRow = this.batch.getRows();
+      int claimRow = -1;
+      this.game.resetGame();
+      this.game.startGame();
+      for (int move = 0; move < TournamentRunner.MAX_MOVES; move++) {
+        if (this.game.isGameOver()) {
+          Player winner = this.game.getWinner();
+          finish(firstRow, winner == null ? DRAW : this.game.getSeat(winner), DRAW);
+          return;
+        }
+        Player player = this.game.getCurrentPlayer();
+        if (player == null) {
+          break;
+        }
+        int seat = this.game.getSeat(player);
+        int row = this.batch.addRow();
+        record(row, number, seat, player);
+        try {
+          GameCommand command = bySeat[seat].decide(this.game, player, random);
+          this.batch.set(row, Feature.ACTION, command.getType().ordinal());
+          if (!command.toAction().isValidFor(this.game, player)) {
+            finish(firstRow, DRAW, seat);
+            return;
+          }
+          if (command.getType() == GameCommand.Type.CLAIM) {
+            int[] indices = command.getCardIndices();
+            this.batch.set(row, Feature.CLAIM_COUNT, indices.length);
+            this.batch.set(row, Feature.WAS_LIE, isLie(player, indices) ? 1 : 0);
+            claimRow = row;
+          } else if (command.getType() == GameCommand.Type.CHALLENGE) {
+            this.batch.set(row, Feature.WAS_LIE, this.game.getLastClaim().isValidClaim() ? 0 : 1);
+            if (claimRow >= 0) {
+              this.batch.set(claimRow, Feature.WAS_CHALLENGED, 1);
+            }
+          }
+          Moves.apply(this.game, player, command);
+        } catch (RuntimeException e) {
+          finish(firstRow, DRAW, seat);
+          return;
+        }
+      }
+      finish(firstRow, DRAW, DRAW);
+    }
+
+    /** Fills in the features known before the move. */
+    private void record(int row, int number, int seat, Player player) {
+      this.batch.set(row, Feature.GAME, number);
+      this.batch.set(row, Feature.SEAT, seat);
+      this.batch.set(row, Feature.ROUND_RANK, this.game.getRank().ordinal());
+      for (Rank rank : Rank.values()) {
+        this.batch.set(row, Feature.handCount(rank), player.getHand().countOf(rank));
+      }
+    }
+
+    /**
+     * Fills in the outcome of every row of the game that ended.
+     * @param winner winning seat, or {@link #DRAW}.
+     * @param forfeit seat that made an invalid move and lost while the others drew, or {@link #DRAW}.
+     */
+    private void finish(int firstRow, int winner, int forfeit) {
+      for (int row = firstRow; row < this.batch.getRows(); row++) {
+        int seat = this.batch.get(row, Feature.SEAT);
+        int outcome = seat == winner ? 1 : seat == forfeit || winner != DRAW ? 0 : DRAW;
+        this.batch.set(row, Feature.OUTCOME, outcome);
+      }
+    }
+
+    /**
+     * Checks a claim before it is made, since the round may be over and the claim gone after it.
+     * As in {@link Claim#isValidClaim()}, only cards of the round rank are truthful.
+     */
+    private boolean isLie(Player player, int[] indices) {
+      for (int index : indices) {
+        if (player.getHand().getAt(index).getRank() != this.game.getRank()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private BotPolicy policy(int index) {
+      if (this.instances[index] == null) {
+        this.instances[index] = policies.get(index).get();
+      }
+      return this.instances[index];
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package model.tournament;
+
+/**
+ * Results of one entrant in a tournament.
+ */
+public class Standing {
+  private static final double Z_95 = 1.959964;
+
+  private final String name;
+  private double points;
+  private int matches;
+  private int gamesPlayed;
+  private int gamesWon;
+  private int gamesDrawn;
+  private int eliminatedInRound;
+
+  Standing(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Getter for the match points: 1 for a match win or bye, 0.5 for a draw.
+   * @return the points.
+   */
+  public double getPoints() {
+    return this.points;
+  }
+
+  public int getMatches() {
+    return this.matches;
+  }
+
+  public int getGamesPlayed() {
+    return this.gamesPlayed;
+  }
+
+  public int getGamesWon() {
+    return this.gamesWon;
+  }
+
+  /**
+   * Getter for the games that hit the move limit without a winner.
+   * @return drawn games.
+   */
+  public int getGamesDrawn() {
+    return this.gamesDrawn;
+  }
+
+  /**
+   * Getter for the knockout round the entrant lost in.
+   * @return the 1-based round, or 0 if the entrant was not knocked out.
+   */
+  public int getEliminatedInRound() {
+    return this.eliminatedInRound;
+  }
+
+  /**
+   * Getter for the share of decided games won.
+   * @return the win rate, or 0 if no game was decided.
+   */
+  public double getWinRate() {
+    int decided = this.gamesPlayed - this.gamesDrawn;
+    return decided == 0 ? 0 : (double) this.gamesWon / decided;
+  }
+
+  /**
+   * Getter for the lower end of the 95% Wilson score interval of the win rate.
+   * @return the lower bound.
+   */
+  public double getWinRateLow() {
+    return wilson(-1);
+  }
+
+  /**
+   * Getter for the upper end of the 95% Wilson score interval of the win rate.
+   * @return the upper bound.
+   */
+  public double getWinRateHigh() {
+    return wilson(1);
+  }
+
+  private double wilson(int sign) {
+    int n = this.gamesPlayed - this.gamesDrawn;
+    if (n == 0) {
+      return sign < 0 ? 0 : 1;
+    }
+    double p = (double) this.gamesWon / n;
+    double z2 = Z_95 * Z_95;
+    double centre = p + z2 / (2 * n);
+    double spread = Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n));
+    return (centre + sign * spread) / (1 + z2 / n);
+  }
+
+  void addMatch(int won, int lost, int drawn) {
+    this.matches++;
+    this.gamesPlayed += won + lost + drawn;
+    this.gamesWon += won;
+    this.gamesDrawn += drawn;
+    if (won > lost) {
+      this.points += 1;
+    } else if (won == lost) {
+      this.points += 0.5;
+    }
+  }
+
+  void addBye() {
+    this.points += 1;
+  }
+
+  void eliminate(int round) {
+    this.eliminatedInRound = round;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %.1f points, %d/%d games won (%.1f%% [%.1f%%, %.1f%%])", this.name, this.points,
+        this.gamesWon, this.gamesPlayed, 100 * getWinRate(), 100 * getWinRateLow(), 100 * getWinRateHigh());
+  }
+}
@@ -0,0 +1,67 @@
+package model.tournament;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Final standings and throughput of a tournament.
+ */
+public class TournamentResult {
+  private final List<Standing> standings;
+  private final long games;
+  private final long moves;
+  private final long elapsedNanos;
+  private final int parallelism;
+
+  TournamentResult(List<Standing> standings, long games, long moves, long elapsedNanos, int parallelism) {
+    this.standings = Collections.unmodifiableList(standings);
+    this.games = games;
+    this.moves = moves;
+    this.elapsedNanos = elapsedNanos;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Getter for the standings, best first.
+   * @return the ranked standings.
+   */
+  public List<Standing> getStandings() {
+    return this.standings;
+  }
+
+  public long getGames() {
+    return this.games;
+  }
+
+  public long getMoves() {
+    return this.moves;
+  }
+
+  public long getElapsedNanos() {
+    return this.elapsedNanos;
+  }
+
+  public int getParallelism() {
+    return this.parallelism;
+  }
+
+  public double getGamesPerSecond() {
+    return this.games * 1e9 / Math.max(1, this.elapsedNanos);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("%-4s %-24s %7s %8s %8s %7s %17s%n",
+        "rank", "entrant", "points", "games", "won", "win%", "95% interval"));
+    int rank = 1;
+    for (Standing standing : this.standings) {
+      out.append(String.format("%-4d %-24s %7.1f %8d %8d %6.1f%% %7.1f%% - %5.1f%%%n", rank++,
+          standing.getName(), standing.getPoints(), standing.getGamesPlayed(), standing.getGamesWon(),
+          100 * standing.getWinRate(), 100 * standing.getWinRateLow(), 100 * standing.getWinRateHigh()));
+    }
+    out.append(String.format("%d games, %d moves in %.2f s on %d workers: %.0f games/s%n", this.games,
+        this.moves, this.elapsedNanos / 1e9, this.parallelism, getGamesPerSecond()));
+    return out.toString();
+  }
+}
@@ -0,0 +1,398 @@
+package model.tournament;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import model.actions.GameCommand;
+import model.game.Deck;
+import model.game.DeckImpl;
+import model.game.Game;
+import model.game.GameImpl;
+import model.game.Player;
+import model.network.UserImpl;
+
+/**
+ * Plays tournaments of head-to-head games between bot policies on a work-stealing pool.
+ *
+ * Entrants are paired round by round according to the {@link Pairing}. A match is a fixed number
+ * of games in which the entrants swap seats every game. The games of a round are split into small
+ * batches that idle workers steal, so even a lone knockout final keeps every worker busy. Each
+ * worker owns one two-seat game, which it deals again with {@link Game#resetGame()} for every game
+ * it plays, and its own instance of every policy.
+ *
+ * Moves are checked with the actions' validity rules but applied to the game directly, since the
+ * actions print to the shared, synchronized {@code System.out}. A policy whose move is not valid
+ * loses the game, and a game still going after {@value #MAX_MOVES} moves is a draw.
+ */
+public class TournamentRunner {
+  static final int MAX_MOVES = 1000;
+  private static final int GAMES_PER_TASK = 8;
+  private static final int MAX_TIEBREAK_GAMES = 99;
+
+  private final List<String> names;
+  private final List<Supplier<BotPolicy>> policies;
+  private final Pairing pairing;
+  private final int gamesPerMatch;
+  private final int rounds;
+  private final int parallelism;
+  private final Supplier<Deck> decks;
+
+  private TournamentRunner(Builder builder) {
+    this.names = new ArrayList<>(builder.names);
+    this.policies = new ArrayList<>(builder.policies);
+    this.pairing = builder.pairing;
+    this.gamesPerMatch = builder.gamesPerMatch;
+    this.rounds = builder.rounds;
+    this.parallelism = builder.parallelism;
+    this.decks = builder.decks;
+  }
+
+  public static class Builder {
+    private final List<String> names = new ArrayList<>();
+    private final List<Supplier<BotPolicy>> policies = new ArrayList<>();
+    private Pairing pairing = Pairing.ROUND_ROBIN;
+    private int gamesPerMatch = 100;
+    private int rounds;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Supplier<Deck> decks = DeckImpl::new;
+
+    /**
+     * Adds an entrant. Earlier entrants are seeded higher in a knockout.
+     * @param name name shown in the standings.
+     * @param policies creates the entrant's policy, once per worker thread.
+     * @return this builder.
+     */
+    public Builder addEntrant(String name, Supplier<BotPolicy> policies) {
+      this.names.add(name);
+      this.policies.add(policies);
+      return this;
+    }
+
+    public Builder setPairing(Pairing pairing) {
+      this.pairing = pairing;
+      return this;
+    }
+
+    public Builder setGamesPerMatch(int gamesPerMatch) {
+      this.gamesPerMatch = gamesPerMatch;
+      return this;
+    }
+
+    /**
+     * Sets the number of Swiss rounds; by default, enough for a single leader.
+     * @param rounds number of rounds.
+     * @return this builder.
+     */
+    public Builder setRounds(int rounds) {
+      this.rounds = rounds;
+      return this;
+    }
+
+    public Builder setParallelism(int parallelism) {
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Sets the deck each worker's table is dealt from, to play a rule variant.
+     * @param decks creates a deck, once per worker thread.
+     * @return this builder.
+     */
+    public Builder withDeck(Supplier<Deck> decks) {
+      this.decks = decks;
+      return this;
+    }
+
+    public TournamentRunner build() {
+      if (this.names.size() < 2) {
+        throw new IllegalStateException("A tournament needs at least two entrants");
+      }
+      if (this.gamesPerMatch < 1 || this.parallelism < 1) {
+        throw new IllegalStateException("Games per match and parallelism must be positive");
+      }
+      return new TournamentRunner(this);
+    }
+  }
+
+  /**
+   * Plays the tournament.
+   * @return the final standings and throughput.
+   */
+  public TournamentResult run() {
+    ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+    Run run = new Run(pool);
+    long start = System.nanoTime();
+    try {
+      switch (this.pairing) {
+        case ROUND_ROBIN:
+          run.roundRobin();
+          break;
+        case SWISS:
+          run.swiss();
+          break;
+        case KNOCKOUT:
+          run.knockout();
+          break;
+        default:
+          throw new IllegalStateException("Unknown pairing: " + this.pairing);
+      }
+    } finally {
+      pool.shutdown();
+    }
+    long elapsed = System.nanoTime() - start;
+
+    List<Standing> standings = new ArrayList<>(run.standings);
+    standings.sort(Comparator.comparingDouble(Standing::getPoints)
+        .thenComparingDouble(Standing::getWinRate).reversed());
+    return new TournamentResult(standings, run.games, run.moves, elapsed, this.parallelism);
+  }
+
+  /**
+   * State of one tournament being played.
+   */
+  private class Run {
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Table> tables = ThreadLocal.withInitial(Table::new);
+    private final List<Standing> standings = new ArrayList<>();
+    private long games;
+    private long moves;
+
+    private Run(ForkJoinPool pool) {
+      this.pool = pool;
+      for (String name : names) {
+        this.standings.add(new Standing(name));
+      }
+    }
+
+    private void roundRobin() {
+      List<int[]> pairs = new ArrayList<>();
+      for (int a = 0; a < names.size(); a++) {
+        for (int b = a + 1; b < names.size(); b++) {
+          pairs.add(new int[] {a, b});
+        }
+      }
+      record(pairs, play(pairs, 0, gamesPerMatch));
+    }
+
+    private void swiss() {
+      int count = names.size();
+      int total = rounds > 0 ? rounds : 32 - Integer.numberOfLeadingZeros(count - 1);
+      boolean[][] met = new boolean[count][count];
+      boolean[] hadBye = new boolean[count];
+
+      for (int round = 0; round < total; round++) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+          order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> this.standings.get(i).getPoints())
+            .thenComparingInt(i -> this.standings.get(i).getGamesWon()).reversed());
+
+        if (order.size() % 2 == 1) {
+          int bye = order.size() - 1;
+          while (bye > 0 && hadBye[order.get(bye)]) {
+            bye--;
+          }
+          int entrant = order.remove(bye);
+          hadBye[entrant] = true;
+          this.standings.get(entrant).addBye();
+        }
+
+        List<int[]> pairs = new ArrayList<>();
+        while (!order.isEmpty()) {
+          int a = order.remove(0);
+          int next = 0;
+          while (next < order.size() - 1 && met[a][order.get(next)]) {
+            next++;
+          }
+          int b = order.remove(next);
+          met[a][b] = true;
+          met[b][a] = true;
+          pairs.add(new int[] {a, b});
+        }
+        record(pairs, play(pairs, 0, gamesPerMatch));
+      }
+    }
+
+    private void knockout() {
+      List<Integer> alive = new ArrayList<>();
+      for (int i = 0; i < names.size(); i++) {
+        alive.add(i);
+      }
+
+      for (int round = 1; alive.size() > 1; round++) {
+        List<Integer> next = new ArrayList<>();
+        int low = 0;
+        int high = alive.size() - 1;
+        if (alive.size() % 2 == 1) {
+          next.add(alive.get(0));
+          this.standings.get(alive.get(0)).addBye();
+          low = 1;
+        }
+        List<int[]> pairs = new ArrayList<>();
+        while (low < high) {
+          pairs.add(new int[] {alive.get(low++), alive.get(high--)});
+        }
+
+        long[][] results = play(pairs, 0, gamesPerMatch);
+        for (int i = 0; i < pairs.size(); i++) {
+          List<int[]> tied = List.of(pairs.get(i));
+          for (int extra = 0; results[i][0] == results[i][1] && extra < MAX_TIEBREAK_GAMES; extra++) {
+            long[] game = play(tied, gamesPerMatch + extra, gamesPerMatch + extra + 1)[0];
+            for (int field = 0; field < results[i].length; field++) {
+              results[i][field] += game[field];
+            }
+          }
+          // Still tied after the extra games only if they were all drawn; the higher seed goes through
+          boolean firstWins = results[i][0] >= results[i][1];
+          int winner = pairs.get(i)[firstWins ? 0 : 1];
+          int loser = pairs.get(i)[firstWins ? 1 : 0];
+          next.add(winner);
+          this.standings.get(loser).eliminate(round);
+        }
+        record(pairs, results);
+        next.sort(null);
+        alive = next;
+      }
+    }
+
+    /**
+     * Plays a round of matches in parallel. Game numbers decide who sits first, so extra games
+     * continue the numbering of the match.
+     * @return per match: games won by the first entrant, by the second, drawn, and moves made.
+     */
+    private long[][] play(List<int[]> pairs, int from, int to) {
+      List<ForkJoinTask<long[]>> tasks = new ArrayList<>(pairs.size());
+      for (int[] pair : pairs) {
+        tasks.add(this.pool.submit(new MatchTask(this.tables, pair[0], pair[1], from, to)));
+      }
+      long[][] results = new long[pairs.size()][];
+      for (int i = 0; i < tasks.size(); i++) {
+        results[i] = tasks.get(i).join();
+        this.games += results[i][0] + results[i][1] + results[i][2];
+        this.moves += results[i][3];
+      }
+      return results;
+    }
+
+    private void record(List<int[]> pairs, long[][] results) {
+      for (int i = 0; i < pairs.size(); i++) {
+        int[] pair = pairs.get(i);
+        long[] result = results[i];
+        this.standings.get(pair[0]).addMatch((int) result[0], (int) result[1], (int) result[2]);
+        this.standings.get(pair[1]).addMatch((int) result[1], (int) result[0], (int) result[2]);
+      }
+    }
+  }
+
+  /**
+   * A range of the games of one match, split in halves until small enough to play.
+   */
+  private class MatchTask extends RecursiveTask<long[]> {
+    private final ThreadLocal<Table> tables;
+    private final int first;
+    private final int second;
+    private final int from;
+    private final int to;
+
+    private MatchTask(ThreadLocal<Table> tables, int first, int second, int from, int to) {
+      this.tables = tables;
+      this.first = first;
+      this.second = second;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (this.to - this.from > GAMES_PER_TASK) {
+        int middle = (this.from + this.to) >>> 1;
+        MatchTask left = new MatchTask(this.tables, this.first, this.second, this.from, middle);
+        left.fork();
+        long[] result = new MatchTask(this.tables, this.first, this.second, middle, this.to).compute();
+        long[] other = left.join();
+        for (int i = 0; i < result.length; i++) {
+          result[i] += other[i];
+        }
+        return result;
+      }
+
+      Table table = this.tables.get();
+      long[] result = new long[4];
+      for (int game = this.from; game < this.to; game++) {
+        boolean swapped = (game & 1) == 1;
+        long movesBefore = table.moves;
+        int winner = swapped ? table.play(this.second, this.first) : table.play(this.first, this.second);
+        if (winner < 0) {
+          result[2]++;
+        } else {
+          result[(winner == 0) != swapped ? 0 : 1]++;
+        }
+        result[3] += table.moves - movesBefore;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A worker's reusable game and its own instance of each entrant's policy.
+   */
+  private class Table {
+    private final Player[] seats = {new UserImpl("seat 0"), new UserImpl("seat 1")};
+    private final Game game;
+    private final BotPolicy[] instances = new BotPolicy[policies.size()];
+    private long moves;
+
+    private Table() {
+      this.game = new GameImpl.Builder().withDeck(decks.get())
+          .addPlayer(this.seats[0]).addPlayer(this.seats[1]).build();
+    }
+
+    /**
+     * Plays one game.
+     * @return the winning seat, or -1 for a draw.
+     */
+    private int play(int first, int second) {
+      BotPolicy[] bySeat = {policy(first), policy(second)};
+      Random random = ThreadLocalRandom.current();
+      this.game.resetGame();
+      this.game.startGame();
+      for (int move = 0; move < MAX_MOVES; move++) {
+        if (this.game.isGameOver()) {
+          Player winner = this.game.getWinner();
+          return winner == null ? -1 : this.game.getSeat(winner);
+        }
+        Player player = this.game.getCurrentPlayer();
+        if (player == null) {
+          return -1;
+        }
+        int seat = this.game.getSeat(player);
+        try {
+          GameCommand command = bySeat[seat].decide(this.game, player, random);
+          if (!command.toAction().isValidFor(this.game, player)) {
+            return 1 - seat;
+          }
+          Moves.apply(this.game, player, command);
+        } catch (RuntimeException e) {
+          return 1 - seat;
+        }
+        this.moves++;
+      }
+      return -1;
+    }
+
+    private BotPolicy policy(int entrant) {
+      if (this.instances[entrant] == null) {
+        this.instances[entrant] = policies.get(entrant).get();
+      }
+      return this.instances[entrant];
+    }
+  }
+}
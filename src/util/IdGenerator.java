@@ -0,0 +1,163 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Generates unique, roughly time-ordered 64-bit ids without contention.
+ *
+ * An id is laid out as [0][41 bits milliseconds since 2024-01-01][10 bits node][4 bits lane]
+ * [8 bits sequence]. Threads are spread over 16 lanes, each with its own clock and sequence, so
+ * threads only contend with others on the same lane; a lane that uses up its sequence within a
+ * millisecond borrows the next millisecond rather than waiting. Ids from one lane are strictly
+ * increasing, and ids from different nodes or lanes can never collide.
+ *
+ * The string form is 13 characters of Crockford base32, which sorts the same way as the ids.
+ * Only the upper-case form parses, so each id has exactly one string form.
+ */
+public class IdGenerator {
+  public static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+  public static final int NODE_BITS = 10;
+  public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+  public static final int STRING_LENGTH = 13;
+
+  private static final int LANE_BITS = 4;
+  private static final int SEQUENCE_BITS = 8;
+  private static final int LANES = 1 << LANE_BITS;
+  private static final int SEQUENCE_MASK = (1 << SEQUENCE_BITS) - 1;
+  private static final int TIME_SHIFT = NODE_BITS + LANE_BITS + SEQUENCE_BITS;
+  private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+  private static final byte[] DIGITS = new byte[128];
+  private static final String NODE_PROPERTY = "liarsbar.nodeId";
+  private static final IdGenerator DEFAULT = new IdGenerator(Integer.getInteger(NODE_PROPERTY, 0));
+
+  static {
+    Arrays.fill(DIGITS, (byte) -1);
+    for (int i = 0; i < ALPHABET.length; i++) {
+      DIGITS[ALPHABET[i]] = (byte) i;
+    }
+  }
+
+  private final long nodeBits;
+  private final Lane[] lanes = new Lane[LANES];
+
+  /**
+   * @param nodeId id of this server, unique among the servers sharing ids.
+   */
+  public IdGenerator(int nodeId) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+    }
+    this.nodeBits = (long) nodeId << (LANE_BITS + SEQUENCE_BITS);
+    for (int i = 0; i < LANES; i++) {
+      this.lanes[i] = new Lane((long) i << SEQUENCE_BITS);
+    }
+  }
+
+  /**
+   * Getter for the shared generator, whose node id is taken from the liarsbar.nodeId system
+   * property (0 if unset).
+   * @return the shared generator.
+   */
+  public static IdGenerator getDefault() {
+    return DEFAULT;
+  }
+
+  public long nextId() {
+    Lane lane = this.lanes[(int) Thread.currentThread().getId() & (LANES - 1)];
+    long now = System.currentTimeMillis() - EPOCH_MILLIS;
+    synchronized (lane) {
+      if (now > lane.millis) {
+        lane.millis = now;
+        lane.sequence = 0;
+      } else if (++lane.sequence > SEQUENCE_MASK) {
+        lane.millis++; // borrow the next millisecond so ids keep increasing
+        lane.sequence = 0;
+      }
+      return (lane.millis << TIME_SHIFT) | this.nodeBits | lane.bits | lane.sequence;
+    }
+  }
+
+  public String nextString() {
+    return toString(nextId());
+  }
+
+  /**
+   * Formats an id as 13 characters of Crockford base32.
+   * @param id a non-negative id.
+   * @return the string form.
+   */
+  public static String toString(long id) {
+    char[] chars = new char[STRING_LENGTH];
+    for (int i = STRING_LENGTH - 1; i >= 0; i--) {
+      chars[i] = ALPHABET[(int) (id & 31)];
+      id >>>= 5;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Parses the string form of an id.
+   * @param value the string form.
+   * @return the id.
+   * @throws IllegalArgumentException if the string is not an id.
+   */
+  public static long parse(String value) {
+    long id = tryParse(value);
+    if (id < 0) {
+      throw new IllegalArgumentException("Not an id: " + value);
+    }
+    return id;
+  }
+
+  /**
+   * Parses the string form of an id, without throwing.
+   * @param value the string form, as written by {@link #toString(long)}.
+   * @return the id, or -1 if the string is not an id; lower-case letters are not accepted.
+   */
+  public static long tryParse(String value) {
+    if (value == null || value.length() != STRING_LENGTH) {
+      return -1;
+    }
+    long id = 0;
+    for (int i = 0; i < STRING_LENGTH; i++) {
+      char c = value.charAt(i);
+      int digit = c < DIGITS.length ? DIGITS[c] : -1;
+      if (digit < 0 || (i == 0 && digit > 7)) {
+        return -1; // the first character only holds bits 60 to 63 and the sign bit must be clear
+      }
+      id = (id << 5) | digit;
+    }
+    return id;
+  }
+
+  /**
+   * Getter for when an id was generated.
+   * @param id an id from this generator.
+   * @return epoch milliseconds.
+   */
+  public static long timestampOf(long id) {
+    return (id >>> TIME_SHIFT) + EPOCH_MILLIS;
+  }
+
+  /**
+   * Getter for the node that generated an id.
+   * @param id an id from this generator.
+   * @return the node id.
+   */
+  public static int nodeOf(long id) {
+    return (int) (id >>> (LANE_BITS + SEQUENCE_BITS)) & MAX_NODE_ID;
+  }
+
+  /**
+   * Clock and sequence of one lane; guarded by its own lock.
+   */
+  private static class Lane {
+    private final long bits;
+    private long millis;
+    private long sequence;
+
+    private Lane(long bits) {
+      this.bits = bits;
+    }
+  }
+}
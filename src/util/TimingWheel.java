@@ -0,0 +1,318 @@
+package util;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed hierarchical timing wheel for large numbers of short-lived timeouts.
+ *
+ * Time advances in fixed ticks. Level 0 has one slot per tick; each higher level has the same
+ * number of slots, each covering a whole rotation of the level below. A timeout is filed in the
+ * lowest level whose current rotation contains its deadline, in a doubly linked bucket, so
+ * scheduling and cancelling are O(1) regardless of how many timeouts are pending. When a lower
+ * level completes a rotation the matching slot of the level above is cascaded down; level 0
+ * slots are expired as their tick passes. Deadlines are rounded up to a whole tick.
+ *
+ * Tasks run on the thread advancing the wheel, either the thread started by {@link #start()} or
+ * the caller of {@link #advanceTo(long)}, and must hand off anything that blocks.
+ */
+public class TimingWheel implements Closeable {
+  private static final int DEFAULT_WHEEL_BITS = 8;
+  private static final int DEFAULT_LEVELS = 4;
+
+  private final long tickNanos;
+  private final int wheelBits;
+  private final int wheelMask;
+  private final Bucket[][] levels;
+  private final long startNanos;
+  private long currentTick;
+  private int pending;
+  private Thread worker;
+  private volatile boolean running;
+
+  /**
+   * @param tick length of one tick.
+   * @param unit unit of the tick.
+   */
+  public TimingWheel(long tick, TimeUnit unit) {
+    this(tick, unit, DEFAULT_WHEEL_BITS, DEFAULT_LEVELS);
+  }
+
+  /**
+   * @param tick length of one tick.
+   * @param unit unit of the tick.
+   * @param wheelBits log2 of the number of slots per level.
+   * @param levelCount number of levels; deadlines beyond the top level are cascaded repeatedly.
+   */
+  public TimingWheel(long tick, TimeUnit unit, int wheelBits, int levelCount) {
+    if (tick <= 0 || wheelBits <= 0 || levelCount <= 0 || (long) wheelBits * levelCount >= 63) {
+      throw new IllegalArgumentException("Invalid timing wheel dimensions");
+    }
+    this.tickNanos = unit.toNanos(tick);
+    this.wheelBits = wheelBits;
+    this.wheelMask = (1 << wheelBits) - 1;
+    this.levels = new Bucket[levelCount][1 << wheelBits];
+    for (Bucket[] level : this.levels) {
+      for (int slot = 0; slot < level.length; slot++) {
+        level[slot] = new Bucket();
+      }
+    }
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Schedules a task.
+   * @param task the task to run once the delay has passed.
+   * @param delay delay before running the task.
+   * @param unit unit of the delay.
+   * @return handle for cancelling the task.
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    long delayTicks = Math.max(1, (unit.toNanos(delay) + this.tickNanos - 1) / this.tickNanos);
+    long nowTick = (System.nanoTime() - this.startNanos) / this.tickNanos;
+    synchronized (this) {
+      // Measure from real time so a wheel that is behind does not stretch the delay
+      Timeout timeout = new Timeout(this, task, Math.max(nowTick, this.currentTick) + delayTicks);
+      file(timeout);
+      this.pending++;
+      return timeout;
+    }
+  }
+
+  /**
+   * Getter for the number of timeouts waiting to expire.
+   * @return pending timeouts.
+   */
+  public synchronized int size() {
+    return this.pending;
+  }
+
+  /**
+   * Starts a daemon thread that advances the wheel once per tick.
+   */
+  public synchronized void start() {
+    if (this.worker != null) {
+      return;
+    }
+    this.running = true;
+    this.worker = new Thread(this::run, "timing-wheel");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * Advances the wheel up to the given time, running every task that has come due.
+   * @param nanoTime time as returned by {@link System#nanoTime()}.
+   * @return number of tasks run.
+   */
+  public int advanceTo(long nanoTime) {
+    long targetTick = (nanoTime - this.startNanos) / this.tickNanos;
+    List<Timeout> expired = new ArrayList<>();
+    synchronized (this) {
+      while (this.currentTick < targetTick) {
+        if (this.pending == 0) {
+          this.currentTick = targetTick; // nothing to cascade or expire on the way
+          break;
+        }
+        this.currentTick++;
+        for (int level = this.levels.length - 1; level > 0; level--) {
+          if ((this.currentTick & ((1L << (this.wheelBits * level)) - 1)) == 0) {
+            cascade(this.levels[level][slotOf(this.currentTick, level)], expired);
+          }
+        }
+        Bucket due = this.levels[0][slotOf(this.currentTick, 0)];
+        for (Timeout timeout = due.detach(); timeout != null; ) {
+          Timeout next = timeout.next;
+          expire(timeout, expired);
+          timeout = next;
+        }
+      }
+    }
+
+    for (Timeout timeout : expired) {
+      try {
+        timeout.task.run();
+      } catch (RuntimeException e) {
+        System.err.println("Timer task failed: " + e.getMessage());
+      }
+    }
+    return expired.size();
+  }
+
+  /**
+   * Stops the thread started by {@link #start()}. Pending timeouts are not run.
+   */
+  @Override
+  public void close() {
+    Thread thread;
+    synchronized (this) {
+      this.running = false;
+      thread = this.worker;
+      this.worker = null;
+    }
+    if (thread != null) {
+      thread.interrupt();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void run() {
+    long next = System.nanoTime();
+    while (this.running) {
+      next += this.tickNanos;
+      long sleep = next - System.nanoTime();
+      if (sleep > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleep);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+      advanceTo(System.nanoTime());
+    }
+  }
+
+  /** Files a timeout in the lowest level whose current rotation contains its deadline. */
+  private void file(Timeout timeout) {
+    long deadline = Math.max(timeout.deadlineTick, this.currentTick + 1);
+    int level = 0;
+    while (level < this.levels.length - 1
+        && (deadline >>> (this.wheelBits * (level + 1))) != (this.currentTick >>> (this.wheelBits * (level + 1)))) {
+      level++;
+    }
+    this.levels[level][slotOf(deadline, level)].add(timeout);
+  }
+
+  /**
+   * Files the timeouts of a higher-level slot one level down, expiring those due at the current
+   * tick, which a deadline on a level boundary is, rather than filing them a tick late.
+   */
+  private void cascade(Bucket bucket, List<Timeout> expired) {
+    for (Timeout timeout = bucket.detach(); timeout != null; ) {
+      Timeout next = timeout.next;
+      if (timeout.deadlineTick <= this.currentTick) {
+        expire(timeout, expired);
+      } else {
+        timeout.next = null;
+        timeout.prev = null;
+        timeout.bucket = null;
+        file(timeout);
+      }
+      timeout = next;
+    }
+  }
+
+  private void expire(Timeout timeout, List<Timeout> expired) {
+    timeout.next = null;
+    timeout.prev = null;
+    timeout.bucket = null;
+    timeout.expired = true;
+    this.pending--;
+    expired.add(timeout);
+  }
+
+  private int slotOf(long tick, int level) {
+    return (int) (tick >>> (this.wheelBits * level)) & this.wheelMask;
+  }
+
+  private synchronized boolean cancel(Timeout timeout) {
+    if (timeout.expired || timeout.cancelled) {
+      return false;
+    }
+    timeout.cancelled = true;
+    if (timeout.bucket != null) {
+      timeout.bucket.remove(timeout);
+    }
+    this.pending--;
+    return true;
+  }
+
+  /**
+   * Handle of a scheduled task.
+   */
+  public static final class Timeout {
+    private final TimingWheel wheel;
+    private final Runnable task;
+    private final long deadlineTick;
+    private Timeout prev;
+    private Timeout next;
+    private Bucket bucket;
+    private boolean expired;
+    private boolean cancelled;
+
+    private Timeout(TimingWheel wheel, Runnable task, long deadlineTick) {
+      this.wheel = wheel;
+      this.task = task;
+      this.deadlineTick = deadlineTick;
+    }
+
+    /**
+     * Cancels the task if it has not run yet.
+     * @return true if this call cancelled it.
+     */
+    public boolean cancel() {
+      return this.wheel.cancel(this);
+    }
+
+    public boolean isExpired() {
+      synchronized (this.wheel) {
+        return this.expired;
+      }
+    }
+
+    public boolean isCancelled() {
+      synchronized (this.wheel) {
+        return this.cancelled;
+      }
+    }
+  }
+
+  /**
+   * Doubly linked list of the timeouts filed in one slot.
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      timeout.prev = this.tail;
+      if (this.tail == null) {
+        this.head = timeout;
+      } else {
+        this.tail.next = timeout;
+      }
+      this.tail = timeout;
+    }
+
+    private void remove(Timeout timeout) {
+      if (timeout.prev == null) {
+        this.head = timeout.next;
+      } else {
+        timeout.prev.next = timeout.next;
+      }
+      if (timeout.next == null) {
+        this.tail = timeout.prev;
+      } else {
+        timeout.next.prev = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+
+    /** Empties the bucket and returns its former head; the chain stays linked through next. */
+    private Timeout detach() {
+      Timeout first = this.head;
+      this.head = null;
+      this.tail = null;
+      return first;
+    }
+  }
+}